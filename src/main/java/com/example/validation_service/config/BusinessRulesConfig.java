@@ -0,0 +1,172 @@
+package com.example.validation_service.config;
+
+import com.example.validation_service.service.participant.MongoParticipantReferenceSource;
+import com.example.validation_service.service.participant.ParticipantReferenceStore;
+import com.example.validation_service.service.rules.AmountLimitTable;
+import com.example.validation_service.service.rules.FileRuleConfigSource;
+import com.example.validation_service.service.rules.MongoRuleConfigSource;
+import com.example.validation_service.service.rules.ParticipantDirectory;
+import com.example.validation_service.service.rules.RuleConfig;
+import com.example.validation_service.service.rules.RuleConfigHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Business rule parameters: the values in {@code application.properties}, optionally overridden at runtime from a
+ * properties file or a MongoDB document that is polled for changes, and the participant directory and reference
+ * data.
+ */
+@Configuration
+public class BusinessRulesConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(BusinessRulesConfig.class);
+
+    public enum SourceType {
+        NONE, FILE, MONGO
+    }
+
+    @Value("${" + RuleConfig.AMOUNT_MIN + ":0.01}")
+    private String minAmount;
+
+    @Value("${" + RuleConfig.AMOUNT_MAX + ":1000000.00}")
+    private String maxAmount;
+
+    @Value("${" + RuleConfig.CURRENCY_ALLOWED + ":USD,EUR,GBP}")
+    private String allowedCurrencies;
+
+    @Value("${" + RuleConfig.PARTICIPANT_PREFIXES + ":BANK,CUST}")
+    private String participantPrefixes;
+
+    @Value("${validation.rules.participant.directory-file:}")
+    private String participantDirectoryFile;
+
+    @Value("${validation.rules.participant.directory-reload-ms:60000}")
+    private long participantDirectoryReloadMs;
+
+    @Value("${validation.rules.participant.reference.enabled:false}")
+    private boolean participantReferenceEnabled;
+
+    @Value("${validation.rules.participant.reference.snapshot-path:data/participants.snapshot}")
+    private String participantSnapshotPath;
+
+    @Value("${validation.rules.participant.reference.mongo.collection:participants}")
+    private String participantCollection;
+
+    @Value("${validation.rules.participant.reference.refresh-interval-ms:300000}")
+    private long participantRefreshMs;
+
+    @Value("${validation.rules.participant.reference.scheme:}")
+    private String participantScheme;
+
+    @Value("${" + RuleConfig.CUTOFF_TIME + ":17:00:00}")
+    private String cutoffTime;
+
+    @Value("${" + RuleConfig.DISABLED + ":}")
+    private String disabledRules;
+
+    @Value("${validation.rules.reload.source:none}")
+    private String sourceName;
+
+    @Value("${validation.rules.reload.file:config/rules.properties}")
+    private String file;
+
+    @Value("${validation.rules.reload.mongo.collection:rule_config}")
+    private String mongoCollection;
+
+    @Value("${validation.rules.reload.mongo.document-id:active}")
+    private String mongoDocumentId;
+
+    @Value("${validation.rules.reload.interval-ms:5000}")
+    private long intervalMs;
+
+    @Bean
+    public RuleConfigHolder ruleConfigHolder(ObjectProvider<MongoTemplate> mongoTemplate,
+                                             ConfigurableEnvironment environment) {
+        Map<String, String> baseline = new HashMap<>(propertiesWithPrefix(environment, AmountLimitTable.PREFIX));
+        baseline.put(RuleConfig.AMOUNT_MIN, minAmount);
+        baseline.put(RuleConfig.AMOUNT_MAX, maxAmount);
+        baseline.put(RuleConfig.CURRENCY_ALLOWED, allowedCurrencies);
+        baseline.put(RuleConfig.PARTICIPANT_PREFIXES, participantPrefixes);
+        baseline.put(RuleConfig.CUTOFF_TIME, cutoffTime);
+        baseline.put(RuleConfig.DISABLED, disabledRules);
+        RuleConfigHolder holder = new RuleConfigHolder(baseline);
+
+        switch (resolveSourceType(sourceName)) {
+            case FILE:
+                holder.startReloading(new FileRuleConfigSource(Paths.get(file)), Duration.ofMillis(intervalMs));
+                break;
+            case MONGO:
+                holder.startReloading(new MongoRuleConfigSource(mongoTemplate.getObject(), mongoCollection, mongoDocumentId),
+                        Duration.ofMillis(intervalMs));
+                break;
+            default:
+                logger.info("Rule configuration is not reloaded: {}", holder.current());
+        }
+        return holder;
+    }
+
+    @Bean
+    public ParticipantDirectory participantDirectory() {
+        if (participantDirectoryFile == null || participantDirectoryFile.isBlank()) {
+            return ParticipantDirectory.none();
+        }
+        ParticipantDirectory directory = ParticipantDirectory.load(Paths.get(participantDirectoryFile.trim()));
+        if (participantDirectoryReloadMs > 0) {
+            directory.startReloading(Duration.ofMillis(participantDirectoryReloadMs));
+        }
+        return directory;
+    }
+
+    @Bean
+    public ParticipantReferenceStore participantReferenceStore(ObjectProvider<MongoTemplate> mongoTemplate) {
+        if (!participantReferenceEnabled) {
+            return ParticipantReferenceStore.none();
+        }
+        String scheme = participantScheme == null || participantScheme.isBlank() ? null : participantScheme.trim();
+        ParticipantReferenceStore store = new ParticipantReferenceStore(Paths.get(participantSnapshotPath), scheme,
+                new MongoParticipantReferenceSource(mongoTemplate.getObject(), participantCollection),
+                Duration.ofMillis(participantRefreshMs), System::currentTimeMillis);
+        store.startRefreshing();
+        return store;
+    }
+
+    /**
+     * Properties whose keys are not known in advance, such as the currency codes of amount limits.
+     */
+    private static Map<String, String> propertiesWithPrefix(ConfigurableEnvironment environment, String prefix) {
+        Map<String, String> properties = new HashMap<>();
+        for (PropertySource<?> source : environment.getPropertySources()) {
+            if (source instanceof EnumerablePropertySource) {
+                for (String name : ((EnumerablePropertySource<?>) source).getPropertyNames()) {
+                    if (name.startsWith(prefix)) {
+                        // The environment resolves each key from its highest-precedence source
+                        properties.putIfAbsent(name, environment.getProperty(name));
+                    }
+                }
+            }
+        }
+        return properties;
+    }
+
+    private static SourceType resolveSourceType(String name) {
+        try {
+            return SourceType.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            logger.error("Unknown rule configuration source '{}'. Defaulting to NONE.", name);
+            return SourceType.NONE;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.validation_service.config;
+
+import com.example.validation_service.service.dedup.DuplicateKeySpec;
+import com.example.validation_service.service.dedup.DuplicateStore;
+import com.example.validation_service.service.dedup.DuplicateWarmUp;
+import com.example.validation_service.service.dedup.MappedDuplicateStore;
+import com.example.validation_service.service.dedup.PartitionedDuplicateStore;
+import com.example.validation_service.service.dedup.RotatingBloomFilter;
+import com.example.validation_service.service.dedup.ShardedDuplicateCache;
+import com.example.validation_service.service.dedup.TieredDuplicateStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Chooses where the duplicate check keeps the keys it has seen: an on-heap cache that starts empty on every restart,
+ * a memory-mapped file that is reopened on startup, either of them behind a Bloom filter that answers for keys
+ * that are certainly new, or on-heap caches per inbound partition backed by a compacted changelog topic. Stores that
+ * are not restored per partition are warmed up at startup from the validated topic.
+ */
+@Configuration
+public class DuplicateStoreConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(DuplicateStoreConfig.class);
+
+    public enum StoreType {
+        MEMORY, MAPPED, TIERED, PARTITIONED
+    }
+
+    @Value("${validation.rules.duplicate.store:memory}")
+    private String storeName;
+
+    @Value("${validation.rules.duplicate.cache.size:1000}")
+    private int cacheSize;
+
+    @Value("${validation.rules.duplicate.cache.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    @Value("${validation.rules.duplicate.cache.shards:16}")
+    private int shards;
+
+    @Value("${validation.rules.duplicate.mapped.path:data/duplicate-ids.dat}")
+    private String mappedPath;
+
+    @Value("${validation.rules.duplicate.mapped.capacity:16777216}")
+    private long mappedCapacity;
+
+    @Value("${validation.rules.duplicate.filter.exact-store:mapped}")
+    private String exactStoreName;
+
+    @Value("${validation.rules.duplicate.filter.expected-insertions:10000000}")
+    private long filterExpectedInsertions;
+
+    @Value("${validation.rules.duplicate.filter.false-positive-rate:0.01}")
+    private double filterFalsePositiveRate;
+
+    @Value("${validation.rules.duplicate.filter.generations:4}")
+    private int filterGenerations;
+
+    @Value("${spring.kafka.consumer.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${app.kafka.topic.instant-payment-inbound}")
+    private String inboundTopic;
+
+    @Value("${validation.rules.duplicate.changelog.topic:validation-service.duplicate-changelog}")
+    private String changelogTopic;
+
+    @Value("${validation.rules.duplicate.changelog.restore-timeout-ms:60000}")
+    private long restoreTimeoutMs;
+
+    @Value("${validation.rules.duplicate.key-fields:msgId}")
+    private String keyFields;
+
+    @Value("${app.kafka.topic.instant-payment-validated}")
+    private String validatedTopic;
+
+    @Value("${validation.rules.duplicate.warm-up.enabled:true}")
+    private boolean warmUpEnabled;
+
+    @Value("${validation.rules.duplicate.warm-up.timeout-ms:30000}")
+    private long warmUpTimeoutMs;
+
+    @Value("${validation.rules.duplicate.warm-up.parallelism:4}")
+    private int warmUpParallelism;
+
+    @Bean
+    public DuplicateStore duplicateStore(MeterRegistry meterRegistry) {
+        StoreType type = resolveStoreType(storeName);
+        if (type == StoreType.PARTITIONED) {
+            logger.info("Duplicate check keeps state per partition of {}, with changelog {}.", inboundTopic, changelogTopic);
+            return partitionedStore();
+        }
+        if (type != StoreType.TIERED) {
+            logger.info("Duplicate check uses the {} store.", type);
+            return exactStore(type);
+        }
+        StoreType exactType = resolveStoreType(exactStoreName);
+        if (exactType == StoreType.TIERED || exactType == StoreType.PARTITIONED) {
+            logger.error("The exact store behind the duplicate filter must be MEMORY or MAPPED. Defaulting to MAPPED.");
+            exactType = StoreType.MAPPED;
+        }
+        RotatingBloomFilter filter = new RotatingBloomFilter(filterExpectedInsertions, filterFalsePositiveRate,
+                ttlSeconds * 1000, filterGenerations, System::currentTimeMillis);
+        logger.info("Duplicate check uses a {} MB filter in front of the {} store.", filter.memoryBytes() >> 20, exactType);
+        return new TieredDuplicateStore(filter, filteredExactStore(exactType), meterRegistry);
+    }
+
+    @Bean
+    public DuplicateWarmUp duplicateWarmUp(DuplicateStore duplicateStore) {
+        boolean enabled = warmUpEnabled;
+        if (enabled && resolveStoreType(storeName) == StoreType.PARTITIONED) {
+            logger.info("Duplicate store warm-up skipped: partitioned state is restored from its changelog.");
+            enabled = false;
+        } else if (enabled && !DuplicateKeySpec.parse(keyFields).messageLevel()) {
+            logger.warn("Duplicate store warm-up skipped: {} is keyed by transactionId, not by key fields {}.",
+                    validatedTopic, keyFields);
+            enabled = false;
+        }
+        // Only record keys are used; values are not deserialized
+        DefaultKafkaConsumerFactory<String, byte[]> consumerFactory =
+                new DefaultKafkaConsumerFactory<>(standaloneConsumerProps(), new StringDeserializer(), new ByteArrayDeserializer());
+        return new DuplicateWarmUp(validatedTopic, duplicateStore, consumerFactory::createConsumer, ttlSeconds * 1000,
+                Duration.ofMillis(warmUpTimeoutMs), warmUpParallelism, enabled, System::currentTimeMillis);
+    }
+
+    private DuplicateStore exactStore(StoreType type) {
+        if (type == StoreType.MAPPED) {
+            return new MappedDuplicateStore(Paths.get(mappedPath), mappedCapacity, ttlSeconds * 1000, System::currentTimeMillis);
+        }
+        return new ShardedDuplicateCache(cacheSize, ttlSeconds * 1000, shards, System::currentTimeMillis);
+    }
+
+    // The exact store behind the filter decides every possible repeat, so it must hold the filter's whole window
+    private DuplicateStore filteredExactStore(StoreType type) {
+        if (type == StoreType.MAPPED) {
+            return exactStore(type);
+        }
+        int capacity = (int) Math.min(Integer.MAX_VALUE, Math.max(cacheSize, filterExpectedInsertions));
+        if (capacity > cacheSize) {
+            logger.warn("The memory store behind the duplicate filter holds up to {} keys on the heap, the filter's "
+                    + "expected insertions, instead of validation.rules.duplicate.cache.size {}.", capacity, cacheSize);
+        }
+        return new ShardedDuplicateCache(capacity, ttlSeconds * 1000, shards, System::currentTimeMillis);
+    }
+
+    private PartitionedDuplicateStore partitionedStore() {
+        Map<String, Object> producerProps = new HashMap<>();
+        producerProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        producerProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        DefaultKafkaProducerFactory<String, String> producerFactory =
+                new DefaultKafkaProducerFactory<>(producerProps, new StringSerializer(), new StringSerializer());
+
+        DefaultKafkaConsumerFactory<String, String> consumerFactory =
+                new DefaultKafkaConsumerFactory<>(standaloneConsumerProps(), new StringDeserializer(), new StringDeserializer());
+
+        return new PartitionedDuplicateStore(inboundTopic, changelogTopic, producerFactory.createProducer(),
+                consumerFactory::createConsumer, Duration.ofMillis(restoreTimeoutMs),
+                cacheSize, ttlSeconds * 1000, shards, System::currentTimeMillis);
+    }
+
+    // Restore consumers read assigned partitions directly, outside any consumer group
+    private Map<String, Object> standaloneConsumerProps() {
+        Map<String, Object> consumerProps = new HashMap<>();
+        consumerProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        consumerProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return consumerProps;
+    }
+
+    private static StoreType resolveStoreType(String name) {
+        try {
+            return StoreType.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            logger.error("Unknown duplicate store '{}'. Defaulting to MEMORY.", name);
+            return StoreType.MEMORY;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.validation_service.config;
 
+import com.example.validation_service.service.dedup.DuplicateStore;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -9,7 +12,7 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
-import org.springframework.kafka.listener.LoggingErrorHandler;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -26,20 +29,53 @@ public class KafkaConsumerConfig {
 
     @Bean
     public ConsumerFactory<String, String> consumerFactory() {
-        Map<String, Object> props = new HashMap<>();
-        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        Map<String, Object> props = consumerProps();
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         return new DefaultKafkaConsumerFactory<>(props);
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory(DuplicateStore duplicateStore) {
         ConcurrentKafkaListenerContainerFactory<String, String> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
-        factory.setErrorHandler(new LoggingErrorHandler()); // Basic error handling
+        factory.setCommonErrorHandler(new DefaultErrorHandler()); // Basic error handling
+        registerRebalanceListener(factory, duplicateStore);
         return factory;
     }
+
+    // Byte-oriented variant: payloads reach the parser as the raw UTF-8 bytes from the broker
+    @Bean
+    public ConsumerFactory<String, byte[]> byteArrayConsumerFactory() {
+        Map<String, Object> props = consumerProps();
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> byteArrayKafkaListenerContainerFactory(
+            DuplicateStore duplicateStore) {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(byteArrayConsumerFactory());
+        factory.setCommonErrorHandler(new DefaultErrorHandler()); // Basic error handling
+        registerRebalanceListener(factory, duplicateStore);
+        return factory;
+    }
+
+    // Partition-scoped duplicate state follows the container's assignment
+    private static void registerRebalanceListener(ConcurrentKafkaListenerContainerFactory<?, ?> factory,
+                                                  DuplicateStore duplicateStore) {
+        if (duplicateStore instanceof ConsumerRebalanceListener) {
+            factory.getContainerProperties().setConsumerRebalanceListener((ConsumerRebalanceListener) duplicateStore);
+        }
+    }
+
+    private Map<String, Object> consumerProps() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        return props;
+    }
 }
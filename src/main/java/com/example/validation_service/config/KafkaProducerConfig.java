@@ -10,6 +10,7 @@ import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.StringUtils;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -20,6 +21,10 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.producer.bootstrap-servers}")
     private String bootstrapServers;
 
+    // Empty for a producer without transactions
+    @Value("${app.kafka.producer.transaction-id-prefix:}")
+    private String transactionIdPrefix;
+
     @Bean
     public ProducerFactory<String, ValidatedPayment> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
@@ -33,11 +38,19 @@ public class KafkaProducerConfig {
         JsonSerializer<ValidatedPayment> jsonSerializer = new JsonSerializer<>();
         jsonSerializer.setAddTypeInfo(false); // Set to true if consumer needs __TypeId__ headers
 
-        return new DefaultKafkaProducerFactory<>(configProps, new StringSerializer(), jsonSerializer);
+        DefaultKafkaProducerFactory<String, ValidatedPayment> factory =
+                new DefaultKafkaProducerFactory<>(configProps, new StringSerializer(), jsonSerializer);
+        if (StringUtils.hasText(transactionIdPrefix)) {
+            factory.setTransactionIdPrefix(transactionIdPrefix);
+        }
+        return factory;
     }
 
     @Bean
     public KafkaTemplate<String, ValidatedPayment> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+        KafkaTemplate<String, ValidatedPayment> template = new KafkaTemplate<>(producerFactory());
+        // Messages parsed as a whole publish their one payment outside a transaction
+        template.setAllowNonTransactional(true);
+        return template;
     }
 }
@@ -2,7 +2,9 @@ package com.example.validation_service.consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.example.validation_service.service.PayloadLimitExceededException;
 import com.example.validation_service.service.PaymentProcessingService;
+import com.example.validation_service.service.parser.ParserLimits;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,20 +12,26 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+
 @Component
 public class PaymentMessageConsumer {
 
     private static final Logger logger = LoggerFactory.getLogger(PaymentMessageConsumer.class);
 
     private final PaymentProcessingService paymentProcessingService;
+    private final ParserLimits parserLimits;
 
     @Autowired
-    public PaymentMessageConsumer(PaymentProcessingService paymentProcessingService) {
+    public PaymentMessageConsumer(PaymentProcessingService paymentProcessingService, ParserLimits parserLimits) {
         this.paymentProcessingService = paymentProcessingService;
+        this.parserLimits = parserLimits;
     }
 
+    // Only one of the two listeners is started, selected by app.kafka.consumer.payload-format (string|bytes)
     @KafkaListener(topics = "${app.kafka.topic.instant-payment-inbound}",
-                   groupId = "${spring.kafka.consumer.group-id}")
+                   groupId = "${spring.kafka.consumer.group-id}",
+                   autoStartup = "#{'${app.kafka.consumer.payload-format:bytes}' == 'string'}")
     public void receivePaymentMessage(ConsumerRecord<String, String> record) {
         String xmlPayload = record.value();
         String kafkaKey = record.key(); // Potentially useful for logging context
@@ -42,8 +50,17 @@ public class PaymentMessageConsumer {
             return;
         }
 
+        // The limit is defined on the UTF-8 size, which is only counted if three bytes per character could exceed it
+        if ((long) xmlPayload.length() * 3 > parserLimits.maxPayloadBytes()) {
+            long size = utf8Length(xmlPayload);
+            if (size > parserLimits.maxPayloadBytes()) {
+                paymentProcessingService.rejectOverLimit(xmlPayload, oversized(size, kafkaKey));
+                return;
+            }
+        }
+
         try {
-            paymentProcessingService.process(xmlPayload);
+            paymentProcessingService.process(xmlPayload, partition);
         } catch (Exception e) {
             // This catch block is for unexpected errors propagating from PaymentProcessingService
             // or issues not caught within its own try-catch (which should be rare if comprehensive).
@@ -55,4 +72,84 @@ public class PaymentMessageConsumer {
             // However, PaymentProcessingService should have already logged the specific failure.
         }
     }
+
+    @KafkaListener(topics = "${app.kafka.topic.instant-payment-inbound}",
+                   groupId = "${spring.kafka.consumer.group-id}",
+                   containerFactory = "byteArrayKafkaListenerContainerFactory",
+                   autoStartup = "#{'${app.kafka.consumer.payload-format:bytes}' == 'bytes'}")
+    public void receivePaymentMessageBytes(ConsumerRecord<String, byte[]> record) {
+        byte[] xmlPayload = record.value();
+        String kafkaKey = record.key(); // Potentially useful for logging context
+        long offset = record.offset();
+        int partition = record.partition();
+
+        logger.info("Received message: key='{}', partition={}, offset={}, topic='{}'",
+                    kafkaKey, partition, offset, record.topic());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Payload: {}", xmlPayload == null ? null : new String(xmlPayload, StandardCharsets.UTF_8));
+        }
+
+        if (isBlank(xmlPayload)) {
+            logger.warn("Received null or empty message from Kafka. Key: {}. Skipping processing.", kafkaKey);
+            return;
+        }
+
+        if (xmlPayload.length > parserLimits.maxPayloadBytes()) {
+            paymentProcessingService.rejectOverLimit(xmlPayload, oversized(xmlPayload.length, kafkaKey));
+            return;
+        }
+
+        try {
+            paymentProcessingService.process(xmlPayload, partition);
+        } catch (Exception e) {
+            // Last resort, see receivePaymentMessage. The payload is only decoded for this log line.
+            logger.error("Unhandled exception during message processing for key {}. Payload: {}. Error: {}",
+                         kafkaKey, new String(xmlPayload, StandardCharsets.UTF_8), e.getMessage(), e);
+        }
+    }
+
+    private PayloadLimitExceededException oversized(long size, String kafkaKey) {
+        logger.warn("Rejecting message of {} bytes before parsing; limit is {}. Key: {}",
+                    size, parserLimits.maxPayloadBytes(), kafkaKey);
+        return new PayloadLimitExceededException(ParserLimits.PAYLOAD_SIZE,
+                "Payload size " + size + " exceeds limit of " + parserLimits.maxPayloadBytes() + " bytes.");
+    }
+
+    /**
+     * The number of bytes {@code text} encodes to in UTF-8, counted without encoding it.
+     */
+    static long utf8Length(String text) {
+        long bytes = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                // A supplementary character takes four bytes for its two chars
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // An unpaired surrogate is encoded as '?'
+                bytes++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static boolean isBlank(byte[] payload) {
+        if (payload == null) {
+            return true;
+        }
+        for (byte b : payload) {
+            // Same characters String.trim() strips; any byte above the ASCII range is content
+            if ((b & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -0,0 +1,101 @@
+package com.example.validation_service.dto;
+
+import java.util.Arrays;
+import java.util.Currency;
+
+/**
+ * Static index of ISO 4217 currency codes. A three-letter code maps to an id in {@code 0..COUNT-1} by treating its
+ * letters as base-26 digits, so every code has its own id without a table lookup and ids can index flat arrays and
+ * bit sets. The id is computed once when the currency is set on {@link RawPaymentData}; later stages compare and
+ * index by it instead of the string.
+ */
+public final class CurrencyCode {
+
+    /**
+     * The id of anything that is not three letters.
+     */
+    public static final int UNKNOWN = -1;
+
+    /**
+     * Number of ids, one per three-letter code.
+     */
+    public static final int COUNT = 26 * 26 * 26;
+
+    // ISO 4217 minor unit of each id: -1 for codes that are not ISO 4217 or have no minor unit, such as XAU
+    private static final byte[] EXPONENTS = new byte[COUNT];
+    // Canonical upper-case code of each ISO 4217 id, null for the others
+    private static final String[] CODES = new String[COUNT];
+
+    static {
+        Arrays.fill(EXPONENTS, (byte) -1);
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            int id = id(currency.getCurrencyCode());
+            if (id != UNKNOWN) {
+                CODES[id] = currency.getCurrencyCode();
+                EXPONENTS[id] = (byte) currency.getDefaultFractionDigits();
+            }
+        }
+    }
+
+    private CurrencyCode() {
+    }
+
+    /**
+     * The id of a three-letter code, ignoring case and surrounding whitespace as the currency rule always has, or
+     * {@link #UNKNOWN} if {@code code} is not three letters. Does not allocate.
+     */
+    public static int id(CharSequence code) {
+        if (code == null) {
+            return UNKNOWN;
+        }
+        int start = 0;
+        int end = code.length();
+        while (start < end && code.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && code.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (end - start != 3) {
+            return UNKNOWN;
+        }
+        int id = 0;
+        for (int i = start; i < end; i++) {
+            int letter = (code.charAt(i) | 0x20) - 'a';
+            if (letter < 0 || letter >= 26) {
+                return UNKNOWN;
+            }
+            id = id * 26 + letter;
+        }
+        return id;
+    }
+
+    /**
+     * The upper-case code of {@code id}, or {@code null} for {@link #UNKNOWN}.
+     */
+    public static String code(int id) {
+        if (id == UNKNOWN) {
+            return null;
+        }
+        String code = CODES[id];
+        if (code != null) {
+            return code;
+        }
+        return new String(new char[]{(char) ('A' + id / 676), (char) ('A' + id / 26 % 26), (char) ('A' + id % 26)});
+    }
+
+    /**
+     * Whether {@code id} is an ISO 4217 currency.
+     */
+    public static boolean isIso(int id) {
+        return id != UNKNOWN && CODES[id] != null;
+    }
+
+    /**
+     * The number of fraction digits of the currency's minor unit, e.g. 2 for USD and 0 for JPY, or -1 if {@code id}
+     * is not an ISO 4217 currency or has no minor unit.
+     */
+    public static int exponent(int id) {
+        return id == UNKNOWN ? -1 : EXPONENTS[id];
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.validation_service.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * A decimal amount held as a {@code long} count of units of {@code 10^-scale}, e.g. {@code 100.50} as 10050 with
+ * scale 2. The scale is the number of fraction digits as written, so the amount prints back as it was received.
+ * <p>
+ * ISO 20022 amounts have at most 18 digits, which always fit, so an amount is parsed from its characters once, when
+ * it is set on {@link RawPaymentData}, and compared without allocating; a {@link BigDecimal} is only built for the
+ * published payment.
+ */
+public final class MinorUnitAmount implements Comparable<MinorUnitAmount> {
+
+    public static final int MAX_SCALE = 18;
+
+    // Digits that always fit a long
+    private static final int MAX_DIGITS = 18;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final long units;
+    private final int scale;
+
+    private MinorUnitAmount(long units, int scale) {
+        this.units = units;
+        this.scale = scale;
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code scale} is negative or above {@link #MAX_SCALE}
+     */
+    public static MinorUnitAmount of(long units, int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Scale " + scale + " is outside 0.." + MAX_SCALE + ".");
+        }
+        return new MinorUnitAmount(units, scale);
+    }
+
+    /**
+     * Converts {@code value}, or returns {@code null} if it does not fit a {@code long} with a scale of at most
+     * {@link #MAX_SCALE}.
+     */
+    public static MinorUnitAmount of(BigDecimal value) {
+        BigDecimal plain = value.scale() < 0 ? value.setScale(0) : value;
+        if (plain.scale() > MAX_SCALE || plain.unscaledValue().bitLength() > 63) {
+            return null;
+        }
+        return new MinorUnitAmount(plain.unscaledValue().longValue(), plain.scale());
+    }
+
+    /**
+     * Parses a plain decimal such as {@code 100.50}, {@code -3} or {@code .5}, as {@link BigDecimal} would.
+     * Exponent notation, which ISO 20022 amounts do not use, is left to {@code BigDecimal}.
+     *
+     * @return the amount, or {@code null} if {@code text} is {@code null} or not a number that fits
+     */
+    public static MinorUnitAmount parse(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        long units = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_DIGITS) {
+                    return parseSlow(text);
+                }
+                units = units * 10 + (c - '0');
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (c == '.' && scale < 0) {
+                scale = 0;
+            } else if (c == 'e' || c == 'E') {
+                return parseSlow(text);
+            } else {
+                return null;
+            }
+        }
+        if (digits == 0) {
+            return null;
+        }
+        return new MinorUnitAmount(negative ? -units : units, Math.max(scale, 0));
+    }
+
+    private static MinorUnitAmount parseSlow(CharSequence text) {
+        try {
+            return of(new BigDecimal(text.toString()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public long units() {
+        return units;
+    }
+
+    public int scale() {
+        return scale;
+    }
+
+    /**
+     * Whether the amount has no non-zero digit beyond {@code scale} fraction digits, e.g. {@code 100.50} fits
+     * scale 1 but not scale 0.
+     *
+     * @param scale between 0 and {@link #MAX_SCALE}
+     */
+    public boolean fitsScale(int scale) {
+        return scale >= this.scale || units % POWERS_OF_TEN[this.scale - scale] == 0;
+    }
+
+    /**
+     * The amount in units of {@code 10^-scale}, truncating digits beyond {@code scale} and saturating at
+     * {@link Long#MAX_VALUE} or {@link Long#MIN_VALUE}, so the result still compares correctly with any limit.
+     *
+     * @param scale between 0 and {@link #MAX_SCALE}
+     */
+    public long unitsAt(int scale) {
+        if (scale == this.scale) {
+            return units;
+        }
+        if (scale < this.scale) {
+            return units / POWERS_OF_TEN[this.scale - scale];
+        }
+        long rescaled = rescale(units, scale - this.scale);
+        if (rescaled == Long.MIN_VALUE) {
+            return units < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+        return rescaled;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(units, scale);
+    }
+
+    /**
+     * Compares by numeric value, so {@code 1.0} and {@code 1.00} are equal here although {@link #equals} tells them
+     * apart, as with {@link BigDecimal}.
+     */
+    @Override
+    public int compareTo(MinorUnitAmount other) {
+        return compareTo(other.units, other.scale);
+    }
+
+    /**
+     * Compares with the amount {@code otherUnits} of {@code 10^-otherScale}, like {@link #compareTo(MinorUnitAmount)}
+     * but without an instance, e.g. for a limit read from a flat table.
+     *
+     * @param otherScale between 0 and {@link #MAX_SCALE}
+     */
+    public int compareTo(long otherUnits, int otherScale) {
+        if (scale == otherScale) {
+            return Long.compare(units, otherUnits);
+        }
+        long left = units;
+        long right = otherUnits;
+        if (scale < otherScale) {
+            left = rescale(units, otherScale - scale);
+        } else {
+            right = rescale(otherUnits, scale - otherScale);
+        }
+        if (left == Long.MIN_VALUE || right == Long.MIN_VALUE) {
+            // Out of range at the common scale
+            return toBigDecimal().compareTo(BigDecimal.valueOf(otherUnits, otherScale));
+        }
+        return Long.compare(left, right);
+    }
+
+    // Long.MIN_VALUE on overflow, which no rescaled amount can equal
+    private static long rescale(long units, int digits) {
+        long factor = POWERS_OF_TEN[digits];
+        long high = Math.multiplyHigh(units, factor);
+        long low = units * factor;
+        return high == (low >> 63) && low != Long.MIN_VALUE ? low : Long.MIN_VALUE;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MinorUnitAmount that = (MinorUnitAmount) o;
+        return units == that.units && scale == that.scale;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(units) + scale;
+    }
+
+    /**
+     * The amount in plain notation, as {@link BigDecimal#toPlainString()} prints it.
+     */
+    @Override
+    public String toString() {
+        if (scale == 0) {
+            return Long.toString(units);
+        }
+        StringBuilder text = new StringBuilder(24);
+        String digits = Long.toString(Math.abs(units));
+        if (units == Long.MIN_VALUE) {
+            digits = digits.substring(1);
+        }
+        if (units < 0) {
+            text.append('-');
+        }
+        if (digits.length() <= scale) {
+            text.append("0.");
+            for (int i = digits.length(); i < scale; i++) {
+                text.append('0');
+            }
+            return text.append(digits).toString();
+        }
+        int point = digits.length() - scale;
+        return text.append(digits, 0, point).append('.').append(digits, point, digits.length()).toString();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.validation_service.dto;
+
+import java.util.function.Function;
+
+/**
+ * The extracted fields of a {@link RawPaymentData}, each with a fixed bit in its presence mask and the label used
+ * in messages about it.
+ */
+public enum PaymentField {
+
+    MSG_ID("msgId", "MsgId", RawPaymentData::getMsgId),
+    INSTR_ID("instrId", "InstructionId (InstrId)", RawPaymentData::getInstrId),
+    END_TO_END_ID("endToEndId", "EndToEndId", RawPaymentData::getEndToEndId),
+    DEBTOR_NAME("debtorName", "Debtor Name (Dbtr.Nm)", RawPaymentData::getDebtorName),
+    DEBTOR_ID("debtorId", "Debtor ID (Dbtr.Id)", RawPaymentData::getDebtorId),
+    CREDITOR_NAME("creditorName", "Creditor Name (Cdtr.Nm)", RawPaymentData::getCreditorName),
+    CREDITOR_ID("creditorId", "Creditor ID (Cdtr.Id)", RawPaymentData::getCreditorId),
+    AMOUNT("amount", "Amount (Amt)", RawPaymentData::getAmount),
+    CURRENCY("currency", "Currency (Ccy)", RawPaymentData::getCurrency);
+
+    private final String property;
+    private final String label;
+    private final Function<RawPaymentData, String> accessor;
+    private final int bit;
+
+    PaymentField(String property, String label, Function<RawPaymentData, String> accessor) {
+        this.property = property;
+        this.label = label;
+        this.accessor = accessor;
+        this.bit = 1 << ordinal();
+    }
+
+    public String property() {
+        return property;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public String missingMessage() {
+        return label + " is missing or empty.";
+    }
+
+    public String valueIn(RawPaymentData data) {
+        return accessor.apply(data);
+    }
+
+    public int bit() {
+        return bit;
+    }
+
+    public static PaymentField fromProperty(String property) {
+        for (PaymentField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown payment field '" + property + "'.");
+    }
+
+    public static int mask(PaymentField... fields) {
+        int mask = 0;
+        for (PaymentField field : fields) {
+            mask |= field.bit;
+        }
+        return mask;
+    }
+}
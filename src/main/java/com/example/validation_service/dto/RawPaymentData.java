@@ -4,6 +4,8 @@ import java.util.Objects;
 
 public class RawPaymentData {
 
+    public static final int UNKNOWN_PARTITION = -1;
+
     private String msgId;
     private String instrId;
     private String endToEndId;
@@ -12,7 +14,13 @@ public class RawPaymentData {
     private String creditorName;
     private String creditorId; // Assuming this will be a string representation of the ID
     private String amount;
+    private MinorUnitAmount amountValue; // Parsed from amount by its setter; null if absent or not a number
     private String currency;
+    private int currencyId = CurrencyCode.UNKNOWN; // CurrencyCode id of currency, maintained by its setter
+    private String messageType; // e.g. pacs.008.001.08, from the Document namespace; null if not identified
+    private int presentFields; // PaymentField bits of the fields that hold text, maintained by the setters
+    private int transactionSequence; // 1-based position of the CdtTrfTxInf when a message is streamed per transaction, 0 otherwise
+    private int sourcePartition = UNKNOWN_PARTITION; // Inbound Kafka partition; transport metadata, not part of equality
 
     // Constructors
     public RawPaymentData() {
@@ -27,7 +35,18 @@ public class RawPaymentData {
         this.creditorName = creditorName;
         this.creditorId = creditorId;
         this.amount = amount;
+        this.amountValue = MinorUnitAmount.parse(amount);
         this.currency = currency;
+        this.currencyId = CurrencyCode.id(currency);
+        mark(PaymentField.MSG_ID, msgId);
+        mark(PaymentField.INSTR_ID, instrId);
+        mark(PaymentField.END_TO_END_ID, endToEndId);
+        mark(PaymentField.DEBTOR_NAME, debtorName);
+        mark(PaymentField.DEBTOR_ID, debtorId);
+        mark(PaymentField.CREDITOR_NAME, creditorName);
+        mark(PaymentField.CREDITOR_ID, creditorId);
+        mark(PaymentField.AMOUNT, amount);
+        mark(PaymentField.CURRENCY, currency);
     }
 
     // Getters and Setters
@@ -37,6 +56,7 @@ public class RawPaymentData {
 
     public void setMsgId(String msgId) {
         this.msgId = msgId;
+        mark(PaymentField.MSG_ID, msgId);
     }
 
     public String getInstrId() {
@@ -45,6 +65,7 @@ public class RawPaymentData {
 
     public void setInstrId(String instrId) {
         this.instrId = instrId;
+        mark(PaymentField.INSTR_ID, instrId);
     }
 
     public String getEndToEndId() {
@@ -53,6 +74,7 @@ public class RawPaymentData {
 
     public void setEndToEndId(String endToEndId) {
         this.endToEndId = endToEndId;
+        mark(PaymentField.END_TO_END_ID, endToEndId);
     }
 
     public String getDebtorName() {
@@ -61,6 +83,7 @@ public class RawPaymentData {
 
     public void setDebtorName(String debtorName) {
         this.debtorName = debtorName;
+        mark(PaymentField.DEBTOR_NAME, debtorName);
     }
 
     public String getDebtorId() {
@@ -69,6 +92,7 @@ public class RawPaymentData {
 
     public void setDebtorId(String debtorId) {
         this.debtorId = debtorId;
+        mark(PaymentField.DEBTOR_ID, debtorId);
     }
 
     public String getCreditorName() {
@@ -77,6 +101,7 @@ public class RawPaymentData {
 
     public void setCreditorName(String creditorName) {
         this.creditorName = creditorName;
+        mark(PaymentField.CREDITOR_NAME, creditorName);
     }
 
     public String getCreditorId() {
@@ -85,6 +110,7 @@ public class RawPaymentData {
 
     public void setCreditorId(String creditorId) {
         this.creditorId = creditorId;
+        mark(PaymentField.CREDITOR_ID, creditorId);
     }
 
     public String getAmount() {
@@ -93,6 +119,15 @@ public class RawPaymentData {
 
     public void setAmount(String amount) {
         this.amount = amount;
+        this.amountValue = MinorUnitAmount.parse(amount);
+        mark(PaymentField.AMOUNT, amount);
+    }
+
+    /**
+     * The amount as a number, parsed once when it was set, or {@code null} if it is absent or not a valid number.
+     */
+    public MinorUnitAmount getAmountValue() {
+        return amountValue;
     }
 
     public String getCurrency() {
@@ -101,6 +136,62 @@ public class RawPaymentData {
 
     public void setCurrency(String currency) {
         this.currency = currency;
+        this.currencyId = CurrencyCode.id(currency);
+        mark(PaymentField.CURRENCY, currency);
+    }
+
+    /**
+     * The {@link CurrencyCode} id of the currency, computed once when it was set, or {@link CurrencyCode#UNKNOWN} if
+     * it is absent or not three letters.
+     */
+    public int getCurrencyId() {
+        return currencyId;
+    }
+
+    /**
+     * Bitmask of {@link PaymentField#bit()} for every field that holds non-blank text.
+     */
+    public int getPresentFields() {
+        return presentFields;
+    }
+
+    /**
+     * Whether every field in {@code mask} holds non-blank text.
+     */
+    public boolean hasFields(int mask) {
+        return (presentFields & mask) == mask;
+    }
+
+    private void mark(PaymentField field, String value) {
+        if (value != null && !value.isBlank()) {
+            presentFields |= field.bit();
+        } else {
+            presentFields &= ~field.bit();
+        }
+    }
+
+    public String getMessageType() {
+        return messageType;
+    }
+
+    public void setMessageType(String messageType) {
+        this.messageType = messageType;
+    }
+
+    public int getTransactionSequence() {
+        return transactionSequence;
+    }
+
+    public void setTransactionSequence(int transactionSequence) {
+        this.transactionSequence = transactionSequence;
+    }
+
+    public int getSourcePartition() {
+        return sourcePartition;
+    }
+
+    public void setSourcePartition(int sourcePartition) {
+        this.sourcePartition = sourcePartition;
     }
 
     @Override
@@ -116,12 +207,14 @@ public class RawPaymentData {
                Objects.equals(creditorName, that.creditorName) &&
                Objects.equals(creditorId, that.creditorId) &&
                Objects.equals(amount, that.amount) &&
-               Objects.equals(currency, that.currency);
+               Objects.equals(currency, that.currency) &&
+               Objects.equals(messageType, that.messageType) &&
+               transactionSequence == that.transactionSequence;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(msgId, instrId, endToEndId, debtorName, debtorId, creditorName, creditorId, amount, currency);
+        return Objects.hash(msgId, instrId, endToEndId, debtorName, debtorId, creditorName, creditorId, amount, currency, messageType, transactionSequence);
     }
 
     @Override
@@ -136,6 +229,9 @@ public class RawPaymentData {
                ", creditorId='" + creditorId + '\'' +
                ", amount='" + amount + '\'' +
                ", currency='" + currency + '\'' +
+               ", messageType='" + messageType + '\'' +
+               ", transactionSequence=" + transactionSequence +
+               ", sourcePartition=" + sourcePartition +
                '}';
     }
 }
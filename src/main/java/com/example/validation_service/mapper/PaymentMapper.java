@@ -1,5 +1,6 @@
 package com.example.validation_service.mapper;
 
+import com.example.validation_service.dto.MinorUnitAmount;
 import com.example.validation_service.dto.Payee;
 import com.example.validation_service.dto.Payer;
 import com.example.validation_service.dto.RawPaymentData;
@@ -21,7 +22,7 @@ public abstract class PaymentMapper {
         @Mapping(source = "instrId", target = "instructionId"),
         @Mapping(source = "rawData", target = "payer", qualifiedByName = "mapPayer"),
         @Mapping(source = "rawData", target = "payee", qualifiedByName = "mapPayee"),
-        @Mapping(source = "amount", target = "amount", qualifiedByName = "stringToBigDecimal"),
+        @Mapping(source = "rawData", target = "amount", qualifiedByName = "amountToBigDecimal"),
         @Mapping(source = "currency", target = "currency"),
         @Mapping(target = "timestamp", expression = "java(Instant.now())")
     })
@@ -49,18 +50,19 @@ public abstract class PaymentMapper {
         return payee;
     }
 
-    @Named("stringToBigDecimal")
-    protected BigDecimal stringToBigDecimal(String amount) {
-        if (amount == null || amount.trim().isEmpty()) {
+    /**
+     * Builds the amount from the value parsed when it was set on {@code rawData}, so it is not parsed again.
+     */
+    @Named("amountToBigDecimal")
+    protected BigDecimal amountToBigDecimal(RawPaymentData rawData) {
+        if (rawData == null || rawData.getAmount() == null || rawData.getAmount().trim().isEmpty()) {
             return null;
         }
-        try {
-            return new BigDecimal(amount);
-        } catch (NumberFormatException e) {
-            // Consider logging this, though previous validations might catch it.
-            // For now, rethrow or return null/default based on error handling strategy.
-            // Throwing an exception here might be better to signal bad data.
-            throw new IllegalArgumentException("Invalid amount format: " + amount, e);
+        MinorUnitAmount amount = rawData.getAmountValue();
+        if (amount == null) {
+            // Previous validations should have rejected this; signal bad data rather than publish no amount
+            throw new IllegalArgumentException("Invalid amount format: " + rawData.getAmount());
         }
+        return amount.toBigDecimal();
     }
 }
@@ -5,6 +5,7 @@ import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Objects;
 
 @Document(collection = "validation_failures")
@@ -22,6 +23,14 @@ public class ValidationFailureLog {
     @Field("error_message")
     private String errorMessage;
 
+    // Stable codes of the business rule errors, see ErrorCode; absent for other error types
+    @Field("error_codes")
+    private List<String> errorCodes;
+
+    // 1-based position of the rejected CdtTrfTxInf of a streamed bulk message; absent for a whole message
+    @Field("transaction_sequence")
+    private Integer transactionSequence;
+
     @Field("timestamp")
     private Instant timestamp;
 
@@ -74,6 +83,22 @@ public class ValidationFailureLog {
         this.errorMessage = errorMessage;
     }
 
+    public List<String> getErrorCodes() {
+        return errorCodes;
+    }
+
+    public void setErrorCodes(List<String> errorCodes) {
+        this.errorCodes = errorCodes;
+    }
+
+    public Integer getTransactionSequence() {
+        return transactionSequence;
+    }
+
+    public void setTransactionSequence(Integer transactionSequence) {
+        this.transactionSequence = transactionSequence;
+    }
+
     public Instant getTimestamp() {
         return timestamp;
     }
@@ -99,13 +124,15 @@ public class ValidationFailureLog {
                Objects.equals(messageId, that.messageId) &&
                Objects.equals(errorType, that.errorType) &&
                Objects.equals(errorMessage, that.errorMessage) &&
+               Objects.equals(errorCodes, that.errorCodes) &&
+               Objects.equals(transactionSequence, that.transactionSequence) &&
                Objects.equals(timestamp, that.timestamp) &&
                Objects.equals(rawPayload, that.rawPayload);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, messageId, errorType, errorMessage, timestamp, rawPayload);
+        return Objects.hash(id, messageId, errorType, errorMessage, errorCodes, transactionSequence, timestamp, rawPayload);
     }
 
     @Override
@@ -115,6 +142,8 @@ public class ValidationFailureLog {
                ", messageId='" + messageId + '\'' +
                ", errorType='" + errorType + '\'' +
                ", errorMessage='" + errorMessage + '\'' +
+               ", errorCodes=" + errorCodes +
+               ", transactionSequence=" + transactionSequence +
                ", timestamp=" + timestamp +
                ", rawPayload.length=" + (rawPayload != null ? rawPayload.length() : 0) +
                '}';
@@ -9,6 +9,13 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 @Service
 public class AuditService {
 
@@ -27,6 +34,71 @@ public class AuditService {
 
     @Async
     public void logFailure(String messageId, String errorType, String errorMessage, String rawPayload) {
+        saveFailure(messageId, errorType, errorMessage, null, rawPayload);
+    }
+
+    /**
+     * Variant for business rule failures. The error messages are rendered here, on the async executor, and stored
+     * with their codes.
+     */
+    @Async
+    public void logValidationFailure(String messageId, String errorType, List<ValidationError> errors, String rawPayload) {
+        saveFailure(messageId, errorType, ValidationError.join(errors), ValidationError.codes(errors), rawPayload);
+    }
+
+    /**
+     * Variant for the byte-oriented ingestion path. The payload is only decoded here, on the async executor, and
+     * only as far as {@code audit.payload.max-length} characters, so the consumer thread never builds a
+     * {@code String} copy of the message.
+     */
+    @Async
+    public void logFailureFromBytes(String messageId, String errorType, String errorMessage, byte[] rawPayload) {
+        saveFailure(messageId, errorType, errorMessage, null, decodePayload(messageId, rawPayload));
+    }
+
+    @Async
+    public void logValidationFailureFromBytes(String messageId, String errorType, List<ValidationError> errors,
+                                              byte[] rawPayload) {
+        saveFailure(messageId, errorType, ValidationError.join(errors), ValidationError.codes(errors),
+                decodePayload(messageId, rawPayload));
+    }
+
+    /**
+     * Variant for one rejected transaction of a streamed bulk message. Only the first rejected transaction of a
+     * message passes the payload; the others pass {@code null} and are found by MsgId and sequence, so a message
+     * with many rejected transactions is stored once. {@code errors} are stored if there are any, otherwise
+     * {@code errorMessage}.
+     */
+    @Async
+    public void logTransactionFailure(String messageId, int transactionSequence, String errorType, String errorMessage,
+                                      List<ValidationError> errors, String rawPayload) {
+        saveTransactionFailure(messageId, transactionSequence, errorType, errorMessage, errors, rawPayload);
+    }
+
+    @Async
+    public void logTransactionFailureFromBytes(String messageId, int transactionSequence, String errorType,
+                                               String errorMessage, List<ValidationError> errors, byte[] rawPayload) {
+        saveTransactionFailure(messageId, transactionSequence, errorType, errorMessage, errors,
+                decodePayload(messageId, rawPayload));
+    }
+
+    private void saveTransactionFailure(String messageId, int transactionSequence, String errorType,
+                                        String errorMessage, List<ValidationError> errors, String rawPayload) {
+        if (errors.isEmpty()) {
+            saveFailure(messageId, errorType, errorMessage, null, transactionSequence, rawPayload);
+        } else {
+            saveFailure(messageId, errorType, ValidationError.join(errors), ValidationError.codes(errors),
+                    transactionSequence, rawPayload);
+        }
+    }
+
+    private void saveFailure(String messageId, String errorType, String errorMessage, List<String> errorCodes,
+                             String rawPayload) {
+        saveFailure(messageId, errorType, errorMessage, errorCodes, 0, rawPayload);
+    }
+
+    private void saveFailure(String messageId, String errorType, String errorMessage, List<String> errorCodes,
+                             int transactionSequence, String rawPayload) {
         logger.debug("Attempting to log failure for messageId: {}", messageId);
         try {
             String processedPayload = rawPayload;
@@ -42,6 +114,10 @@ public class AuditService {
                     errorMessage,
                     processedPayload
             );
+            failureLog.setErrorCodes(errorCodes);
+            if (transactionSequence > 0) {
+                failureLog.setTransactionSequence(transactionSequence);
+            }
             failureLogRepository.save(failureLog);
             logger.info("Successfully logged failure for messageId {} of type {}", messageId, errorType);
         } catch (Exception e) {
@@ -51,6 +127,25 @@ public class AuditService {
         }
     }
 
+    private String decodePayload(String messageId, byte[] rawPayload) {
+        if (rawPayload == null) {
+            return null;
+        }
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer in = ByteBuffer.wrap(rawPayload);
+        CharBuffer out = CharBuffer.allocate(Math.min(rawPayload.length, maxPayloadLength));
+        decoder.decode(in, out, true);
+        out.flip();
+        if (in.hasRemaining()) {
+            logger.warn("Raw payload for messageId {} was truncated from {} bytes to {} characters.",
+                        messageId, rawPayload.length, maxPayloadLength);
+            return out + "... (truncated)";
+        }
+        return out.toString();
+    }
+
     // Placeholder for logging successful events if needed in the future
     /*
     @Async
@@ -1,47 +1,148 @@
 package com.example.validation_service.service;
 
 import com.example.validation_service.dto.RawPaymentData;
+import com.example.validation_service.service.rules.RuleConfig;
+import com.example.validation_service.service.rules.RuleConfigHolder;
 import com.example.validation_service.service.rules.ValidationRule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 @Service
 public class BusinessRuleValidatorService {
 
     private static final Logger logger = LoggerFactory.getLogger(BusinessRuleValidatorService.class);
 
+    private static final String UNIDENTIFIED_TYPE = "";
+
+    static final long DEFAULT_REORDER_INTERVAL = 10000;
+
+    /**
+     * How a rule set handles a rejection: {@code COLLECT_ALL} runs every rule and reports all errors,
+     * {@code FAIL_FAST} stops at the first rule that reports one and reorders rules by cost and rejection rate.
+     */
+    public enum Mode {
+        COLLECT_ALL, FAIL_FAST
+    }
+
     private final List<ValidationRule> validationRules;
+    private final Mode defaultMode;
+    private final Map<String, Mode> modeByMessageType;
+    private final long reorderInterval;
+    private final RuleConfigHolder ruleConfig;
+    // Rule set per message type, resolved once per type from ValidationRule.messageTypes
+    private final Map<String, RuleSet> rulesByMessageType = new ConcurrentHashMap<>();
 
-    @Autowired
     public BusinessRuleValidatorService(List<ValidationRule> validationRules) {
+        this(validationRules, Mode.COLLECT_ALL, Map.of(), DEFAULT_REORDER_INTERVAL, new RuleConfigHolder(Map.of()));
+    }
+
+    /**
+     * @param mode                 mode of every rule set without an entry in {@code modePerMessageType}
+     * @param modePerMessageType   comma-separated {@code messageType:mode} pairs, e.g. {@code pacs.008.001.10:fail-fast}
+     * @param reorderInterval      evaluations of a fail-fast rule set between reorders; {@code 0} keeps the
+     *                             configured order
+     * @param ruleConfig           current rule configuration, which names the rules that are disabled
+     */
+    @Autowired
+    public BusinessRuleValidatorService(List<ValidationRule> validationRules,
+                                        @Value("${validation.rules.mode:collect-all}") String mode,
+                                        @Value("${validation.rules.mode.per-message-type:}") String modePerMessageType,
+                                        @Value("${validation.rules.reorder-interval:" + DEFAULT_REORDER_INTERVAL + "}") long reorderInterval,
+                                        RuleConfigHolder ruleConfig) {
+        this(validationRules, resolveMode(mode, Mode.COLLECT_ALL), parseModes(modePerMessageType), reorderInterval, ruleConfig);
+    }
+
+    BusinessRuleValidatorService(List<ValidationRule> validationRules, Mode defaultMode,
+                                 Map<String, Mode> modeByMessageType, long reorderInterval, RuleConfigHolder ruleConfig) {
         this.validationRules = validationRules;
-        logger.info("BusinessRuleValidatorService initialized with {} rules.", validationRules.size());
+        this.defaultMode = defaultMode;
+        this.modeByMessageType = modeByMessageType;
+        this.reorderInterval = reorderInterval;
+        this.ruleConfig = ruleConfig;
+        logger.info("BusinessRuleValidatorService initialized with {} rules, mode {} (per message type: {}).",
+                validationRules.size(), defaultMode, modeByMessageType);
         validationRules.forEach(rule -> logger.info("Registered rule: {}", rule.getClass().getSimpleName()));
     }
 
     public void validate(RawPaymentData data) throws BusinessValidationException {
+        ValidationResult validationResult = evaluate(data);
+        if (validationResult.hasErrors()) {
+            // Only the codes are logged as a warning; the messages are rendered for debugging or by the audit
+            logger.warn("Business validation failed for MsgId {}: {}", data.getMsgId(),
+                    ValidationError.codes(validationResult.errors()));
+            logger.debug("Business validation errors for MsgId {}: {}", data.getMsgId(), validationResult.errors());
+            throw new BusinessValidationException(validationResult);
+        }
+    }
+
+    /**
+     * Applies the rules like {@link #validate(RawPaymentData)}, but reports failed rules as a rejection carrying
+     * their errors; the caller logs it.
+     */
+    public StageResult<RawPaymentData> check(RawPaymentData data) {
+        ValidationResult validationResult = evaluate(data);
+        if (validationResult.hasErrors()) {
+            return StageResult.rejected(Rejection.of(Rejection.BUSINESS, validationResult.errors()));
+        }
+        return StageResult.accepted(data);
+    }
+
+    private ValidationResult evaluate(RawPaymentData data) {
         ValidationResult validationResult = new ValidationResult();
 
-        for (ValidationRule rule : validationRules) {
-            try {
-                logger.debug("Applying rule: {}", rule.getClass().getSimpleName());
-                rule.validate(data, validationResult);
-            } catch (Exception e) {
-                // Catching unexpected exceptions during a single rule execution
-                logger.error("Error executing validation rule: {}", rule.getClass().getSimpleName(), e);
-                validationResult.addError("System error during validation rule " + rule.getClass().getSimpleName() + ": " + e.getMessage());
-            }
+        // One read of the current configuration decides which rules run for this message
+        RuleConfig config = ruleConfig.current();
+        rulesFor(data.getMessageType()).validate(data, validationResult, config);
+
+        if (!validationResult.hasErrors()) {
+            logger.info("Business validation successful for MsgId {}", data.getMsgId());
         }
+        return validationResult;
+    }
 
-        if (validationResult.hasErrors()) {
-            logger.warn("Business validation failed for MsgId {}: {}", data.getMsgId(), validationResult.getErrors());
-            throw new BusinessValidationException(validationResult.getErrors());
+    RuleSet rulesFor(String messageType) {
+        return rulesByMessageType.computeIfAbsent(messageType == null ? UNIDENTIFIED_TYPE : messageType, type -> {
+            List<ValidationRule> rules = validationRules.stream()
+                    .filter(rule -> rule.messageTypes().isEmpty() || rule.messageTypes().contains(type))
+                    .collect(Collectors.toList());
+            Mode mode = modeByMessageType.getOrDefault(type, defaultMode);
+            logger.info("Rule set for message type '{}': {} of {} rules, {}.", type, rules.size(), validationRules.size(), mode);
+            return new RuleSet(type, rules, mode, reorderInterval);
+        });
+    }
+
+    static Map<String, Mode> parseModes(String csv) {
+        Map<String, Mode> modes = new HashMap<>();
+        for (String entry : csv.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            // Message types contain dots but no colons
+            int separator = entry.lastIndexOf(':');
+            if (separator < 0) {
+                logger.error("Ignoring rule set mode '{}': expected messageType:mode.", entry.trim());
+                continue;
+            }
+            modes.put(entry.substring(0, separator).trim(), resolveMode(entry.substring(separator + 1), Mode.COLLECT_ALL));
         }
+        return Map.copyOf(modes);
+    }
 
-        logger.info("Business validation successful for MsgId {}", data.getMsgId());
+    private static Mode resolveMode(String name, Mode defaultMode) {
+        try {
+            return Mode.valueOf(name.trim().replace('-', '_').toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            logger.error("Unknown rule set mode '{}'. Defaulting to {}.", name, defaultMode);
+            return defaultMode;
+        }
     }
 }
@@ -1,21 +1,48 @@
 package com.example.validation_service.service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class BusinessValidationException extends Exception {
-    private final List<String> validationErrors;
+    private final List<ValidationError> errors;
 
     public BusinessValidationException(String message, List<String> validationErrors) {
         super(message);
-        this.validationErrors = validationErrors;
+        this.errors = unspecified(validationErrors);
     }
 
     public BusinessValidationException(List<String> validationErrors) {
+        this("Business validation failed.", validationErrors);
+    }
+
+    public BusinessValidationException(ValidationResult result) {
         super("Business validation failed.");
-        this.validationErrors = validationErrors;
+        this.errors = result.errors();
+    }
+
+    /**
+     * The errors with their codes; messages are rendered on demand.
+     */
+    public List<ValidationError> getErrors() {
+        return errors;
     }
 
+    /**
+     * The rendered error messages.
+     */
     public List<String> getValidationErrors() {
-        return validationErrors;
+        List<String> messages = new ArrayList<>(errors.size());
+        for (ValidationError error : errors) {
+            messages.add(error.message());
+        }
+        return messages;
+    }
+
+    private static List<ValidationError> unspecified(List<String> messages) {
+        List<ValidationError> errors = new ArrayList<>(messages.size());
+        for (String message : messages) {
+            errors.add(new ValidationError(ErrorCode.UNSPECIFIED, message));
+        }
+        return errors;
     }
 }
@@ -0,0 +1,67 @@
+package com.example.validation_service.service;
+
+/**
+ * Catalog of business validation errors. The code of each entry is stable and is stored with every audited failure,
+ * so downstream consumers can act on it without parsing the message; the message template may change. Templates
+ * use {@code {}} for the arguments of a {@link ValidationError}, in order.
+ * <p>
+ * New entries get a new code; a code is never reused for a different error.
+ */
+public enum ErrorCode {
+
+    // Free text, for errors reported without a catalog entry
+    UNSPECIFIED("GEN-000", "{}"),
+    RULE_FAILED("GEN-001", "System error during validation rule {}: {}"),
+
+    AMOUNT_MISSING("AMT-001", "Amount is missing."),
+    AMOUNT_INVALID("AMT-002", "Invalid amount format: {}"),
+    AMOUNT_BELOW_MIN("AMT-003", "Amount {} is less than minimum allowed {}"),
+    AMOUNT_ABOVE_MAX("AMT-004", "Amount {} is greater than maximum allowed {}"),
+    AMOUNT_PRECISION("AMT-005", "Amount {} has more decimal places than {} allows ({})"),
+
+    CURRENCY_MISSING("CCY-001", "Currency is missing."),
+    CURRENCY_NOT_ALLOWED("CCY-002", "Currency {} is not allowed. Allowed currencies are: {}"),
+
+    PARTICIPANT_PREFIX_UNSUPPORTED("PTY-001", "{} '{}' does not start with a supported prefix. Supported prefixes: {}"),
+    PARTICIPANT_UNKNOWN("PTY-002", "{} '{}' is not in the participant reference data."),
+    PARTICIPANT_SUSPENDED("PTY-003", "{} '{}' is suspended."),
+    PARTICIPANT_UNREACHABLE("PTY-004", "{} '{}' is not reachable through scheme {}."),
+    PARTICIPANT_LIMIT_EXCEEDED("PTY-005", "Amount {} exceeds the limit of {} for {} '{}'."),
+
+    CUTOFF_PASSED("CUT-001", "Payment processed at {} is after the cutoff time of {} in zone {}"),
+
+    DUPLICATE_KEY_MISSING("DUP-001", "{} is missing, cannot perform duplicate check."),
+    DUPLICATE("DUP-002", "Duplicate message detected: {} {} is already processed.");
+
+    private final String code;
+    private final String template;
+
+    ErrorCode(String code, String template) {
+        this.code = code;
+        this.template = template;
+    }
+
+    public String code() {
+        return code;
+    }
+
+    public String template() {
+        return template;
+    }
+
+    /**
+     * Renders the template with {@code args}. Placeholders without an argument are kept as {@code {}}.
+     */
+    public String format(Object[] args) {
+        StringBuilder message = new StringBuilder(template.length() + 16 * args.length);
+        int arg = 0;
+        int from = 0;
+        int placeholder;
+        while ((placeholder = template.indexOf("{}", from)) >= 0) {
+            message.append(template, from, placeholder);
+            message.append(arg < args.length ? String.valueOf(args[arg++]) : "{}");
+            from = placeholder + 2;
+        }
+        return message.append(template, from, template.length()).toString();
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.validation_service.service;
+
+/**
+ * A payload was rejected for exceeding one of the configured {@code ParserLimits} rather than for being malformed.
+ */
+public class PayloadLimitExceededException extends XmlParsingException {
+
+    private final String limit;
+
+    public PayloadLimitExceededException(String limit, String message) {
+        super(message);
+        this.limit = limit;
+    }
+
+    /**
+     * Name of the violated limit, e.g. {@code payload_size} or {@code depth}.
+     */
+    public String getLimit() {
+        return limit;
+    }
+}
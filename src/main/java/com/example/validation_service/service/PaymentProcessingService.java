@@ -2,11 +2,16 @@ package com.example.validation_service.service;
 
 import com.example.validation_service.dto.RawPaymentData;
 import com.example.validation_service.dto.ValidatedPayment;
+import com.example.validation_service.service.parser.MessageIdScanner;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 @Service
 public class PaymentProcessingService {
 
@@ -18,6 +23,8 @@ public class PaymentProcessingService {
     private final PaymentTransformerService paymentTransformerService;
     private final PaymentProducerService paymentProducerService;
     private final AuditService auditService;
+    private final MessageIdScanner messageIdScanner;
+    private final MeterRegistry meterRegistry;
 
     @Autowired
     public PaymentProcessingService(XmlParserService xmlParserService,
@@ -25,84 +32,258 @@ public class PaymentProcessingService {
                                     BusinessRuleValidatorService businessRuleValidatorService,
                                     PaymentTransformerService paymentTransformerService,
                                     PaymentProducerService paymentProducerService,
-                                    AuditService auditService) {
+                                    AuditService auditService,
+                                    MessageIdScanner messageIdScanner,
+                                    MeterRegistry meterRegistry) {
         this.xmlParserService = xmlParserService;
         this.schemaValidationService = schemaValidationService;
         this.businessRuleValidatorService = businessRuleValidatorService;
         this.paymentTransformerService = paymentTransformerService;
         this.paymentProducerService = paymentProducerService;
         this.auditService = auditService;
+        this.messageIdScanner = messageIdScanner;
+        this.meterRegistry = meterRegistry;
     }
 
     public void process(String xmlPayload) {
-        RawPaymentData rawPaymentData = null;
-        String messageIdForAudit = null;
+        process(xmlPayload, RawPaymentData.UNKNOWN_PARTITION);
+    }
+
+    /**
+     * @param sourcePartition inbound partition the payload was read from; duplicate state can be scoped by it
+     */
+    public void process(String xmlPayload, int sourcePartition) {
+        process(xmlPayload, null, sourcePartition);
+    }
 
+    /**
+     * Byte-oriented entry point: the UTF-8 payload is handed to the parser as-is and is only decoded into a
+     * {@code String} by {@link AuditService} if the message has to be audited.
+     */
+    public void process(byte[] xmlPayload) {
+        process(xmlPayload, RawPaymentData.UNKNOWN_PARTITION);
+    }
+
+    public void process(byte[] xmlPayload, int sourcePartition) {
+        process(null, xmlPayload, sourcePartition);
+    }
+
+    /**
+     * Records a payload that was refused before parsing, e.g. by the listener's size check.
+     */
+    public void rejectOverLimit(String xmlPayload, PayloadLimitExceededException e) {
+        rejectOverLimit(xmlPayload, null, e);
+    }
+
+    public void rejectOverLimit(byte[] xmlPayload, PayloadLimitExceededException e) {
+        rejectOverLimit(null, xmlPayload, e);
+    }
+
+    private void process(String textPayload, byte[] bytePayload, int sourcePartition) {
         try {
             logger.info("Starting processing of XML payload.");
-            rawPaymentData = xmlParserService.parse(xmlPayload);
-            messageIdForAudit = rawPaymentData.getMsgId(); // Get MsgId as soon as it's available
-            logger.info("Successfully parsed XML for MsgId: {}", messageIdForAudit);
+            if (xmlParserService.isTransactionStreaming()) {
+                // Each transaction is validated and published as soon as it has been parsed. A message that fails
+                // part-way aborts the producer transaction, if there is one, so that it can be resent in full.
+                TransactionStream transactions = new TransactionStream(textPayload, bytePayload, sourcePartition);
+                paymentProducerService.inTransaction(() -> {
+                    if (textPayload != null) {
+                        xmlParserService.parseTransactions(textPayload, transactions);
+                    } else {
+                        xmlParserService.parseTransactions(bytePayload, transactions);
+                    }
+                });
+                logger.info("Processed {} transaction(s) from XML payload.", transactions.count);
+            } else {
+                RawPaymentData rawPaymentData = textPayload != null
+                        ? xmlParserService.parse(textPayload)
+                        : xmlParserService.parse(bytePayload);
+                rawPaymentData.setSourcePartition(sourcePartition);
+                processParsed(rawPaymentData, 0, textPayload, bytePayload);
+            }
+        } catch (PayloadLimitExceededException e) {
+            rejectOverLimit(textPayload, bytePayload, e);
+        } catch (XmlParsingException e) {
+            // The payload is rejected; these exceptions carry no stack trace
+            String messageIdForAudit = extractMessageIdSafe(textPayload, bytePayload, e); // Attempt to get MsgId even on parsing failure
+            reject(messageIdForAudit, 0, Rejection.of(parsingErrorType(e), e.getMessage()), textPayload, bytePayload);
+        } catch (Exception e) {
+            // Catch-all for any other unexpected exceptions during parsing
+            String messageIdForAudit = extractMessageIdSafe(textPayload, bytePayload, e);
+            logger.error("Unexpected processing error for MsgId {}: {}", messageIdForAudit, e.getMessage(), e);
+            logFailure(messageIdForAudit, "unknown_processing_error", e.getMessage(), textPayload, bytePayload);
+        }
+    }
+
+    /**
+     * Processes the transactions of one streamed message as the parser hands them over, keeping no more than the
+     * transaction at hand.
+     */
+    private final class TransactionStream implements Consumer<RawPaymentData> {
+
+        private final String textPayload;
+        private final byte[] bytePayload;
+        private final int sourcePartition;
+        private int count;
+        private boolean payloadAudited;
+
+        TransactionStream(String textPayload, byte[] bytePayload, int sourcePartition) {
+            this.textPayload = textPayload;
+            this.bytePayload = bytePayload;
+            this.sourcePartition = sourcePartition;
+        }
 
-            schemaValidationService.validate(rawPaymentData);
+        @Override
+        public void accept(RawPaymentData transaction) {
+            count++;
+            transaction.setSourcePartition(sourcePartition);
+            // Only the first rejected transaction stores the payload
+            payloadAudited |= payloadAudited
+                    ? processParsed(transaction, transaction.getTransactionSequence(), null, null)
+                    : processParsed(transaction, transaction.getTransactionSequence(), textPayload, bytePayload);
+        }
+    }
+
+    /**
+     * Runs one parsed payment (a whole message, or a single transaction of a bulk message) through validation,
+     * transformation and publishing. Each stage returns a {@link StageResult}, so a rejected payment is audited
+     * without an exception being thrown; exceptions are only caught here for faults. Failures are audited against
+     * the payment's MsgId and do not propagate, so a rejected transaction does not stop the remaining transactions
+     * of its message. A transaction of a streamed message is audited with its sequence, and with the payload only
+     * if {@code textPayload} or {@code bytePayload} is passed.
+     *
+     * @param sequence the transaction's position in a streamed message, or 0 for a message parsed as a whole
+     * @return whether the payment was rejected and audited
+     */
+    private boolean processParsed(RawPaymentData rawPaymentData, int sequence, String textPayload, byte[] bytePayload) {
+        String messageIdForAudit = rawPaymentData.getMsgId();
+
+        try {
+            logger.info("Successfully parsed XML for MsgId: {} (transaction {})",
+                    messageIdForAudit, rawPaymentData.getTransactionSequence());
+
+            StageResult<RawPaymentData> schema = schemaValidationService.check(rawPaymentData);
+            if (rejected(schema, messageIdForAudit, sequence, textPayload, bytePayload)) {
+                return true;
+            }
             logger.info("Successfully schema-validated data for MsgId: {}", messageIdForAudit);
 
-            businessRuleValidatorService.validate(rawPaymentData);
+            StageResult<RawPaymentData> rules = businessRuleValidatorService.check(rawPaymentData);
+            if (rejected(rules, messageIdForAudit, sequence, textPayload, bytePayload)) {
+                return true;
+            }
             logger.info("Successfully business-rules-validated data for MsgId: {}", messageIdForAudit);
 
-            ValidatedPayment validatedPayment = paymentTransformerService.transform(rawPaymentData);
+            StageResult<ValidatedPayment> transformed = paymentTransformerService.tryTransform(rawPaymentData);
+            if (rejected(transformed, messageIdForAudit, sequence, textPayload, bytePayload)) {
+                return true;
+            }
             logger.info("Successfully transformed data for MsgId: {}", messageIdForAudit);
 
-            paymentProducerService.sendValidatedPayment(validatedPayment);
+            paymentProducerService.sendValidatedPayment(transformed.value());
             logger.info("Successfully sent validated payment to Kafka for MsgId: {}", messageIdForAudit);
+            return false;
 
-        } catch (XmlParsingException e) {
-            messageIdForAudit = extractMessageIdSafe(xmlPayload, e); // Attempt to get MsgId even on parsing failure
-            logger.error("XML Parsing Exception for MsgId {}: {}", messageIdForAudit, e.getMessage(), e);
-            auditService.logFailure(messageIdForAudit, "parsing", e.getMessage(), xmlPayload);
-        } catch (SchemaValidationException e) {
-            logger.error("Schema Validation Exception for MsgId {}: {}", messageIdForAudit, e.getMessage(), e);
-            auditService.logFailure(messageIdForAudit, "schema", e.getMessage(), xmlPayload);
-        } catch (BusinessValidationException e) {
-            logger.error("Business Validation Exception for MsgId {}: {}", messageIdForAudit, e.getMessage(), e);
-            // For BusinessValidationException, e.getValidationErrors() might be more detailed
-            String errorMessage = String.join(", ", e.getValidationErrors());
-            auditService.logFailure(messageIdForAudit, "business", errorMessage, xmlPayload);
         } catch (TransformationException e) {
             logger.error("Transformation Exception for MsgId {}: {}", messageIdForAudit, e.getMessage(), e);
-            auditService.logFailure(messageIdForAudit, "transformation", e.getMessage(), xmlPayload);
+            logFailure(messageIdForAudit, sequence, Rejection.TRANSFORMATION, e.getMessage(), textPayload, bytePayload);
+            return true;
         } catch (Exception e) {
             // Catch-all for any other unexpected exceptions during processing
             logger.error("Unexpected processing error for MsgId {}: {}", messageIdForAudit, e.getMessage(), e);
-            auditService.logFailure(messageIdForAudit, "unknown_processing_error", e.getMessage(), xmlPayload);
+            logFailure(messageIdForAudit, sequence, "unknown_processing_error", e.getMessage(), textPayload, bytePayload);
+            return true;
+        }
+    }
+
+    private boolean rejected(StageResult<?> result, String messageId, int transactionSequence, String textPayload,
+                             byte[] bytePayload) {
+        if (!result.isRejected()) {
+            return false;
+        }
+        reject(messageId, transactionSequence, result.rejection(), textPayload, bytePayload);
+        return true;
+    }
+
+    private void reject(String messageId, int transactionSequence, Rejection rejection, String textPayload,
+                        byte[] bytePayload) {
+        if (rejection.errors().isEmpty()) {
+            logger.warn("Rejected MsgId {} ({}): {}", messageId, rejection.errorType(), rejection.message());
+        } else {
+            // Only the codes are logged as a warning; the messages are rendered for debugging or by the audit
+            logger.warn("Rejected MsgId {} ({}): {}", messageId, rejection.errorType(),
+                    ValidationError.codes(rejection.errors()));
+            logger.debug("Rejected MsgId {} ({}): {}", messageId, rejection.errorType(), rejection);
+        }
+        if (transactionSequence > 0) {
+            // The rule errors, if any, are rendered by the audit executor
+            String message = rejection.errors().isEmpty() ? rejection.message() : null;
+            if (textPayload != null || bytePayload == null) {
+                auditService.logTransactionFailure(messageId, transactionSequence, rejection.errorType(), message,
+                        rejection.errors(), textPayload);
+            } else {
+                auditService.logTransactionFailureFromBytes(messageId, transactionSequence, rejection.errorType(),
+                        message, rejection.errors(), bytePayload);
+            }
+        } else if (rejection.errors().isEmpty()) {
+            logFailure(messageId, rejection.errorType(), rejection.message(), textPayload, bytePayload);
+        } else if (textPayload != null) {
+            // The rule errors are rendered and stored with their codes by the audit executor
+            auditService.logValidationFailure(messageId, rejection.errorType(), rejection.errors(), textPayload);
+        } else {
+            auditService.logValidationFailureFromBytes(messageId, rejection.errorType(), rejection.errors(), bytePayload);
+        }
+    }
+
+    private static String parsingErrorType(XmlParsingException e) {
+        if (e instanceof UnsupportedMessageTypeException) {
+            return Rejection.UNSUPPORTED_MESSAGE_TYPE;
+        }
+        return e instanceof XsdValidationException ? Rejection.SCHEMA : Rejection.PARSING;
+    }
+
+    private void rejectOverLimit(String textPayload, byte[] bytePayload, PayloadLimitExceededException e) {
+        String messageIdForAudit = extractMessageIdSafe(textPayload, bytePayload, e);
+        logger.error("Payload limit exceeded for MsgId {}: {}", messageIdForAudit, e.getMessage());
+        meterRegistry.counter("payment.validation.limit.rejected", "limit", e.getLimit()).increment();
+        logFailure(messageIdForAudit, "limit_exceeded", e.getMessage(), textPayload, bytePayload);
+    }
+
+    private void logFailure(String messageId, int transactionSequence, String errorType, String errorMessage,
+                            String textPayload, byte[] bytePayload) {
+        if (transactionSequence == 0) {
+            logFailure(messageId, errorType, errorMessage, textPayload, bytePayload);
+        } else if (textPayload != null || bytePayload == null) {
+            auditService.logTransactionFailure(messageId, transactionSequence, errorType, errorMessage, List.of(),
+                    textPayload);
+        } else {
+            auditService.logTransactionFailureFromBytes(messageId, transactionSequence, errorType, errorMessage,
+                    List.of(), bytePayload);
+        }
+    }
+
+    private void logFailure(String messageId, String errorType, String errorMessage, String textPayload, byte[] bytePayload) {
+        if (textPayload != null) {
+            auditService.logFailure(messageId, errorType, errorMessage, textPayload);
+        } else {
+            auditService.logFailureFromBytes(messageId, errorType, errorMessage, bytePayload);
         }
     }
 
     /**
-     * Attempts to extract a message ID for logging even if full parsing fails.
-     * This is a simplified example. A more robust solution might involve more sophisticated partial parsing
-     * or looking for a specific tag if XmlParsingException doesn't offer partial data.
-     * For now, it checks if the exception carries any partial data (which it currently does not).
-     * If not, it returns a placeholder or null.
+     * Attempts to extract a message ID for logging even if full parsing fails, by scanning the start of the raw
+     * payload for the group header MsgId.
      *
-     * @param xmlPayload The original XML payload.
-     * @param ex The XmlParsingException, which might contain partial data in a future implementation.
-     * @return Extracted message ID or a placeholder.
+     * @param textPayload The original XML payload, or {@code null} when it was received as bytes.
+     * @param bytePayload The original UTF-8 payload, or {@code null} when it was received as a {@code String}.
+     * @param ex The exception that ended processing.
+     * @return Extracted message ID, or {@code null} if none could be found.
      */
-    private String extractMessageIdSafe(String xmlPayload, XmlParsingException ex) {
-        // Note: The current XmlParserService and XmlParsingException do not explicitly provide partial data.
-        // This method is a placeholder for a more advanced implementation if needed.
-        // A simple strategy could be a regex if MsgId format is very standard and early in the XML.
-        // For now, as XmlParsingException doesn't carry partial data, we'll return null or a placeholder.
-        // Let's assume for now if parsing fails very early, msgId might not be available.
-        
-        // Example of a regex approach (very basic, might not be robust enough for all XMLs):
-        // Pattern pattern = Pattern.compile("<MsgId>([^<]+)</MsgId>");
-        // Matcher matcher = pattern.matcher(xmlPayload);
-        // if (matcher.find()) {
-        //     return matcher.group(1);
-        // }
-        logger.warn("Full XML parsing failed. Message ID extraction for audit might be unreliable. Exception: {}", ex.getMessage());
-        return null; // Or a default like "UNKNOWN_MSG_ID_DUE_TO_PARSING_FAILURE"
+    private String extractMessageIdSafe(String textPayload, byte[] bytePayload, Exception ex) {
+        String messageId = textPayload != null ? messageIdScanner.scan(textPayload) : messageIdScanner.scan(bytePayload);
+        if (messageId == null) {
+            logger.warn("Full XML parsing failed and no MsgId was found near the start of the payload. Exception: {}", ex.getMessage());
+        }
+        return messageId;
     }
 }
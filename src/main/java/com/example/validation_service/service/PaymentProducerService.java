@@ -26,6 +26,49 @@ public class PaymentProducerService {
         this.validatedTopicName = validatedTopicName;
     }
 
+    /**
+     * Work that sends payments through {@link #sendValidatedPayment}, see {@link #inTransaction}.
+     */
+    @FunctionalInterface
+    public interface Sends<E extends Exception> {
+        void run() throws E;
+    }
+
+    /**
+     * Runs {@code sends} in a Kafka transaction if the producer is transactional, committing the payments it sent
+     * when it returns and aborting them when it throws, so read-committed consumers see all of them or none. Without
+     * transactions {@code sends} is just run and every payment is published as it is sent.
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends Exception> void inTransaction(Sends<E> sends) throws E {
+        if (!kafkaTemplate.isTransactional()) {
+            sends.run();
+            return;
+        }
+        try {
+            kafkaTemplate.executeInTransaction(operations -> {
+                try {
+                    sends.run();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    // Aborts the transaction; rethrown below as it was
+                    throw new AbortedSends(e);
+                }
+                return null;
+            });
+        } catch (AbortedSends e) {
+            throw (E) e.getCause();
+        }
+    }
+
+    private static final class AbortedSends extends RuntimeException {
+
+        AbortedSends(Exception cause) {
+            super(cause);
+        }
+    }
+
     public void sendValidatedPayment(ValidatedPayment payment) {
         if (payment == null) {
             logger.warn("Cannot send null payment object.");
@@ -21,6 +21,19 @@ public class PaymentTransformerService {
     }
 
     public ValidatedPayment transform(RawPaymentData rawData) throws TransformationException {
+        StageResult<ValidatedPayment> result = tryTransform(rawData);
+        if (result.isRejected()) {
+            throw new TransformationException(result.rejection().message(), result.rejection().cause());
+        }
+        return result.value();
+    }
+
+    /**
+     * Reports data the mapper cannot convert, e.g. a malformed amount, as a rejection.
+     *
+     * @throws TransformationException if the input is missing or the mapper fails unexpectedly
+     */
+    public StageResult<ValidatedPayment> tryTransform(RawPaymentData rawData) throws TransformationException {
         if (rawData == null) {
             logger.warn("RawPaymentData is null, cannot transform.");
             throw new TransformationException("Input RawPaymentData cannot be null.");
@@ -30,11 +43,12 @@ public class PaymentTransformerService {
             logger.debug("Transforming RawPaymentData with MsgId: {}", rawData.getMsgId());
             ValidatedPayment validatedPayment = paymentMapper.toValidatedPayment(rawData);
             logger.info("Successfully transformed RawPaymentData with MsgId {} to ValidatedPayment.", rawData.getMsgId());
-            return validatedPayment;
+            return StageResult.accepted(validatedPayment);
         } catch (IllegalArgumentException e) {
-            // This could be thrown by our custom stringToBigDecimal if format is bad
-            logger.error("Transformation failed for MsgId {}: {}", rawData.getMsgId(), e.getMessage(), e);
-            throw new TransformationException("Error during data transformation: " + e.getMessage(), e);
+            // This could be thrown by our custom amountToBigDecimal if format is bad
+            logger.warn("Transformation failed for MsgId {}: {}", rawData.getMsgId(), e.getMessage());
+            return StageResult.rejected(Rejection.of(Rejection.TRANSFORMATION,
+                    "Error during data transformation: " + e.getMessage(), e));
         } catch (Exception e) {
             // Catch any other unexpected exceptions from MapStruct or logic
             logger.error("Unexpected error during transformation for MsgId {}: {}", rawData.getMsgId(), e.getMessage(), e);
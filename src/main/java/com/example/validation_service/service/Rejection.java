@@ -0,0 +1,71 @@
+package com.example.validation_service.service;
+
+import java.util.List;
+
+/**
+ * Why a stage of {@link PaymentProcessingService} turned a payment away: the error type it is audited under and
+ * either a message or the business rule errors, whose messages are only rendered when read. Rejections are routine
+ * outcomes, so unlike the exceptions used for faults they carry no stack trace.
+ */
+public final class Rejection {
+
+    public static final String PARSING = "parsing";
+    public static final String UNSUPPORTED_MESSAGE_TYPE = "unsupported_message_type";
+    public static final String SCHEMA = "schema";
+    public static final String BUSINESS = "business";
+    public static final String TRANSFORMATION = "transformation";
+
+    private final String errorType;
+    private final String message;
+    private final List<ValidationError> errors;
+    private final Throwable cause;
+
+    private Rejection(String errorType, String message, List<ValidationError> errors, Throwable cause) {
+        this.errorType = errorType;
+        this.message = message;
+        this.errors = errors;
+        this.cause = cause;
+    }
+
+    public static Rejection of(String errorType, String message) {
+        return new Rejection(errorType, message, List.of(), null);
+    }
+
+    /**
+     * @param cause exception the rejection was derived from, kept for callers that still report it as one
+     */
+    public static Rejection of(String errorType, String message, Throwable cause) {
+        return new Rejection(errorType, message, List.of(), cause);
+    }
+
+    public static Rejection of(String errorType, List<ValidationError> errors) {
+        return new Rejection(errorType, null, errors, null);
+    }
+
+    public String errorType() {
+        return errorType;
+    }
+
+    /**
+     * The rendered message; for business rule errors, their messages joined with {@code ", "}.
+     */
+    public String message() {
+        return message != null ? message : ValidationError.join(errors);
+    }
+
+    /**
+     * The business rule errors, or an empty list if the rejection only has a message.
+     */
+    public List<ValidationError> errors() {
+        return errors;
+    }
+
+    public Throwable cause() {
+        return cause;
+    }
+
+    @Override
+    public String toString() {
+        return message();
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.validation_service.service;
+
+import com.example.validation_service.dto.RawPaymentData;
+import com.example.validation_service.service.rules.RuleConfig;
+import com.example.validation_service.service.rules.ValidationRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The rules applied to one message type, with the cost and rejection rate measured for each of them.
+ * <p>
+ * In {@link BusinessRuleValidatorService.Mode#FAIL_FAST} the set stops at the first rule that reports an error, so
+ * the order matters: every {@code reorderInterval} evaluations the rules are sorted by average cost divided by
+ * rejection rate, which puts cheap rules that reject often first and minimizes the expected cost of a message. The
+ * statistics are then halved, so the order follows changes in traffic. In
+ * {@link BusinessRuleValidatorService.Mode#COLLECT_ALL} every rule runs anyway and the configured order is kept.
+ * <p>
+ * In both modes, rules that are not {@link ValidationRule#reorderable() reorderable} are moved after all the others
+ * when the set is built, keeping their relative order, and stay there.
+ * <p>
+ * Rules disabled in the {@link RuleConfig} passed with a message are skipped, so they can be switched at runtime
+ * without rebuilding the set.
+ */
+final class RuleSet {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleSet.class);
+
+    private final String messageType;
+    private final BusinessRuleValidatorService.Mode mode;
+    private final long reorderInterval;
+    private final AtomicLong evaluations = new AtomicLong();
+
+    // Replaced as a whole on reorder
+    private volatile RuleStats[] order;
+
+    RuleSet(String messageType, List<ValidationRule> rules, BusinessRuleValidatorService.Mode mode, long reorderInterval) {
+        this.messageType = messageType;
+        this.mode = mode;
+        this.reorderInterval = reorderInterval;
+        // Stable, so the other rules keep their configured order
+        this.order = rules.stream()
+                .sorted(Comparator.comparing((ValidationRule rule) -> !rule.reorderable()))
+                .map(RuleStats::new)
+                .toArray(RuleStats[]::new);
+    }
+
+    void validate(RawPaymentData data, ValidationResult validationResult, RuleConfig config) {
+        boolean failFast = mode == BusinessRuleValidatorService.Mode.FAIL_FAST;
+        for (RuleStats stats : order) {
+            ValidationRule rule = stats.rule;
+            if (!config.isEnabled(stats.ruleName)) {
+                continue;
+            }
+            int errorsBefore = validationResult.errorCount();
+            long started = System.nanoTime();
+            try {
+                logger.debug("Applying rule: {}", stats.name);
+                rule.validate(data, validationResult);
+            } catch (Exception e) {
+                // Catching unexpected exceptions during a single rule execution
+                logger.error("Error executing validation rule: {}", stats.name, e);
+                validationResult.addError(ErrorCode.RULE_FAILED, stats.name, e.getMessage());
+            }
+            boolean rejected = validationResult.errorCount() > errorsBefore;
+            stats.record(System.nanoTime() - started, rejected);
+            if (rejected && failFast) {
+                break;
+            }
+        }
+        if (failFast && reorderInterval > 0 && evaluations.incrementAndGet() % reorderInterval == 0) {
+            reorder();
+        }
+    }
+
+    BusinessRuleValidatorService.Mode mode() {
+        return mode;
+    }
+
+    /**
+     * The rules in the order they currently run.
+     */
+    List<ValidationRule> rules() {
+        List<ValidationRule> rules = new ArrayList<>();
+        for (RuleStats stats : order) {
+            rules.add(stats.rule);
+        }
+        return rules;
+    }
+
+    synchronized void reorder() {
+        RuleStats[] current = order;
+        int[] tiers = new int[current.length];
+        double[] scores = new double[current.length];
+        Integer[] indexes = new Integer[current.length];
+        for (int i = 0; i < current.length; i++) {
+            RuleStats stats = current[i];
+            long runs = stats.runs.sum();
+            long rejections = stats.rejections.sum();
+            double cost = runs == 0 ? 0 : (double) stats.nanos.sum() / runs;
+            if (!stats.rule.reorderable()) {
+                tiers[i] = 3;
+            } else if (runs == 0) {
+                tiers[i] = 2;
+            } else if (rejections == 0) {
+                // Never rejected anything: ordered by cost alone, after every rule that has
+                tiers[i] = 1;
+                scores[i] = cost;
+            } else {
+                // Expected cost per rejection
+                scores[i] = cost * runs / rejections;
+            }
+            indexes[i] = i;
+        }
+        // Stable, so rules without statistics and the pinned rules keep their relative order
+        Arrays.sort(indexes, Comparator.<Integer>comparingInt(i -> tiers[i]).thenComparingDouble(i -> scores[i]));
+        RuleStats[] reordered = new RuleStats[current.length];
+        boolean changed = false;
+        for (int i = 0; i < indexes.length; i++) {
+            reordered[i] = current[indexes[i]];
+            changed |= indexes[i] != i;
+            reordered[i].decay();
+        }
+        order = reordered;
+        if (changed) {
+            logger.info("Reordered rule set for message type '{}': {}", messageType, this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder("[");
+        for (RuleStats stats : order) {
+            if (description.length() > 1) {
+                description.append(", ");
+            }
+            description.append(stats);
+        }
+        return description.append(']').toString();
+    }
+
+    private static final class RuleStats {
+        final ValidationRule rule;
+        final String name;
+        final String ruleName;
+        final LongAdder runs = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder rejections = new LongAdder();
+
+        RuleStats(ValidationRule rule) {
+            this.rule = rule;
+            this.name = rule.getClass().getSimpleName();
+            this.ruleName = rule.name();
+        }
+
+        void record(long elapsedNanos, boolean rejected) {
+            runs.increment();
+            nanos.add(elapsedNanos);
+            if (rejected) {
+                rejections.increment();
+            }
+        }
+
+        // Only called under the reorder lock; concurrent updates in between are kept, if not halved
+        void decay() {
+            halve(runs);
+            halve(nanos);
+            halve(rejections);
+        }
+
+        private static void halve(LongAdder adder) {
+            adder.add(-(adder.sum() / 2));
+        }
+
+        @Override
+        public String toString() {
+            long count = runs.sum();
+            return count == 0 ? name : String.format("%s (%d ns, %.1f%% rejected)",
+                    name, nanos.sum() / count, 100.0 * rejections.sum() / count);
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.validation_service.service;
 
+import com.example.validation_service.dto.PaymentField;
 import com.example.validation_service.dto.RawPaymentData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils; // Using Spring's StringUtils for checking text
 
 import java.util.ArrayList;
 import java.util.List;
@@ -10,57 +14,61 @@ import java.util.List;
 @Service
 public class SchemaValidationService {
 
-    public void validate(RawPaymentData rawData) throws SchemaValidationException {
-        if (rawData == null) {
-            throw new SchemaValidationException("RawPaymentData object cannot be null.");
-        }
+    private static final Logger logger = LoggerFactory.getLogger(SchemaValidationService.class);
 
-        List<String> validationErrors = new ArrayList<>();
+    // Debtor and creditor IDs are optional as per common practice; InstrId and EndToEndId are treated as mandatory
+    static final String DEFAULT_MANDATORY_FIELDS = "msgId,amount,currency,debtorName,creditorName,instrId,endToEndId";
 
-        // Check for presence of mandatory fields
-        if (!StringUtils.hasText(rawData.getMsgId())) {
-            validationErrors.add("MsgId is missing or empty.");
-        }
-        if (!StringUtils.hasText(rawData.getAmount())) {
-            validationErrors.add("Amount (Amt) is missing or empty.");
-        }
-        if (!StringUtils.hasText(rawData.getCurrency())) {
-            validationErrors.add("Currency (Ccy) is missing or empty.");
-        }
+    private final PaymentField[] mandatoryFields;
+    private final int mandatoryMask;
 
-        // Debtor information
-        if (!StringUtils.hasText(rawData.getDebtorName())) {
-            validationErrors.add("Debtor Name (Dbtr.Nm) is missing or empty.");
-        }
-        // Debtor ID is optional as per common practice, but if the PRD implies it's mandatory, add check.
-        // For now, let's assume it can be optional or not always present in a simple form.
-        // if (!StringUtils.hasText(rawData.getDebtorId())) {
-        //     validationErrors.add("Debtor ID (Dbtr.Id) is missing or empty.");
-        // }
+    public SchemaValidationService() {
+        this(DEFAULT_MANDATORY_FIELDS);
+    }
 
-        // Creditor information
-        if (!StringUtils.hasText(rawData.getCreditorName())) {
-            validationErrors.add("Creditor Name (Cdtr.Nm) is missing or empty.");
+    @Autowired
+    public SchemaValidationService(
+            @Value("${validation.schema.mandatory-fields:" + DEFAULT_MANDATORY_FIELDS + "}") String mandatoryFieldsCsv) {
+        List<PaymentField> fields = new ArrayList<>();
+        for (String property : mandatoryFieldsCsv.split(",")) {
+            if (!property.isBlank()) {
+                fields.add(PaymentField.fromProperty(property.trim()));
+            }
         }
-        // Creditor ID is optional as per common practice.
-        // if (!StringUtils.hasText(rawData.getCreditorId())) {
-        //    validationErrors.add("Creditor ID (Cdtr.Id) is missing or empty.");
-        // }
+        this.mandatoryFields = fields.toArray(new PaymentField[0]);
+        this.mandatoryMask = PaymentField.mask(mandatoryFields);
+        logger.info("SchemaValidationService initialized with mandatory fields: {}", fields);
+    }
 
-        // InstructionId and EndToEndId are often important but can sometimes be optional
-        // depending on the specific pain.001 variant or use case.
-        // For this basic validation, we'll consider them important but not strictly mandatory
-        // unless explicitly stated by PRD for all cases.
-        if (!StringUtils.hasText(rawData.getInstrId())) {
-            validationErrors.add("InstructionId (InstrId) is missing or empty.");
+    public void validate(RawPaymentData rawData) throws SchemaValidationException {
+        StageResult<RawPaymentData> result = check(rawData);
+        if (result.isRejected()) {
+            throw new SchemaValidationException(result.rejection().message());
         }
-        if (!StringUtils.hasText(rawData.getEndToEndId())) {
-            validationErrors.add("EndToEndId is missing or empty.");
+    }
+
+    /**
+     * Presence of every field is recorded in {@link RawPaymentData#getPresentFields()} while the message is parsed,
+     * so a complete message costs one mask comparison; error text is only built for the fields that are missing.
+     */
+    public StageResult<RawPaymentData> check(RawPaymentData rawData) {
+        if (rawData == null) {
+            return StageResult.rejected(Rejection.of(Rejection.SCHEMA, "RawPaymentData object cannot be null."));
         }
 
+        int missing = mandatoryMask & ~rawData.getPresentFields();
+        if (missing == 0) {
+            return StageResult.accepted(rawData);
+        }
 
-        if (!validationErrors.isEmpty()) {
-            throw new SchemaValidationException("Schema validation failed: " + String.join(", ", validationErrors));
+        StringBuilder errors = new StringBuilder("Schema validation failed: ");
+        String separator = "";
+        for (PaymentField field : mandatoryFields) {
+            if ((missing & field.bit()) != 0) {
+                errors.append(separator).append(field.missingMessage());
+                separator = ", ";
+            }
         }
+        return StageResult.rejected(Rejection.of(Rejection.SCHEMA, errors.toString()));
     }
 }
@@ -0,0 +1,52 @@
+package com.example.validation_service.service;
+
+/**
+ * Outcome of one stage of {@link PaymentProcessingService}: the value handed to the next stage, or the
+ * {@link Rejection} that ends processing of the payment. Stages report expected rejections this way instead of
+ * throwing, which keeps stack capture and exception handling off the reject path; exceptions are left for faults.
+ */
+public final class StageResult<T> {
+
+    private final T value;
+    private final Rejection rejection;
+
+    private StageResult(T value, Rejection rejection) {
+        this.value = value;
+        this.rejection = rejection;
+    }
+
+    public static <T> StageResult<T> accepted(T value) {
+        return new StageResult<>(value, null);
+    }
+
+    public static <T> StageResult<T> rejected(Rejection rejection) {
+        return new StageResult<>(null, rejection);
+    }
+
+    public boolean isRejected() {
+        return rejection != null;
+    }
+
+    /**
+     * @throws IllegalStateException if the stage rejected the payment
+     */
+    public T value() {
+        if (rejection != null) {
+            throw new IllegalStateException("Stage rejected the payment: " + rejection.message());
+        }
+        return value;
+    }
+
+    /**
+     * The rejection, or {@code null} if the stage accepted the payment.
+     */
+    public Rejection rejection() {
+        return rejection;
+    }
+
+    @Override
+    public String toString() {
+        return rejection != null ? "StageResult{rejected=" + rejection.errorType() + ": " + rejection + '}'
+                : "StageResult{accepted=" + value + '}';
+    }
+}
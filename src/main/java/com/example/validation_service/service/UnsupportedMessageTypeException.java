@@ -0,0 +1,18 @@
+package com.example.validation_service.service;
+
+/**
+ * The payload's {@code Document} namespace names a message type or version that no extraction spec supports.
+ */
+public class UnsupportedMessageTypeException extends XmlParsingException {
+
+    private final String namespace;
+
+    public UnsupportedMessageTypeException(String namespace, String message) {
+        super(message);
+        this.namespace = namespace;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.validation_service.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One error reported by a validation rule: a catalog entry and the values for its message. The message is only
+ * rendered when it is read, e.g. when the failure is audited or logged, so rejecting a message costs no string
+ * building on the consumer thread. Arguments are held as given, so they must not change afterwards.
+ */
+public final class ValidationError {
+
+    private final ErrorCode code;
+    private final Object[] args;
+
+    public ValidationError(ErrorCode code, Object... args) {
+        this.code = code;
+        this.args = args;
+    }
+
+    public ErrorCode code() {
+        return code;
+    }
+
+    public String message() {
+        return code.format(args);
+    }
+
+    /**
+     * Messages of {@code errors}, joined with {@code ", "}.
+     */
+    public static String join(List<ValidationError> errors) {
+        StringBuilder joined = new StringBuilder();
+        for (ValidationError error : errors) {
+            if (joined.length() > 0) {
+                joined.append(", ");
+            }
+            joined.append(error.message());
+        }
+        return joined.toString();
+    }
+
+    public static List<String> codes(List<ValidationError> errors) {
+        List<String> codes = new ArrayList<>(errors.size());
+        for (ValidationError error : errors) {
+            codes.add(error.code.code());
+        }
+        return codes;
+    }
+
+    @Override
+    public String toString() {
+        return message();
+    }
+}
@@ -1,21 +1,47 @@
 package com.example.validation_service.service;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class ValidationResult {
-    private final List<String> errors = new ArrayList<>();
+    private final List<ValidationError> errors = new ArrayList<>(2);
 
+    /**
+     * Reports an error without a catalog entry, as {@link ErrorCode#UNSPECIFIED}.
+     */
     public void addError(String error) {
-        this.errors.add(error);
+        this.errors.add(new ValidationError(ErrorCode.UNSPECIFIED, error));
+    }
+
+    public void addError(ErrorCode code, Object... args) {
+        this.errors.add(new ValidationError(code, args));
     }
 
     public boolean hasErrors() {
         return !errors.isEmpty();
     }
 
+    public int errorCount() {
+        return errors.size();
+    }
+
+    /**
+     * The errors as reported, without rendering their messages.
+     */
+    public List<ValidationError> errors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * The rendered error messages.
+     */
     public List<String> getErrors() {
-        return new ArrayList<>(errors); // Return a copy
+        List<String> messages = new ArrayList<>(errors.size());
+        for (ValidationError error : errors) {
+            messages.add(error.message());
+        }
+        return messages;
     }
 
     @Override
@@ -1,116 +1,204 @@
 package com.example.validation_service.service;
 
+import com.example.validation_service.dto.PaymentField;
 import com.example.validation_service.dto.RawPaymentData;
+import com.example.validation_service.service.parser.CursorPaymentXmlExtractor;
+import com.example.validation_service.service.parser.EventPaymentXmlExtractor;
+import com.example.validation_service.service.parser.ExtractionSpec;
+import com.example.validation_service.service.parser.LimitViolationException;
+import com.example.validation_service.service.parser.MessageTypeRouter;
+import com.example.validation_service.service.parser.NamespaceSniffer;
+import com.example.validation_service.service.parser.ParserEngine;
+import com.example.validation_service.service.parser.ParserLimits;
+import com.example.validation_service.service.parser.XsdValidation;
+import com.example.validation_service.service.parser.XsdViolationException;
+import com.example.validation_service.service.parser.PaymentXmlExtractor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
-import javax.xml.stream.XMLEventReader;
-import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.Characters;
-import javax.xml.stream.events.StartElement;
-import javax.xml.stream.events.XMLEvent;
-import java.io.StringReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
 
 @Service
 public class XmlParserService {
 
     private static final Logger logger = LoggerFactory.getLogger(XmlParserService.class);
 
+    private static final String DEFAULT_EXTRACTION_SPEC = "classpath:extraction/pacs.008.spec";
+
+    private static final int ESSENTIAL_FIELDS = PaymentField.mask(PaymentField.MSG_ID, PaymentField.AMOUNT, PaymentField.CURRENCY);
+
+    private final MessageTypeRouter router = new MessageTypeRouter();
+    private final boolean transactionStreaming;
+
+    /**
+     * The cursor engine with the default extraction spec, limits and no XSD validation, for tests.
+     */
+    public XmlParserService() {
+        this(ParserEngine.CURSOR.name(), false, false,
+                new Resource[]{new DefaultResourceLoader().getResource(DEFAULT_EXTRACTION_SPEC)},
+                ParserLimits.defaults(), XsdValidation.off());
+    }
+
+    /**
+     * Compiles one extractor per spec and routes each message to it by the namespace of its {@code Document}.
+     */
+    @Autowired
+    public XmlParserService(@Value("${xml.parser.engine:cursor}") String engineName,
+                            @Value("${xml.parser.strict:false}") boolean strict,
+                            @Value("${xml.parser.transaction-streaming:true}") boolean transactionStreaming,
+                            @Value("${xml.parser.extraction-spec:classpath:extraction/*.spec}") Resource[] extractionSpecs,
+                            ParserLimits limits,
+                            XsdValidation xsdValidation) {
+        ParserEngine engine = resolveEngine(engineName);
+        PaymentXmlExtractor eventExtractor = null;
+        if (engine == ParserEngine.EVENT) {
+            eventExtractor = new EventPaymentXmlExtractor(limits);
+            if (xsdValidation.mode() != XsdValidation.Mode.OFF) {
+                logger.warn("XSD validation is only supported by the CURSOR parser engine and will not be applied.");
+            }
+        }
+        for (Resource resource : extractionSpecs) {
+            ExtractionSpec spec = loadSpec(resource);
+            router.register(spec, eventExtractor != null
+                    ? eventExtractor
+                    : new CursorPaymentXmlExtractor(spec.compile(), strict, limits, xsdValidation));
+        }
+        if (router.isEmpty()) {
+            throw new IllegalStateException("No extraction spec found.");
+        }
+        this.transactionStreaming = transactionStreaming;
+        logger.info("XmlParserService initialized with {} parser engine (strict: {}, transaction streaming: {}, {}, {}).",
+                engine, strict, transactionStreaming, limits, router);
+    }
+
+    private static ExtractionSpec loadSpec(Resource resource) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            ExtractionSpec spec = ExtractionSpec.parse(reader);
+            logger.info("Loaded extraction spec from {}: {}", resource.getDescription(), spec);
+            return spec;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load extraction spec from " + resource.getDescription(), e);
+        }
+    }
+
+    private static ParserEngine resolveEngine(String engineName) {
+        try {
+            return ParserEngine.valueOf(engineName.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            logger.error("Unknown XML parser engine '{}'. Defaulting to CURSOR.", engineName);
+            return ParserEngine.CURSOR;
+        }
+    }
+
     public RawPaymentData parse(String xmlPayload) throws XmlParsingException {
-        RawPaymentData data = new RawPaymentData();
-        XMLInputFactory factory = XMLInputFactory.newInstance();
-        // Defend against XXE
-        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
-        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        MessageTypeRouter.Route route = route(NamespaceSniffer.sniff(xmlPayload));
+        try {
+            RawPaymentData data = route.extractor().extract(xmlPayload);
+            data.setMessageType(route.messageType());
+            return checkEssentialFields(data);
+        } catch (XMLStreamException e) {
+            throw parsingFailure(e);
+        }
+    }
 
+    /**
+     * Parses the raw UTF-8 payload as received from Kafka, so the message is never decoded into a {@code String}.
+     */
+    public RawPaymentData parse(byte[] xmlPayload) throws XmlParsingException {
+        MessageTypeRouter.Route route = route(NamespaceSniffer.sniff(xmlPayload));
+        try {
+            RawPaymentData data = route.extractor().extract(xmlPayload);
+            data.setMessageType(route.messageType());
+            return checkEssentialFields(data);
+        } catch (XMLStreamException e) {
+            throw parsingFailure(e);
+        }
+    }
+
+    /**
+     * Whether callers should use {@link #parseTransactions(byte[], Consumer)} so that every credit transfer
+     * transaction of a bulk message is processed on its own.
+     */
+    public boolean isTransactionStreaming() {
+        return transactionStreaming;
+    }
 
+    /**
+     * Streams the message one transaction at a time: {@code handler} receives a {@link RawPaymentData} carrying
+     * the group header fields and the fields of a single {@code CdtTrfTxInf} as soon as that element closes.
+     * Records are not checked for essential fields here, since one incomplete transaction must not abort the
+     * rest of the message; that is left to schema validation of each record.
+     *
+     * @return the number of transactions handed to {@code handler}
+     */
+    public int parseTransactions(String xmlPayload, Consumer<RawPaymentData> handler) throws XmlParsingException {
+        MessageTypeRouter.Route route = route(NamespaceSniffer.sniff(xmlPayload));
         try {
-            XMLEventReader eventReader = factory.createXMLEventReader(new StringReader(xmlPayload));
-            String currentElement = null;
-            boolean inDbtr = false;
-            boolean inCdtr = false;
-            boolean inInstdAmt = false;
-
-            while (eventReader.hasNext()) {
-                XMLEvent event = eventReader.nextEvent();
-
-                if (event.isStartElement()) {
-                    StartElement startElement = event.asStartElement();
-                    currentElement = startElement.getName().getLocalPart();
-
-                    if ("Dbtr".equals(currentElement)) {
-                        inDbtr = true;
-                    } else if ("Cdtr".equals(currentElement)) {
-                        inCdtr = true;
-                    } else if ("InstdAmt".equals(currentElement)) {
-                        inInstdAmt = true;
-                        // Extract currency attribute from InstdAmt
-                        javax.xml.namespace.QName currencyAttribute = new javax.xml.namespace.QName("Ccy");
-                        if (startElement.getAttributeByName(currencyAttribute) != null) {
-                             data.setCurrency(startElement.getAttributeByName(currencyAttribute).getValue());
-                        }
-                    }
-                } else if (event.isCharacters()) {
-                    Characters characters = event.asCharacters();
-                    String text = characters.getData().trim();
-                    if (text.isEmpty() || currentElement == null) {
-                        continue;
-                    }
-
-                    switch (currentElement) {
-                        case "MsgId":
-                            data.setMsgId(text);
-                            break;
-                        case "InstrId":
-                            data.setInstrId(text);
-                            break;
-                        case "EndToEndId":
-                            data.setEndToEndId(text);
-                            break;
-                        case "Nm":
-                            if (inDbtr) {
-                                data.setDebtorName(text);
-                            } else if (inCdtr) {
-                                data.setCreditorName(text);
-                            }
-                            break;
-                        case "Id": // This is a simplification. Real ISO 20022 might have OrgId/PrvtId/Othr
-                                   // For now, we take the first Id we find under Dbtr/Cdtr.
-                                   // A more robust solution would check parent elements (e.g. OrgId, PrvtId)
-                            if (inDbtr && data.getDebtorId() == null) { // only set if not already set
-                                data.setDebtorId(text);
-                            } else if (inCdtr && data.getCreditorId() == null) { // only set if not already set
-                                data.setCreditorId(text);
-                            }
-                            break;
-                        case "Amt":
-                             if(inInstdAmt){
-                                data.setAmount(text);
-                            }
-                            break;
-                        // Currency is handled as an attribute of InstdAmt
-                    }
-                } else if (event.isEndElement()) {
-                    String endElement = event.asEndElement().getName().getLocalPart();
-                    if ("Dbtr".equals(endElement)) {
-                        inDbtr = false;
-                    } else if ("Cdtr".equals(endElement)) {
-                        inCdtr = false;
-                    } else if ("InstdAmt".equals(endElement)) {
-                        inInstdAmt = false;
-                    }
-                    currentElement = null; // Reset current element on end tag
-                }
-            }
+            return route.extractor().extractTransactions(xmlPayload, typed(route, handler));
+        } catch (XMLStreamException e) {
+            throw parsingFailure(e);
+        }
+    }
+
+    public int parseTransactions(byte[] xmlPayload, Consumer<RawPaymentData> handler) throws XmlParsingException {
+        MessageTypeRouter.Route route = route(NamespaceSniffer.sniff(xmlPayload));
+        try {
+            return route.extractor().extractTransactions(xmlPayload, typed(route, handler));
         } catch (XMLStreamException e) {
-            logger.error("Failed to parse XML payload: {}", e.getMessage());
-            throw new XmlParsingException("Error parsing XML: " + e.getMessage(), e);
+            throw parsingFailure(e);
+        }
+    }
+
+    /**
+     * Picks the extractor for the payload's {@code Document} namespace, which is sniffed from the leading bytes, so
+     * that unsupported message types are rejected before any parsing.
+     */
+    private MessageTypeRouter.Route route(String namespace) throws UnsupportedMessageTypeException {
+        MessageTypeRouter.Route route = router.route(namespace);
+        if (route == null) {
+            logger.warn("Rejected message with unsupported Document namespace '{}'.", namespace);
+            throw new UnsupportedMessageTypeException(namespace, "Unsupported message type: " + namespace);
         }
+        return route;
+    }
+
+    private static Consumer<RawPaymentData> typed(MessageTypeRouter.Route route, Consumer<RawPaymentData> handler) {
+        String messageType = route.messageType();
+        return data -> {
+            data.setMessageType(messageType);
+            handler.accept(data);
+        };
+    }
+
+    // Only the message is kept, so a rejected payload does not hold on to the parser's exception and its trace
+    private static XmlParsingException parsingFailure(XMLStreamException e) {
+        if (e instanceof XsdViolationException) {
+            logger.warn("XML payload failed XSD validation: {}", e.getMessage());
+            return new XsdValidationException("XSD validation failed: " + e.getMessage());
+        }
+        if (e instanceof LimitViolationException) {
+            String limit = ((LimitViolationException) e).limit();
+            logger.warn("Rejected XML payload exceeding the {} limit: {}", limit, e.getMessage());
+            return new PayloadLimitExceededException(limit, "Payload exceeds parser limit: " + e.getMessage());
+        }
+        logger.error("Failed to parse XML payload: {}", e.getMessage());
+        return new XmlParsingException("Error parsing XML: " + e.getMessage());
+    }
 
+    private RawPaymentData checkEssentialFields(RawPaymentData data) throws XmlParsingException {
         // Basic validation to ensure essential fields are present
-        if (data.getMsgId() == null || data.getAmount() == null || data.getCurrency() == null) {
+        if (!data.hasFields(ESSENTIAL_FIELDS)) {
             logger.error("Parsed data is missing essential fields: MsgId, Amount, or Currency.");
             throw new XmlParsingException("Parsed XML is missing essential fields (e.g., MsgId, Amount, Currency).");
         }
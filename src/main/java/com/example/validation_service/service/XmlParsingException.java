@@ -1,12 +1,13 @@
 package com.example.validation_service.service;
 
+/**
+ * The payload cannot be turned into a payment. This rejects the input rather than reporting a fault, so no stack
+ * trace is captured. Parser errors are converted to their message where they are caught rather than kept as the
+ * cause.
+ */
 public class XmlParsingException extends Exception {
 
     public XmlParsingException(String message) {
-        super(message);
-    }
-
-    public XmlParsingException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, null, false, false);
     }
 }
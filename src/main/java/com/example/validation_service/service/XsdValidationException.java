@@ -0,0 +1,11 @@
+package com.example.validation_service.service;
+
+/**
+ * The payload is well-formed XML but does not conform to the configured XSD.
+ */
+public class XsdValidationException extends XmlParsingException {
+
+    public XsdValidationException(String message) {
+        super(message);
+    }
+}
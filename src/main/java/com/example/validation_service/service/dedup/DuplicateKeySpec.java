@@ -0,0 +1,137 @@
+package com.example.validation_service.service.dedup;
+
+import com.example.validation_service.dto.PaymentField;
+import com.example.validation_service.dto.RawPaymentData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@link RawPaymentData} fields that identify a payment for the duplicate check, e.g. {@code msgId} or
+ * {@code debtorId,endToEndId}. The field values are joined in the configured order and hashed into a
+ * {@link KeyDigest}.
+ * <p>
+ * When every key field comes from the group header (only {@code msgId} does), the transactions streamed out of one
+ * bulk message would share a key, so from the second transaction on the key also carries the transaction's
+ * position. The digest of a plain {@code msgId} key is the digest of the MsgId itself, so stores written before key
+ * fields were configurable remain valid.
+ */
+public final class DuplicateKeySpec {
+
+    private static final char SEPARATOR = '\u001f';
+    private static final ThreadLocal<KeyDigest.Hasher> HASHER = ThreadLocal.withInitial(KeyDigest.Hasher::new);
+
+    private final PaymentField[] fields;
+    private final boolean messageLevel;
+    private final String label;
+
+    private DuplicateKeySpec(PaymentField[] fields) {
+        this.fields = fields;
+        this.messageLevel = Arrays.stream(fields).allMatch(field -> field == PaymentField.MSG_ID);
+        StringBuilder label = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                label.append('/');
+            }
+            label.append(fields[i].label());
+        }
+        this.label = label.toString();
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code csv} names no field or an unknown one
+     */
+    public static DuplicateKeySpec parse(String csv) {
+        List<PaymentField> fields = new ArrayList<>();
+        for (String property : csv.split(",")) {
+            if (!property.isBlank()) {
+                PaymentField field = PaymentField.fromProperty(property.trim());
+                if (!fields.contains(field)) {
+                    fields.add(field);
+                }
+            }
+        }
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("No duplicate key fields in '" + csv + "'.");
+        }
+        return new DuplicateKeySpec(fields.toArray(new PaymentField[0]));
+    }
+
+    /**
+     * Returns the first key field that holds no text, or {@code null} if the key is complete.
+     */
+    public PaymentField missingField(RawPaymentData data) {
+        for (PaymentField field : fields) {
+            if (!data.hasFields(field.bit())) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Labels of the key fields, e.g. {@code MsgId}, for messages.
+     */
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Readable form of the key, for messages and logs; the MsgId alone for the default key.
+     */
+    public String describe(RawPaymentData data) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                key.append('/');
+            }
+            key.append(fields[i].valueIn(data));
+        }
+        appendSequence(key, data);
+        return key.toString();
+    }
+
+    /**
+     * Hashes the joined key as it is read from the fields, with a hasher reused by the calling thread, so no key
+     * string or byte array is built.
+     */
+    public KeyDigest digest(RawPaymentData data) {
+        KeyDigest.Hasher hasher = HASHER.get();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                hasher.append(SEPARATOR);
+            }
+            hasher.append(fields[i].valueIn(data));
+        }
+        int sequence = data.getTransactionSequence();
+        if (messageLevel && sequence > 1) {
+            hasher.append('#').append(sequence);
+        }
+        return hasher.digest();
+    }
+
+    /**
+     * Whether the key is the MsgId alone, so that the digest of a MsgId seen elsewhere is the key of the message's
+     * first transaction.
+     */
+    public boolean messageLevel() {
+        return messageLevel;
+    }
+
+    public List<PaymentField> fields() {
+        return List.of(fields);
+    }
+
+    private void appendSequence(StringBuilder key, RawPaymentData data) {
+        int sequence = data.getTransactionSequence();
+        if (messageLevel && sequence > 1) {
+            key.append('#').append(sequence);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DuplicateKeySpec" + Arrays.toString(fields);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.validation_service.service.dedup;
+
+/**
+ * Remembers which duplicate-check keys have been seen recently, by their 128-bit digest. Implementations are safe for
+ * concurrent use by all consumer threads.
+ */
+public interface DuplicateStore extends AutoCloseable {
+
+    /**
+     * Records {@code key} unless it is already held and unexpired.
+     *
+     * @return {@code true} if the key was recorded, {@code false} if it is a duplicate
+     */
+    boolean putIfAbsent(KeyDigest key);
+
+    /**
+     * Same as {@link #putIfAbsent(KeyDigest)} for a key read from the given inbound partition. Stores that keep state
+     * per partition use it; others ignore the partition.
+     */
+    default boolean putIfAbsent(int partition, KeyDigest key) {
+        return putIfAbsent(key);
+    }
+
+    /**
+     * Records {@code key} that the caller already knows to be new, e.g. from a filter in front of this store, so
+     * stores can append it without first looking it up.
+     */
+    default void record(KeyDigest key) {
+        putIfAbsent(key);
+    }
+
+    /**
+     * Records {@code key} as inserted at {@code insertedAt}, e.g. when rebuilding the store after a restart. Stores
+     * that do not keep insertion times record it as new.
+     */
+    default void restore(KeyDigest key, long insertedAt) {
+        record(key);
+    }
+
+    /**
+     * Removes expired keys, for stores that do not reclaim them as they go.
+     *
+     * @return the number of keys removed
+     */
+    default int removeExpired() {
+        return 0;
+    }
+
+    /**
+     * Number of keys held, including expired keys that have not been reclaimed yet.
+     */
+    long size();
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.validation_service.service.dedup;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Rebuilds the duplicate store at startup from the keys of the payments published to the validated topic within the
+ * last TTL window, so that a message replayed shortly after a restart is still caught by a store that starts empty.
+ * Validated records are keyed by transactionId, which is the MsgId, so this only applies to the default
+ * {@code msgId} duplicate key.
+ * <p>
+ * The warm-up starts before the listener containers and blocks them until it is done or its time budget runs out;
+ * the service then consumes with whatever was restored. Partitions of the validated topic are split over a few
+ * consumers read in parallel, each starting at the first offset within the window. As a health indicator it reports
+ * {@code OUT_OF_SERVICE} while running, and afterwards how many keys it restored and whether it finished.
+ */
+public final class DuplicateWarmUp implements SmartLifecycle, HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DuplicateWarmUp.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    public enum State {
+        PENDING, WARMING, COMPLETE, INCOMPLETE, SKIPPED
+    }
+
+    private final String topic;
+    private final DuplicateStore store;
+    private final Supplier<Consumer<String, byte[]>> consumers;
+    private final long windowMillis;
+    private final Duration budget;
+    private final int parallelism;
+    private final boolean enabled;
+    private final LongSupplier clock;
+    private final AtomicLong restored = new AtomicLong();
+
+    private volatile State state = State.PENDING;
+    private volatile long elapsedMillis;
+    private volatile boolean running;
+
+    /**
+     * @param windowMillis how far back keys are read; {@code 0} or less reads the whole topic
+     * @param budget       upper bound on the whole warm-up
+     * @param parallelism  maximum number of consumers reading partitions at the same time
+     * @param enabled      {@code false} skips the warm-up, e.g. for a store that is already restored elsewhere
+     */
+    public DuplicateWarmUp(String topic, DuplicateStore store, Supplier<Consumer<String, byte[]>> consumers,
+                           long windowMillis, Duration budget, int parallelism, boolean enabled, LongSupplier clock) {
+        this.topic = topic;
+        this.store = store;
+        this.consumers = consumers;
+        this.windowMillis = windowMillis;
+        this.budget = budget;
+        this.parallelism = Math.max(1, parallelism);
+        this.enabled = enabled;
+        this.clock = clock;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!enabled) {
+            state = State.SKIPPED;
+            return;
+        }
+        run();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Started before the listener containers, which are stopped first and started last.
+     */
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE - 100;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder health = state == State.PENDING || state == State.WARMING ? Health.outOfService() : Health.up();
+        return health.withDetail("state", state)
+                .withDetail("keys", restored.get())
+                .withDetail("elapsedMs", elapsedMillis)
+                .build();
+    }
+
+    public State state() {
+        return state;
+    }
+
+    /**
+     * Number of keys restored so far.
+     */
+    public long restored() {
+        return restored.get();
+    }
+
+    State run() {
+        state = State.WARMING;
+        long started = System.nanoTime();
+        long deadline = started + budget.toNanos();
+        long from = windowMillis > 0 ? clock.getAsLong() - windowMillis : 0;
+        boolean complete = false;
+        try {
+            List<List<TopicPartition>> groups = partitionGroups(deadline);
+            logger.info("Warming up duplicate store from {} partitions of {} within {} ms.",
+                    groups.stream().mapToInt(List::size).sum(), topic, budget.toMillis());
+            complete = restoreInParallel(groups, from, deadline);
+        } catch (RuntimeException e) {
+            logger.error("Failed to warm up duplicate store from {}; continuing with {} keys.", topic, restored.get(), e);
+        } catch (InterruptedException e) {
+            logger.warn("Duplicate store warm-up interrupted; continuing with {} keys.", restored.get());
+            Thread.currentThread().interrupt();
+        }
+        elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        state = complete ? State.COMPLETE : State.INCOMPLETE;
+        if (complete) {
+            logger.info("Restored {} duplicate keys from {} in {} ms.", restored.get(), topic, elapsedMillis);
+        } else {
+            logger.warn("Duplicate store warm-up from {} did not finish; restored {} keys in {} ms.",
+                    topic, restored.get(), elapsedMillis);
+        }
+        return state;
+    }
+
+    private List<List<TopicPartition>> partitionGroups(long deadline) {
+        List<PartitionInfo> partitions;
+        try (Consumer<String, byte[]> consumer = consumers.get()) {
+            partitions = consumer.partitionsFor(topic, remaining(deadline));
+        }
+        List<List<TopicPartition>> groups = new ArrayList<>();
+        if (partitions == null || partitions.isEmpty()) {
+            logger.warn("Topic {} not found; nothing to warm up from.", topic);
+            return groups;
+        }
+        int groupCount = Math.min(parallelism, partitions.size());
+        for (int i = 0; i < groupCount; i++) {
+            groups.add(new ArrayList<>());
+        }
+        for (int i = 0; i < partitions.size(); i++) {
+            PartitionInfo partition = partitions.get(i);
+            groups.get(i % groupCount).add(new TopicPartition(partition.topic(), partition.partition()));
+        }
+        return groups;
+    }
+
+    private boolean restoreInParallel(List<List<TopicPartition>> groups, long from, long deadline)
+            throws InterruptedException {
+        if (groups.isEmpty()) {
+            return true;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(groups.size());
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (List<TopicPartition> group : groups) {
+                results.add(executor.submit(() -> restore(group, from, deadline)));
+            }
+            boolean complete = true;
+            for (Future<Boolean> result : results) {
+                try {
+                    complete &= result.get();
+                } catch (ExecutionException e) {
+                    logger.error("Failed to warm up duplicate store from {}.", topic, e.getCause());
+                    complete = false;
+                }
+            }
+            return complete;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads the window of the given partitions into the store.
+     *
+     * @return whether every partition was read up to the end offset it had when the warm-up started
+     */
+    private boolean restore(List<TopicPartition> partitions, long from, long deadline) {
+        try (Consumer<String, byte[]> consumer = consumers.get()) {
+            consumer.assign(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions, remaining(deadline));
+            Map<TopicPartition, Long> query = new HashMap<>();
+            for (TopicPartition partition : partitions) {
+                query.put(partition, from);
+            }
+            Map<TopicPartition, OffsetAndTimestamp> startOffsets = consumer.offsetsForTimes(query, remaining(deadline));
+
+            Set<TopicPartition> pending = new HashSet<>();
+            for (TopicPartition partition : partitions) {
+                OffsetAndTimestamp start = startOffsets.get(partition);
+                // No record at or after the start of the window
+                if (start != null && start.offset() < endOffsets.getOrDefault(partition, 0L)) {
+                    consumer.seek(partition, start.offset());
+                    pending.add(partition);
+                }
+            }
+            consumer.pause(difference(partitions, pending));
+
+            while (!pending.isEmpty()) {
+                if (System.nanoTime() > deadline || !running) {
+                    return false;
+                }
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(POLL_TIMEOUT)) {
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    if (record.key() != null && record.offset() < endOffsets.getOrDefault(partition, 0L)) {
+                        store.restore(KeyDigest.of(record.key()), record.timestamp());
+                        restored.incrementAndGet();
+                    }
+                }
+                List<TopicPartition> done = new ArrayList<>();
+                for (TopicPartition partition : pending) {
+                    if (consumer.position(partition) >= endOffsets.getOrDefault(partition, 0L)) {
+                        done.add(partition);
+                    }
+                }
+                consumer.pause(done);
+                done.forEach(pending::remove);
+            }
+            return true;
+        }
+    }
+
+    private static List<TopicPartition> difference(List<TopicPartition> partitions, Set<TopicPartition> excluded) {
+        List<TopicPartition> result = new ArrayList<>();
+        for (TopicPartition partition : partitions) {
+            if (!excluded.contains(partition)) {
+                result.add(partition);
+            }
+        }
+        return result;
+    }
+
+    private static Duration remaining(long deadline) {
+        return Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.validation_service.service.dedup;
+
+/**
+ * 128-bit MurmurHash3 (x64 variant) of a key's UTF-8 bytes. The digest is stored instead of the key where keys must
+ * have a fixed width, and it does not depend on the JVM, so a digest written by one process can be looked up by the
+ * next one. The bytes are encoded and hashed as the characters are fed to a {@link Hasher}, so a key made of several
+ * fields is never built or encoded as a whole.
+ * <p>
+ * Equality is by value across subclasses, so that a store can extend the digest with its own bookkeeping and use the
+ * same object as map key and entry.
+ */
+public class KeyDigest {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final long high;
+    private final long low;
+
+    protected KeyDigest(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    public static KeyDigest of(String key) {
+        return new Hasher().append(key).digest();
+    }
+
+    /**
+     * Parses the 32 hex digits written by {@link #toString()}.
+     *
+     * @throws IllegalArgumentException if {@code hex} is not a digest
+     */
+    public static KeyDigest parse(String hex) {
+        if (hex == null || hex.length() != 32) {
+            throw new IllegalArgumentException("Not a key digest: " + hex);
+        }
+        return new KeyDigest(Long.parseUnsignedLong(hex.substring(0, 16), 16), Long.parseUnsignedLong(hex.substring(16), 16));
+    }
+
+    public long high() {
+        return high;
+    }
+
+    public long low() {
+        return low;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    /**
+     * Digests a key fed in pieces as the UTF-8 bytes of their concatenation, with the same result as
+     * {@link KeyDigest#of} on the concatenated key. Bytes are mixed a 16-byte block at a time as they are encoded, so
+     * nothing is buffered beyond the current block. Not thread-safe; {@link #digest()} resets it for the next key.
+     */
+    static final class Hasher {
+
+        private long h1;
+        private long h2;
+        // Bytes of the current block, little-endian
+        private long k1;
+        private long k2;
+        private int blockLength;
+        private long length;
+        // A high surrogate waiting for the low surrogate it may pair with
+        private char highSurrogate;
+
+        /**
+         * Appends {@code text}, or {@code "null"} for {@code null} as {@link StringBuilder} does.
+         */
+        Hasher append(CharSequence text) {
+            if (text == null) {
+                return append("null");
+            }
+            for (int i = 0, n = text.length(); i < n; i++) {
+                append(text.charAt(i));
+            }
+            return this;
+        }
+
+        Hasher append(char c) {
+            if (highSurrogate != 0) {
+                char high = highSurrogate;
+                highSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    int codePoint = Character.toCodePoint(high, c);
+                    put(0xf0 | codePoint >>> 18);
+                    put(0x80 | (codePoint >>> 12 & 0x3f));
+                    put(0x80 | (codePoint >>> 6 & 0x3f));
+                    put(0x80 | (codePoint & 0x3f));
+                    return this;
+                }
+                // An unpaired surrogate is encoded as '?', as String.getBytes does
+                put('?');
+            }
+            if (c < 0x80) {
+                put(c);
+            } else if (c < 0x800) {
+                put(0xc0 | c >>> 6);
+                put(0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                put('?');
+            } else {
+                put(0xe0 | c >>> 12);
+                put(0x80 | (c >>> 6 & 0x3f));
+                put(0x80 | (c & 0x3f));
+            }
+            return this;
+        }
+
+        /**
+         * Appends the decimal digits of a non-negative {@code value}.
+         */
+        Hasher append(int value) {
+            int divisor = 1;
+            while (value / divisor >= 10) {
+                divisor *= 10;
+            }
+            for (; divisor > 0; divisor /= 10) {
+                append((char) ('0' + value / divisor % 10));
+            }
+            return this;
+        }
+
+        KeyDigest digest() {
+            if (highSurrogate != 0) {
+                highSurrogate = 0;
+                put('?');
+            }
+            long h1 = this.h1;
+            long h2 = this.h2;
+            if (blockLength > 8) {
+                h2 ^= mixK2(k2);
+            }
+            if (blockLength > 0) {
+                h1 ^= mixK1(k1);
+            }
+            h1 ^= length;
+            h2 ^= length;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix(h1);
+            h2 = fmix(h2);
+            h1 += h2;
+            h2 += h1;
+            this.h1 = 0;
+            this.h2 = 0;
+            k1 = 0;
+            k2 = 0;
+            blockLength = 0;
+            length = 0;
+            return new KeyDigest(h1, h2);
+        }
+
+        private void put(int b) {
+            long value = b & 0xff;
+            if (blockLength < 8) {
+                k1 |= value << (blockLength * 8);
+            } else {
+                k2 |= value << ((blockLength - 8) * 8);
+            }
+            length++;
+            if (++blockLength == 16) {
+                h1 ^= mixK1(k1);
+                h1 = Long.rotateLeft(h1, 27) + h2;
+                h1 = h1 * 5 + 0x52dce729;
+                h2 ^= mixK2(k2);
+                h2 = Long.rotateLeft(h2, 31) + h1;
+                h2 = h2 * 5 + 0x38495ab5;
+                k1 = 0;
+                k2 = 0;
+                blockLength = 0;
+            }
+        }
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof KeyDigest)) return false;
+        KeyDigest that = (KeyDigest) o;
+        return high == that.high && low == that.low;
+    }
+
+    @Override
+    public final int hashCode() {
+        return Long.hashCode(high ^ low);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+}
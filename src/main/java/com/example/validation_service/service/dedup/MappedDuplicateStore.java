@@ -0,0 +1,233 @@
+package com.example.validation_service.service.dedup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Duplicate store kept in a memory-mapped file, so that it holds tens of millions of keys outside the Java heap and
+ * is still there after a restart or redeploy.
+ * <p>
+ * Keys are stored as their 128-bit digest with an insertion timestamp, 24 bytes per slot. The table is
+ * set-associative: a digest hashes to one bucket of {@link #WAYS} adjacent slots and can only live there, so a
+ * lookup reads at most three cache lines and never probes further. A key is recorded in the first empty or expired
+ * slot of its bucket; when all of them hold live keys, the oldest is overwritten. Slots are never cleared, which
+ * keeps the empty slots of a bucket after its used ones, and expired slots are reused in place, so no sweep is
+ * needed.
+ * <p>
+ * Writes go to the page cache and survive the process; they are forced to disk on {@link #close()}. A file whose
+ * header does not match the configured geometry is discarded and recreated empty.
+ */
+public final class MappedDuplicateStore implements DuplicateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedDuplicateStore.class);
+
+    static final long MAGIC = 0x5644555053544f52L; // "VDUPSTOR"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int SLOT_BYTES = 24;
+    static final int WAYS = 8;
+    static final int BUCKET_BYTES = SLOT_BYTES * WAYS;
+    // A single mapping is limited to 2 GB
+    static final int MAX_BUCKETS = Integer.highestOneBit((Integer.MAX_VALUE - HEADER_BYTES) / BUCKET_BYTES);
+
+    private static final int LOCK_STRIPES = 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer table;
+    private final int bucketMask;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final AtomicLong occupied = new AtomicLong();
+
+    /**
+     * Opens the store at {@code path}, creating the file if needed.
+     *
+     * @param capacity  number of keys to size the table for, rounded up to a power-of-two number of buckets
+     * @param ttlMillis how long a key is remembered after insertion; {@code 0} or less keeps keys until overwritten
+     */
+    public MappedDuplicateStore(Path path, long capacity, long ttlMillis, LongSupplier clock) {
+        long buckets = Math.max(1, (capacity + WAYS - 1) / WAYS);
+        if (buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Capacity " + capacity + " exceeds the maximum of "
+                    + (long) MAX_BUCKETS * WAYS + " keys for a mapped duplicate store.");
+        }
+        int bucketCount = Integer.highestOneBit((int) buckets);
+        if (bucketCount < buckets) {
+            bucketCount <<= 1;
+        }
+        this.path = path;
+        this.bucketMask = bucketCount - 1;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+
+        long fileSize = HEADER_BYTES + (long) bucketCount * BUCKET_BYTES;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            boolean reopened = channel.size() == fileSize;
+            if (!reopened && channel.size() > 0) {
+                logger.warn("Duplicate store {} does not match the configured capacity ({} bytes expected, {} found). Starting empty.",
+                        path, fileSize, channel.size());
+                channel.truncate(0);
+            }
+            this.table = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            if (reopened && headerMatches(bucketCount)) {
+                occupied.set(countOccupied(bucketCount));
+                logger.info("Reopened duplicate store {} with {} keys ({} slots).", path, occupied.get(), (long) bucketCount * WAYS);
+            } else {
+                if (reopened) {
+                    logger.warn("Duplicate store {} has an unrecognized header. Starting empty.", path);
+                    clear(fileSize);
+                }
+                writeHeader(bucketCount);
+                logger.info("Created duplicate store {} with {} slots.", path, (long) bucketCount * WAYS);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open duplicate store " + path, e);
+        }
+    }
+
+    @Override
+    public boolean putIfAbsent(KeyDigest key) {
+        long now = clock.getAsLong();
+        return put(key, now, now, true);
+    }
+
+    /**
+     * Writes {@code key} to the first free slot of its bucket without comparing the keys already there.
+     */
+    @Override
+    public void record(KeyDigest key) {
+        long now = clock.getAsLong();
+        put(key, now, now, false);
+    }
+
+    /**
+     * Records {@code key} with its original insertion time, unless it is already held and unexpired or has expired
+     * by now.
+     */
+    @Override
+    public void restore(KeyDigest key, long insertedAt) {
+        long now = clock.getAsLong();
+        if (!isExpired(insertedAt, now)) {
+            put(key, insertedAt, now, true);
+        }
+    }
+
+    private boolean put(KeyDigest key, long insertedAt, long now, boolean lookUp) {
+        long high = key.high();
+        long low = key.low();
+        int bucket = (int) (high ^ (high >>> 32)) & bucketMask;
+        int base = HEADER_BYTES + bucket * BUCKET_BYTES;
+
+        synchronized (locks[bucket & (LOCK_STRIPES - 1)]) {
+            int target = -1;
+            int oldest = base;
+            long oldestTimestamp = Long.MAX_VALUE;
+            for (int slot = base; slot < base + BUCKET_BYTES; slot += SLOT_BYTES) {
+                long timestamp = table.getLong(slot + 16);
+                if (timestamp == 0) {
+                    if (target < 0) {
+                        target = slot;
+                        occupied.incrementAndGet();
+                    }
+                    break;
+                }
+                boolean expired = isExpired(timestamp, now);
+                if (lookUp && table.getLong(slot) == high && table.getLong(slot + 8) == low) {
+                    if (!expired) {
+                        return false;
+                    }
+                    table.putLong(slot + 16, insertedAt);
+                    return true;
+                }
+                if (expired && target < 0) {
+                    target = slot;
+                }
+                if (timestamp < oldestTimestamp) {
+                    oldestTimestamp = timestamp;
+                    oldest = slot;
+                }
+            }
+            if (target < 0) {
+                target = oldest;
+            }
+            table.putLong(target, high);
+            table.putLong(target + 8, low);
+            // The timestamp marks the slot as used, so it is written last
+            table.putLong(target + 16, insertedAt);
+            return true;
+        }
+    }
+
+    @Override
+    public long size() {
+        return occupied.get();
+    }
+
+    Path path() {
+        return path;
+    }
+
+    @Override
+    public void close() {
+        try {
+            table.force();
+            channel.close();
+            logger.info("Closed duplicate store {} with {} keys.", path, occupied.get());
+        } catch (IOException e) {
+            logger.error("Failed to close duplicate store {}", path, e);
+        }
+    }
+
+    private boolean isExpired(long timestamp, long now) {
+        return ttlMillis > 0 && now - timestamp >= ttlMillis;
+    }
+
+    private boolean headerMatches(int bucketCount) {
+        return table.getLong(0) == MAGIC
+                && table.getInt(8) == VERSION
+                && table.getInt(12) == bucketCount
+                && table.getInt(16) == WAYS;
+    }
+
+    private void writeHeader(int bucketCount) {
+        table.putLong(0, MAGIC);
+        table.putInt(8, VERSION);
+        table.putInt(12, bucketCount);
+        table.putInt(16, WAYS);
+    }
+
+    private void clear(long fileSize) {
+        for (int offset = 0; offset < fileSize; offset += 8) {
+            table.putLong(offset, 0L);
+        }
+    }
+
+    private long countOccupied(int bucketCount) {
+        long count = 0;
+        for (long slot = 0, slots = (long) bucketCount * WAYS; slot < slots; slot++) {
+            if (table.getLong(HEADER_BYTES + (int) slot * SLOT_BYTES + 16) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
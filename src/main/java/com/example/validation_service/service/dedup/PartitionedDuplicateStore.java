@@ -0,0 +1,202 @@
+package com.example.validation_service.service.dedup;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Duplicate state kept per inbound partition, so that each instance of the consumer group only holds the keys of the
+ * partitions it owns and picks up the keys of the partitions it is assigned. This relies on producers keying inbound
+ * messages so that a repeated message lands on the same partition as the original.
+ * <p>
+ * Every key recorded is also written to a compacted changelog topic, keyed by the digest in hex, to the partition
+ * with the same number as the inbound one; the changelog therefore needs at least as many partitions as the inbound
+ * topic. When a partition is
+ * assigned, its state is rebuilt from the changelog before the listener sees any of its records; when it is revoked
+ * or lost, the state is dropped. Changelog entries older than the TTL are skipped on restore; retention on the topic
+ * ({@code cleanup.policy=compact,delete}) keeps it from growing without bound.
+ * <p>
+ * Keys of records without a known partition (e.g. processed outside a listener) go to a store of their own that is
+ * neither written to nor restored from the changelog.
+ */
+public final class PartitionedDuplicateStore implements DuplicateStore, ConsumerRebalanceListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedDuplicateStore.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    private final String inboundTopic;
+    private final String changelogTopic;
+    private final Producer<String, String> changelogProducer;
+    private final Supplier<Consumer<String, String>> restoreConsumers;
+    private final Duration restoreTimeout;
+    private final int partitionCapacity;
+    private final long ttlMillis;
+    private final int shards;
+    private final LongSupplier clock;
+    private final Map<Integer, ShardedDuplicateCache> partitions = new ConcurrentHashMap<>();
+    private final ShardedDuplicateCache unpartitioned;
+
+    public PartitionedDuplicateStore(String inboundTopic, String changelogTopic,
+                                     Producer<String, String> changelogProducer,
+                                     Supplier<Consumer<String, String>> restoreConsumers, Duration restoreTimeout,
+                                     int partitionCapacity, long ttlMillis, int shards, LongSupplier clock) {
+        this.inboundTopic = inboundTopic;
+        this.changelogTopic = changelogTopic;
+        this.changelogProducer = changelogProducer;
+        this.restoreConsumers = restoreConsumers;
+        this.restoreTimeout = restoreTimeout;
+        this.partitionCapacity = partitionCapacity;
+        this.ttlMillis = ttlMillis;
+        this.shards = shards;
+        this.clock = clock;
+        this.unpartitioned = newPartitionCache();
+    }
+
+    @Override
+    public boolean putIfAbsent(KeyDigest key) {
+        return unpartitioned.putIfAbsent(key);
+    }
+
+    @Override
+    public boolean putIfAbsent(int partition, KeyDigest key) {
+        if (partition < 0) {
+            return putIfAbsent(key);
+        }
+        // A partition processed without having been assigned through this listener starts empty
+        ShardedDuplicateCache cache = partitions.computeIfAbsent(partition, p -> newPartitionCache());
+        if (!cache.putIfAbsent(key)) {
+            return false;
+        }
+        changelogProducer.send(new ProducerRecord<>(changelogTopic, partition, key.toString(), Long.toString(clock.getAsLong())),
+                (metadata, e) -> {
+                    if (e != null) {
+                        logger.error("Failed to write duplicate key {} to changelog {}-{}: {}",
+                                key, changelogTopic, partition, e.getMessage());
+                    }
+                });
+        return true;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> assigned) {
+        for (TopicPartition topicPartition : assigned) {
+            if (topicPartition.topic().equals(inboundTopic)) {
+                partitions.put(topicPartition.partition(), restore(topicPartition.partition()));
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> revoked) {
+        for (TopicPartition topicPartition : revoked) {
+            if (topicPartition.topic().equals(inboundTopic) && partitions.remove(topicPartition.partition()) != null) {
+                logger.info("Dropped duplicate state of revoked partition {}.", topicPartition);
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Collection<TopicPartition> lost) {
+        onPartitionsRevoked(lost);
+    }
+
+    @Override
+    public int removeExpired() {
+        int removed = unpartitioned.removeExpired();
+        for (ShardedDuplicateCache cache : partitions.values()) {
+            removed += cache.removeExpired();
+        }
+        return removed;
+    }
+
+    @Override
+    public long size() {
+        long size = unpartitioned.size();
+        for (ShardedDuplicateCache cache : partitions.values()) {
+            size += cache.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void close() {
+        changelogProducer.close();
+    }
+
+    private ShardedDuplicateCache restore(int partition) {
+        ShardedDuplicateCache cache = newPartitionCache();
+        TopicPartition changelogPartition = new TopicPartition(changelogTopic, partition);
+        List<TopicPartition> assignment = List.of(changelogPartition);
+        long started = System.nanoTime();
+        long restored = 0;
+        try (Consumer<String, String> consumer = restoreConsumers.get()) {
+            consumer.assign(assignment);
+            consumer.seekToBeginning(assignment);
+            long endOffset = consumer.endOffsets(assignment).getOrDefault(changelogPartition, 0L);
+            long deadline = started + restoreTimeout.toNanos();
+            long now = clock.getAsLong();
+            while (consumer.position(changelogPartition) < endOffset) {
+                if (System.nanoTime() > deadline) {
+                    logger.error("Restoring duplicate state of partition {} timed out at offset {} of {}; continuing with {} keys.",
+                            partition, consumer.position(changelogPartition), endOffset, restored);
+                    break;
+                }
+                for (ConsumerRecord<String, String> record : consumer.poll(POLL_TIMEOUT)) {
+                    KeyDigest key = parseKey(record);
+                    Long insertedAt = key != null ? parseTimestamp(record) : null;
+                    if (insertedAt != null && (ttlMillis <= 0 || now - insertedAt < ttlMillis)) {
+                        cache.restore(key, insertedAt);
+                        restored++;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to restore duplicate state of partition {} from {}; continuing with {} keys.",
+                    partition, changelogTopic, restored, e);
+        }
+        logger.info("Restored {} duplicate keys for partition {} from {} in {} ms.",
+                restored, partition, changelogTopic, (System.nanoTime() - started) / 1_000_000);
+        return cache;
+    }
+
+    private static KeyDigest parseKey(ConsumerRecord<String, String> record) {
+        try {
+            return KeyDigest.parse(record.key());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Skipping changelog record at {}-{}@{} with invalid key '{}'.",
+                    record.topic(), record.partition(), record.offset(), record.key());
+            return null;
+        }
+    }
+
+    private static Long parseTimestamp(ConsumerRecord<String, String> record) {
+        if (record.value() == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(record.value());
+        } catch (NumberFormatException e) {
+            logger.warn("Skipping changelog record at {}-{}@{} with invalid timestamp '{}'.",
+                    record.topic(), record.partition(), record.offset(), record.value());
+            return null;
+        }
+    }
+
+    private ShardedDuplicateCache newPartitionCache() {
+        return new ShardedDuplicateCache(partitionCapacity, ttlMillis, shards, clock);
+    }
+}
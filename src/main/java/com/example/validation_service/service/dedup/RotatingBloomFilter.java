@@ -0,0 +1,129 @@
+package com.example.validation_service.service.dedup;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Bloom filter over a sliding time window, built from a ring of generations. Keys are added to the newest
+ * generation and looked up in all of them; every {@code window / (generations - 1)} the oldest generation is dropped
+ * and a new one started, so a key is remembered for at least the window and at most one generation longer.
+ * <p>
+ * Bits are set with CAS on an {@link AtomicLongArray}, so adds and lookups take no lock; only rotation does. The
+ * {@code k} bit positions are derived from the two halves of the key's {@link KeyDigest}.
+ */
+public final class RotatingBloomFilter {
+
+    private final int generationCount;
+    private final long generationMillis;
+    private final long bitsPerGeneration;
+    private final int hashCount;
+    private final LongSupplier clock;
+
+    // Newest first; replaced as a whole on rotation
+    private volatile Generation[] generations;
+
+    /**
+     * @param expectedInsertions keys added per window
+     * @param falsePositiveRate  target rate at which a new key is reported as possibly seen
+     * @param windowMillis       how long a key must be remembered; {@code 0} or less never rotates
+     * @param generationCount    number of generations kept, at least 2
+     */
+    public RotatingBloomFilter(long expectedInsertions, double falsePositiveRate, long windowMillis,
+                               int generationCount, LongSupplier clock) {
+        if (generationCount < 2) {
+            throw new IllegalArgumentException("A rotating filter needs at least 2 generations: " + generationCount);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        this.generationCount = generationCount;
+        this.generationMillis = windowMillis > 0 ? Math.max(1, windowMillis / (generationCount - 1)) : Long.MAX_VALUE;
+        // A lookup consults every generation, so each gets a share of the target rate
+        double generationRate = falsePositiveRate / generationCount;
+        long perGeneration = Math.max(1, (expectedInsertions + generationCount - 2) / (generationCount - 1));
+        long bits = (long) Math.ceil(-perGeneration * Math.log(generationRate) / (Math.log(2) * Math.log(2)));
+        this.bitsPerGeneration = Math.min((long) Integer.MAX_VALUE * Long.SIZE, Math.max(Long.SIZE, (bits + 63) & ~63L));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitsPerGeneration / perGeneration * Math.log(2)));
+        this.clock = clock;
+        this.generations = new Generation[]{new Generation(clock.getAsLong(), bitsPerGeneration)};
+    }
+
+    public boolean mightContain(KeyDigest digest) {
+        for (Generation generation : current()) {
+            if (generation.mightContain(digest, hashCount, bitsPerGeneration)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void put(KeyDigest digest) {
+        current()[0].put(digest, hashCount, bitsPerGeneration);
+    }
+
+    /**
+     * Heap held by the bit arrays of the live generations.
+     */
+    public long memoryBytes() {
+        return generations.length * bitsPerGeneration / Byte.SIZE;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    private Generation[] current() {
+        Generation[] snapshot = generations;
+        long now = clock.getAsLong();
+        if (now - snapshot[0].startedAt < generationMillis) {
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = generations;
+            if (now - snapshot[0].startedAt >= generationMillis) {
+                int kept = Math.min(snapshot.length, generationCount - 1);
+                Generation[] rotated = new Generation[kept + 1];
+                rotated[0] = new Generation(now, bitsPerGeneration);
+                System.arraycopy(snapshot, 0, rotated, 1, kept);
+                generations = snapshot = rotated;
+            }
+            return snapshot;
+        }
+    }
+
+    private static final class Generation {
+        final long startedAt;
+        final AtomicLongArray words;
+
+        Generation(long startedAt, long bits) {
+            this.startedAt = startedAt;
+            this.words = new AtomicLongArray((int) (bits / Long.SIZE));
+        }
+
+        boolean mightContain(KeyDigest digest, int hashCount, long bits) {
+            long combined = digest.high();
+            for (int i = 0; i < hashCount; i++) {
+                long bit = (combined & Long.MAX_VALUE) % bits;
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+                combined += digest.low();
+            }
+            return true;
+        }
+
+        void put(KeyDigest digest, int hashCount, long bits) {
+            long combined = digest.high();
+            for (int i = 0; i < hashCount; i++) {
+                long bit = (combined & Long.MAX_VALUE) % bits;
+                long mask = 1L << bit;
+                int index = (int) (bit >>> 6);
+                long word = words.get(index);
+                while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                    word = words.get(index);
+                }
+                combined += digest.low();
+            }
+        }
+    }
+}
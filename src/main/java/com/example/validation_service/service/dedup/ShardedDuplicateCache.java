@@ -0,0 +1,223 @@
+package com.example.validation_service.service.dedup;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded set of recently seen keys, shared by all consumer threads without a global lock.
+ * <p>
+ * An entry holds its key's {@link KeyDigest} and the insertion time, so a key costs the same few dozen bytes however
+ * long the fields it was built from. Entries are compared by identity, so the queue only ever removes the node it
+ * was given, never that of a newer entry for the same key.
+ * <p>
+ * Keys are spread over a power-of-two number of shards, each a {@link ConcurrentHashMap} paired with a queue of its
+ * entries in insertion order. {@link #putIfAbsent} is a single atomic map operation; no call ever walks a whole map.
+ * The queue serves both bounds:
+ * <ul>
+ *     <li>When a shard is over capacity, entries are evicted from the head of its queue. An entry that was hit as a
+ *     duplicate since it was queued gets a second chance and moves to the tail, which approximates the access order
+ *     the cache used to keep.</li>
+ *     <li>Entries live for a fixed time from insertion, so the head of the queue is also the next entry to expire.
+ *     {@link #removeExpired} drains each queue from the head and stops at the first live entry, touching only what
+ *     it removes. An expired entry that is still in the map is treated as absent.</li>
+ * </ul>
+ * Since every key lives for the same time, the insertion queue already orders entries by expiry and takes the place
+ * of a timer wheel. An entry given a second chance is queued behind younger ones, so it may stay in the map after it
+ * expires until it reaches the head again, but it is never reported as a duplicate once expired.
+ */
+public final class ShardedDuplicateCache implements DuplicateStore {
+
+    /**
+     * A shard holds at least this many entries, so small caches are not split into shards too small to bound
+     * anything by recency.
+     */
+    static final int MIN_SHARD_CAPACITY = 64;
+
+    private final Shard[] shards;
+    private final int shardMask;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    /**
+     * @param capacity  maximum number of keys held across all shards
+     * @param ttlMillis how long a key is remembered after insertion; {@code 0} or less keeps keys until evicted
+     * @param maxShards upper bound on the number of shards, rounded down to a power of two
+     * @param clock     source of the current time in milliseconds
+     */
+    public ShardedDuplicateCache(int capacity, long ttlMillis, int maxShards, LongSupplier clock) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        }
+        int shardCount = Integer.highestOneBit(Math.max(1, Math.min(maxShards, capacity / MIN_SHARD_CAPACITY)));
+        int shardCapacity = (capacity + shardCount - 1) / shardCount;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(shardCapacity);
+        }
+        this.shardMask = shardCount - 1;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean putIfAbsent(KeyDigest key) {
+        Shard shard = shardFor(key);
+        long now = clock.getAsLong();
+        while (true) {
+            Entry fresh = new Entry(key, now);
+            Entry existing = shard.entries.putIfAbsent(key, fresh);
+            if (existing == null) {
+                shard.order.offer(fresh);
+                if (shard.size.incrementAndGet() > shard.capacity) {
+                    shard.evict(now);
+                }
+                return true;
+            }
+            if (!isExpired(existing, now)) {
+                existing.referenced = true;
+                return false;
+            }
+            // Expired but not yet swept: take its place, the stale queue node is dropped when it reaches the head
+            if (shard.entries.replace(key, existing, fresh)) {
+                shard.order.offer(fresh);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Inserts {@code key} with a single map write, replacing an entry for it that the caller knows to be expired.
+     */
+    @Override
+    public void record(KeyDigest key) {
+        Shard shard = shardFor(key);
+        long now = clock.getAsLong();
+        Entry fresh = new Entry(key, now);
+        // A replaced entry's queue node is dropped when it reaches the head
+        Entry previous = shard.entries.put(key, fresh);
+        shard.order.offer(fresh);
+        if (previous == null && shard.size.incrementAndGet() > shard.capacity) {
+            shard.evict(now);
+        }
+    }
+
+    /**
+     * Records {@code key} as inserted at {@code insertedAt}, e.g. when rebuilding the cache from a changelog in the
+     * order it was written. A key already held is only replaced by a later insertion.
+     */
+    @Override
+    public void restore(KeyDigest key, long insertedAt) {
+        Shard shard = shardFor(key);
+        Entry restored = new Entry(key, insertedAt);
+        Entry existing = shard.entries.putIfAbsent(key, restored);
+        if (existing == null) {
+            shard.order.offer(restored);
+            if (shard.size.incrementAndGet() > shard.capacity) {
+                shard.evict(clock.getAsLong());
+            }
+        } else if (existing.insertedAt < insertedAt && shard.entries.replace(key, existing, restored)) {
+            shard.order.offer(restored);
+        }
+    }
+
+    /**
+     * Removes expired keys from the head of every shard's queue.
+     */
+    @Override
+    public int removeExpired() {
+        if (ttlMillis <= 0) {
+            return 0;
+        }
+        long now = clock.getAsLong();
+        int removed = 0;
+        for (Shard shard : shards) {
+            removed += shard.removeExpired(now);
+        }
+        return removed;
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (Shard shard : shards) {
+            size += shard.size.get();
+        }
+        return size;
+    }
+
+    int shardCount() {
+        return shards.length;
+    }
+
+    private Shard shardFor(KeyDigest key) {
+        // The high half spreads keys over shards, the map hashes on both
+        return shards[(int) (key.high() >>> 40) & shardMask];
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return ttlMillis > 0 && now - entry.insertedAt >= ttlMillis;
+    }
+
+    private static final class Entry {
+        final KeyDigest key;
+        final long insertedAt;
+        volatile boolean referenced;
+
+        Entry(KeyDigest key, long insertedAt) {
+            this.key = key;
+            this.insertedAt = insertedAt;
+        }
+    }
+
+    private final class Shard {
+        final ConcurrentHashMap<KeyDigest, Entry> entries;
+        final ConcurrentLinkedQueue<Entry> order = new ConcurrentLinkedQueue<>();
+        final AtomicInteger size = new AtomicInteger();
+        final int capacity;
+
+        Shard(int capacity) {
+            this.capacity = capacity;
+            this.entries = new ConcurrentHashMap<>(Math.min(capacity, 1 << 16));
+        }
+
+        void evict(long now) {
+            // Each live entry is in the queue once; a full pass clears every second-chance flag, so this ends
+            while (size.get() > capacity) {
+                Entry head = order.poll();
+                if (head == null) {
+                    return;
+                }
+                if (entries.get(head.key) != head) {
+                    continue;
+                }
+                if (head.referenced && !isExpired(head, now)) {
+                    head.referenced = false;
+                    order.offer(head);
+                    continue;
+                }
+                if (entries.remove(head.key, head)) {
+                    size.decrementAndGet();
+                }
+            }
+        }
+
+        int removeExpired(long now) {
+            int removed = 0;
+            Entry head;
+            while ((head = order.peek()) != null) {
+                boolean stale = entries.get(head.key) != head;
+                if (!stale && !isExpired(head, now)) {
+                    break;
+                }
+                // Removes this very node, or nothing if evict has polled it meanwhile
+                if (order.remove(head) && !stale && entries.remove(head.key, head)) {
+                    size.decrementAndGet();
+                    removed++;
+                }
+            }
+            return removed;
+        }
+    }
+}
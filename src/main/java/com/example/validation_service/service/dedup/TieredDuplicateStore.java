@@ -0,0 +1,99 @@
+package com.example.validation_service.service.dedup;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Duplicate store that puts a {@link RotatingBloomFilter} in front of an exact store. A key the filter has not seen
+ * is new for certain and is only recorded: it is added to the filter and appended to the exact store with
+ * {@link DuplicateStore#record}, which does not look it up. Only a key the filter may have seen is looked up in the
+ * exact store, which is the only tier that can reject a message. The exact store therefore has to remember keys for
+ * at least the filter's window, or a duplicate that fell out of it is accepted as new, as with the exact store
+ * alone.
+ * <p>
+ * Because the record is a blind write, the check and the write for one key hold a lock striped by the key, so two
+ * threads carrying the same key (e.g. a resend read on another partition) cannot both find it new.
+ * <p>
+ * Metrics:
+ * <ul>
+ *     <li>{@code payment.validation.duplicate.filter.checks}: keys checked</li>
+ *     <li>{@code payment.validation.duplicate.filter.confirmations}: checks the filter could not answer alone</li>
+ *     <li>{@code payment.validation.duplicate.filter.false-positives}: confirmations that found the key new</li>
+ *     <li>{@code payment.validation.duplicate.filter.false-positive-rate}: false positives per check so far</li>
+ *     <li>{@code payment.validation.duplicate.filter.memory}: bytes held by the filter</li>
+ * </ul>
+ */
+public final class TieredDuplicateStore implements DuplicateStore {
+
+    private static final int LOCK_STRIPES = 256;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final RotatingBloomFilter filter;
+    private final DuplicateStore exact;
+    private final Counter checks;
+    private final Counter confirmations;
+    private final Counter falsePositives;
+
+    public TieredDuplicateStore(RotatingBloomFilter filter, DuplicateStore exact, MeterRegistry meterRegistry) {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.filter = filter;
+        this.exact = exact;
+        this.checks = meterRegistry.counter("payment.validation.duplicate.filter.checks");
+        this.confirmations = meterRegistry.counter("payment.validation.duplicate.filter.confirmations");
+        this.falsePositives = meterRegistry.counter("payment.validation.duplicate.filter.false-positives");
+        Gauge.builder("payment.validation.duplicate.filter.false-positive-rate", this, TieredDuplicateStore::falsePositiveRate)
+                .register(meterRegistry);
+        Gauge.builder("payment.validation.duplicate.filter.memory", filter, RotatingBloomFilter::memoryBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean putIfAbsent(KeyDigest key) {
+        checks.increment();
+        // Also held for confirmations: after a rotation the filter can miss a key another thread is confirming
+        synchronized (locks[(int) key.low() & (LOCK_STRIPES - 1)]) {
+            if (!filter.mightContain(key)) {
+                filter.put(key);
+                exact.record(key);
+                return true;
+            }
+            confirmations.increment();
+            boolean recorded = exact.putIfAbsent(key);
+            if (recorded) {
+                falsePositives.increment();
+                filter.put(key);
+            }
+            return recorded;
+        }
+    }
+
+    @Override
+    public void restore(KeyDigest key, long insertedAt) {
+        filter.put(key);
+        exact.restore(key, insertedAt);
+    }
+
+    @Override
+    public int removeExpired() {
+        return exact.removeExpired();
+    }
+
+    @Override
+    public long size() {
+        return exact.size();
+    }
+
+    @Override
+    public void close() {
+        exact.close();
+    }
+
+    private double falsePositiveRate() {
+        double total = checks.count();
+        return total == 0 ? 0 : falsePositives.count() / total;
+    }
+}
@@ -0,0 +1,357 @@
+package com.example.validation_service.service.parser;
+
+import com.ctc.wstx.stax.WstxInputFactory;
+import com.example.validation_service.dto.RawPaymentData;
+import org.codehaus.stax2.XMLInputFactory2;
+import org.codehaus.stax2.XMLStreamReader2;
+import org.codehaus.stax2.io.Stax2ByteArraySource;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Extracts payment fields with the StAX cursor API. The Woodstox factory is configured once and shared, so a
+ * message costs one reader and no per-token event objects. The small amount of bookkeeping the loop needs lives
+ * in a per-thread {@link CursorState} that is reset rather than reallocated for every message.
+ * <p>
+ * Which elements are read is defined by a compiled {@link ExtractionTrie}: each start tag is one transition in the
+ * trie, and subtrees that no mapped path enters are skipped without being dispatched.
+ * <p>
+ * Element depth and text node length are counted against the {@link ParserLimits} on every token, including those
+ * of skipped subtrees.
+ * <p>
+ * Captured properties are tracked in a bitmask. Once every property is present the remaining document (remittance
+ * information, regulatory reporting, supplementary data, ...) is not inspected: in lenient mode the reader is
+ * closed straight away, in strict mode the rest is still tokenized so that a malformed tail is reported.
+ * <p>
+ * {@link #extractTransactions(byte[], Consumer)} instead walks the whole document and hands one record to the sink
+ * each time a transaction element closes. Message-level values are remembered in the cursor state and copied into
+ * every transaction, so memory use does not grow with the number of transactions in a bulk message.
+ * <p>
+ * When {@link XsdValidation} selects a message, its tokens are additionally replayed into an XSD validator during
+ * the same pass.
+ */
+public class CursorPaymentXmlExtractor implements PaymentXmlExtractor {
+
+    private static final ThreadLocal<CursorState> STATE = ThreadLocal.withInitial(CursorState::new);
+
+    private final XMLInputFactory2 factory;
+    private final ExtractionTrie trie;
+    private final ExtractionTrie.Binding[] bindings;
+    private final boolean strict;
+    private final ParserLimits limits;
+    private final XsdValidation xsdValidation;
+
+    public CursorPaymentXmlExtractor(ExtractionTrie trie, boolean strict, ParserLimits limits) {
+        this(trie, strict, limits, XsdValidation.off());
+    }
+
+    public CursorPaymentXmlExtractor(ExtractionTrie trie, boolean strict, ParserLimits limits,
+                                     XsdValidation xsdValidation) {
+        this.factory = createFactory();
+        this.trie = trie;
+        this.bindings = trie.bindings();
+        this.strict = strict;
+        this.limits = limits;
+        this.xsdValidation = xsdValidation;
+    }
+
+    private static XMLInputFactory2 createFactory() {
+        XMLInputFactory2 factory = new WstxInputFactory();
+        // Defend against XXE
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        // Deliver each text node as a single CHARACTERS event so values are never split
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        // ExtractionTrie compares element names by identity
+        factory.setProperty(XMLInputFactory2.P_INTERN_NAMES, true);
+        factory.setProperty(XMLInputFactory2.P_PRESERVE_LOCATION, false);
+        return factory;
+    }
+
+    @Override
+    public RawPaymentData extract(String xmlPayload) throws XMLStreamException {
+        return extract(createReader(xmlPayload));
+    }
+
+    @Override
+    public RawPaymentData extract(byte[] xmlPayload) throws XMLStreamException {
+        return extract(createReader(xmlPayload));
+    }
+
+    @Override
+    public int extractTransactions(String xmlPayload, Consumer<RawPaymentData> sink) throws XMLStreamException {
+        if (!trie.hasTransactionElement()) {
+            return PaymentXmlExtractor.super.extractTransactions(xmlPayload, sink);
+        }
+        return extractTransactions(createReader(xmlPayload), sink);
+    }
+
+    @Override
+    public int extractTransactions(byte[] xmlPayload, Consumer<RawPaymentData> sink) throws XMLStreamException {
+        if (!trie.hasTransactionElement()) {
+            return PaymentXmlExtractor.super.extractTransactions(xmlPayload, sink);
+        }
+        return extractTransactions(createReader(xmlPayload), sink);
+    }
+
+    private XMLStreamReader2 createReader(String xmlPayload) throws XMLStreamException {
+        return (XMLStreamReader2) factory.createXMLStreamReader(new StringReader(xmlPayload));
+    }
+
+    private XMLStreamReader2 createReader(byte[] xmlPayload) throws XMLStreamException {
+        // Woodstox decodes UTF-8 straight out of the array; no intermediate String or InputStream is created
+        return (XMLStreamReader2) factory.createXMLStreamReader(
+                new Stax2ByteArraySource(xmlPayload, 0, xmlPayload.length));
+    }
+
+    private RawPaymentData extract(XMLStreamReader2 reader) throws XMLStreamException {
+        CursorState state = STATE.get();
+        state.reset(trie.root(), bindings.length);
+        RawPaymentData data = new RawPaymentData();
+        state.target = data;
+        try {
+            read(reader, state, null, xsdValidation.forwarderForNextMessage());
+            return data;
+        } finally {
+            state.target = null;
+            reader.close();
+        }
+    }
+
+    private int extractTransactions(XMLStreamReader2 reader, Consumer<RawPaymentData> sink)
+            throws XMLStreamException {
+        CursorState state = STATE.get();
+        state.reset(trie.root(), bindings.length);
+        try {
+            read(reader, state, sink, xsdValidation.forwarderForNextMessage());
+            return state.sequence;
+        } finally {
+            state.target = null;
+            Arrays.fill(state.messageValues, null);
+            reader.close();
+        }
+    }
+
+    /**
+     * Walks the document. With a {@code null} sink every value goes into {@code state.target} and the walk stops as
+     * soon as all properties are captured; otherwise a record is started and emitted per transaction element.
+     * <p>
+     * With a {@code validator} every token is also replayed into it, so unmapped subtrees are stepped through
+     * (counted in {@code state.skipDepth}) instead of being skipped, and the document is always read to the end.
+     */
+    private void read(XMLStreamReader2 reader, CursorState state, Consumer<RawPaymentData> sink,
+                      SaxEventForwarder validator) throws XMLStreamException {
+        int completeMask = trie.completeMask();
+        boolean streaming = sink != null;
+        boolean validating = validator != null;
+        if (validating) {
+            validator.startDocument();
+        }
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            count(reader, state, event);
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (validating) {
+                        validator.startElement(reader);
+                        if (state.skipDepth > 0) {
+                            state.skipDepth++;
+                            break;
+                        }
+                    }
+                    ExtractionTrie.Node node = state.top().child(reader.getLocalName());
+                    if (node == null) {
+                        if (validating) {
+                            state.skipDepth = 1;
+                        } else {
+                            // Nothing below this element is mapped; consume it up to its end tag
+                            skip(reader, state);
+                        }
+                        break;
+                    }
+                    state.push(node);
+                    if (streaming && node.isTransaction()) {
+                        beginTransaction(state);
+                    }
+                    captureAttributes(reader, node, state, streaming);
+                    state.pending = node.text();
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (validating) {
+                        validator.characters(reader);
+                        if (state.skipDepth > 0) {
+                            break;
+                        }
+                    }
+                    ExtractionTrie.Binding pending = state.pending;
+                    if (pending != null && (state.captured & pending.bit()) == 0 && !reader.isWhiteSpace()) {
+                        String text = reader.getText().trim();
+                        if (!text.isEmpty()) {
+                            capture(state, pending, text, streaming);
+                            state.pending = null;
+                        }
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (validating) {
+                        validator.endElement(reader);
+                        if (state.skipDepth > 0) {
+                            state.skipDepth--;
+                            break;
+                        }
+                    }
+                    ExtractionTrie.Node closed = state.top();
+                    state.pop();
+                    state.pending = null;
+                    if (streaming && closed.isTransaction()) {
+                        sink.accept(state.target);
+                        state.target = null;
+                        state.captured &= trie.messageMask();
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (!streaming && !validating && state.captured == completeMask) {
+                finish(reader, state);
+                break;
+            }
+        }
+        if (validating) {
+            validator.endDocument();
+        }
+    }
+
+    private void beginTransaction(CursorState state) {
+        RawPaymentData data = new RawPaymentData();
+        data.setTransactionSequence(++state.sequence);
+        for (ExtractionTrie.Binding binding : bindings) {
+            String value = state.messageValues[binding.index()];
+            if (value != null) {
+                binding.set(data, value);
+            }
+        }
+        state.target = data;
+        // Per-transaction properties start over; message-level ones stay captured
+        state.captured &= trie.messageMask();
+    }
+
+    private void capture(CursorState state, ExtractionTrie.Binding binding, String value, boolean streaming) {
+        state.captured |= binding.bit();
+        if (streaming && !binding.perTransaction()) {
+            state.messageValues[binding.index()] = value;
+        }
+        if (state.target != null) {
+            binding.set(state.target, value);
+        }
+    }
+
+    private void captureAttributes(XMLStreamReader2 reader, ExtractionTrie.Node node, CursorState state,
+                                   boolean streaming) {
+        String[] names = node.attributeNames();
+        ExtractionTrie.Binding[] bindings = node.attributeBindings();
+        for (int i = 0; i < names.length; i++) {
+            ExtractionTrie.Binding binding = bindings[i];
+            if ((state.captured & binding.bit()) != 0) {
+                continue;
+            }
+            String value = reader.getAttributeValue(null, names[i]);
+            if (value != null && !value.isBlank()) {
+                capture(state, binding, value.trim(), streaming);
+            }
+        }
+    }
+
+    private void finish(XMLStreamReader2 reader, CursorState state) throws XMLStreamException {
+        if (strict) {
+            while (reader.hasNext()) {
+                count(reader, state, reader.next());
+            }
+        }
+    }
+
+    /**
+     * Reads up to the end tag of the element just started, only counting its tokens.
+     */
+    private void skip(XMLStreamReader2 reader, CursorState state) throws XMLStreamException {
+        int end = state.elementDepth - 1;
+        while (state.elementDepth > end) {
+            count(reader, state, reader.next());
+        }
+    }
+
+    private void count(XMLStreamReader2 reader, CursorState state, int event) throws XMLStreamException {
+        switch (event) {
+            case XMLStreamConstants.START_ELEMENT:
+                limits.checkDepth(++state.elementDepth);
+                limits.checkAttributeCount(reader.getAttributeCount());
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                state.elementDepth--;
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                limits.checkTextLength(reader.getTextLength());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Mutable loop state, reused by every message parsed on the owning thread.
+     */
+    private static final class CursorState {
+        private ExtractionTrie.Node[] path = new ExtractionTrie.Node[16];
+        private int depth;
+        private ExtractionTrie.Binding pending;
+        private int captured;
+        private RawPaymentData target;
+        private String[] messageValues = new String[0];
+        private int sequence;
+        private int skipDepth;
+        // Depth of the current element in the document, mapped or not
+        private int elementDepth;
+
+        private void reset(ExtractionTrie.Node root, int bindingCount) {
+            Arrays.fill(path, null);
+            path[0] = root;
+            depth = 0;
+            pending = null;
+            captured = 0;
+            target = null;
+            if (messageValues.length < bindingCount) {
+                messageValues = new String[bindingCount];
+            } else {
+                Arrays.fill(messageValues, null);
+            }
+            sequence = 0;
+            skipDepth = 0;
+            elementDepth = 0;
+        }
+
+        private ExtractionTrie.Node top() {
+            return path[depth];
+        }
+
+        private void push(ExtractionTrie.Node node) {
+            if (++depth == path.length) {
+                path = Arrays.copyOf(path, path.length * 2);
+            }
+            path[depth] = node;
+        }
+
+        private void pop() {
+            path[depth--] = null;
+        }
+    }
+}
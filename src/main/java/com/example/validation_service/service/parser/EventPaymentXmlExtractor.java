@@ -0,0 +1,139 @@
+package com.example.validation_service.service.parser;
+
+import com.example.validation_service.dto.RawPaymentData;
+
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Characters;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.Iterator;
+
+/**
+ * The original event-based extraction loop. It creates a new factory per message and allocates an event object
+ * per token; it is retained behind {@code xml.parser.engine=event} so the cursor engine can be compared against it.
+ * Only the {@link ParserLimits} checks have been added, so either engine rejects the same hostile documents.
+ */
+public class EventPaymentXmlExtractor implements PaymentXmlExtractor {
+
+    private final ParserLimits limits;
+
+    public EventPaymentXmlExtractor(ParserLimits limits) {
+        this.limits = limits;
+    }
+
+    @Override
+    public RawPaymentData extract(String xmlPayload) throws XMLStreamException {
+        return read(newFactory().createXMLEventReader(new StringReader(xmlPayload)));
+    }
+
+    @Override
+    public RawPaymentData extract(byte[] xmlPayload) throws XMLStreamException {
+        return read(newFactory().createXMLEventReader(new ByteArrayInputStream(xmlPayload)));
+    }
+
+    private XMLInputFactory newFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // Defend against XXE
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        return factory;
+    }
+
+    private RawPaymentData read(XMLEventReader eventReader) throws XMLStreamException {
+        RawPaymentData data = new RawPaymentData();
+        String currentElement = null;
+        boolean inDbtr = false;
+        boolean inCdtr = false;
+        boolean inInstdAmt = false;
+        int depth = 0;
+
+        while (eventReader.hasNext()) {
+            XMLEvent event = eventReader.nextEvent();
+
+            if (event.isStartElement()) {
+                limits.checkDepth(++depth);
+                StartElement startElement = event.asStartElement();
+                limits.checkAttributeCount(attributeCount(startElement));
+                currentElement = startElement.getName().getLocalPart();
+
+                if ("Dbtr".equals(currentElement)) {
+                    inDbtr = true;
+                } else if ("Cdtr".equals(currentElement)) {
+                    inCdtr = true;
+                } else if ("InstdAmt".equals(currentElement)) {
+                    inInstdAmt = true;
+                    // Extract currency attribute from InstdAmt
+                    javax.xml.namespace.QName currencyAttribute = new javax.xml.namespace.QName("Ccy");
+                    if (startElement.getAttributeByName(currencyAttribute) != null) {
+                         data.setCurrency(startElement.getAttributeByName(currencyAttribute).getValue());
+                    }
+                }
+            } else if (event.isCharacters()) {
+                Characters characters = event.asCharacters();
+                limits.checkTextLength(characters.getData().length());
+                String text = characters.getData().trim();
+                if (text.isEmpty() || currentElement == null) {
+                    continue;
+                }
+
+                switch (currentElement) {
+                    case "MsgId":
+                        data.setMsgId(text);
+                        break;
+                    case "InstrId":
+                        data.setInstrId(text);
+                        break;
+                    case "EndToEndId":
+                        data.setEndToEndId(text);
+                        break;
+                    case "Nm":
+                        if (inDbtr) {
+                            data.setDebtorName(text);
+                        } else if (inCdtr) {
+                            data.setCreditorName(text);
+                        }
+                        break;
+                    case "Id": // This is a simplification. Real ISO 20022 might have OrgId/PrvtId/Othr
+                               // For now, we take the first Id we find under Dbtr/Cdtr.
+                               // A more robust solution would check parent elements (e.g. OrgId, PrvtId)
+                        if (inDbtr && data.getDebtorId() == null) { // only set if not already set
+                            data.setDebtorId(text);
+                        } else if (inCdtr && data.getCreditorId() == null) { // only set if not already set
+                            data.setCreditorId(text);
+                        }
+                        break;
+                    case "Amt":
+                         if(inInstdAmt){
+                            data.setAmount(text);
+                        }
+                        break;
+                    // Currency is handled as an attribute of InstdAmt
+                }
+            } else if (event.isEndElement()) {
+                depth--;
+                String endElement = event.asEndElement().getName().getLocalPart();
+                if ("Dbtr".equals(endElement)) {
+                    inDbtr = false;
+                } else if ("Cdtr".equals(endElement)) {
+                    inCdtr = false;
+                } else if ("InstdAmt".equals(endElement)) {
+                    inInstdAmt = false;
+                }
+                currentElement = null; // Reset current element on end tag
+            }
+        }
+        return data;
+    }
+
+    private static int attributeCount(StartElement startElement) {
+        int count = 0;
+        for (Iterator<?> attributes = startElement.getAttributes(); attributes.hasNext(); attributes.next()) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.validation_service.service.parser;
+
+import com.example.validation_service.dto.RawPaymentData;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Declarative description of which element paths of a message feed which {@link RawPaymentData} properties.
+ * <p>
+ * The text format is one mapping per line, {@code <path>[/@<attribute>] -> <property>}, with paths written below
+ * the message root declared by a {@code root = <path>} line. A {@code transaction = <path>} line names the repeating
+ * transaction element below the root; properties mapped inside it are per transaction, all others are shared
+ * message-level fields. Each {@code namespace = <uri>} line names a {@code Document} namespace the spec handles (see
+ * {@link MessageTypeRouter}); a spec without one handles any message. Blank lines and {@code #} comments are
+ * ignored.
+ * Properties are resolved to their setters when the spec is {@linkplain #compile() compiled}, so adding a field to
+ * {@link RawPaymentData} only requires a new line in the spec.
+ */
+public final class ExtractionSpec {
+
+    private static final String ROOT_DIRECTIVE = "root";
+    private static final String TRANSACTION_DIRECTIVE = "transaction";
+    private static final String NAMESPACE_DIRECTIVE = "namespace";
+    private static final String ARROW = "->";
+
+    private final List<String> rootPath;
+    private final List<String> transactionPath;
+    private final List<String> namespaces;
+    private final List<Mapping> mappings;
+
+    private ExtractionSpec(List<String> rootPath, List<String> transactionPath, List<String> namespaces,
+                           List<Mapping> mappings) {
+        this.rootPath = rootPath;
+        this.transactionPath = transactionPath;
+        this.namespaces = namespaces;
+        this.mappings = mappings;
+    }
+
+    public static ExtractionSpec parse(BufferedReader reader) throws IOException {
+        List<String> rootPath = Collections.emptyList();
+        List<String> transactionPath = Collections.emptyList();
+        List<String> namespaces = new ArrayList<>();
+        List<Mapping> mappings = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int arrow = line.indexOf(ARROW);
+            if (arrow < 0) {
+                int equals = line.indexOf('=');
+                String directive = equals < 0 ? "" : line.substring(0, equals).trim();
+                if (ROOT_DIRECTIVE.equals(directive)) {
+                    rootPath = splitPath(line.substring(equals + 1));
+                } else if (TRANSACTION_DIRECTIVE.equals(directive)) {
+                    transactionPath = splitPath(line.substring(equals + 1));
+                } else if (NAMESPACE_DIRECTIVE.equals(directive) && !line.substring(equals + 1).isBlank()) {
+                    namespaces.add(line.substring(equals + 1).trim());
+                } else {
+                    throw new IllegalArgumentException("Invalid extraction spec line " + lineNumber + ": " + line);
+                }
+                continue;
+            }
+
+            List<String> path = new ArrayList<>(splitPath(line.substring(0, arrow)));
+            String property = line.substring(arrow + ARROW.length()).trim();
+            String attribute = null;
+            if (!path.isEmpty() && path.get(path.size() - 1).startsWith("@")) {
+                attribute = path.remove(path.size() - 1).substring(1);
+            }
+            if (path.isEmpty() || property.isEmpty()) {
+                throw new IllegalArgumentException("Invalid extraction spec line " + lineNumber + ": " + line);
+            }
+            mappings.add(new Mapping(path, attribute, property));
+        }
+        return new ExtractionSpec(rootPath, transactionPath, Collections.unmodifiableList(namespaces), mappings);
+    }
+
+    /**
+     * {@code Document} namespaces declared by the spec; empty if it applies to any message.
+     */
+    public List<String> namespaces() {
+        return namespaces;
+    }
+
+    private static List<String> splitPath(String path) {
+        List<String> steps = new ArrayList<>();
+        for (String step : path.trim().split("/")) {
+            if (!step.isBlank()) {
+                steps.add(step.trim());
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Builds the element-name trie used by {@link CursorPaymentXmlExtractor}. Each distinct property gets one bit
+     * in the capture mask, regardless of how many paths feed it. A property is per transaction when its paths
+     * lead through the transaction element; mixing transaction and message-level paths for one property is
+     * rejected.
+     */
+    public ExtractionTrie compile() {
+        Map<String, ExtractionTrie.Binding> bindings = new LinkedHashMap<>();
+        ExtractionTrie.Node root = new ExtractionTrie.Node(null);
+        ExtractionTrie.Node messageRoot = root;
+        for (String step : rootPath) {
+            messageRoot = messageRoot.childOrCreate(step);
+        }
+        ExtractionTrie.Node transaction = null;
+        if (!transactionPath.isEmpty()) {
+            transaction = messageRoot;
+            for (String step : transactionPath) {
+                transaction = transaction.childOrCreate(step);
+            }
+            transaction.markTransaction();
+        }
+
+        for (Mapping mapping : mappings) {
+            boolean perTransaction = mapping.startsWith(transactionPath);
+            ExtractionTrie.Binding binding = bindings.computeIfAbsent(mapping.property,
+                    property -> new ExtractionTrie.Binding(property, bindings.size(), perTransaction,
+                            resolveSetter(property)));
+            if (binding.perTransaction() != perTransaction) {
+                throw new IllegalArgumentException("Property '" + mapping.property
+                        + "' is mapped both inside and outside the transaction element.");
+            }
+            ExtractionTrie.Node node = messageRoot;
+            for (String step : mapping.path) {
+                node = node.childOrCreate(step);
+            }
+            if (mapping.attribute == null) {
+                node.bindText(binding);
+            } else {
+                node.bindAttribute(mapping.attribute, binding);
+            }
+        }
+        if (bindings.size() > Integer.SIZE - 1) {
+            throw new IllegalArgumentException("Extraction spec binds more than " + (Integer.SIZE - 1) + " properties.");
+        }
+        return new ExtractionTrie(root, bindings.values().toArray(new ExtractionTrie.Binding[0]),
+                transaction != null);
+    }
+
+    private static MethodHandle resolveSetter(String property) {
+        String setterName = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        try {
+            return MethodHandles.publicLookup().findVirtual(RawPaymentData.class, setterName,
+                    MethodType.methodType(void.class, String.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("RawPaymentData has no String property '" + property + "'.", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ExtractionSpec{" +
+               "rootPath=" + rootPath +
+               ", transactionPath=" + transactionPath +
+               ", namespaces=" + namespaces +
+               ", mappings=" + mappings +
+               '}';
+    }
+
+    private static final class Mapping {
+        private final List<String> path;
+        private final String attribute;
+        private final String property;
+
+        private Mapping(List<String> path, String attribute, String property) {
+            this.path = path;
+            this.attribute = attribute;
+            this.property = property;
+        }
+
+        private boolean startsWith(List<String> prefix) {
+            return !prefix.isEmpty() && path.size() > prefix.size() && path.subList(0, prefix.size()).equals(prefix);
+        }
+
+        @Override
+        public String toString() {
+            return String.join("/", path) + (attribute != null ? "/@" + attribute : "") + " -> " + property;
+        }
+    }
+}
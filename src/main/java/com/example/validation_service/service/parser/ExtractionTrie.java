@@ -0,0 +1,198 @@
+package com.example.validation_service.service.parser;
+
+import com.example.validation_service.dto.RawPaymentData;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
+
+/**
+ * Compiled form of an {@link ExtractionSpec}: a trie over element local names in which every node knows which
+ * property its text and attributes feed.
+ * <p>
+ * Element names are interned when the trie is built and by the Woodstox reader (see
+ * {@code XMLInputFactory2.P_INTERN_NAMES}), so a transition is an identity comparison over the handful of children
+ * a node has rather than a string switch or hash lookup.
+ * <p>
+ * When the spec declares a transaction element, its node is {@linkplain Node#isTransaction() marked} and each
+ * binding records whether it belongs to a transaction or to the enclosing message.
+ */
+public final class ExtractionTrie {
+
+    private final Node root;
+    private final Binding[] bindings;
+    private final int completeMask;
+    private final int messageMask;
+    private final boolean transactionElement;
+
+    ExtractionTrie(Node root, Binding[] bindings, boolean transactionElement) {
+        this.root = root;
+        this.bindings = bindings;
+        this.transactionElement = transactionElement;
+        this.completeMask = (1 << bindings.length) - 1;
+        int mask = 0;
+        for (Binding binding : bindings) {
+            if (!binding.perTransaction()) {
+                mask |= binding.bit();
+            }
+        }
+        this.messageMask = mask;
+    }
+
+    public Node root() {
+        return root;
+    }
+
+    /**
+     * Capture mask with one bit set for every property the spec binds.
+     */
+    public int completeMask() {
+        return completeMask;
+    }
+
+    /**
+     * Capture mask of the message-level properties, i.e. those that are shared by every transaction.
+     */
+    public int messageMask() {
+        return messageMask;
+    }
+
+    /**
+     * Whether the spec declares a transaction element, i.e. whether messages can be split into transactions.
+     */
+    public boolean hasTransactionElement() {
+        return transactionElement;
+    }
+
+    public Binding[] bindings() {
+        return bindings.clone();
+    }
+
+    public static final class Node {
+        private static final String[] NO_NAMES = new String[0];
+        private static final Node[] NO_NODES = new Node[0];
+        private static final Binding[] NO_BINDINGS = new Binding[0];
+
+        private final String name;
+        private String[] childNames = NO_NAMES;
+        private Node[] children = NO_NODES;
+        private Binding text;
+        private String[] attributeNames = NO_NAMES;
+        private Binding[] attributeBindings = NO_BINDINGS;
+        private boolean transaction;
+
+        Node(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Follows the edge for {@code localName}, which must be interned. Returns {@code null} when the element is
+         * not part of any mapped path.
+         */
+        public Node child(String localName) {
+            String[] names = childNames;
+            for (int i = 0; i < names.length; i++) {
+                if (names[i] == localName) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        public Binding text() {
+            return text;
+        }
+
+        public String[] attributeNames() {
+            return attributeNames;
+        }
+
+        public Binding[] attributeBindings() {
+            return attributeBindings;
+        }
+
+        /**
+         * Whether this node is the repeating transaction element declared by the spec.
+         */
+        public boolean isTransaction() {
+            return transaction;
+        }
+
+        void markTransaction() {
+            transaction = true;
+        }
+
+        Node childOrCreate(String localName) {
+            String interned = localName.intern();
+            Node existing = child(interned);
+            if (existing != null) {
+                return existing;
+            }
+            Node created = new Node(interned);
+            childNames = Arrays.copyOf(childNames, childNames.length + 1);
+            childNames[childNames.length - 1] = interned;
+            children = Arrays.copyOf(children, children.length + 1);
+            children[children.length - 1] = created;
+            return created;
+        }
+
+        void bindText(Binding binding) {
+            if (text != null && text != binding) {
+                throw new IllegalArgumentException("Element " + name + " is already mapped to " + text.property());
+            }
+            text = binding;
+        }
+
+        void bindAttribute(String attributeName, Binding binding) {
+            attributeNames = Arrays.copyOf(attributeNames, attributeNames.length + 1);
+            attributeNames[attributeNames.length - 1] = attributeName;
+            attributeBindings = Arrays.copyOf(attributeBindings, attributeBindings.length + 1);
+            attributeBindings[attributeBindings.length - 1] = binding;
+        }
+    }
+
+    /**
+     * Target of one or more mapped paths: a {@link RawPaymentData} property and its bit in the capture mask.
+     */
+    public static final class Binding {
+        private final String property;
+        private final int index;
+        private final int bit;
+        private final boolean perTransaction;
+        private final MethodHandle setter;
+
+        Binding(String property, int index, boolean perTransaction, MethodHandle setter) {
+            this.property = property;
+            this.index = index;
+            this.bit = 1 << index;
+            this.perTransaction = perTransaction;
+            this.setter = setter;
+        }
+
+        public String property() {
+            return property;
+        }
+
+        /**
+         * Position of this binding in {@link ExtractionTrie#bindings()}.
+         */
+        public int index() {
+            return index;
+        }
+
+        public int bit() {
+            return bit;
+        }
+
+        public boolean perTransaction() {
+            return perTransaction;
+        }
+
+        public void set(RawPaymentData data, String value) {
+            try {
+                setter.invokeExact(data, value);
+            } catch (Throwable t) {
+                throw new IllegalStateException("Failed to set RawPaymentData." + property, t);
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.validation_service.service.parser;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * The document exceeds one of the {@link ParserLimits} counted by the extractors. Being an expected outcome, it
+ * captures no stack trace.
+ */
+public class LimitViolationException extends XMLStreamException {
+
+    private final String limit;
+
+    public LimitViolationException(String limit, String message) {
+        super(message);
+        this.limit = limit;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+    /**
+     * Name of the violated limit, {@link ParserLimits#DEPTH} or {@link ParserLimits#TEXT_LENGTH}.
+     */
+    public String limit() {
+        return limit;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.validation_service.service.parser;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Recovers the group header MsgId from a payload that could not be parsed, so that its audit entry can still be
+ * correlated. This is a plain scan for the first {@code <MsgId>} (with or without a namespace prefix) that never
+ * looks past the first {@code scanLimit} bytes or characters and allocates nothing but the returned id, keeping the
+ * cost negligible even when the listener is flooded with garbage.
+ * <p>
+ * The value is taken verbatim up to the next {@code <}; ids that are blank, cut off by the scan limit or longer
+ * than an ISO 20022 {@code Max35Text} are not trusted and yield {@code null}.
+ */
+@Component
+public class MessageIdScanner {
+
+    public static final int DEFAULT_SCAN_LIMIT = 4096;
+
+    static final int MAX_MSG_ID_LENGTH = 35;
+
+    private static final byte[] MSG_ID = "MsgId".getBytes(StandardCharsets.US_ASCII);
+
+    private final int scanLimit;
+
+    public MessageIdScanner(@Value("${audit.msgid-scan.max-bytes:" + DEFAULT_SCAN_LIMIT + "}") int scanLimit) {
+        this.scanLimit = scanLimit;
+    }
+
+    public String scan(byte[] payload) {
+        if (payload == null) {
+            return null;
+        }
+        int end = Math.min(payload.length, scanLimit);
+        int i = 0;
+        while (i < end) {
+            if (payload[i++] != '<') {
+                continue;
+            }
+            int localStart = i;
+            while (i < end && isNameChar(payload[i])) {
+                if (payload[i] == ':') {
+                    localStart = i + 1;
+                }
+                i++;
+            }
+            if (i < end && payload[i] == '>' && isMsgId(payload, localStart, i)) {
+                int valueStart = i + 1;
+                int valueEnd = valueStart;
+                while (valueEnd < end && payload[valueEnd] != '<') {
+                    valueEnd++;
+                }
+                if (valueEnd == end) {
+                    return null;
+                }
+                while (valueStart < valueEnd && isWhitespace(payload[valueStart])) {
+                    valueStart++;
+                }
+                while (valueEnd > valueStart && isWhitespace(payload[valueEnd - 1])) {
+                    valueEnd--;
+                }
+                return acceptable(valueEnd - valueStart)
+                        ? new String(payload, valueStart, valueEnd - valueStart, StandardCharsets.UTF_8)
+                        : null;
+            }
+        }
+        return null;
+    }
+
+    public String scan(String payload) {
+        if (payload == null) {
+            return null;
+        }
+        int end = Math.min(payload.length(), scanLimit);
+        int i = 0;
+        while (i < end) {
+            if (payload.charAt(i++) != '<') {
+                continue;
+            }
+            int localStart = i;
+            while (i < end && isNameChar(payload.charAt(i))) {
+                if (payload.charAt(i) == ':') {
+                    localStart = i + 1;
+                }
+                i++;
+            }
+            if (i < end && payload.charAt(i) == '>' && isMsgId(payload, localStart, i)) {
+                int valueStart = i + 1;
+                int valueEnd = valueStart;
+                while (valueEnd < end && payload.charAt(valueEnd) != '<') {
+                    valueEnd++;
+                }
+                if (valueEnd == end) {
+                    return null;
+                }
+                while (valueStart < valueEnd && isWhitespace(payload.charAt(valueStart))) {
+                    valueStart++;
+                }
+                while (valueEnd > valueStart && isWhitespace(payload.charAt(valueEnd - 1))) {
+                    valueEnd--;
+                }
+                return acceptable(valueEnd - valueStart) ? payload.substring(valueStart, valueEnd) : null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isMsgId(byte[] payload, int start, int end) {
+        if (end - start != MSG_ID.length) {
+            return false;
+        }
+        for (int k = 0; k < MSG_ID.length; k++) {
+            if (payload[start + k] != MSG_ID[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isMsgId(String payload, int start, int end) {
+        return end - start == MSG_ID.length && payload.startsWith("MsgId", start);
+    }
+
+    private static boolean acceptable(int length) {
+        return length > 0 && length <= MAX_MSG_ID_LENGTH;
+    }
+
+    private static boolean isNameChar(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == ':' || c == '_' || c == '-' || c == '.';
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+}
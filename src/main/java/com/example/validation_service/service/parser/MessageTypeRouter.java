@@ -0,0 +1,94 @@
+package com.example.validation_service.service.parser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps the {@code Document} namespace of a message, as found by {@link NamespaceSniffer}, to the extractor compiled
+ * for that message type and version. Specs that declare no namespace act as a catch-all.
+ * <p>
+ * A payload whose namespace could not be sniffed, or whose root is in no namespace, is not identified as any type;
+ * it goes to the catch-all if there is one and otherwise to the first registered extractor, without a message type,
+ * so that the parser reports what is wrong with it.
+ */
+public final class MessageTypeRouter {
+
+    private static final String ISO_20022_PREFIX = "urn:iso:std:iso:20022:tech:xsd:";
+
+    private final Map<String, Route> routes = new HashMap<>();
+    private Route catchAll;
+    private Route unidentified;
+
+    public void register(ExtractionSpec spec, PaymentXmlExtractor extractor) {
+        if (spec.namespaces().isEmpty()) {
+            if (catchAll != null) {
+                throw new IllegalArgumentException("More than one extraction spec declares no namespace.");
+            }
+            catchAll = new Route(null, extractor);
+            unidentified = catchAll;
+            return;
+        }
+        for (String namespace : spec.namespaces()) {
+            Route route = new Route(messageType(namespace), extractor);
+            if (routes.putIfAbsent(namespace, route) != null) {
+                throw new IllegalArgumentException("Namespace " + namespace + " is declared by more than one extraction spec.");
+            }
+            if (unidentified == null) {
+                unidentified = new Route(null, extractor);
+            }
+        }
+    }
+
+    /**
+     * Returns the route for a sniffed namespace, or {@code null} if the namespace identifies a message type no
+     * spec supports.
+     */
+    public Route route(String namespace) {
+        if (namespace == null || namespace.isEmpty()) {
+            return unidentified;
+        }
+        Route route = routes.get(namespace);
+        return route != null ? route : catchAll;
+    }
+
+    public boolean isEmpty() {
+        return unidentified == null;
+    }
+
+    /**
+     * {@code urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08} becomes {@code pacs.008.001.08}; other namespaces are
+     * used as they are.
+     */
+    static String messageType(String namespace) {
+        return namespace.startsWith(ISO_20022_PREFIX) ? namespace.substring(ISO_20022_PREFIX.length()) : namespace;
+    }
+
+    @Override
+    public String toString() {
+        return "MessageTypeRouter{" +
+               "namespaces=" + routes.keySet() +
+               ", catchAll=" + (catchAll != null) +
+               '}';
+    }
+
+    public static final class Route {
+        private final String messageType;
+        private final PaymentXmlExtractor extractor;
+
+        private Route(String messageType, PaymentXmlExtractor extractor) {
+            this.messageType = messageType;
+            this.extractor = extractor;
+        }
+
+        /**
+         * Message type and version, e.g. {@code pacs.008.001.08}; {@code null} for the catch-all route.
+         */
+        public String messageType() {
+            return messageType;
+        }
+
+        public PaymentXmlExtractor extractor() {
+            return extractor;
+        }
+    }
+}
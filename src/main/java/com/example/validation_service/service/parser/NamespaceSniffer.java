@@ -0,0 +1,221 @@
+package com.example.validation_service.service.parser;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the namespace of the root element from the first bytes of a payload without starting an XML parser. The
+ * XML declaration, comments, processing instructions and a UTF-8 byte order mark before the root are skipped; the
+ * root's own attributes are scanned for the {@code xmlns} declaration that binds its prefix.
+ * <p>
+ * Returns the namespace URI, an empty string if the root element is in no namespace, or {@code null} if no
+ * complete root start tag was found within {@link #SNIFF_LIMIT} bytes (or characters).
+ */
+public final class NamespaceSniffer {
+
+    public static final int SNIFF_LIMIT = 2048;
+
+    private NamespaceSniffer() {
+    }
+
+    public static String sniff(byte[] payload) {
+        if (payload == null) {
+            return null;
+        }
+        return new Scan(new ByteInput(payload), Math.min(payload.length, SNIFF_LIMIT)).rootNamespace();
+    }
+
+    public static String sniff(String payload) {
+        if (payload == null) {
+            return null;
+        }
+        return new Scan(new CharInput(payload), Math.min(payload.length(), SNIFF_LIMIT)).rootNamespace();
+    }
+
+    private interface Input {
+        int at(int index);
+
+        String substring(int start, int end);
+    }
+
+    private static final class ByteInput implements Input {
+        private final byte[] bytes;
+
+        private ByteInput(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int at(int index) {
+            return bytes[index] & 0xFF;
+        }
+
+        @Override
+        public String substring(int start, int end) {
+            return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class CharInput implements Input {
+        private final String chars;
+
+        private CharInput(String chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        public int at(int index) {
+            return chars.charAt(index);
+        }
+
+        @Override
+        public String substring(int start, int end) {
+            return chars.substring(start, end);
+        }
+    }
+
+    private static final class Scan {
+        private final Input in;
+        private final int end;
+        private int pos;
+
+        private Scan(Input in, int end) {
+            this.in = in;
+            this.end = end;
+        }
+
+        private String rootNamespace() {
+            skipByteOrderMark();
+            while (true) {
+                skipWhitespace();
+                if (!consume('<')) {
+                    return null;
+                }
+                if (pos >= end) {
+                    return null;
+                }
+                int c = in.at(pos);
+                if (c == '?') {
+                    if (!skipPast("?>")) {
+                        return null;
+                    }
+                } else if (c == '!') {
+                    if (!skipPast(startsWith("!--") ? "-->" : ">")) {
+                        return null;
+                    }
+                } else {
+                    return rootElement();
+                }
+            }
+        }
+
+        private String rootElement() {
+            int nameStart = pos;
+            int colon = -1;
+            while (pos < end && isNameChar(in.at(pos))) {
+                if (in.at(pos) == ':') {
+                    colon = pos;
+                }
+                pos++;
+            }
+            if (pos == nameStart) {
+                return null;
+            }
+            // Root "p:Document" is bound by xmlns:p, an unprefixed root by xmlns
+            String wanted = colon < 0 ? "xmlns" : "xmlns:" + in.substring(nameStart, colon);
+
+            while (true) {
+                skipWhitespace();
+                if (pos >= end) {
+                    return null;
+                }
+                int c = in.at(pos);
+                if (c == '>' || c == '/') {
+                    return "";
+                }
+                int attributeStart = pos;
+                while (pos < end && isNameChar(in.at(pos))) {
+                    pos++;
+                }
+                int attributeEnd = pos;
+                skipWhitespace();
+                if (attributeEnd == attributeStart || !consume('=')) {
+                    return null;
+                }
+                skipWhitespace();
+                if (pos >= end) {
+                    return null;
+                }
+                int quote = in.at(pos++);
+                if (quote != '"' && quote != '\'') {
+                    return null;
+                }
+                int valueStart = pos;
+                while (pos < end && in.at(pos) != quote) {
+                    pos++;
+                }
+                if (pos >= end) {
+                    return null;
+                }
+                int valueEnd = pos++;
+                if (attributeEnd - attributeStart == wanted.length()
+                        && in.substring(attributeStart, attributeEnd).equals(wanted)) {
+                    return in.substring(valueStart, valueEnd).trim();
+                }
+            }
+        }
+
+        private void skipByteOrderMark() {
+            if (end >= 3 && in.at(0) == 0xEF && in.at(1) == 0xBB && in.at(2) == 0xBF) {
+                pos = 3;
+            } else if (end >= 1 && in.at(0) == 0xFEFF) {
+                pos = 1;
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < end) {
+                int c = in.at(pos);
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        private boolean consume(int c) {
+            if (pos < end && in.at(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean startsWith(String token) {
+            if (pos + token.length() > end) {
+                return false;
+            }
+            for (int k = 0; k < token.length(); k++) {
+                if (in.at(pos + k) != token.charAt(k)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean skipPast(String terminator) {
+            while (pos < end) {
+                if (startsWith(terminator)) {
+                    pos += terminator.length();
+                    return true;
+                }
+                pos++;
+            }
+            return false;
+        }
+
+        private static boolean isNameChar(int c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == ':' || c == '_' || c == '-' || c == '.';
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.validation_service.service.parser;
+
+/**
+ * Selects the StAX API used by {@code XmlParserService}.
+ */
+public enum ParserEngine {
+
+    /**
+     * {@link javax.xml.stream.XMLStreamReader} cursor over a shared, pre-configured Woodstox factory.
+     */
+    CURSOR,
+
+    /**
+     * Original {@link javax.xml.stream.XMLEventReader} implementation, kept for comparison.
+     */
+    EVENT
+}
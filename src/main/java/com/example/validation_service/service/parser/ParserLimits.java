@@ -0,0 +1,100 @@
+package com.example.validation_service.service.parser;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hard limits on inbound payloads. The raw size is checked by the Kafka listener before a message reaches the
+ * parser; nesting depth, attributes per element and text node length are counted by both extractor engines while
+ * they read, including in subtrees they otherwise skip, so a hostile document fails on the offending token instead
+ * of being tokenized to the end. A violation is reported as a {@link LimitViolationException} naming the limit.
+ * <p>
+ * DTDs are disabled on every factory, so entity expansion needs no separate limit.
+ */
+@Component
+public class ParserLimits {
+
+    public static final String PAYLOAD_SIZE = "payload_size";
+    public static final String DEPTH = "depth";
+    public static final String TEXT_LENGTH = "text_length";
+    public static final String ATTRIBUTE_COUNT = "attribute_count";
+
+    public static final int DEFAULT_MAX_PAYLOAD_BYTES = 1024 * 1024;
+    public static final int DEFAULT_MAX_DEPTH = 32;
+    public static final int DEFAULT_MAX_TEXT_LENGTH = 64 * 1024;
+    public static final int DEFAULT_MAX_ATTRIBUTES = 16;
+
+    private final int maxPayloadBytes;
+    private final int maxDepth;
+    private final int maxTextLength;
+    private final int maxAttributes;
+
+    @Autowired
+    public ParserLimits(@Value("${xml.parser.limits.max-payload-bytes:" + DEFAULT_MAX_PAYLOAD_BYTES + "}") int maxPayloadBytes,
+                        @Value("${xml.parser.limits.max-depth:" + DEFAULT_MAX_DEPTH + "}") int maxDepth,
+                        @Value("${xml.parser.limits.max-text-length:" + DEFAULT_MAX_TEXT_LENGTH + "}") int maxTextLength,
+                        @Value("${xml.parser.limits.max-attributes:" + DEFAULT_MAX_ATTRIBUTES + "}") int maxAttributes) {
+        this.maxPayloadBytes = maxPayloadBytes;
+        this.maxDepth = maxDepth;
+        this.maxTextLength = maxTextLength;
+        this.maxAttributes = maxAttributes;
+    }
+
+    public static ParserLimits defaults() {
+        return new ParserLimits(DEFAULT_MAX_PAYLOAD_BYTES, DEFAULT_MAX_DEPTH, DEFAULT_MAX_TEXT_LENGTH,
+                DEFAULT_MAX_ATTRIBUTES);
+    }
+
+    public int maxPayloadBytes() {
+        return maxPayloadBytes;
+    }
+
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    public int maxTextLength() {
+        return maxTextLength;
+    }
+
+    public int maxAttributes() {
+        return maxAttributes;
+    }
+
+    /**
+     * Checks the nesting depth after a start tag, the document element being at depth 1.
+     */
+    void checkDepth(int depth) throws LimitViolationException {
+        if (depth > maxDepth) {
+            throw new LimitViolationException(DEPTH, "Element depth exceeds the limit of " + maxDepth + ".");
+        }
+    }
+
+    void checkTextLength(int length) throws LimitViolationException {
+        if (length > maxTextLength) {
+            throw new LimitViolationException(TEXT_LENGTH,
+                    "Text node of " + length + " characters exceeds the limit of " + maxTextLength + ".");
+        }
+    }
+
+    /**
+     * Checks the number of attributes of a start tag, namespace declarations not counted.
+     */
+    void checkAttributeCount(int count) throws LimitViolationException {
+        if (count > maxAttributes) {
+            throw new LimitViolationException(ATTRIBUTE_COUNT,
+                    "Element with " + count + " attributes exceeds the limit of " + maxAttributes + ".");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ParserLimits{" +
+               "maxPayloadBytes=" + maxPayloadBytes +
+               ", maxDepth=" + maxDepth +
+               ", maxTextLength=" + maxTextLength +
+               ", maxAttributes=" + maxAttributes +
+               '}';
+    }
+}
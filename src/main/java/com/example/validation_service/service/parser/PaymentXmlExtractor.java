@@ -0,0 +1,38 @@
+package com.example.validation_service.service.parser;
+
+import com.example.validation_service.dto.RawPaymentData;
+
+import javax.xml.stream.XMLStreamException;
+import java.util.function.Consumer;
+
+/**
+ * Extracts the fields of a pacs.008 message that the validation pipeline needs into a {@link RawPaymentData}.
+ * Implementations must be thread-safe; a single instance is shared by all listener threads.
+ */
+public interface PaymentXmlExtractor {
+
+    RawPaymentData extract(String xmlPayload) throws XMLStreamException;
+
+    /**
+     * Extracts directly from the UTF-8 bytes received from Kafka, without decoding them into a {@code String} first.
+     */
+    RawPaymentData extract(byte[] xmlPayload) throws XMLStreamException;
+
+    /**
+     * Emits one {@link RawPaymentData} per credit transfer transaction, each carrying the message-level fields, and
+     * returns the number of transactions emitted. The default treats the whole message as a single transaction.
+     */
+    default int extractTransactions(String xmlPayload, Consumer<RawPaymentData> sink) throws XMLStreamException {
+        RawPaymentData data = extract(xmlPayload);
+        data.setTransactionSequence(1);
+        sink.accept(data);
+        return 1;
+    }
+
+    default int extractTransactions(byte[] xmlPayload, Consumer<RawPaymentData> sink) throws XMLStreamException {
+        RawPaymentData data = extract(xmlPayload);
+        data.setTransactionSequence(1);
+        sink.accept(data);
+        return 1;
+    }
+}
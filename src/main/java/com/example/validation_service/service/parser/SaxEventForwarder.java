@@ -0,0 +1,89 @@
+package com.example.validation_service.service.parser;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.validation.ValidatorHandler;
+
+/**
+ * Replays the cursor reader's current token into a {@link ValidatorHandler}, so that a document is checked against
+ * an XSD while it is being read for extraction rather than in a second pass. One instance is used per thread; the
+ * handler resets itself on {@code startDocument}.
+ */
+final class SaxEventForwarder {
+
+    private final ValidatorHandler handler;
+    private final AttributesImpl attributes = new AttributesImpl();
+
+    SaxEventForwarder(ValidatorHandler handler) {
+        this.handler = handler;
+    }
+
+    void startDocument() throws XMLStreamException {
+        try {
+            handler.startDocument();
+        } catch (SAXException e) {
+            throw violation(e);
+        }
+    }
+
+    void endDocument() throws XMLStreamException {
+        try {
+            handler.endDocument();
+        } catch (SAXException e) {
+            throw violation(e);
+        }
+    }
+
+    void startElement(XMLStreamReader reader) throws XMLStreamException {
+        try {
+            for (int i = 0, n = reader.getNamespaceCount(); i < n; i++) {
+                handler.startPrefixMapping(nonNull(reader.getNamespacePrefix(i)), nonNull(reader.getNamespaceURI(i)));
+            }
+            attributes.clear();
+            for (int i = 0, n = reader.getAttributeCount(); i < n; i++) {
+                attributes.addAttribute(nonNull(reader.getAttributeNamespace(i)), reader.getAttributeLocalName(i),
+                        qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+                        "CDATA", reader.getAttributeValue(i));
+            }
+            handler.startElement(nonNull(reader.getNamespaceURI()), reader.getLocalName(),
+                    qualifiedName(reader.getPrefix(), reader.getLocalName()), attributes);
+        } catch (SAXException e) {
+            throw violation(e);
+        }
+    }
+
+    void characters(XMLStreamReader reader) throws XMLStreamException {
+        try {
+            handler.characters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+        } catch (SAXException e) {
+            throw violation(e);
+        }
+    }
+
+    void endElement(XMLStreamReader reader) throws XMLStreamException {
+        try {
+            handler.endElement(nonNull(reader.getNamespaceURI()), reader.getLocalName(),
+                    qualifiedName(reader.getPrefix(), reader.getLocalName()));
+            for (int i = 0, n = reader.getNamespaceCount(); i < n; i++) {
+                handler.endPrefixMapping(nonNull(reader.getNamespacePrefix(i)));
+            }
+        } catch (SAXException e) {
+            throw violation(e);
+        }
+    }
+
+    private static XsdViolationException violation(SAXException e) {
+        return new XsdViolationException(e.getMessage());
+    }
+
+    private static String qualifiedName(String prefix, String localName) {
+        return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+    }
+
+    private static String nonNull(String value) {
+        return value == null ? "" : value;
+    }
+}
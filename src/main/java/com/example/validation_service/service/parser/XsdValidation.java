@@ -0,0 +1,106 @@
+package com.example.validation_service.service.parser;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional structural validation of inbound messages against an XSD. The schema is compiled once at startup; the
+ * cursor engine then feeds the tokens it reads anyway into a per-thread validator, so a validated message is still
+ * parsed only once. A validated message is read to the end, which is the cost that {@link Mode#SAMPLED} amortizes.
+ */
+@Component
+public class XsdValidation {
+
+    private static final Logger logger = LoggerFactory.getLogger(XsdValidation.class);
+
+    public enum Mode {
+        OFF, SAMPLED, ALWAYS
+    }
+
+    private final Mode mode;
+    private final int sampleRate;
+    private final AtomicLong messageCount = new AtomicLong();
+    private final ThreadLocal<SaxEventForwarder> forwarders;
+
+    @Autowired
+    public XsdValidation(@Value("${xml.parser.xsd.mode:off}") String modeName,
+                         @Value("${xml.parser.xsd.sample-rate:100}") int sampleRate,
+                         @Value("${xml.parser.xsd.location:}") String location) {
+        this(resolveMode(modeName), sampleRate,
+                location.isBlank() ? null : new DefaultResourceLoader().getResource(location.trim()));
+    }
+
+    public XsdValidation(Mode mode, int sampleRate, Resource schemaResource) {
+        this.mode = mode;
+        this.sampleRate = Math.max(1, sampleRate);
+        if (mode == Mode.OFF) {
+            this.forwarders = null;
+            logger.info("XSD validation is off.");
+            return;
+        }
+        if (schemaResource == null) {
+            throw new IllegalStateException("xml.parser.xsd.location must be set when xml.parser.xsd.mode is " + mode);
+        }
+        Schema schema = compile(schemaResource);
+        this.forwarders = ThreadLocal.withInitial(() -> new SaxEventForwarder(schema.newValidatorHandler()));
+        logger.info("XSD validation {} against {} (sample rate: 1 in {}).",
+                mode, schemaResource.getDescription(), mode == Mode.SAMPLED ? this.sampleRate : 1);
+    }
+
+    public static XsdValidation off() {
+        return new XsdValidation(Mode.OFF, 1, null);
+    }
+
+    private static Mode resolveMode(String modeName) {
+        try {
+            return Mode.valueOf(modeName.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            logger.error("Unknown XSD validation mode '{}'. Defaulting to OFF.", modeName);
+            return Mode.OFF;
+        }
+    }
+
+    private static Schema compile(Resource resource) {
+        try (InputStream in = resource.getInputStream()) {
+            SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            // Only the schema itself and its local includes are read
+            factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "file,jar:file");
+            return factory.newSchema(new StreamSource(in, resource.getURL().toExternalForm()));
+        } catch (IOException | SAXException e) {
+            throw new IllegalStateException("Failed to compile XSD from " + resource.getDescription(), e);
+        }
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    /**
+     * Returns the calling thread's validator if the next message is to be validated, {@code null} otherwise.
+     */
+    SaxEventForwarder forwarderForNextMessage() {
+        switch (mode) {
+            case ALWAYS:
+                return forwarders.get();
+            case SAMPLED:
+                return messageCount.incrementAndGet() % sampleRate == 0 ? forwarders.get() : null;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.validation_service.service.parser;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * The document is well-formed but does not conform to the configured XSD. It only carries the validator's message
+ * and, being an expected outcome, no stack trace.
+ */
+public class XsdViolationException extends XMLStreamException {
+
+    public XsdViolationException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
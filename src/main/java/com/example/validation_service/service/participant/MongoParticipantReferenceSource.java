@@ -0,0 +1,90 @@
+package com.example.validation_service.service.participant;
+
+import com.example.validation_service.dto.CurrencyCode;
+import com.example.validation_service.dto.MinorUnitAmount;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Participant reference data in a MongoDB collection, one document per participant:
+ * {@code {_id: "BANK001", status: "ACTIVE", schemes: ["SCT", "INST"], maxAmount: "50000.00",
+ * maxAmountCurrency: "EUR"}}. {@code status} is {@code ACTIVE} or {@code SUSPENDED}; {@code schemes} and
+ * {@code maxAmount} may be left out for none and no limit. A limit applies to payments in {@code maxAmountCurrency}
+ * only. A document with an unknown status is taken as suspended, and one with an invalid limit or a limit without an
+ * ISO 4217 currency is skipped, with a warning.
+ */
+public final class MongoParticipantReferenceSource implements ParticipantReferenceSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoParticipantReferenceSource.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final String collection;
+
+    public MongoParticipantReferenceSource(MongoTemplate mongoTemplate, String collection) {
+        this.mongoTemplate = mongoTemplate;
+        this.collection = collection;
+    }
+
+    @Override
+    public List<ParticipantReference> loadAll() {
+        List<ParticipantReference> participants = new ArrayList<>();
+        for (Document document : mongoTemplate.findAll(Document.class, collection)) {
+            ParticipantReference participant = toReference(document);
+            if (participant != null) {
+                participants.add(participant);
+            }
+        }
+        return participants;
+    }
+
+    static ParticipantReference toReference(Document document) {
+        Object id = document.get("_id");
+        if (id == null || id.toString().isEmpty()) {
+            logger.warn("Skipping participant document without an ID: {}", document);
+            return null;
+        }
+        ParticipantReference.Status status;
+        try {
+            status = ParticipantReference.Status.valueOf(String.valueOf(document.get("status")).trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown status '{}' of participant {}. Taking it as SUSPENDED.", document.get("status"), id);
+            status = ParticipantReference.Status.SUSPENDED;
+        }
+        List<String> schemes = new ArrayList<>();
+        Object schemeField = document.get("schemes");
+        if (schemeField instanceof List) {
+            for (Object scheme : (List<?>) schemeField) {
+                if (scheme != null) {
+                    schemes.add(scheme.toString().trim());
+                }
+            }
+        }
+        MinorUnitAmount maxAmount = null;
+        String maxAmountCurrency = null;
+        Object maxAmountField = document.get("maxAmount");
+        if (maxAmountField != null) {
+            maxAmount = MinorUnitAmount.parse(maxAmountField.toString().trim());
+            if (maxAmount == null) {
+                logger.warn("Skipping participant {} with invalid maxAmount '{}'.", id, maxAmountField);
+                return null;
+            }
+            Object currencyField = document.get("maxAmountCurrency");
+            if (currencyField == null || !CurrencyCode.isIso(CurrencyCode.id(currencyField.toString()))) {
+                logger.warn("Skipping participant {} with invalid maxAmountCurrency '{}'.", id, currencyField);
+                return null;
+            }
+            maxAmountCurrency = currencyField.toString();
+        }
+        return new ParticipantReference(id.toString(), status, schemes, maxAmount, maxAmountCurrency);
+    }
+
+    @Override
+    public String toString() {
+        return "MongoDB " + collection;
+    }
+}
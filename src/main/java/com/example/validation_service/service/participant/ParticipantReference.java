@@ -0,0 +1,96 @@
+package com.example.validation_service.service.participant;
+
+import com.example.validation_service.dto.CurrencyCode;
+import com.example.validation_service.dto.MinorUnitAmount;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One participant as read from the reference data source, before it is written to a {@link ParticipantSnapshot}.
+ */
+public final class ParticipantReference {
+
+    public enum Status {
+        ACTIVE, SUSPENDED
+    }
+
+    private final String id;
+    private final Status status;
+    private final List<String> schemes;
+    private final MinorUnitAmount maxAmount;
+    private final String maxAmountCurrency;
+
+    /**
+     * @param schemes           names of the payment schemes through which the participant can be reached
+     * @param maxAmount         largest amount of one payment the participant may send, or {@code null} for no limit
+     * @param maxAmountCurrency ISO 4217 code of the currency of {@code maxAmount}; payments in other currencies are
+     *                          not limited. Ignored without a limit.
+     * @throws IllegalArgumentException if there is a limit and its currency is not an ISO 4217 code
+     */
+    public ParticipantReference(String id, Status status, List<String> schemes, MinorUnitAmount maxAmount,
+                                String maxAmountCurrency) {
+        this.id = Objects.requireNonNull(id, "id");
+        this.status = Objects.requireNonNull(status, "status");
+        this.schemes = List.copyOf(schemes);
+        this.maxAmount = maxAmount;
+        if (maxAmount == null) {
+            this.maxAmountCurrency = null;
+        } else {
+            int currencyId = CurrencyCode.id(maxAmountCurrency);
+            if (!CurrencyCode.isIso(currencyId)) {
+                throw new IllegalArgumentException("Invalid currency '" + maxAmountCurrency
+                        + "' of the limit of participant '" + id + "'.");
+            }
+            this.maxAmountCurrency = CurrencyCode.code(currencyId);
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public List<String> getSchemes() {
+        return schemes;
+    }
+
+    public MinorUnitAmount getMaxAmount() {
+        return maxAmount;
+    }
+
+    public String getMaxAmountCurrency() {
+        return maxAmountCurrency;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ParticipantReference that = (ParticipantReference) o;
+        return id.equals(that.id) &&
+               status == that.status &&
+               schemes.equals(that.schemes) &&
+               Objects.equals(maxAmount, that.maxAmount) &&
+               Objects.equals(maxAmountCurrency, that.maxAmountCurrency);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, status, schemes, maxAmount, maxAmountCurrency);
+    }
+
+    @Override
+    public String toString() {
+        return "ParticipantReference{" +
+               "id='" + id + '\'' +
+               ", status=" + status +
+               ", schemes=" + schemes +
+               ", maxAmount=" + maxAmount +
+               ", maxAmountCurrency=" + maxAmountCurrency +
+               '}';
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.validation_service.service.participant;
+
+import java.util.List;
+
+/**
+ * Where the participant reference data is refreshed from.
+ */
+public interface ParticipantReferenceSource {
+
+    /**
+     * @return every participant
+     * @throws Exception if the source cannot be read; the current snapshot is then kept
+     */
+    List<ParticipantReference> loadAll() throws Exception;
+}
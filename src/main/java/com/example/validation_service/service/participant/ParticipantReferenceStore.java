@@ -0,0 +1,142 @@
+package com.example.validation_service.service.participant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds the current {@link ParticipantSnapshot} in a volatile reference that a refresh replaces as a whole, so
+ * lookups never lock or wait for a load.
+ * <p>
+ * On startup the snapshot file left by the previous run is mapped, so reference data is available before the source
+ * has been read. It is then refreshed ahead of time on a single background thread: the first refresh runs when the
+ * snapshot reaches the refresh interval in age, immediately if there is none, and the next ones every interval. A
+ * refresh writes a new snapshot file and maps it; a refresh that fails is logged and the current snapshot kept. A
+ * source that returns no participants, or fewer than half of those in the current snapshot, is taken to have failed,
+ * so that a partial read cannot make most participants unknown.
+ */
+public final class ParticipantReferenceStore implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParticipantReferenceStore.class);
+
+    private static final ParticipantReferenceStore NONE = new ParticipantReferenceStore();
+
+    private final Path path;
+    private final String requiredScheme;
+    private final ParticipantReferenceSource source;
+    private final Duration refreshInterval;
+    private final LongSupplier clock;
+    private volatile ParticipantSnapshot current;
+    private ScheduledExecutorService refreshScheduler;
+
+    private ParticipantReferenceStore() {
+        this.path = null;
+        this.requiredScheme = null;
+        this.source = null;
+        this.refreshInterval = null;
+        this.clock = null;
+    }
+
+    /**
+     * Maps the snapshot at {@code path} if there is a valid one.
+     *
+     * @param requiredScheme the scheme participants must be reachable through, or {@code null} if any will do
+     */
+    public ParticipantReferenceStore(Path path, String requiredScheme, ParticipantReferenceSource source,
+                                     Duration refreshInterval, LongSupplier clock) {
+        this.path = path;
+        this.requiredScheme = requiredScheme;
+        this.source = source;
+        this.refreshInterval = refreshInterval;
+        this.clock = clock;
+        if (Files.exists(path)) {
+            try {
+                current = ParticipantSnapshot.open(path, requiredScheme);
+                logger.info("Mapped {}, refreshed at {}.", current, current.refreshedAt());
+            } catch (Exception e) {
+                logger.warn("Ignoring participant snapshot {}: {}. Waiting for the first refresh.", path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * No reference data: {@link #current()} stays {@code null}.
+     */
+    public static ParticipantReferenceStore none() {
+        return NONE;
+    }
+
+    /**
+     * The current snapshot, or {@code null} if there is no reference data or none has been loaded yet.
+     */
+    public ParticipantSnapshot current() {
+        return current;
+    }
+
+    /**
+     * Reads every participant from the source and replaces the snapshot.
+     *
+     * @return whether a new snapshot was applied
+     */
+    synchronized boolean refresh() {
+        if (source == null) {
+            return false;
+        }
+        try {
+            long refreshedAt = clock.getAsLong();
+            List<ParticipantReference> participants = source.loadAll();
+            ParticipantSnapshot snapshot = current;
+            if (participants.isEmpty() || (snapshot != null && participants.size() < snapshot.size() / 2)) {
+                logger.error("Participant reference data from {} has {} participants. Keeping {}",
+                        source, participants.size(), snapshot);
+                return false;
+            }
+            ParticipantSnapshot.write(path, participants, refreshedAt);
+            ParticipantSnapshot updated = ParticipantSnapshot.open(path, requiredScheme);
+            current = updated;
+            logger.info("Refreshed {} from {}.", updated, source);
+            return true;
+        } catch (Exception e) {
+            // Runs on the scheduler, which would stop on an exception
+            logger.error("Failed to refresh participant reference data from {}: {}. Keeping {}",
+                    source, e.getMessage(), current, e);
+            return false;
+        }
+    }
+
+    public synchronized void startRefreshing() {
+        if (source == null) {
+            return;
+        }
+        if (refreshScheduler != null) {
+            throw new IllegalStateException("Participant reference data is already refreshed.");
+        }
+        refreshScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "participant-reference-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = refreshInterval.toMillis();
+        ParticipantSnapshot snapshot = current;
+        long firstDelay = snapshot == null ? 0
+                : Math.max(0, Math.min(interval, snapshot.refreshedAt() + interval - clock.getAsLong()));
+        refreshScheduler.scheduleWithFixedDelay(this::refresh, firstDelay, interval, TimeUnit.MILLISECONDS);
+        logger.info("Refreshing participant reference data from {} every {} ms, first in {} ms.",
+                source, interval, firstDelay);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (refreshScheduler != null) {
+            refreshScheduler.shutdownNow();
+        }
+    }
+}
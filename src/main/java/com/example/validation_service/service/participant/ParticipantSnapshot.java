@@ -0,0 +1,336 @@
+package com.example.validation_service.service.participant;
+
+import com.example.validation_service.dto.CurrencyCode;
+import com.example.validation_service.dto.MinorUnitAmount;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Participant reference data in a binary snapshot file, mapped read-only so that hundreds of thousands of
+ * participants are held outside the Java heap and are available as soon as the file is opened after a restart.
+ * <p>
+ * The file is an open-addressing hash table keyed by participant ID, 32 bytes per slot: the ID's hash, the offset
+ * and length of its characters, the status, the schemes the participant can be reached through as a bit mask, and
+ * its payment limit in minor units with the {@link CurrencyCode} id of its currency. A lookup hashes the ID and
+ * compares the characters in place, so it needs no lock and creates no object; an entry is the index of a slot,
+ * read through the accessors. Every slot is checked when the file is opened, so a corrupt snapshot is refused then
+ * rather than failing a lookup. A snapshot never changes once written: {@link #write} builds a new file beside the
+ * current one and moves it into place, and readers keep the mapping they started with.
+ */
+public final class ParticipantSnapshot {
+
+    static final long MAGIC = 0x5650415254524546L; // "VPARTREF"
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 64;
+    static final int SLOT_BYTES = 32;
+    static final int MAX_SCHEMES = 32;
+
+    /**
+     * Returned by {@link #find} for a participant that is not in the snapshot.
+     */
+    public static final int NOT_FOUND = -1;
+
+    private static final ParticipantReference.Status[] STATUSES = ParticipantReference.Status.values();
+    private static final byte NO_LIMIT = -1;
+
+    private final Path path;
+    private final MappedByteBuffer table;
+    private final int slotMask;
+    private final int size;
+    private final long refreshedAt;
+    private final List<String> schemes;
+    private final String requiredScheme;
+    // Bit of the required scheme, 0 if the snapshot does not know it
+    private final int requiredSchemeMask;
+
+    private ParticipantSnapshot(Path path, MappedByteBuffer table, String requiredScheme) throws IOException {
+        this.path = path;
+        this.table = table;
+        if (table.capacity() < HEADER_BYTES || table.getLong(0) != MAGIC || table.getInt(8) != VERSION) {
+            throw new IOException("Not a participant snapshot: " + path);
+        }
+        int slotCount = table.getInt(12);
+        int stringsOffset = table.getInt(32);
+        if (Integer.bitCount(slotCount) != 1 || stringsOffset != HEADER_BYTES + (long) slotCount * SLOT_BYTES
+                || (long) stringsOffset + table.getInt(36) != table.capacity()) {
+            throw new IOException("Participant snapshot " + path + " is truncated or corrupt.");
+        }
+        this.slotMask = slotCount - 1;
+        this.size = table.getInt(16);
+        this.refreshedAt = table.getLong(24);
+        checkSlots(path, table, slotCount, stringsOffset);
+
+        List<String> names = new ArrayList<>();
+        int offset = stringsOffset;
+        for (int i = table.getInt(20); i > 0; i--) {
+            int length = table.getShort(offset);
+            names.add(chars(offset + 2, length));
+            offset += 2 + length * 2;
+        }
+        this.schemes = List.copyOf(names);
+        this.requiredScheme = requiredScheme;
+        int index = requiredScheme == null ? -1 : schemes.indexOf(requiredScheme);
+        this.requiredSchemeMask = index < 0 ? 0 : 1 << index;
+    }
+
+    // Status, limit and ID characters of every used slot, which lookups read without checking
+    private static void checkSlots(Path path, MappedByteBuffer table, int slotCount, int stringsOffset)
+            throws IOException {
+        for (int entry = 0; entry < slotCount; entry++) {
+            int slot = slot(entry);
+            int length = table.getShort(slot + 8);
+            if (length == 0) {
+                continue;
+            }
+            int offset = table.getInt(slot + 4);
+            byte status = table.get(slot + 10);
+            byte scale = table.get(slot + 11);
+            int currencyId = table.getInt(slot + 24);
+            boolean validLimit = scale == NO_LIMIT || (scale >= 0 && scale <= MinorUnitAmount.MAX_SCALE
+                    && currencyId >= 0 && currencyId < CurrencyCode.COUNT);
+            if (length < 0 || offset < stringsOffset || offset > table.capacity() - length * 2
+                    || status < 0 || status >= STATUSES.length || !validLimit) {
+                throw new IOException("Participant snapshot " + path + " has a corrupt slot " + entry + ".");
+            }
+        }
+    }
+
+    /**
+     * Maps the snapshot at {@code path}.
+     *
+     * @param requiredScheme the scheme participants must be reachable through, or {@code null} if any will do
+     * @throws IOException if the file cannot be read or is not a complete snapshot
+     */
+    public static ParticipantSnapshot open(Path path, String requiredScheme) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Participant snapshot " + path + " exceeds 2 GB.");
+            }
+            // The mapping stays valid after the channel is closed
+            return new ParticipantSnapshot(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+                    requiredScheme);
+        }
+    }
+
+    /**
+     * Writes {@code participants} to a new file beside {@code path} and moves it over {@code path} in one step, so
+     * that a crash never leaves half a snapshot.
+     *
+     * @throws IllegalArgumentException if a participant ID is listed twice, is empty or longer than 32767
+     *                                  characters, or there are more than 32 schemes
+     */
+    public static void write(Path path, Collection<ParticipantReference> participants, long refreshedAt)
+            throws IOException {
+        Map<String, Integer> schemeBits = new LinkedHashMap<>();
+        long stringBytes = 0;
+        for (ParticipantReference participant : participants) {
+            int length = participant.getId().length();
+            if (length == 0 || length > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Invalid participant ID length " + length + ".");
+            }
+            stringBytes += length * 2L;
+            for (String scheme : participant.getSchemes()) {
+                if (!schemeBits.containsKey(scheme)) {
+                    if (schemeBits.size() == MAX_SCHEMES) {
+                        throw new IllegalArgumentException("Participant reference data has more than "
+                                + MAX_SCHEMES + " schemes.");
+                    }
+                    schemeBits.put(scheme, 1 << schemeBits.size());
+                    stringBytes += 2 + scheme.length() * 2L;
+                }
+            }
+        }
+        // At most half full, so that probe sequences stay short
+        int slotCount = Integer.highestOneBit(Math.max(2, participants.size() * 2 - 1)) << 1;
+        long stringsOffset = HEADER_BYTES + (long) slotCount * SLOT_BYTES;
+        if (stringsOffset + stringBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Participant reference data of " + participants.size()
+                    + " participants exceeds 2 GB.");
+        }
+        int fileSize = (int) (stringsOffset + stringBytes);
+
+        if (path.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            int offset = (int) stringsOffset;
+            for (String scheme : schemeBits.keySet()) {
+                table.putShort(offset, (short) scheme.length());
+                offset = putChars(table, offset + 2, scheme);
+            }
+            int mask = slotCount - 1;
+            for (ParticipantReference participant : participants) {
+                String id = participant.getId();
+                int hash = hash(id);
+                int index = hash & mask;
+                while (table.getShort(slot(index) + 8) != 0) {
+                    if (table.getInt(slot(index)) == hash && idEquals(table, slot(index), id)) {
+                        throw new IllegalArgumentException("Participant '" + id + "' is listed twice.");
+                    }
+                    index = (index + 1) & mask;
+                }
+                int slot = slot(index);
+                int schemeMask = 0;
+                for (String scheme : participant.getSchemes()) {
+                    schemeMask |= schemeBits.get(scheme);
+                }
+                MinorUnitAmount maxAmount = participant.getMaxAmount();
+                table.putInt(slot, hash);
+                table.putInt(slot + 4, offset);
+                table.put(slot + 10, (byte) participant.getStatus().ordinal());
+                table.put(slot + 11, maxAmount == null ? NO_LIMIT : (byte) maxAmount.scale());
+                table.putInt(slot + 12, schemeMask);
+                table.putLong(slot + 16, maxAmount == null ? 0 : maxAmount.units());
+                table.putInt(slot + 24, maxAmount == null ? CurrencyCode.UNKNOWN
+                        : CurrencyCode.id(participant.getMaxAmountCurrency()));
+                // The length marks the slot as used
+                table.putShort(slot + 8, (short) id.length());
+                offset = putChars(table, offset, id);
+            }
+            table.putLong(0, MAGIC);
+            table.putInt(8, VERSION);
+            table.putInt(12, slotCount);
+            table.putInt(16, participants.size());
+            table.putInt(20, schemeBits.size());
+            table.putLong(24, refreshedAt);
+            table.putInt(32, (int) stringsOffset);
+            table.putInt(36, (int) stringBytes);
+            table.force();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * The entry of the participant with {@code id}, or {@link #NOT_FOUND}.
+     */
+    public int find(String id) {
+        int hash = hash(id);
+        int index = hash & slotMask;
+        while (table.getShort(slot(index) + 8) != 0) {
+            if (table.getInt(slot(index)) == hash && idEquals(table, slot(index), id)) {
+                return index;
+            }
+            index = (index + 1) & slotMask;
+        }
+        return NOT_FOUND;
+    }
+
+    public ParticipantReference.Status status(int entry) {
+        return STATUSES[table.get(slot(entry) + 10)];
+    }
+
+    public boolean isActive(int entry) {
+        return status(entry) == ParticipantReference.Status.ACTIVE;
+    }
+
+    /**
+     * Whether the participant can be reached through the required scheme, always {@code true} if none is required.
+     */
+    public boolean reachesRequiredScheme(int entry) {
+        return requiredScheme == null || (table.getInt(slot(entry) + 12) & requiredSchemeMask) != 0;
+    }
+
+    /**
+     * Whether {@code amount} in the currency with {@link CurrencyCode} id {@code currencyId} is above the
+     * participant's limit, never if it has none or the limit is in another currency.
+     */
+    public boolean exceedsLimit(int entry, MinorUnitAmount amount, int currencyId) {
+        int slot = slot(entry);
+        byte scale = table.get(slot + 11);
+        return scale != NO_LIMIT && table.getInt(slot + 24) == currencyId
+                && amount.compareTo(table.getLong(slot + 16), scale) > 0;
+    }
+
+    /**
+     * The participant's limit, for messages, or {@code null} if it has none.
+     */
+    public MinorUnitAmount limit(int entry) {
+        int slot = slot(entry);
+        byte scale = table.get(slot + 11);
+        return scale == NO_LIMIT ? null : MinorUnitAmount.of(table.getLong(slot + 16), scale);
+    }
+
+    /**
+     * The currency code of the participant's limit, or {@code null} if it has none.
+     */
+    public String limitCurrency(int entry) {
+        int slot = slot(entry);
+        return table.get(slot + 11) == NO_LIMIT ? null : CurrencyCode.code(table.getInt(slot + 24));
+    }
+
+    public String requiredScheme() {
+        return requiredScheme;
+    }
+
+    public List<String> schemes() {
+        return schemes;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * When the reference data of the snapshot was read from its source, in epoch milliseconds.
+     */
+    public long refreshedAt() {
+        return refreshedAt;
+    }
+
+    private static int slot(int entry) {
+        return HEADER_BYTES + entry * SLOT_BYTES;
+    }
+
+    private static int hash(String id) {
+        int hash = id.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean idEquals(MappedByteBuffer table, int slot, String id) {
+        int length = id.length();
+        if (table.getShort(slot + 8) != length) {
+            return false;
+        }
+        int offset = table.getInt(slot + 4);
+        for (int i = 0; i < length; i++) {
+            if (table.getChar(offset + i * 2) != id.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int putChars(MappedByteBuffer table, int offset, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            table.putChar(offset + i * 2, text.charAt(i));
+        }
+        return offset + text.length() * 2;
+    }
+
+    private String chars(int offset, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = table.getChar(offset + i * 2);
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public String toString() {
+        return "participant snapshot " + path + " (" + size + " participants, schemes " + schemes + ")";
+    }
+}
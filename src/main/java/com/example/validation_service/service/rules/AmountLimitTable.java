@@ -0,0 +1,250 @@
+package com.example.validation_service.service.rules;
+
+import com.example.validation_service.dto.CurrencyCode;
+import com.example.validation_service.dto.MinorUnitAmount;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Amount limits per currency, and optionally per debtor participant within a currency, in the minor units of the
+ * currency's ISO 4217 exponent, e.g. cents for USD and whole yen for JPY.
+ * <p>
+ * Limits are configured as {@code validation.rules.amount.limits.<CCY>=min:max} and
+ * {@code validation.rules.amount.limits.<CCY>.<debtorId>=min:max}. They are held in flat arrays: a currency code
+ * is indexed by its {@link CurrencyCode} id, so finding its limits costs one array read. Participant limits sit
+ * in an open-addressing table that is only probed for currencies that have any.
+ */
+public final class AmountLimitTable {
+
+    public static final String PREFIX = "validation.rules.amount.limits.";
+
+    /**
+     * Returned by {@link #entry} when no limits are configured for the currency.
+     */
+    public static final int NONE = -1;
+
+    private static final AmountLimitTable EMPTY = new AmountLimitTable(List.of());
+
+    // Entry of each currency slot, NONE if the currency has no limits
+    private final int[] currencyEntries;
+    // Whether any participant of the currency slot has limits of its own
+    private final boolean[] participantLimited;
+    // Open addressing over the participant entries, holding entry + 1 so that 0 is empty
+    private final int[] participantTable;
+
+    private final String[] currencies;
+    private final String[] participants;
+    private final int[] slots;
+    private final int[] exponents;
+    private final long[] minUnits;
+    private final long[] maxUnits;
+
+    private AmountLimitTable(List<Limit> limits) {
+        int count = limits.size();
+        currencyEntries = new int[CurrencyCode.COUNT];
+        Arrays.fill(currencyEntries, NONE);
+        participantLimited = new boolean[CurrencyCode.COUNT];
+        currencies = new String[count];
+        participants = new String[count];
+        slots = new int[count];
+        exponents = new int[count];
+        minUnits = new long[count];
+        maxUnits = new long[count];
+
+        int participantCount = 0;
+        for (Limit limit : limits) {
+            if (limit.participant != null) {
+                participantCount++;
+            }
+        }
+        participantTable = new int[participantCount == 0 ? 0 : Integer.highestOneBit(participantCount * 2 - 1) << 1];
+
+        for (int entry = 0; entry < count; entry++) {
+            Limit limit = limits.get(entry);
+            currencies[entry] = limit.currency;
+            participants[entry] = limit.participant;
+            slots[entry] = limit.slot;
+            exponents[entry] = limit.exponent;
+            minUnits[entry] = limit.minUnits;
+            maxUnits[entry] = limit.maxUnits;
+            if (limit.participant == null) {
+                currencyEntries[limit.slot] = entry;
+            } else {
+                participantLimited[limit.slot] = true;
+                int mask = participantTable.length - 1;
+                int index = hash(limit.slot, limit.participant) & mask;
+                while (participantTable[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                participantTable[index] = entry + 1;
+            }
+        }
+    }
+
+    public static AmountLimitTable empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Reads every {@code validation.rules.amount.limits.*} property of {@code properties}.
+     *
+     * @throws IllegalArgumentException if a currency is unknown or has no minor unit, or a limit is not a
+     *                                  {@code min:max} pair of amounts in that minor unit with {@code min <= max}
+     */
+    public static AmountLimitTable from(Map<String, String> properties) {
+        List<Limit> limits = new ArrayList<>();
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            if (property.getKey().startsWith(PREFIX) && property.getValue() != null) {
+                limits.add(Limit.parse(property.getKey().substring(PREFIX.length()), property.getValue().trim()));
+            }
+        }
+        if (limits.isEmpty()) {
+            return EMPTY;
+        }
+        // Participant entries after the currency entries, so their order does not depend on the map's
+        limits.sort((a, b) -> Boolean.compare(a.participant != null, b.participant != null));
+        return new AmountLimitTable(limits);
+    }
+
+    /**
+     * The entry holding the limits for {@code debtorId} in the currency with the {@link CurrencyCode} id
+     * {@code slot}: the participant's own limits if it has any, otherwise those of the currency, or {@link #NONE} if
+     * the currency has none.
+     */
+    public int entry(int slot, String debtorId) {
+        if (slot == CurrencyCode.UNKNOWN) {
+            return NONE;
+        }
+        if (participantLimited[slot] && debtorId != null) {
+            int mask = participantTable.length - 1;
+            int index = hash(slot, debtorId) & mask;
+            int candidate;
+            while ((candidate = participantTable[index]) != 0) {
+                int entry = candidate - 1;
+                if (slots[entry] == slot && participants[entry].equals(debtorId)) {
+                    return entry;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+        return currencyEntries[slot];
+    }
+
+    /**
+     * The currency's ISO 4217 exponent: the number of fraction digits of its minor unit.
+     */
+    public int exponent(int entry) {
+        return exponents[entry];
+    }
+
+    public long minUnits(int entry) {
+        return minUnits[entry];
+    }
+
+    public long maxUnits(int entry) {
+        return maxUnits[entry];
+    }
+
+    /**
+     * The minimum of the entry as an amount, for messages.
+     */
+    public MinorUnitAmount min(int entry) {
+        return MinorUnitAmount.of(minUnits[entry], exponents[entry]);
+    }
+
+    public MinorUnitAmount max(int entry) {
+        return MinorUnitAmount.of(maxUnits[entry], exponents[entry]);
+    }
+
+    public String currency(int entry) {
+        return currencies[entry];
+    }
+
+    public int size() {
+        return currencies.length;
+    }
+
+    private static int hash(int slot, String participant) {
+        int hash = participant.hashCode() * 31 + slot;
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder("{");
+        for (int entry = 0; entry < currencies.length; entry++) {
+            if (entry > 0) {
+                description.append(", ");
+            }
+            description.append(currencies[entry]);
+            if (participants[entry] != null) {
+                description.append('.').append(participants[entry]);
+            }
+            description.append('=').append(min(entry)).append(':').append(max(entry));
+        }
+        return description.append('}').toString();
+    }
+
+    private static final class Limit {
+        final String currency;
+        final String participant;
+        final int slot;
+        final int exponent;
+        final long minUnits;
+        final long maxUnits;
+
+        private Limit(String currency, String participant, int slot, int exponent, long minUnits, long maxUnits) {
+            this.currency = currency;
+            this.participant = participant;
+            this.slot = slot;
+            this.exponent = exponent;
+            this.minUnits = minUnits;
+            this.maxUnits = maxUnits;
+        }
+
+        static Limit parse(String key, String value) {
+            int dot = key.indexOf('.');
+            String currency = (dot < 0 ? key : key.substring(0, dot)).trim().toUpperCase();
+            String participant = dot < 0 ? null : key.substring(dot + 1).trim();
+            int slot = CurrencyCode.id(currency);
+            int exponent = CurrencyCode.exponent(slot);
+            if (exponent < 0) {
+                throw new IllegalArgumentException("Amount limit for '" + currency
+                        + "', which is not an ISO 4217 currency with a minor unit.");
+            }
+            if (participant != null && participant.isEmpty()) {
+                throw new IllegalArgumentException("No participant in amount limit key '" + PREFIX + key + "'.");
+            }
+            int separator = value.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid amount limit for " + PREFIX + key + ": '" + value
+                        + "', expected min:max");
+            }
+            long min = units(key, value.substring(0, separator), exponent);
+            long max = units(key, value.substring(separator + 1), exponent);
+            if (min > max) {
+                throw new IllegalArgumentException("Minimum exceeds maximum in amount limit " + PREFIX + key + ": '"
+                        + value + "'");
+            }
+            return new Limit(currency, participant, slot, exponent, min, max);
+        }
+
+        private static long units(String key, String text, int exponent) {
+            MinorUnitAmount amount;
+            try {
+                amount = MinorUnitAmount.of(new BigDecimal(text.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid amount in amount limit " + PREFIX + key + ": '" + text + "'", e);
+            }
+            if (amount == null || !amount.fitsScale(exponent)) {
+                throw new IllegalArgumentException("Amount limit " + PREFIX + key + " of '" + text
+                        + "' does not fit the currency's " + exponent + " decimal places.");
+            }
+            return amount.unitsAt(exponent);
+        }
+    }
+}
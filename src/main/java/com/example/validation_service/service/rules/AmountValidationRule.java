@@ -1,48 +1,92 @@
 package com.example.validation_service.service.rules;
 
+import com.example.validation_service.dto.MinorUnitAmount;
 import com.example.validation_service.dto.RawPaymentData;
+import com.example.validation_service.service.ErrorCode;
 import com.example.validation_service.service.ValidationResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
 
 @Component
 public class AmountValidationRule implements ValidationRule {
 
     private static final Logger logger = LoggerFactory.getLogger(AmountValidationRule.class);
 
-    private final BigDecimal minAmount;
-    private final BigDecimal maxAmount;
+    private final RuleConfigHolder config;
 
-    public AmountValidationRule(
-            @Value("${validation.rules.amount.min:0.01}") String minAmountStr,
-            @Value("${validation.rules.amount.max:1000000.00}") String maxAmountStr) {
-        this.minAmount = new BigDecimal(minAmountStr);
-        this.maxAmount = new BigDecimal(maxAmountStr);
-        logger.info("Initialized AmountValidationRule with min: {}, max: {}", this.minAmount, this.maxAmount);
+    public AmountValidationRule(String minAmountStr, String maxAmountStr) {
+        this(new RuleConfigHolder(properties(minAmountStr, maxAmountStr)));
+    }
+
+    @Autowired
+    public AmountValidationRule(RuleConfigHolder config) {
+        this.config = config;
+        logger.info("Initialized AmountValidationRule with min: {}, max: {}",
+                config.current().minAmount(), config.current().maxAmount());
+    }
+
+    private static Map<String, String> properties(String minAmountStr, String maxAmountStr) {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(RuleConfig.AMOUNT_MIN, minAmountStr);
+        properties.put(RuleConfig.AMOUNT_MAX, maxAmountStr);
+        return properties;
+    }
+
+    @Override
+    public String name() {
+        return "amount";
     }
 
     @Override
     public void validate(RawPaymentData data, ValidationResult result) {
         if (data.getAmount() == null || data.getAmount().trim().isEmpty()) {
-            result.addError("Amount is missing.");
+            result.addError(ErrorCode.AMOUNT_MISSING);
+            return;
+        }
+
+        // Parsed once when the amount was set
+        MinorUnitAmount amount = data.getAmountValue();
+        if (amount == null) {
+            logger.warn("Invalid amount format for MsgId {}: {}", data.getMsgId(), data.getAmount());
+            result.addError(ErrorCode.AMOUNT_INVALID, data.getAmount());
             return;
         }
 
-        try {
-            BigDecimal amount = new BigDecimal(data.getAmount());
-            if (amount.compareTo(minAmount) < 0) {
-                result.addError("Amount " + amount + " is less than minimum allowed " + minAmount);
-            }
-            if (amount.compareTo(maxAmount) > 0) {
-                result.addError("Amount " + amount + " is greater than maximum allowed " + maxAmount);
-            }
-        } catch (NumberFormatException e) {
-            logger.warn("Invalid amount format for MsgId {}: {}", data.getMsgId(), data.getAmount(), e);
-            result.addError("Invalid amount format: " + data.getAmount());
+        RuleConfig rules = config.current();
+        AmountLimitTable limits = rules.amountLimits();
+        int entry = limits.entry(data.getCurrencyId(), data.getDebtorId());
+        if (entry != AmountLimitTable.NONE) {
+            validateLimits(amount, limits, entry, result);
+            return;
+        }
+        if (amount.compareTo(rules.minAmountValue()) < 0) {
+            result.addError(ErrorCode.AMOUNT_BELOW_MIN, amount, rules.minAmount());
+        }
+        if (amount.compareTo(rules.maxAmountValue()) > 0) {
+            result.addError(ErrorCode.AMOUNT_ABOVE_MAX, amount, rules.maxAmount());
+        }
+    }
+
+    /**
+     * Checks the amount in the minor units of its currency against the limits of the currency or the debtor.
+     */
+    private void validateLimits(MinorUnitAmount amount, AmountLimitTable limits, int entry, ValidationResult result) {
+        int exponent = limits.exponent(entry);
+        if (!amount.fitsScale(exponent)) {
+            result.addError(ErrorCode.AMOUNT_PRECISION, amount, limits.currency(entry), exponent);
+            return;
+        }
+        long units = amount.unitsAt(exponent);
+        if (units < limits.minUnits(entry)) {
+            result.addError(ErrorCode.AMOUNT_BELOW_MIN, amount, limits.min(entry));
+        }
+        if (units > limits.maxUnits(entry)) {
+            result.addError(ErrorCode.AMOUNT_ABOVE_MAX, amount, limits.max(entry));
         }
     }
 }
@@ -1,48 +1,62 @@
 package com.example.validation_service.service.rules;
 
+import com.example.validation_service.dto.CurrencyCode;
+import com.example.validation_service.dto.PaymentField;
 import com.example.validation_service.dto.RawPaymentData;
+import com.example.validation_service.service.ErrorCode;
 import com.example.validation_service.service.ValidationResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.HashMap;
+import java.util.Map;
 
 @Component
 public class CurrencyValidationRule implements ValidationRule {
 
     private static final Logger logger = LoggerFactory.getLogger(CurrencyValidationRule.class);
 
-    private final Set<String> allowedCurrencies;
-
-    public CurrencyValidationRule(
-            @Value("${validation.rules.currency.allowed:USD,EUR,GBP}") String allowedCurrenciesCsv) {
-        if (allowedCurrenciesCsv != null && !allowedCurrenciesCsv.isEmpty()) {
-            this.allowedCurrencies = Arrays.stream(allowedCurrenciesCsv.split(","))
-                                           .map(String::trim)
-                                           .filter(s -> !s.isEmpty())
-                                           .collect(Collectors.toSet());
-        } else {
-            this.allowedCurrencies = new HashSet<>(Arrays.asList("USD", "EUR", "GBP")); // Default if property is empty
-        }
-        logger.info("Initialized CurrencyValidationRule with allowed currencies: {}", this.allowedCurrencies);
+    private final RuleConfigHolder config;
+
+    // An empty list takes the default USD,EUR,GBP
+    public CurrencyValidationRule(String allowedCurrenciesCsv) {
+        this(new RuleConfigHolder(properties(allowedCurrenciesCsv)));
+    }
+
+    @Autowired
+    public CurrencyValidationRule(RuleConfigHolder config) {
+        this.config = config;
+        logger.info("Initialized CurrencyValidationRule with allowed currencies: {}", config.current().allowedCurrencies());
+    }
+
+    private static Map<String, String> properties(String allowedCurrenciesCsv) {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(RuleConfig.CURRENCY_ALLOWED, allowedCurrenciesCsv);
+        return properties;
+    }
+
+    @Override
+    public String name() {
+        return "currency";
     }
 
     @Override
     public void validate(RawPaymentData data, ValidationResult result) {
-        if (data.getCurrency() == null || data.getCurrency().trim().isEmpty()) {
-            result.addError("Currency is missing.");
+        if (!data.hasFields(PaymentField.CURRENCY.bit())) {
+            result.addError(ErrorCode.CURRENCY_MISSING);
             return;
         }
 
-        String currency = data.getCurrency().trim().toUpperCase();
-        if (!allowedCurrencies.contains(currency)) {
-            result.addError("Currency " + currency + " is not allowed. Allowed currencies are: " + allowedCurrencies);
+        // Computed once when the currency was set
+        int currencyId = data.getCurrencyId();
+        RuleConfig rules = config.current();
+        if (!rules.isCurrencyAllowed(currencyId)) {
+            String currency = currencyId == CurrencyCode.UNKNOWN
+                    ? data.getCurrency().trim().toUpperCase()
+                    : CurrencyCode.code(currencyId);
+            result.addError(ErrorCode.CURRENCY_NOT_ALLOWED, currency, rules.allowedCurrencies());
         }
     }
 }
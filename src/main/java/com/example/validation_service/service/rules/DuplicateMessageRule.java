@@ -1,94 +1,102 @@
 package com.example.validation_service.service.rules;
 
+import com.example.validation_service.dto.PaymentField;
 import com.example.validation_service.dto.RawPaymentData;
+import com.example.validation_service.service.ErrorCode;
 import com.example.validation_service.service.ValidationResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import com.example.validation_service.service.dedup.DuplicateKeySpec;
+import com.example.validation_service.service.dedup.DuplicateStore;
+import com.example.validation_service.service.dedup.ShardedDuplicateCache;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
 
 @Component
 public class DuplicateMessageRule implements ValidationRule, DisposableBean {
 
     private static final Logger logger = LoggerFactory.getLogger(DuplicateMessageRule.class);
 
-    private final int cacheSize;
+    static final int DEFAULT_SHARDS = 16;
+    static final String DEFAULT_KEY_FIELDS = "msgId";
+
     private final long ttlSeconds;
-    private final LinkedHashMap<String, Long> messageCache; // MsgId -> Insertion Timestamp (ms)
+    private final DuplicateStore messageCache; // Digests of duplicate keys with their insertion timestamps
+    private final DuplicateKeySpec keySpec;
 
     // Using a ScheduledExecutorService to periodically clean up expired entries
     private final ScheduledExecutorService cleanupScheduler = Executors.newSingleThreadScheduledExecutor();
 
+    public DuplicateMessageRule(int cacheSize, long ttlSeconds) {
+        this(cacheSize, ttlSeconds, DEFAULT_SHARDS, System::currentTimeMillis);
+    }
+
+    DuplicateMessageRule(int cacheSize, long ttlSeconds, int shards, LongSupplier clock) {
+        this(new ShardedDuplicateCache(cacheSize, ttlSeconds * 1000, shards, clock), ttlSeconds, DEFAULT_KEY_FIELDS);
+    }
+
+    /**
+     * The store is owned by the caller; as a bean it is closed by the container after this rule is destroyed.
+     */
+    @Autowired
     public DuplicateMessageRule(
-            @Value("${validation.rules.duplicate.cache.size:1000}") int cacheSize,
-            @Value("${validation.rules.duplicate.cache.ttl-seconds:3600}") long ttlSeconds) {
-        this.cacheSize = cacheSize;
+            DuplicateStore messageCache,
+            @Value("${validation.rules.duplicate.cache.ttl-seconds:3600}") long ttlSeconds,
+            @Value("${validation.rules.duplicate.key-fields:" + DEFAULT_KEY_FIELDS + "}") String keyFields) {
         this.ttlSeconds = ttlSeconds;
-        // Initialize LinkedHashMap for LRU behavior (accessOrder = true)
-        this.messageCache = new LinkedHashMap<String, Long>(cacheSize, 0.75f, true) {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
-                // Remove eldest if cache size is exceeded
-                return size() > DuplicateMessageRule.this.cacheSize;
-            }
-        };
-        logger.info("Initialized DuplicateMessageRule with cache size: {}, TTL: {} seconds", cacheSize, ttlSeconds);
+        this.messageCache = messageCache;
+        this.keySpec = DuplicateKeySpec.parse(keyFields);
+        logger.info("Initialized DuplicateMessageRule with {} ({} keys), key fields: {}, TTL: {} seconds",
+                messageCache.getClass().getSimpleName(), messageCache.size(), keySpec.fields(), ttlSeconds);
         // Schedule cleanup task if TTL is positive
         if (this.ttlSeconds > 0) {
-            cleanupScheduler.scheduleAtFixedRate(this::removeExpiredEntries, ttlSeconds, ttlSeconds / 2, TimeUnit.SECONDS);
-            logger.info("Scheduled cache cleanup task to run every {} seconds.", ttlSeconds / 2);
+            long period = Math.max(1, ttlSeconds / 2);
+            cleanupScheduler.scheduleAtFixedRate(this::removeExpiredEntries, ttlSeconds, period, TimeUnit.SECONDS);
+            logger.info("Scheduled cache cleanup task to run every {} seconds.", period);
         }
     }
 
     @Override
     public void validate(RawPaymentData data, ValidationResult result) {
-        if (data.getMsgId() == null || data.getMsgId().trim().isEmpty()) {
+        PaymentField missing = keySpec.missingField(data);
+        if (missing != null) {
             // This should ideally be caught by schema validation, but good to be defensive.
-            result.addError("MsgId is missing, cannot perform duplicate check.");
+            result.addError(ErrorCode.DUPLICATE_KEY_MISSING, missing.label());
             return;
         }
 
-        String msgId = data.getMsgId();
-        long currentTimeMillis = System.currentTimeMillis();
-
-        synchronized (messageCache) {
-            if (messageCache.containsKey(msgId)) {
-                Long entryTimestamp = messageCache.get(msgId);
-                if (ttlSeconds <= 0 || (currentTimeMillis - entryTimestamp) < (ttlSeconds * 1000)) {
-                    result.addError("Duplicate message detected: MsgId " + msgId + " is already processed.");
-                    logger.warn("Duplicate MsgId {} detected.", msgId);
-                } else {
-                    // Entry expired, remove it and allow reprocessing (or treat as new)
-                    messageCache.remove(msgId);
-                    messageCache.put(msgId, currentTimeMillis);
-                    logger.info("MsgId {} was found in cache but expired. Treating as new.", msgId);
-                }
-            } else {
-                messageCache.put(msgId, currentTimeMillis);
-                logger.debug("MsgId {} added to duplicate check cache.", msgId);
+        if (messageCache.putIfAbsent(data.getSourcePartition(), keySpec.digest(data))) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} {} added to duplicate check cache.", keySpec.label(), keySpec.describe(data));
             }
+        } else {
+            String key = keySpec.describe(data);
+            result.addError(ErrorCode.DUPLICATE, keySpec.label(), key);
+            logger.warn("Duplicate {} {} detected.", keySpec.label(), key);
         }
     }
 
-    private void removeExpiredEntries() {
-        if (ttlSeconds <= 0) return; // No TTL, no cleanup needed
+    @Override
+    public String name() {
+        return "duplicate";
+    }
 
-        long currentTimeMillis = System.currentTimeMillis();
-        long expiryThreshold = currentTimeMillis - (ttlSeconds * 1000);
+    // Records the key of every message it accepts
+    @Override
+    public boolean reorderable() {
+        return false;
+    }
 
-        synchronized (messageCache) {
-            // Iterate and remove expired entries.
-            // Need to use an iterator to safely remove while iterating or collect keys to remove.
-            messageCache.entrySet().removeIf(entry -> entry.getValue() < expiryThreshold);
-            logger.info("Cache cleanup task executed. Current cache size: {}", messageCache.size());
-        }
+    private void removeExpiredEntries() {
+        int removed = messageCache.removeExpired();
+        logger.info("Cache cleanup task executed. Removed {} expired entries, current cache size: {}", removed, messageCache.size());
     }
 
     // Ensure scheduler is shut down when the bean is destroyed
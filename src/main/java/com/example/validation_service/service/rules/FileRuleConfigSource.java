@@ -0,0 +1,52 @@
+package com.example.validation_service.service.rules;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Rule configuration overrides in a properties file, read again whenever its modification time or size changes. A
+ * missing file holds no overrides.
+ */
+public final class FileRuleConfigSource implements RuleConfigSource {
+
+    private final Path path;
+    private String lastVersion;
+
+    public FileRuleConfigSource(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public Map<String, String> loadIfChanged() throws IOException {
+        String version = Files.exists(path) ? version(Files.readAttributes(path, BasicFileAttributes.class)) : "missing";
+        if (version.equals(lastVersion)) {
+            return null;
+        }
+        Map<String, String> overrides = new HashMap<>();
+        if (Files.exists(path)) {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            properties.stringPropertyNames().forEach(key -> overrides.put(key, properties.getProperty(key)));
+        }
+        lastVersion = version;
+        return overrides;
+    }
+
+    private static String version(BasicFileAttributes attributes) {
+        return attributes.lastModifiedTime().toMillis() + ":" + attributes.size();
+    }
+
+    @Override
+    public String toString() {
+        return "file " + path;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.validation_service.service.rules;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rule configuration overrides in one document of a MongoDB collection. Nested documents are flattened into dotted
+ * keys, so {@code {validation: {rules: {amount: {max: "5000"}}}}} and a field literally named
+ * {@code validation.rules.amount.max} both set {@link RuleConfig#AMOUNT_MAX}. A missing document holds no overrides.
+ */
+public final class MongoRuleConfigSource implements RuleConfigSource {
+
+    private final MongoTemplate mongoTemplate;
+    private final String collection;
+    private final String documentId;
+    private Map<String, String> last;
+
+    public MongoRuleConfigSource(MongoTemplate mongoTemplate, String collection, String documentId) {
+        this.mongoTemplate = mongoTemplate;
+        this.collection = collection;
+        this.documentId = documentId;
+    }
+
+    @Override
+    public Map<String, String> loadIfChanged() {
+        Document document = mongoTemplate.findById(documentId, Document.class, collection);
+        Map<String, String> overrides = new HashMap<>();
+        if (document != null) {
+            document.remove("_id");
+            flatten("", document, overrides);
+        }
+        if (overrides.equals(last)) {
+            return null;
+        }
+        last = overrides;
+        return overrides;
+    }
+
+    static void flatten(String prefix, Map<String, Object> document, Map<String, String> properties) {
+        for (Map.Entry<String, Object> field : document.entrySet()) {
+            String key = prefix + field.getKey();
+            Object value = field.getValue();
+            if (value instanceof Document) {
+                flatten(key + ".", (Document) value, properties);
+            } else if (value != null) {
+                properties.put(key, value.toString());
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MongoDB " + collection + "/" + documentId;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.validation_service.service.rules;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The participant directory: the BICs and account prefixes that debtor and creditor IDs must start with, read from a
+ * text file with one prefix per line. Blank lines and lines starting with {@code #} are skipped.
+ * <p>
+ * The prefixes are compiled into a {@link PrefixTrie} held in a volatile reference, which a reload replaces as a
+ * whole once the new file has been read, so a lookup never sees a partly loaded directory. The file is read again
+ * whenever its modification time or size changes. A file that cannot be read, that has no entries or that changed
+ * while it was read, as when it is still being written, is logged and the current directory kept.
+ */
+public final class ParticipantDirectory implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParticipantDirectory.class);
+
+    private static final ParticipantDirectory NONE = new ParticipantDirectory(null);
+
+    private final Path path;
+    private volatile PrefixTrie prefixes;
+    private String lastVersion;
+    private ScheduledExecutorService reloadScheduler;
+
+    private ParticipantDirectory(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * No directory: {@link #prefixes()} stays {@code null}.
+     */
+    public static ParticipantDirectory none() {
+        return NONE;
+    }
+
+    /**
+     * Reads the directory at {@code path}. If it cannot be read, {@link #prefixes()} is {@code null} until a reload
+     * succeeds.
+     */
+    public static ParticipantDirectory load(Path path) {
+        ParticipantDirectory directory = new ParticipantDirectory(path);
+        directory.reload();
+        return directory;
+    }
+
+    /**
+     * The prefixes of the directory, or {@code null} if there is no directory or it has not been read yet.
+     */
+    public PrefixTrie prefixes() {
+        return prefixes;
+    }
+
+    /**
+     * Reads the file again if it changed since it was last read.
+     *
+     * @return whether a new directory was applied
+     */
+    synchronized boolean reload() {
+        if (path == null) {
+            return false;
+        }
+        try {
+            String version = version(Files.readAttributes(path, BasicFileAttributes.class));
+            if (version.equals(lastVersion)) {
+                return false;
+            }
+            PrefixTrie updated = read(path);
+            if (!version.equals(version(Files.readAttributes(path, BasicFileAttributes.class)))) {
+                throw new IOException("File changed while it was read");
+            }
+            if (updated.size() == 0) {
+                throw new IOException("File has no entries");
+            }
+            prefixes = updated;
+            lastVersion = version;
+            logger.info("Loaded participant directory {}: {}", path, updated);
+            return true;
+        } catch (Exception e) {
+            // Also runs on the scheduler, which would stop on an exception
+            logger.error("Failed to read participant directory {}: {}. Keeping {}", path, e.toString(),
+                    prefixes == null ? "the configured prefixes" : prefixes);
+            return false;
+        }
+    }
+
+    /**
+     * Checks the file for changes every {@code interval}.
+     */
+    public synchronized void startReloading(Duration interval) {
+        if (path == null) {
+            return;
+        }
+        if (reloadScheduler != null) {
+            throw new IllegalStateException("Participant directory is already reloaded.");
+        }
+        reloadScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "participant-directory-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reloadScheduler.scheduleWithFixedDelay(this::reload, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        logger.info("Reloading participant directory {} every {} ms.", path, interval.toMillis());
+    }
+
+    static PrefixTrie read(Path path) throws IOException {
+        List<String> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String entry = line.trim();
+                if (!entry.isEmpty() && entry.charAt(0) != '#') {
+                    entries.add(entry);
+                }
+            }
+        }
+        return PrefixTrie.of(entries);
+    }
+
+    private static String version(BasicFileAttributes attributes) {
+        return attributes.lastModifiedTime().toMillis() + ":" + attributes.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (reloadScheduler != null) {
+            reloadScheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public String toString() {
+        PrefixTrie current = prefixes;
+        return "participant directory " + path + " (" + (current == null ? 0 : current.size()) + " prefixes)";
+    }
+}
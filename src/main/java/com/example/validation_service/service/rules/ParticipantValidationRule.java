@@ -1,45 +1,94 @@
 package com.example.validation_service.service.rules;
 
+import com.example.validation_service.dto.CurrencyCode;
+import com.example.validation_service.dto.MinorUnitAmount;
 import com.example.validation_service.dto.RawPaymentData;
+import com.example.validation_service.service.ErrorCode;
 import com.example.validation_service.service.ValidationResult;
+import com.example.validation_service.service.participant.ParticipantReferenceStore;
+import com.example.validation_service.service.participant.ParticipantSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.HashMap;
+import java.util.Map;
 
 @Component
 public class ParticipantValidationRule implements ValidationRule {
 
     private static final Logger logger = LoggerFactory.getLogger(ParticipantValidationRule.class);
 
-    private final Set<String> supportedPrefixes;
+    private final RuleConfigHolder config;
+    private final ParticipantDirectory directory;
+    private final ParticipantReferenceStore references;
 
-    public ParticipantValidationRule(
-            @Value("${validation.rules.participant.supported-prefixes:BANK,CUST}") String prefixesCsv) {
-        if (prefixesCsv != null && !prefixesCsv.isEmpty()) {
-            this.supportedPrefixes = Arrays.stream(prefixesCsv.split(","))
-                                           .map(String::trim)
-                                           .filter(s -> !s.isEmpty())
-                                           .collect(Collectors.toSet());
+    // An empty list takes the default BANK,CUST
+    public ParticipantValidationRule(String prefixesCsv) {
+        this(new RuleConfigHolder(properties(prefixesCsv)));
+    }
+
+    public ParticipantValidationRule(RuleConfigHolder config) {
+        this(config, ParticipantDirectory.none());
+    }
+
+    public ParticipantValidationRule(RuleConfigHolder config, ParticipantDirectory directory) {
+        this(config, directory, ParticipantReferenceStore.none());
+    }
+
+    // Loaded reference data takes the place of the directory, and a loaded directory that of the configured prefixes
+    @Autowired
+    public ParticipantValidationRule(RuleConfigHolder config, ParticipantDirectory directory,
+                                     ParticipantReferenceStore references) {
+        this.config = config;
+        this.directory = directory;
+        this.references = references;
+        if (references.current() != null) {
+            logger.info("Initialized ParticipantValidationRule with {}", references.current());
+        } else if (directory.prefixes() != null) {
+            logger.info("Initialized ParticipantValidationRule with {}", directory);
         } else {
-            this.supportedPrefixes = new HashSet<>(Arrays.asList("BANK", "CUST")); // Default if property is empty
+            logger.info("Initialized ParticipantValidationRule with supported prefixes: {}", config.current().participantPrefixes());
         }
-        logger.info("Initialized ParticipantValidationRule with supported prefixes: {}", this.supportedPrefixes);
+    }
+
+    private static Map<String, String> properties(String prefixesCsv) {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(RuleConfig.PARTICIPANT_PREFIXES, prefixesCsv);
+        return properties;
+    }
+
+    @Override
+    public String name() {
+        return "participant";
     }
 
     @Override
     public void validate(RawPaymentData data, ValidationResult result) {
-        validateParticipantId(data.getDebtorId(), "Debtor ID", result);
-        validateParticipantId(data.getCreditorId(), "Creditor ID", result);
+        ParticipantSnapshot reference = references.current();
+        if (reference != null) {
+            // Only the debtor's limit applies to the payment
+            validateReference(data.getDebtorId(), "Debtor ID", reference, data.getAmountValue(),
+                    data.getCurrencyId(), result);
+            validateReference(data.getCreditorId(), "Creditor ID", reference, null, CurrencyCode.UNKNOWN, result);
+            return;
+        }
+        PrefixTrie prefixes = directory.prefixes();
+        Object supported = directory;
+        if (prefixes == null) {
+            RuleConfig rules = config.current();
+            prefixes = rules.participantPrefixTrie();
+            supported = rules.participantPrefixes();
+        }
+        validateParticipantId(data.getDebtorId(), "Debtor ID", prefixes, supported, result);
+        validateParticipantId(data.getCreditorId(), "Creditor ID", prefixes, supported, result);
     }
 
-    private void validateParticipantId(String participantId, String fieldName, ValidationResult result) {
+    // supported describes the prefixes in the error message
+    private void validateParticipantId(String participantId, String fieldName, PrefixTrie prefixes, Object supported,
+                                       ValidationResult result) {
         if (!StringUtils.hasText(participantId)) {
             // Allowing empty participant IDs as they are not strictly mandatory in all pain.001 variants
             // and schema validation already checks for presence of names.
@@ -48,9 +97,26 @@ public class ParticipantValidationRule implements ValidationRule {
             return;
         }
 
-        boolean prefixMatches = supportedPrefixes.stream().anyMatch(prefix -> participantId.startsWith(prefix));
-        if (!prefixMatches) {
-            result.addError(fieldName + " '" + participantId + "' does not start with a supported prefix. Supported prefixes: " + supportedPrefixes);
+        if (!prefixes.matchesPrefixOf(participantId)) {
+            result.addError(ErrorCode.PARTICIPANT_PREFIX_UNSUPPORTED, fieldName, participantId, supported);
+        }
+    }
+
+    private void validateReference(String participantId, String fieldName, ParticipantSnapshot reference,
+                                   MinorUnitAmount amount, int currencyId, ValidationResult result) {
+        if (!StringUtils.hasText(participantId)) {
+            return;
+        }
+        int entry = reference.find(participantId);
+        if (entry == ParticipantSnapshot.NOT_FOUND) {
+            result.addError(ErrorCode.PARTICIPANT_UNKNOWN, fieldName, participantId);
+        } else if (!reference.isActive(entry)) {
+            result.addError(ErrorCode.PARTICIPANT_SUSPENDED, fieldName, participantId);
+        } else if (!reference.reachesRequiredScheme(entry)) {
+            result.addError(ErrorCode.PARTICIPANT_UNREACHABLE, fieldName, participantId, reference.requiredScheme());
+        } else if (amount != null && reference.exceedsLimit(entry, amount, currencyId)) {
+            result.addError(ErrorCode.PARTICIPANT_LIMIT_EXCEEDED, amount,
+                    reference.limit(entry) + " " + reference.limitCurrency(entry), fieldName, participantId);
         }
     }
 }
@@ -0,0 +1,148 @@
+package com.example.validation_service.service.rules;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable set of prefixes compiled into a trie, answering whether an ID starts with any of them in time
+ * proportional to the ID's length, however many prefixes there are, and without allocating.
+ * <p>
+ * The trie is laid out in flat arrays. Nodes are numbered breadth-first, so the children of a node are consecutive,
+ * and edge {@code k} always leads to node {@code k + 1}: a node only needs the index of its first edge, and an edge
+ * only its character. Children are sorted by character and found by binary search. A prefix that extends a shorter
+ * one can never decide a match, so it is dropped, which leaves every terminal node a leaf.
+ */
+public final class PrefixTrie {
+
+    private static final PrefixTrie EMPTY = new PrefixTrie(new String[0]);
+
+    // Edges of node n are firstEdge[n] until firstEdge[n + 1]
+    private final int[] firstEdge;
+    private final char[] labels;
+    private final boolean[] terminal;
+    private final int size;
+
+    private PrefixTrie(String[] prefixes) {
+        size = prefixes.length;
+        int capacity = 1;
+        for (String prefix : prefixes) {
+            capacity += prefix.length();
+        }
+        int[] lo = new int[capacity];
+        int[] hi = new int[capacity];
+        int[] depths = new int[capacity];
+        int[] edges = new int[capacity + 1];
+        char[] edgeLabels = new char[capacity];
+        boolean[] leaves = new boolean[capacity];
+
+        int nodes = 1;
+        hi[0] = prefixes.length;
+        for (int node = 0; node < nodes; node++) {
+            int from = lo[node];
+            int to = hi[node];
+            int depth = depths[node];
+            // Edge k - 1 leads to node k, so the node's first edge is the next node to be created, less one
+            edges[node] = nodes - 1;
+            if (from < to && prefixes[from].length() == depth) {
+                // Dropping extended prefixes leaves the node a single prefix
+                leaves[node] = true;
+                continue;
+            }
+            int i = from;
+            while (i < to) {
+                char c = prefixes[i].charAt(depth);
+                int j = i + 1;
+                while (j < to && prefixes[j].charAt(depth) == c) {
+                    j++;
+                }
+                edgeLabels[nodes - 1] = c;
+                lo[nodes] = i;
+                hi[nodes] = j;
+                depths[nodes] = depth + 1;
+                nodes++;
+                i = j;
+            }
+        }
+        edges[nodes] = nodes - 1;
+        firstEdge = Arrays.copyOf(edges, nodes + 1);
+        labels = Arrays.copyOf(edgeLabels, nodes - 1);
+        terminal = Arrays.copyOf(leaves, nodes);
+    }
+
+    public static PrefixTrie empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Compiles {@code prefixes}, ignoring {@code null} and empty ones.
+     */
+    public static PrefixTrie of(Collection<String> prefixes) {
+        String[] sorted = prefixes.stream()
+                .filter(prefix -> prefix != null && !prefix.isEmpty())
+                .sorted()
+                .toArray(String[]::new);
+        // A prefix sorts right before every prefix that extends it
+        int kept = 0;
+        for (String prefix : sorted) {
+            if (kept == 0 || !prefix.startsWith(sorted[kept - 1])) {
+                sorted[kept++] = prefix;
+            }
+        }
+        return kept == 0 ? EMPTY : new PrefixTrie(Arrays.copyOf(sorted, kept));
+    }
+
+    /**
+     * Whether {@code id} starts with one of the prefixes.
+     */
+    public boolean matchesPrefixOf(CharSequence id) {
+        if (size == 0) {
+            return false;
+        }
+        int node = 0;
+        int length = id.length();
+        for (int i = 0; !terminal[node]; i++) {
+            if (i == length) {
+                return false;
+            }
+            int edge = find(firstEdge[node], firstEdge[node + 1], id.charAt(i));
+            if (edge < 0) {
+                return false;
+            }
+            node = edge + 1;
+        }
+        return true;
+    }
+
+    private int find(int from, int to, char c) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char label = labels[middle];
+            if (label < c) {
+                low = middle + 1;
+            } else if (label > c) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Number of prefixes kept, not counting those that extend another prefix.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int nodeCount() {
+        return terminal.length;
+    }
+
+    @Override
+    public String toString() {
+        return "PrefixTrie{prefixes=" + size + ", nodes=" + terminal.length + '}';
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.validation_service.service.rules;
+
+import com.example.validation_service.dto.CurrencyCode;
+import com.example.validation_service.dto.MinorUnitAmount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of the business rule parameters, built from the same property keys as
+ * {@code application.properties}. A key that is absent takes the rule's default. Rules read the current snapshot
+ * from a {@link RuleConfigHolder} once per message, so a reload never changes parameters halfway through one.
+ */
+public final class RuleConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleConfig.class);
+
+    public static final String AMOUNT_MIN = "validation.rules.amount.min";
+    public static final String AMOUNT_MAX = "validation.rules.amount.max";
+    public static final String CURRENCY_ALLOWED = "validation.rules.currency.allowed";
+    public static final String PARTICIPANT_PREFIXES = "validation.rules.participant.supported-prefixes";
+    public static final String CUTOFF_TIME = "validation.rules.cutoff.time";
+    // Comma-separated ValidationRule names, e.g. cutoff,participant
+    public static final String DISABLED = "validation.rules.disabled";
+
+    static final String DEFAULT_AMOUNT_MIN = "0.01";
+    static final String DEFAULT_AMOUNT_MAX = "1000000.00";
+    static final String DEFAULT_CURRENCIES = "USD,EUR,GBP";
+    static final String DEFAULT_PARTICIPANT_PREFIXES = "BANK,CUST";
+    static final String DEFAULT_CUTOFF_TIME = "17:00:00";
+
+    private final BigDecimal minAmount;
+    private final BigDecimal maxAmount;
+    private final MinorUnitAmount minAmountValue;
+    private final MinorUnitAmount maxAmountValue;
+    private final AmountLimitTable amountLimits;
+    private final Set<String> allowedCurrencies;
+    private final BitSet allowedCurrencyIds;
+    private final Set<String> participantPrefixes;
+    private final PrefixTrie participantPrefixTrie;
+    private final LocalTime cutoffTime;
+    private final Set<String> disabledRules;
+
+    private RuleConfig(BigDecimal minAmount, BigDecimal maxAmount, AmountLimitTable amountLimits,
+                       Set<String> allowedCurrencies, Set<String> participantPrefixes, LocalTime cutoffTime,
+                       Set<String> disabledRules) {
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+        this.minAmountValue = MinorUnitAmount.of(minAmount);
+        this.maxAmountValue = MinorUnitAmount.of(maxAmount);
+        this.amountLimits = amountLimits;
+        this.allowedCurrencies = allowedCurrencies;
+        this.allowedCurrencyIds = currencyIds(allowedCurrencies);
+        this.participantPrefixes = participantPrefixes;
+        this.participantPrefixTrie = PrefixTrie.of(participantPrefixes);
+        this.cutoffTime = cutoffTime;
+        this.disabledRules = disabledRules;
+    }
+
+    /**
+     * An empty currency or prefix list takes the default list, and an invalid cutoff time defaults to 17:00:00 with
+     * an error logged, as when the rules read these properties themselves. Currency entries that are not three
+     * letters are logged and ignored.
+     *
+     * @throws IllegalArgumentException if an amount is not a number or has more than 18 digits, or an
+     *                                  {@link AmountLimitTable amount limit} is invalid
+     */
+    public static RuleConfig from(Map<String, String> properties) {
+        return from(properties, Set.of());
+    }
+
+    /**
+     * Same as {@link #from(Map)}, except that an invalid cutoff time or currency entry under one of
+     * {@code strictKeys} is rejected instead of being defaulted or ignored, e.g. for the keys of a reload, which
+     * must not replace working parameters with defaults.
+     *
+     * @throws IllegalArgumentException also if the cutoff time or a currency entry is invalid under a strict key
+     */
+    public static RuleConfig from(Map<String, String> properties, Set<String> strictKeys) {
+        Set<String> currencies = csv(properties.get(CURRENCY_ALLOWED), DEFAULT_CURRENCIES);
+        if (strictKeys.contains(CURRENCY_ALLOWED)) {
+            for (String currency : currencies) {
+                if (CurrencyCode.id(currency) == CurrencyCode.UNKNOWN) {
+                    throw new IllegalArgumentException("Invalid currency code in " + CURRENCY_ALLOWED + ": '"
+                            + currency + "'");
+                }
+            }
+        }
+        return new RuleConfig(
+                amount(properties, AMOUNT_MIN, DEFAULT_AMOUNT_MIN),
+                amount(properties, AMOUNT_MAX, DEFAULT_AMOUNT_MAX),
+                AmountLimitTable.from(properties),
+                currencies,
+                csv(properties.get(PARTICIPANT_PREFIXES), DEFAULT_PARTICIPANT_PREFIXES),
+                cutoffTime(properties.get(CUTOFF_TIME), strictKeys.contains(CUTOFF_TIME)),
+                csv(properties.get(DISABLED), ""));
+    }
+
+    public static RuleConfig defaults() {
+        return from(Map.of());
+    }
+
+    public BigDecimal minAmount() {
+        return minAmount;
+    }
+
+    public BigDecimal maxAmount() {
+        return maxAmount;
+    }
+
+    /**
+     * {@link #minAmount()} in the form amounts are compared in.
+     */
+    public MinorUnitAmount minAmountValue() {
+        return minAmountValue;
+    }
+
+    public MinorUnitAmount maxAmountValue() {
+        return maxAmountValue;
+    }
+
+    /**
+     * Limits of the currencies and participants configured under {@link AmountLimitTable#PREFIX}, which replace
+     * {@link #minAmount()} and {@link #maxAmount()} for them.
+     */
+    public AmountLimitTable amountLimits() {
+        return amountLimits;
+    }
+
+    public Set<String> allowedCurrencies() {
+        return allowedCurrencies;
+    }
+
+    /**
+     * Whether the currency with the {@link CurrencyCode} id {@code currencyId} is in {@link #allowedCurrencies()}.
+     */
+    public boolean isCurrencyAllowed(int currencyId) {
+        return currencyId != CurrencyCode.UNKNOWN && allowedCurrencyIds.get(currencyId);
+    }
+
+    public Set<String> participantPrefixes() {
+        return participantPrefixes;
+    }
+
+    /**
+     * {@link #participantPrefixes()} compiled for matching.
+     */
+    public PrefixTrie participantPrefixTrie() {
+        return participantPrefixTrie;
+    }
+
+    public LocalTime cutoffTime() {
+        return cutoffTime;
+    }
+
+    /**
+     * Whether the rule with the given {@link ValidationRule#name() name} runs.
+     */
+    public boolean isEnabled(String ruleName) {
+        return ruleName == null || !disabledRules.contains(ruleName);
+    }
+
+    public Set<String> disabledRules() {
+        return disabledRules;
+    }
+
+    private static BigDecimal amount(Map<String, String> properties, String key, String defaultValue) {
+        String value = properties.get(key);
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(value == null ? defaultValue : value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid amount for " + key + ": '" + value + "'", e);
+        }
+        if (MinorUnitAmount.of(amount) == null) {
+            throw new IllegalArgumentException("Amount for " + key + " has too many digits: '" + value + "'");
+        }
+        return amount;
+    }
+
+    private static Set<String> csv(String value, String defaultCsv) {
+        Set<String> values = split(value);
+        return values.isEmpty() ? split(defaultCsv) : values;
+    }
+
+    private static Set<String> split(String csv) {
+        if (csv == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(Arrays.stream(csv.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toSet()));
+    }
+
+    // Entries that are not three letters can never match a payment, so they are logged and left out
+    private static BitSet currencyIds(Set<String> currencies) {
+        BitSet ids = new BitSet(CurrencyCode.COUNT);
+        for (String currency : currencies) {
+            int id = CurrencyCode.id(currency);
+            if (id == CurrencyCode.UNKNOWN) {
+                logger.error("Invalid currency code in {}: '{}'. Ignoring it.", CURRENCY_ALLOWED, currency);
+            } else {
+                ids.set(id);
+            }
+        }
+        return ids;
+    }
+
+    private static LocalTime cutoffTime(String value, boolean strict) {
+        if (value == null) {
+            return LocalTime.parse(DEFAULT_CUTOFF_TIME);
+        }
+        try {
+            return LocalTime.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            if (strict) {
+                throw new IllegalArgumentException("Invalid cutoff time for " + CUTOFF_TIME + ": '" + value + "'", e);
+            }
+            logger.error("Invalid cutoff time format in properties: '{}'. Defaulting to {}.", value, DEFAULT_CUTOFF_TIME, e);
+            return LocalTime.parse(DEFAULT_CUTOFF_TIME);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RuleConfig{" +
+               "minAmount=" + minAmount +
+               ", maxAmount=" + maxAmount +
+               ", amountLimits=" + amountLimits +
+               ", allowedCurrencies=" + allowedCurrencies +
+               ", participantPrefixes=" + participantPrefixes +
+               ", cutoffTime=" + cutoffTime +
+               ", disabledRules=" + disabledRules +
+               '}';
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.validation_service.service.rules;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the current {@link RuleConfig} in a volatile reference that a reload replaces as a whole, so rules read
+ * their parameters without locking.
+ * <p>
+ * The configuration is the baseline from {@code application.properties} with the properties of a
+ * {@link RuleConfigSource} laid over it; removing a property from the source restores its baseline value. The source
+ * is polled on a single background thread. A reload that does not produce a valid configuration is logged and the
+ * current snapshot kept.
+ */
+public final class RuleConfigHolder implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleConfigHolder.class);
+
+    private final Map<String, String> baseline;
+    private volatile RuleConfig current;
+    private ScheduledExecutorService reloadScheduler;
+
+    public RuleConfigHolder(Map<String, String> baseline) {
+        Map<String, String> properties = new HashMap<>();
+        // An unset property takes the default
+        baseline.forEach((key, value) -> {
+            if (value != null) {
+                properties.put(key, value);
+            }
+        });
+        this.baseline = Map.copyOf(properties);
+        this.current = RuleConfig.from(this.baseline);
+    }
+
+    public RuleConfig current() {
+        return current;
+    }
+
+    /**
+     * Replaces the configuration with the baseline overlaid with {@code overrides}. Unlike the baseline, an override
+     * with an invalid cutoff time or currency is rejected rather than defaulted, so the current snapshot is kept.
+     *
+     * @return whether the configuration was valid and applied
+     */
+    public boolean apply(Map<String, String> overrides) {
+        Map<String, String> merged = new HashMap<>(baseline);
+        merged.putAll(overrides);
+        try {
+            RuleConfig updated = RuleConfig.from(merged, overrides.keySet());
+            current = updated;
+            logger.info("Applied rule configuration: {}", updated);
+            return true;
+        } catch (IllegalArgumentException e) {
+            logger.error("Rejected rule configuration {}: {}. Keeping {}", overrides, e.getMessage(), current);
+            return false;
+        }
+    }
+
+    /**
+     * Loads {@code source} now and then every {@code interval}.
+     */
+    public synchronized void startReloading(RuleConfigSource source, Duration interval) {
+        if (reloadScheduler != null) {
+            throw new IllegalStateException("Rule configuration is already reloaded from a source.");
+        }
+        reloadScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rule-config-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reload(source);
+        reloadScheduler.scheduleWithFixedDelay(() -> reload(source), interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        logger.info("Reloading rule configuration from {} every {} ms.", source, interval.toMillis());
+    }
+
+    void reload(RuleConfigSource source) {
+        try {
+            Map<String, String> overrides = source.loadIfChanged();
+            if (overrides != null) {
+                apply(overrides);
+            }
+        } catch (Exception e) {
+            // Runs on the scheduler, which would stop on an exception
+            logger.error("Failed to reload rule configuration from {}: {}", source, e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (reloadScheduler != null) {
+            reloadScheduler.shutdownNow();
+        }
+    }
+}
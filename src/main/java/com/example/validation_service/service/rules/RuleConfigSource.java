@@ -0,0 +1,16 @@
+package com.example.validation_service.service.rules;
+
+import java.util.Map;
+
+/**
+ * Where rule configuration overrides are reloaded from, as properties with the keys of {@link RuleConfig}.
+ */
+public interface RuleConfigSource {
+
+    /**
+     * @return the overrides, empty if the source holds none, or {@code null} if they have not changed since the
+     * previous call
+     * @throws Exception if the source cannot be read; the current configuration is then kept
+     */
+    Map<String, String> loadIfChanged() throws Exception;
+}
@@ -3,6 +3,33 @@ package com.example.validation_service.service.rules;
 import com.example.validation_service.dto.RawPaymentData;
 import com.example.validation_service.service.ValidationResult;
 
+import java.util.Collections;
+import java.util.Set;
+
 public interface ValidationRule {
     void validate(RawPaymentData data, ValidationResult result);
+
+    /**
+     * Name the rule is enabled and disabled by in {@link RuleConfig#DISABLED}, e.g. {@code amount}.
+     */
+    default String name() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * Message types (e.g. {@code pacs.008.001.08}) whose rule set includes this rule. Empty, the default, means the
+     * rule applies to every message, including messages whose type could not be identified.
+     */
+    default Set<String> messageTypes() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * Whether the rule set may move this rule when it reorders rules by cost and rejection rate. Rules that record
+     * state about the messages they accept return {@code false}; they run after all reorderable rules, so that in
+     * fail-fast mode they only see messages the other rules have accepted.
+     */
+    default boolean reorderable() {
+        return true;
+    }
 }
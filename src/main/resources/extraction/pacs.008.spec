@@ -0,0 +1,39 @@
+# Field extraction spec for pacs.008 (FIToFICstmrCdtTrf).
+#
+# root = <element path of the message body>
+# transaction = <repeating transaction element below the root>
+# namespace = <Document namespace handled by this spec>   (repeatable; omit to accept any message)
+# <element path below the root>[/@<attribute>] -> <RawPaymentData property>
+#
+# Paths are matched on local names. When several paths feed the same property the first value found in the
+# document wins, so alternatives can be listed for the different identification choices.
+
+namespace = urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08
+namespace = urn:iso:std:iso:20022:tech:xsd:pacs.008.001.10
+
+root = Document/FIToFICstmrCdtTrf
+transaction = CdtTrfTxInf
+
+GrpHdr/MsgId -> msgId
+
+CdtTrfTxInf/PmtId/InstrId -> instrId
+CdtTrfTxInf/PmtId/EndToEndId -> endToEndId
+
+CdtTrfTxInf/IntrBkSttlmAmt -> amount
+CdtTrfTxInf/IntrBkSttlmAmt/@Ccy -> currency
+CdtTrfTxInf/InstdAmt -> amount
+CdtTrfTxInf/InstdAmt/@Ccy -> currency
+# Nested form accepted by earlier parser versions
+CdtTrfTxInf/InstdAmt/Amt -> amount
+
+CdtTrfTxInf/Dbtr/Nm -> debtorName
+CdtTrfTxInf/Dbtr/Id/OrgId/AnyBIC -> debtorId
+CdtTrfTxInf/Dbtr/Id/OrgId/LEI -> debtorId
+CdtTrfTxInf/Dbtr/Id/OrgId/Othr/Id -> debtorId
+CdtTrfTxInf/Dbtr/Id/PrvtId/Othr/Id -> debtorId
+
+CdtTrfTxInf/Cdtr/Nm -> creditorName
+CdtTrfTxInf/Cdtr/Id/OrgId/AnyBIC -> creditorId
+CdtTrfTxInf/Cdtr/Id/OrgId/LEI -> creditorId
+CdtTrfTxInf/Cdtr/Id/OrgId/Othr/Id -> creditorId
+CdtTrfTxInf/Cdtr/Id/PrvtId/Othr/Id -> creditorId
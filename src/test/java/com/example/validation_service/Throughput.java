@@ -0,0 +1,80 @@
+package com.example.validation_service;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Timing loop of the tests tagged {@code benchmark}, which are run with {@code mvn test -Pbenchmark}.
+ * <p>
+ * An operation is called with a running count and returns a value that is kept, so the JIT cannot drop its work.
+ * Each measurement runs the operation for the same time beforehand, so that it is not measured in the interpreter.
+ */
+public final class Throughput {
+
+    private static final long MEASURE_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final int BATCH = 1000;
+
+    // Written once per measured thread, so the operations' results are live
+    private static volatile long sink;
+
+    private Throughput() {
+    }
+
+    /**
+     * Operations per second of {@code operation} on the calling thread.
+     */
+    public static double measure(LongUnaryOperator operation) {
+        run(operation);
+        return run(operation) / (MEASURE_NANOS / 1e9);
+    }
+
+    /**
+     * Operations per second across {@code threads} threads started together, thread {@code t} running
+     * {@code operations.apply(t)}.
+     */
+    public static double measure(int threads, IntFunction<LongUnaryOperator> operations) throws Exception {
+        runConcurrently(threads, operations);
+        return runConcurrently(threads, operations) / (MEASURE_NANOS / 1e9);
+    }
+
+    private static long runConcurrently(int threads, IntFunction<LongUnaryOperator> operations) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            Future<?>[] counts = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                LongUnaryOperator operation = operations.apply(t);
+                counts[t] = executor.submit(() -> {
+                    start.await();
+                    return run(operation);
+                });
+            }
+            start.countDown();
+            long total = 0;
+            for (Future<?> count : counts) {
+                total += (Long) count.get();
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long run(LongUnaryOperator operation) {
+        long ops = 0;
+        long result = 0;
+        long deadline = System.nanoTime() + MEASURE_NANOS;
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < BATCH; i++) {
+                result += operation.applyAsLong(ops++);
+            }
+        }
+        sink = result;
+        return ops;
+    }
+}
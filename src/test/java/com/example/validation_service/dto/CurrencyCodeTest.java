@@ -0,0 +1,66 @@
+package com.example.validation_service.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Currency;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CurrencyCodeTest {
+
+    @Test
+    void testId_EveryIsoCodeHasItsOwnId() {
+        Set<Integer> ids = new HashSet<>();
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            int id = CurrencyCode.id(currency.getCurrencyCode());
+            assertTrue(id >= 0 && id < CurrencyCode.COUNT, currency.getCurrencyCode());
+            assertTrue(ids.add(id), "Duplicate id for " + currency.getCurrencyCode());
+            assertEquals(currency.getCurrencyCode(), CurrencyCode.code(id));
+            assertTrue(CurrencyCode.isIso(id));
+        }
+    }
+
+    @Test
+    void testId_IgnoresCaseAndSurroundingWhitespace() {
+        assertEquals(0, CurrencyCode.id("AAA"));
+        assertEquals(CurrencyCode.COUNT - 1, CurrencyCode.id("ZZZ"));
+        assertEquals(CurrencyCode.id("GBP"), CurrencyCode.id("gbp"));
+        assertEquals(CurrencyCode.id("GBP"), CurrencyCode.id(" Gbp\t"));
+    }
+
+    @Test
+    void testId_NotThreeLetters_Unknown() {
+        assertEquals(CurrencyCode.UNKNOWN, CurrencyCode.id(null));
+        assertEquals(CurrencyCode.UNKNOWN, CurrencyCode.id(""));
+        assertEquals(CurrencyCode.UNKNOWN, CurrencyCode.id("US"));
+        assertEquals(CurrencyCode.UNKNOWN, CurrencyCode.id("USDD"));
+        assertEquals(CurrencyCode.UNKNOWN, CurrencyCode.id("US1"));
+        assertEquals(CurrencyCode.UNKNOWN, CurrencyCode.id("U D"));
+        assertEquals(CurrencyCode.UNKNOWN, CurrencyCode.id("[SD"));
+    }
+
+    @Test
+    void testCodeAndExponent() {
+        assertEquals("XYZ", CurrencyCode.code(CurrencyCode.id("xyz")));
+        assertFalse(CurrencyCode.isIso(CurrencyCode.id("XYZ")));
+        assertNull(CurrencyCode.code(CurrencyCode.UNKNOWN));
+        assertEquals(2, CurrencyCode.exponent(CurrencyCode.id("USD")));
+        assertEquals(0, CurrencyCode.exponent(CurrencyCode.id("JPY")));
+        assertEquals(3, CurrencyCode.exponent(CurrencyCode.id("BHD")));
+        assertEquals(-1, CurrencyCode.exponent(CurrencyCode.id("XAU")));
+        assertEquals(-1, CurrencyCode.exponent(CurrencyCode.id("XYZ")));
+        assertEquals(-1, CurrencyCode.exponent(CurrencyCode.UNKNOWN));
+    }
+
+    @Test
+    void testRawPaymentData_KeepsCurrencyIdOfCurrency() {
+        RawPaymentData data = new RawPaymentData("M", "I", "E", "D", "BANK1", "C", "CUST1", "10.00", "eur");
+        assertEquals(CurrencyCode.id("EUR"), data.getCurrencyId());
+        data.setCurrency("JPY");
+        assertEquals(CurrencyCode.id("JPY"), data.getCurrencyId());
+        data.setCurrency(null);
+        assertEquals(CurrencyCode.UNKNOWN, data.getCurrencyId());
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.validation_service.dto;
+
+import com.example.validation_service.Throughput;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Throughput of the amount path of one accepted payment: parsing the text, checking it against the amount limits and
+ * building the published {@link BigDecimal}. The fixed-point path parses once into a {@link MinorUnitAmount}; the
+ * path it replaced parsed a {@code BigDecimal} in the amount rule and again in the mapper.
+ */
+@Tag("benchmark")
+public class MinorUnitAmountBenchmarkTest {
+
+    private static final BigDecimal MIN = new BigDecimal("0.01");
+    private static final BigDecimal MAX = new BigDecimal("1000000.00");
+    private static final MinorUnitAmount MIN_VALUE = MinorUnitAmount.of(MIN);
+    private static final MinorUnitAmount MAX_VALUE = MinorUnitAmount.of(MAX);
+
+    @Test
+    void fixedPointBeatsParsingTwice(TestReporter reporter) {
+        String[] amounts = new String[1024];
+        Random random = new Random(42);
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = random.nextInt(100_000) + "." + String.format("%02d", random.nextInt(100));
+        }
+
+        ToLongFunction<String> fixedPoint = text -> {
+            MinorUnitAmount amount = MinorUnitAmount.parse(text);
+            if (amount.compareTo(MIN_VALUE) < 0 || amount.compareTo(MAX_VALUE) > 0) {
+                return 0;
+            }
+            return amount.toBigDecimal().scale();
+        };
+        ToLongFunction<String> bigDecimal = text -> {
+            BigDecimal amount = new BigDecimal(text);
+            if (amount.compareTo(MIN) < 0 || amount.compareTo(MAX) > 0) {
+                return 0;
+            }
+            return new BigDecimal(text).scale();
+        };
+
+        double fixedPointRate = Throughput.measure(i -> fixedPoint.applyAsLong(amounts[(int) (i & 1023)]));
+        double bigDecimalRate = Throughput.measure(i -> bigDecimal.applyAsLong(amounts[(int) (i & 1023)]));
+        reporter.publishEntry(Map.of(
+                "fixed-point", String.format("%.0f ops/s", fixedPointRate),
+                "bigdecimal-twice", String.format("%.0f ops/s", bigDecimalRate)));
+        assertTrue(fixedPointRate > bigDecimalRate,
+                "Fixed-point path ran " + fixedPointRate + " ops/s, BigDecimal path " + bigDecimalRate + " ops/s");
+    }
+}
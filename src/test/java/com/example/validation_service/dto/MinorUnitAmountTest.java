@@ -0,0 +1,76 @@
+package com.example.validation_service.dto;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinorUnitAmountTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"100.50", "0.01", "-3", "+7.000", ".5", "5.", "1000000.00", "999999999999999999",
+            "0.000000000000000001", "1E+3", "1.5e2", "12345678901234567.8"})
+    void parse_MatchesBigDecimal(String text) {
+        MinorUnitAmount amount = MinorUnitAmount.parse(text);
+
+        assertNotNull(amount);
+        BigDecimal expected = new BigDecimal(text);
+        assertEquals(0, expected.compareTo(amount.toBigDecimal()));
+        if (expected.scale() >= 0) {
+            assertEquals(expected, amount.toBigDecimal());
+            assertEquals(expected.toPlainString(), amount.toString());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "abc", "12.34.56", "$100", "-", ".", " 1", "1 ", "1,00", "1e", "12345678901234567890"})
+    void parse_InvalidOrTooLong_ReturnsNull(String text) {
+        assertNull(MinorUnitAmount.parse(text));
+    }
+
+    @Test
+    void parse_Null_ReturnsNull() {
+        assertNull(MinorUnitAmount.parse(null));
+    }
+
+    @Test
+    void compareTo_ComparesAcrossScales() {
+        assertEquals(0, MinorUnitAmount.parse("1.0").compareTo(MinorUnitAmount.parse("1.00")));
+        assertTrue(MinorUnitAmount.parse("0.009").compareTo(MinorUnitAmount.parse("0.01")) < 0);
+        assertTrue(MinorUnitAmount.parse("1000000.01").compareTo(MinorUnitAmount.parse("1000000.00")) > 0);
+        assertTrue(MinorUnitAmount.parse("-5").compareTo(MinorUnitAmount.parse("0.01")) < 0);
+        assertNotEquals(MinorUnitAmount.parse("1.0"), MinorUnitAmount.parse("1.00"));
+    }
+
+    @Test
+    void compareTo_OverflowAtCommonScale_FallsBackToBigDecimal() {
+        MinorUnitAmount large = MinorUnitAmount.parse("999999999999999999");
+        MinorUnitAmount small = MinorUnitAmount.parse("0.000000000000000001");
+
+        assertTrue(large.compareTo(small) > 0);
+        assertTrue(small.compareTo(large) < 0);
+        assertTrue(MinorUnitAmount.parse("-999999999999999999").compareTo(small) < 0);
+    }
+
+    @Test
+    void compareTo_UnitsAndScale() {
+        assertEquals(0, MinorUnitAmount.parse("500.0").compareTo(50_000, 2));
+        assertTrue(MinorUnitAmount.parse("500.001").compareTo(50_000, 2) > 0);
+        assertTrue(MinorUnitAmount.parse("499").compareTo(50_000, 2) < 0);
+        assertTrue(MinorUnitAmount.parse("999999999999999999").compareTo(1, 18) > 0);
+    }
+
+    @Test
+    void rawPaymentData_ParsesAmountWhenSet() {
+        RawPaymentData data = new RawPaymentData();
+        data.setAmount("250.00");
+        assertEquals(MinorUnitAmount.of(25000, 2), data.getAmountValue());
+
+        data.setAmount("invalid");
+        assertNull(data.getAmountValue());
+        assertTrue(data.hasFields(PaymentField.AMOUNT.bit()));
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.validation_service.service;
 
 import com.example.validation_service.dto.RawPaymentData;
+import com.example.validation_service.service.rules.RuleConfig;
+import com.example.validation_service.service.rules.RuleConfigHolder;
 import com.example.validation_service.service.rules.ValidationRule;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,9 +13,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -149,4 +153,117 @@ public class BusinessRuleValidatorServiceTest {
         businessRuleValidatorService = new BusinessRuleValidatorService(Collections.emptyList());
         assertDoesNotThrow(() -> businessRuleValidatorService.validate(rawPaymentData));
     }
+
+    @Test
+    void testValidate_RuleSetPerMessageType() {
+        businessRuleValidatorService = new BusinessRuleValidatorService(Arrays.asList(rule1, rule2));
+        when(rule2.messageTypes()).thenReturn(Collections.singleton("pacs.008.001.10"));
+
+        rawPaymentData.setMessageType("pacs.008.001.08");
+        assertDoesNotThrow(() -> businessRuleValidatorService.validate(rawPaymentData));
+        rawPaymentData.setMessageType("pacs.008.001.10");
+        assertDoesNotThrow(() -> businessRuleValidatorService.validate(rawPaymentData));
+
+        verify(rule1, times(2)).validate(eq(rawPaymentData), any(ValidationResult.class));
+        verify(rule2, times(1)).validate(eq(rawPaymentData), any(ValidationResult.class));
+    }
+
+    @Test
+    void testValidate_FailFastStopsAtFirstError() {
+        businessRuleValidatorService = new BusinessRuleValidatorService(Arrays.asList(rule1, rule2),
+                BusinessRuleValidatorService.Mode.FAIL_FAST, Map.of(), 0, new RuleConfigHolder(Map.of()));
+        doAnswer(invocation -> {
+            ValidationResult result = invocation.getArgument(1);
+            result.addError("Error from rule 1");
+            return null;
+        }).when(rule1).validate(any(RawPaymentData.class), any(ValidationResult.class));
+
+        BusinessValidationException exception = assertThrows(BusinessValidationException.class,
+                () -> businessRuleValidatorService.validate(rawPaymentData));
+
+        assertEquals(List.of("Error from rule 1"), exception.getValidationErrors());
+        verify(rule2, never()).validate(any(RawPaymentData.class), any(ValidationResult.class));
+    }
+
+    @Test
+    void testValidate_FailFastReordersSelectiveRulesFirst() {
+        businessRuleValidatorService = new BusinessRuleValidatorService(Arrays.asList(rule1, rule2, ruleWithError),
+                BusinessRuleValidatorService.Mode.FAIL_FAST, Map.of(), 4, new RuleConfigHolder(Map.of()));
+        // rule2 rejects every message, ruleWithError (pinned) rejects too but must stay last
+        doAnswer(invocation -> {
+            ValidationResult result = invocation.getArgument(1);
+            result.addError("Error from rule 2");
+            return null;
+        }).when(rule2).validate(any(RawPaymentData.class), any(ValidationResult.class));
+        // Mocks do not run default methods
+        when(rule1.reorderable()).thenReturn(true);
+        when(rule2.reorderable()).thenReturn(true);
+        when(ruleWithError.reorderable()).thenReturn(false);
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(BusinessValidationException.class, () -> businessRuleValidatorService.validate(rawPaymentData));
+        }
+
+        assertEquals(List.of(rule2, rule1, ruleWithError), businessRuleValidatorService.rulesFor(null).rules());
+        assertThrows(BusinessValidationException.class, () -> businessRuleValidatorService.validate(rawPaymentData));
+        verify(rule1, times(4)).validate(eq(rawPaymentData), any(ValidationResult.class));
+        verify(ruleWithError, never()).validate(any(RawPaymentData.class), any(ValidationResult.class));
+    }
+
+    @Test
+    void testValidate_CollectAllKeepsConfiguredOrder() {
+        businessRuleValidatorService = new BusinessRuleValidatorService(Arrays.asList(rule1, rule2),
+                BusinessRuleValidatorService.Mode.COLLECT_ALL, Map.of(), 1, new RuleConfigHolder(Map.of()));
+        doAnswer(invocation -> {
+            ValidationResult result = invocation.getArgument(1);
+            result.addError("Error from rule 2");
+            return null;
+        }).when(rule2).validate(any(RawPaymentData.class), any(ValidationResult.class));
+
+        assertThrows(BusinessValidationException.class, () -> businessRuleValidatorService.validate(rawPaymentData));
+        assertThrows(BusinessValidationException.class, () -> businessRuleValidatorService.validate(rawPaymentData));
+
+        assertEquals(List.of(rule1, rule2), businessRuleValidatorService.rulesFor(null).rules());
+    }
+
+    @Test
+    void testConstructor_PinnedRulesRunLastFromTheFirstMessage() {
+        when(rule1.reorderable()).thenReturn(true);
+        when(rule2.reorderable()).thenReturn(true);
+        when(ruleWithError.reorderable()).thenReturn(false);
+        for (BusinessRuleValidatorService.Mode mode : BusinessRuleValidatorService.Mode.values()) {
+            // Interval 0 never reorders, so only the constructor can have moved the pinned rule
+            businessRuleValidatorService = new BusinessRuleValidatorService(Arrays.asList(ruleWithError, rule1, rule2),
+                    mode, Map.of(), 0, new RuleConfigHolder(Map.of()));
+
+            assertEquals(List.of(rule1, rule2, ruleWithError), businessRuleValidatorService.rulesFor(null).rules(),
+                    mode.toString());
+        }
+    }
+
+    @Test
+    void testValidate_ModePerMessageType() {
+        businessRuleValidatorService = new BusinessRuleValidatorService(Arrays.asList(rule1, rule2),
+                "collect-all", " pacs.008.001.10 : fail-fast , pacs.008.001.08:bogus, invalid", 0, new RuleConfigHolder(Map.of()));
+
+        assertEquals(BusinessRuleValidatorService.Mode.FAIL_FAST, businessRuleValidatorService.rulesFor("pacs.008.001.10").mode());
+        assertEquals(BusinessRuleValidatorService.Mode.COLLECT_ALL, businessRuleValidatorService.rulesFor("pacs.008.001.08").mode());
+        assertEquals(BusinessRuleValidatorService.Mode.COLLECT_ALL, businessRuleValidatorService.rulesFor(null).mode());
+        assertEquals(2, BusinessRuleValidatorService.parseModes("a:fail_fast,b:COLLECT-ALL").size());
+    }
+
+    @Test
+    void testValidate_DisabledRuleIsSkippedAfterReload() {
+        RuleConfigHolder ruleConfig = new RuleConfigHolder(Map.of());
+        businessRuleValidatorService = new BusinessRuleValidatorService(Arrays.asList(rule1, rule2),
+                BusinessRuleValidatorService.Mode.COLLECT_ALL, Map.of(), 0, ruleConfig);
+        when(rule2.name()).thenReturn("cutoff");
+
+        assertDoesNotThrow(() -> businessRuleValidatorService.validate(rawPaymentData));
+        assertTrue(ruleConfig.apply(Map.of(RuleConfig.DISABLED, "cutoff")));
+        assertDoesNotThrow(() -> businessRuleValidatorService.validate(rawPaymentData));
+
+        verify(rule1, times(2)).validate(eq(rawPaymentData), any(ValidationResult.class));
+        verify(rule2, times(1)).validate(eq(rawPaymentData), any(ValidationResult.class));
+    }
 }
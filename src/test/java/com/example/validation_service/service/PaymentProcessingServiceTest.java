@@ -2,18 +2,28 @@ package com.example.validation_service.service;
 
 import com.example.validation_service.dto.RawPaymentData;
 import com.example.validation_service.dto.ValidatedPayment;
+import com.example.validation_service.service.parser.MessageIdScanner;
+import com.example.validation_service.service.parser.ParserLimits;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.Collections;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +41,10 @@ public class PaymentProcessingServiceTest {
     private PaymentProducerService paymentProducerService;
     @Mock
     private AuditService auditService;
+    @Spy
+    private MessageIdScanner messageIdScanner = new MessageIdScanner(MessageIdScanner.DEFAULT_SCAN_LIMIT);
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     @InjectMocks
     private PaymentProcessingService paymentProcessingService;
@@ -47,15 +61,31 @@ public class PaymentProcessingServiceTest {
         // Populate other fields if necessary for specific tests, though not strictly needed if methods are mocked
 
         mockValidatedPayment = new ValidatedPayment(); // Populate if needed
+
+        // Validation stages accept by default
+        lenient().when(schemaValidationService.check(any(RawPaymentData.class)))
+                .thenAnswer(invocation -> StageResult.accepted(invocation.getArgument(0)));
+        lenient().when(businessRuleValidatorService.check(any(RawPaymentData.class)))
+                .thenAnswer(invocation -> StageResult.accepted(invocation.getArgument(0)));
+    }
+
+    // The producer mock runs the work it is handed, as a producer without transactions does
+    private void sendWithoutTransactions() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<PaymentProducerService.Sends<?>>getArgument(0).run();
+            return null;
+        }).when(paymentProducerService).inTransaction(any());
+    }
+
+    private static List<ValidationError> errors(String message) {
+        return List.of(new ValidationError(ErrorCode.UNSPECIFIED, message));
     }
 
     @Test
     void testProcess_Success() throws Exception {
         // Arrange
         when(xmlParserService.parse(anyString())).thenReturn(mockRawPaymentData);
-        doNothing().when(schemaValidationService).validate(any(RawPaymentData.class));
-        doNothing().when(businessRuleValidatorService).validate(any(RawPaymentData.class));
-        when(paymentTransformerService.transform(any(RawPaymentData.class))).thenReturn(mockValidatedPayment);
+        when(paymentTransformerService.tryTransform(any(RawPaymentData.class))).thenReturn(StageResult.accepted(mockValidatedPayment));
         doNothing().when(paymentProducerService).sendValidatedPayment(any(ValidatedPayment.class));
 
         // Act
@@ -63,10 +93,49 @@ public class PaymentProcessingServiceTest {
 
         // Assert
         verify(xmlParserService).parse(testXmlPayload);
-        verify(schemaValidationService).validate(mockRawPaymentData);
-        verify(businessRuleValidatorService).validate(mockRawPaymentData);
-        verify(paymentTransformerService).transform(mockRawPaymentData);
+        verify(schemaValidationService).check(mockRawPaymentData);
+        verify(businessRuleValidatorService).check(mockRawPaymentData);
+        verify(paymentTransformerService).tryTransform(mockRawPaymentData);
+        verify(paymentProducerService).sendValidatedPayment(mockValidatedPayment);
+        verify(auditService, never()).logFailure(anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testProcess_Bytes_Success() throws Exception {
+        byte[] payload = testXmlPayload.getBytes(StandardCharsets.UTF_8);
+        when(xmlParserService.parse(payload)).thenReturn(mockRawPaymentData);
+        when(paymentTransformerService.tryTransform(mockRawPaymentData)).thenReturn(StageResult.accepted(mockValidatedPayment));
+
+        paymentProcessingService.process(payload);
+
+        verify(xmlParserService, never()).parse(anyString());
         verify(paymentProducerService).sendValidatedPayment(mockValidatedPayment);
+        verifyNoInteractions(auditService);
+    }
+
+    @Test
+    void testProcess_SourcePartitionReachesValidation() throws Exception {
+        byte[] payload = testXmlPayload.getBytes(StandardCharsets.UTF_8);
+        when(xmlParserService.parse(payload)).thenReturn(mockRawPaymentData);
+        when(paymentTransformerService.tryTransform(mockRawPaymentData)).thenReturn(StageResult.accepted(mockValidatedPayment));
+
+        paymentProcessingService.process(payload, 3);
+
+        // Duplicate state can be scoped by the inbound partition
+        verify(businessRuleValidatorService).check(argThat(data -> data.getSourcePartition() == 3));
+    }
+
+    @Test
+    void testProcess_Bytes_FailureAuditsRawBytes() throws Exception {
+        byte[] payload = testXmlPayload.getBytes(StandardCharsets.UTF_8);
+        when(xmlParserService.parse(payload)).thenReturn(mockRawPaymentData);
+        when(schemaValidationService.check(mockRawPaymentData))
+                .thenReturn(StageResult.rejected(Rejection.of(Rejection.SCHEMA, "Schema validation failed")));
+
+        paymentProcessingService.process(payload);
+
+        // The String form is left to AuditService, which decodes it off the consumer thread
+        verify(auditService).logFailureFromBytes(eq(testMsgId), eq("schema"), eq("Schema validation failed"), same(payload));
         verify(auditService, never()).logFailure(anyString(), anyString(), anyString(), anyString());
     }
 
@@ -88,23 +157,28 @@ public class PaymentProcessingServiceTest {
     
     @Test
     void testProcess_XmlParsingException_LogsFailure_MsgIdFromSafeExtract() throws Exception {
-        // This test assumes extractMessageIdSafe can somehow get an ID, 
-        // current impl of extractMessageIdSafe returns null for XmlParsingException.
-        // To make this test meaningful, we'd need to change how extractMessageIdSafe works or how XmlParsingException stores data.
-        // For now, this test will behave like the one above. If extractMessageIdSafe is improved, this test would demonstrate it.
         String specificMsgIdInPayload = "SPECIFIC_MSG_ID";
         String payloadWithSpecificMsgId = String.format("<Doc><GrpHdr><MsgId>%s</MsgId></GrpHdr>...</Doc>", specificMsgIdInPayload);
 
         XmlParsingException exception = new XmlParsingException("XML parsing failed on specific");
         when(xmlParserService.parse(eq(payloadWithSpecificMsgId))).thenThrow(exception);
-        // If extractMessageIdSafe were to use regex, it might find specificMsgIdInPayload
-        // For the current implementation, it will be null.
-        
+
         // Act
         paymentProcessingService.process(payloadWithSpecificMsgId);
 
         // Assert
-        verify(auditService).logFailure(eq(null), eq("parsing"), eq("XML parsing failed on specific"), eq(payloadWithSpecificMsgId));
+        verify(auditService).logFailure(eq(specificMsgIdInPayload), eq("parsing"), eq("XML parsing failed on specific"), eq(payloadWithSpecificMsgId));
+    }
+
+    @Test
+    void testProcess_Bytes_XmlParsingException_LogsFailureWithScannedMsgId() throws Exception {
+        byte[] payload = "<Document><FIToFICstmrCdtTrf><GrpHdr><MsgId>MSG-42</MsgId><CreDtTm>oops</GrpHdr>"
+                .getBytes(StandardCharsets.UTF_8);
+        when(xmlParserService.parse(payload)).thenThrow(new XmlParsingException("Error parsing XML: mismatched tag"));
+
+        paymentProcessingService.process(payload);
+
+        verify(auditService).logFailureFromBytes(eq("MSG-42"), eq("parsing"), eq("Error parsing XML: mismatched tag"), same(payload));
     }
 
 
@@ -112,15 +186,15 @@ public class PaymentProcessingServiceTest {
     void testProcess_SchemaValidationException_LogsFailure() throws Exception {
         // Arrange
         when(xmlParserService.parse(anyString())).thenReturn(mockRawPaymentData);
-        SchemaValidationException exception = new SchemaValidationException("Schema validation failed");
-        doThrow(exception).when(schemaValidationService).validate(any(RawPaymentData.class));
+        when(schemaValidationService.check(any(RawPaymentData.class)))
+                .thenReturn(StageResult.rejected(Rejection.of(Rejection.SCHEMA, "Schema validation failed")));
 
         // Act
         paymentProcessingService.process(testXmlPayload);
 
         // Assert
         verify(xmlParserService).parse(testXmlPayload);
-        verify(schemaValidationService).validate(mockRawPaymentData);
+        verify(schemaValidationService).check(mockRawPaymentData);
         verify(auditService).logFailure(eq(testMsgId), eq("schema"), eq("Schema validation failed"), eq(testXmlPayload));
         verifyNoInteractions(businessRuleValidatorService, paymentTransformerService, paymentProducerService);
     }
@@ -129,18 +203,18 @@ public class PaymentProcessingServiceTest {
     void testProcess_BusinessValidationException_LogsFailure() throws Exception {
         // Arrange
         when(xmlParserService.parse(anyString())).thenReturn(mockRawPaymentData);
-        doNothing().when(schemaValidationService).validate(any(RawPaymentData.class));
-        BusinessValidationException exception = new BusinessValidationException("Business validation failed", Collections.singletonList("Rule X failed"));
-        doThrow(exception).when(businessRuleValidatorService).validate(any(RawPaymentData.class));
+        when(businessRuleValidatorService.check(any(RawPaymentData.class)))
+                .thenReturn(StageResult.rejected(Rejection.of(Rejection.BUSINESS, errors("Rule X failed"))));
 
         // Act
         paymentProcessingService.process(testXmlPayload);
 
         // Assert
         verify(xmlParserService).parse(testXmlPayload);
-        verify(schemaValidationService).validate(mockRawPaymentData);
-        verify(businessRuleValidatorService).validate(mockRawPaymentData);
-        verify(auditService).logFailure(eq(testMsgId), eq("business"), eq("Rule X failed"), eq(testXmlPayload));
+        verify(schemaValidationService).check(mockRawPaymentData);
+        verify(businessRuleValidatorService).check(mockRawPaymentData);
+        verify(auditService).logValidationFailure(eq(testMsgId), eq("business"),
+                argThat(errors -> ValidationError.join(errors).equals("Rule X failed")), eq(testXmlPayload));
         verifyNoInteractions(paymentTransformerService, paymentProducerService);
     }
 
@@ -148,41 +222,226 @@ public class PaymentProcessingServiceTest {
     void testProcess_TransformationException_LogsFailure() throws Exception {
         // Arrange
         when(xmlParserService.parse(anyString())).thenReturn(mockRawPaymentData);
-        doNothing().when(schemaValidationService).validate(any(RawPaymentData.class));
-        doNothing().when(businessRuleValidatorService).validate(any(RawPaymentData.class));
         TransformationException exception = new TransformationException("Transformation failed");
-        when(paymentTransformerService.transform(any(RawPaymentData.class))).thenThrow(exception);
+        when(paymentTransformerService.tryTransform(any(RawPaymentData.class))).thenThrow(exception);
 
         // Act
         paymentProcessingService.process(testXmlPayload);
 
         // Assert
         verify(xmlParserService).parse(testXmlPayload);
-        verify(schemaValidationService).validate(mockRawPaymentData);
-        verify(businessRuleValidatorService).validate(mockRawPaymentData);
-        verify(paymentTransformerService).transform(mockRawPaymentData);
+        verify(schemaValidationService).check(mockRawPaymentData);
+        verify(businessRuleValidatorService).check(mockRawPaymentData);
+        verify(paymentTransformerService).tryTransform(mockRawPaymentData);
         verify(auditService).logFailure(eq(testMsgId), eq("transformation"), eq("Transformation failed"), eq(testXmlPayload));
         verifyNoInteractions(paymentProducerService);
     }
 
+    @Test
+    void testProcess_TransformationRejected_LogsFailure() throws Exception {
+        when(xmlParserService.parse(anyString())).thenReturn(mockRawPaymentData);
+        when(paymentTransformerService.tryTransform(mockRawPaymentData)).thenReturn(StageResult.rejected(
+                Rejection.of(Rejection.TRANSFORMATION, "Error during data transformation: Invalid amount format: x")));
+
+        paymentProcessingService.process(testXmlPayload);
+
+        verify(auditService).logFailure(eq(testMsgId), eq("transformation"),
+                eq("Error during data transformation: Invalid amount format: x"), eq(testXmlPayload));
+        verifyNoInteractions(paymentProducerService);
+    }
+
     @Test
     void testProcess_UnexpectedException_LogsFailure() throws Exception {
         // Arrange
         when(xmlParserService.parse(anyString())).thenReturn(mockRawPaymentData);
-        doNothing().when(schemaValidationService).validate(any(RawPaymentData.class));
-        doNothing().when(businessRuleValidatorService).validate(any(RawPaymentData.class));
         RuntimeException exception = new RuntimeException("Unexpected error");
-        when(paymentTransformerService.transform(any(RawPaymentData.class))).thenThrow(exception); // Example: error in transformation
+        when(paymentTransformerService.tryTransform(any(RawPaymentData.class))).thenThrow(exception); // Example: error in transformation
 
         // Act
         paymentProcessingService.process(testXmlPayload);
 
         // Assert
         verify(xmlParserService).parse(testXmlPayload);
-        verify(schemaValidationService).validate(mockRawPaymentData);
-        verify(businessRuleValidatorService).validate(mockRawPaymentData);
-        verify(paymentTransformerService).transform(mockRawPaymentData);
+        verify(schemaValidationService).check(mockRawPaymentData);
+        verify(businessRuleValidatorService).check(mockRawPaymentData);
+        verify(paymentTransformerService).tryTransform(mockRawPaymentData);
         verify(auditService).logFailure(eq(testMsgId), eq("unknown_processing_error"), eq("Unexpected error"), eq(testXmlPayload));
         verifyNoInteractions(paymentProducerService);
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testProcess_TransactionStreaming_RejectedTransactionDoesNotStopOthers() throws Exception {
+        byte[] payload = testXmlPayload.getBytes(StandardCharsets.UTF_8);
+        RawPaymentData first = new RawPaymentData();
+        first.setMsgId(testMsgId);
+        first.setTransactionSequence(1);
+        RawPaymentData second = new RawPaymentData();
+        second.setMsgId(testMsgId);
+        second.setTransactionSequence(2);
+        when(xmlParserService.isTransactionStreaming()).thenReturn(true);
+        sendWithoutTransactions();
+        when(xmlParserService.parseTransactions(same(payload), any(Consumer.class))).thenAnswer(invocation -> {
+            Consumer<RawPaymentData> handler = invocation.getArgument(1);
+            handler.accept(first);
+            handler.accept(second);
+            return 2;
+        });
+        when(businessRuleValidatorService.check(first))
+                .thenReturn(StageResult.rejected(Rejection.of(Rejection.BUSINESS, errors("Amount too high"))));
+        when(paymentTransformerService.tryTransform(second)).thenReturn(StageResult.accepted(mockValidatedPayment));
+
+        paymentProcessingService.process(payload);
+
+        verify(xmlParserService, never()).parse(any(byte[].class));
+        verify(auditService).logTransactionFailureFromBytes(eq(testMsgId), eq(1), eq("business"), isNull(),
+                argThat(errors -> ValidationError.join(errors).equals("Amount too high")), same(payload));
+        verify(paymentTransformerService, never()).tryTransform(first);
+        verify(paymentProducerService, times(1)).sendValidatedPayment(mockValidatedPayment);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testProcess_TransactionStreaming_OnlyFirstRejectedTransactionStoresPayload() throws Exception {
+        byte[] payload = testXmlPayload.getBytes(StandardCharsets.UTF_8);
+        RawPaymentData first = new RawPaymentData();
+        first.setMsgId(testMsgId);
+        first.setTransactionSequence(1);
+        RawPaymentData second = new RawPaymentData();
+        second.setMsgId(testMsgId);
+        second.setTransactionSequence(2);
+        when(xmlParserService.isTransactionStreaming()).thenReturn(true);
+        sendWithoutTransactions();
+        when(xmlParserService.parseTransactions(same(payload), any(Consumer.class))).thenAnswer(invocation -> {
+            Consumer<RawPaymentData> handler = invocation.getArgument(1);
+            handler.accept(first);
+            handler.accept(second);
+            return 2;
+        });
+        when(schemaValidationService.check(any(RawPaymentData.class)))
+                .thenReturn(StageResult.rejected(Rejection.of(Rejection.SCHEMA, "Schema validation failed")));
+
+        paymentProcessingService.process(payload);
+
+        verify(auditService).logTransactionFailureFromBytes(eq(testMsgId), eq(1), eq("schema"),
+                eq("Schema validation failed"), eq(List.of()), same(payload));
+        verify(auditService).logTransactionFailure(eq(testMsgId), eq(2), eq("schema"),
+                eq("Schema validation failed"), eq(List.of()), isNull());
+        verify(paymentProducerService, never()).sendValidatedPayment(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testProcess_TransactionStreaming_PublishesEachTransactionWhileParsing() throws Exception {
+        byte[] payload = testXmlPayload.getBytes(StandardCharsets.UTF_8);
+        RawPaymentData first = new RawPaymentData();
+        first.setMsgId(testMsgId);
+        first.setTransactionSequence(1);
+        RawPaymentData second = new RawPaymentData();
+        second.setMsgId(testMsgId);
+        second.setTransactionSequence(2);
+        ValidatedPayment secondPayment = new ValidatedPayment();
+        when(xmlParserService.isTransactionStreaming()).thenReturn(true);
+        sendWithoutTransactions();
+        when(xmlParserService.parseTransactions(same(payload), any(Consumer.class))).thenAnswer(invocation -> {
+            Consumer<RawPaymentData> handler = invocation.getArgument(1);
+            handler.accept(first);
+            // The first transaction is out before the parser reaches the second
+            verify(paymentProducerService, times(1)).sendValidatedPayment(any());
+            handler.accept(second);
+            verify(paymentProducerService, times(2)).sendValidatedPayment(any());
+            return 2;
+        });
+        when(paymentTransformerService.tryTransform(first)).thenReturn(StageResult.accepted(mockValidatedPayment));
+        when(paymentTransformerService.tryTransform(second)).thenReturn(StageResult.accepted(secondPayment));
+
+        paymentProcessingService.process(payload);
+
+        verify(paymentProducerService).sendValidatedPayment(same(mockValidatedPayment));
+        verify(paymentProducerService).sendValidatedPayment(same(secondPayment));
+        verifyNoInteractions(auditService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testProcess_TransactionStreaming_ParseFailureAfterTransactionsAbortsProducerTransaction() throws Exception {
+        byte[] payload = "<Document><FIToFICstmrCdtTrf><GrpHdr><MsgId>MSG-42</MsgId></GrpHdr><CdtTrfTxInf>"
+                .getBytes(StandardCharsets.UTF_8);
+        RawPaymentData first = new RawPaymentData();
+        first.setMsgId("MSG-42");
+        first.setTransactionSequence(1);
+        when(xmlParserService.isTransactionStreaming()).thenReturn(true);
+        AtomicReference<Exception> aborted = new AtomicReference<>();
+        doAnswer(invocation -> {
+            try {
+                invocation.<PaymentProducerService.Sends<?>>getArgument(0).run();
+            } catch (Exception e) {
+                aborted.set(e);
+                throw e;
+            }
+            return null;
+        }).when(paymentProducerService).inTransaction(any());
+        when(xmlParserService.parseTransactions(same(payload), any(Consumer.class))).thenAnswer(invocation -> {
+            Consumer<RawPaymentData> handler = invocation.getArgument(1);
+            handler.accept(first);
+            throw new XmlParsingException("Error parsing XML: unexpected end of input");
+        });
+        when(paymentTransformerService.tryTransform(first)).thenReturn(StageResult.accepted(mockValidatedPayment));
+
+        paymentProcessingService.process(payload);
+
+        // The transaction was sent in the producer transaction, which the parse failure aborts
+        verify(paymentProducerService).sendValidatedPayment(mockValidatedPayment);
+        assertEquals("Error parsing XML: unexpected end of input", aborted.get().getMessage());
+        verify(auditService).logFailureFromBytes(eq("MSG-42"), eq("parsing"),
+                eq("Error parsing XML: unexpected end of input"), same(payload));
+    }
+
+    @Test
+    void testProcess_LimitExceededDuringParse_AuditsAsLimitExceeded() throws Exception {
+        byte[] payload = "<Document><FIToFICstmrCdtTrf><GrpHdr><MsgId>MSG-DEEP</MsgId>".getBytes(StandardCharsets.UTF_8);
+        when(xmlParserService.parse(payload)).thenThrow(
+                new PayloadLimitExceededException(ParserLimits.DEPTH, "Payload exceeds parser limit: depth"));
+
+        paymentProcessingService.process(payload);
+
+        verify(auditService).logFailureFromBytes(eq("MSG-DEEP"), eq("limit_exceeded"), eq("Payload exceeds parser limit: depth"), same(payload));
+        assertEquals(1.0, meterRegistry.counter("payment.validation.limit.rejected", "limit", ParserLimits.DEPTH).count());
+        verifyNoInteractions(schemaValidationService, businessRuleValidatorService, paymentTransformerService, paymentProducerService);
+    }
+
+    @Test
+    void testRejectOverLimit_AuditsWithoutParsing() {
+        PayloadLimitExceededException exception =
+                new PayloadLimitExceededException(ParserLimits.PAYLOAD_SIZE, "Payload size 2048 exceeds limit of 1024 bytes.");
+
+        paymentProcessingService.rejectOverLimit(testXmlPayload, exception);
+
+        verifyNoInteractions(xmlParserService);
+        verify(auditService).logFailure(eq(null), eq("limit_exceeded"), eq(exception.getMessage()), eq(testXmlPayload));
+        assertEquals(1.0, meterRegistry.counter("payment.validation.limit.rejected", "limit", ParserLimits.PAYLOAD_SIZE).count());
+    }
+
+    @Test
+    void testProcess_XsdValidationException_LogsSchemaFailure() throws Exception {
+        String payload = "<Document><FIToFICstmrCdtTrf><GrpHdr><MsgId>MSG-XSD</MsgId><CreDtTm>yesterday</CreDtTm>";
+        when(xmlParserService.parse(payload)).thenThrow(new XsdValidationException("XSD validation failed: cvc-datatype-valid"));
+
+        paymentProcessingService.process(payload);
+
+        verify(auditService).logFailure(eq("MSG-XSD"), eq("schema"), eq("XSD validation failed: cvc-datatype-valid"), eq(payload));
+        verifyNoInteractions(schemaValidationService, businessRuleValidatorService, paymentTransformerService, paymentProducerService);
+    }
+
+    @Test
+    void testProcess_UnsupportedMessageType_LogsFailure() throws Exception {
+        String namespace = "urn:iso:std:iso:20022:tech:xsd:camt.056.001.08";
+        String payload = "<Document xmlns=\"" + namespace + "\"><FIToFIPmtCxlReq><Assgnmt><Id>A1</Id>";
+        when(xmlParserService.parse(payload)).thenThrow(new UnsupportedMessageTypeException(namespace, "Unsupported message type: " + namespace));
+
+        paymentProcessingService.process(payload);
+
+        verify(auditService).logFailure(eq(null), eq("unsupported_message_type"), eq("Unsupported message type: " + namespace), eq(payload));
+        verifyNoInteractions(schemaValidationService, businessRuleValidatorService, paymentTransformerService, paymentProducerService);
+    }
 }
@@ -83,7 +83,7 @@ public class PaymentTransformerServiceTest {
     @Test
     void testTransform_InvalidAmountFormat_ThrowsTransformationException() {
         rawPaymentData.setAmount("invalid-amount");
-        // The PaymentMapper's stringToBigDecimal throws IllegalArgumentException
+        // The PaymentMapper's amountToBigDecimal throws IllegalArgumentException
         // The PaymentTransformerService should catch this and wrap it in TransformationException.
 
         TransformationException exception = assertThrows(TransformationException.class, () -> {
@@ -93,6 +93,17 @@ public class PaymentTransformerServiceTest {
         assertInstanceOf(IllegalArgumentException.class, exception.getCause());
     }
 
+    @Test
+    void testTryTransform_InvalidAmountFormat_ReturnsRejection() throws TransformationException {
+        rawPaymentData.setAmount("invalid-amount");
+
+        StageResult<ValidatedPayment> result = paymentTransformerService.tryTransform(rawPaymentData);
+
+        assertTrue(result.isRejected());
+        assertEquals("transformation", result.rejection().errorType());
+        assertEquals("Error during data transformation: Invalid amount format: invalid-amount", result.rejection().message());
+    }
+
     @Test
     void testTransform_NullRawData_ThrowsTransformationException() {
         TransformationException exception = assertThrows(TransformationException.class, () -> {
@@ -107,7 +118,7 @@ public class PaymentTransformerServiceTest {
         rawPaymentData.setInstrId(null); // Directly mapped
         rawPaymentData.setDebtorName(null); // Used in mapPayer
         rawPaymentData.setCreditorId(null); // Used in mapPayee
-        rawPaymentData.setAmount(null); // Amount is nullable, stringToBigDecimal returns null
+        rawPaymentData.setAmount(null); // Amount is nullable, amountToBigDecimal returns null
 
         ValidatedPayment result = paymentTransformerService.transform(rawPaymentData);
 
@@ -127,7 +138,7 @@ public class PaymentTransformerServiceTest {
     void testTransform_EmptyAmountString_ResultsInNullBigDecimal() throws TransformationException {
         rawPaymentData.setAmount(""); // Empty string
         ValidatedPayment result = paymentTransformerService.transform(rawPaymentData);
-        assertNull(result.getAmount(), "Amount should be null when input string is empty, as per stringToBigDecimal logic in mapper.");
+        assertNull(result.getAmount(), "Amount should be null when input string is empty, as per amountToBigDecimal logic in mapper.");
     }
 
     @Test
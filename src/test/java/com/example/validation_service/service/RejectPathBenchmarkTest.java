@@ -0,0 +1,99 @@
+package com.example.validation_service.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.validation_service.Throughput;
+import com.example.validation_service.dto.RawPaymentData;
+import com.example.validation_service.service.rules.AmountValidationRule;
+import com.example.validation_service.service.rules.CurrencyValidationRule;
+import com.example.validation_service.service.rules.ParticipantValidationRule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Throughput of rejecting payments in the schema and business rule stages, reported as {@link StageResult}s as
+ * {@link PaymentProcessingService} does now, and thrown and caught as {@link SchemaValidationException} and
+ * {@link BusinessValidationException} with their messages joined, as it did before. Logging of the stages is off
+ * so that only the reject path is measured.
+ */
+@Tag("benchmark")
+public class RejectPathBenchmarkTest {
+
+    private final SchemaValidationService schemaValidationService = new SchemaValidationService();
+    private final BusinessRuleValidatorService businessRuleValidatorService = new BusinessRuleValidatorService(List.of(
+            new AmountValidationRule("0.01", "1000.00"),
+            new CurrencyValidationRule("EUR"),
+            new ParticipantValidationRule("BANK")));
+    private Level previousLevel;
+
+    @BeforeEach
+    void silenceLogging() {
+        Logger root = (Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        previousLevel = root.getLevel();
+        root.setLevel(Level.OFF);
+    }
+
+    @AfterEach
+    void restoreLogging() {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(previousLevel);
+    }
+
+    @Test
+    void stageResultsRejectFasterThanExceptions(TestReporter reporter) {
+        RawPaymentData incomplete = payment("100.00", "EUR");
+        incomplete.setCurrency(null);
+        RawPaymentData overLimit = payment("5000.00", "USD");
+
+        ToIntFunction<RawPaymentData> results = data -> {
+            StageResult<RawPaymentData> schema = schemaValidationService.check(data);
+            if (schema.isRejected()) {
+                return schema.rejection().errors().size();
+            }
+            return businessRuleValidatorService.check(data).rejection().errors().size();
+        };
+        ToIntFunction<RawPaymentData> exceptions = data -> {
+            try {
+                schemaValidationService.validate(data);
+                businessRuleValidatorService.validate(data);
+                return 0;
+            } catch (SchemaValidationException e) {
+                return e.getMessage().length();
+            } catch (BusinessValidationException e) {
+                return String.join(", ", e.getValidationErrors()).length();
+            }
+        };
+
+        // Alternates a schema rejection and a business rule rejection with three errors
+        double resultRate = Throughput.measure(i -> results.applyAsInt((i & 1) == 0 ? incomplete : overLimit));
+        double exceptionRate = Throughput.measure(i -> exceptions.applyAsInt((i & 1) == 0 ? incomplete : overLimit));
+        reporter.publishEntry(Map.of(
+                "stage-results", String.format("%.0f ops/s", resultRate),
+                "exceptions", String.format("%.0f ops/s", exceptionRate)));
+        assertTrue(resultRate > exceptionRate,
+                "Stage results rejected " + resultRate + " ops/s, exceptions " + exceptionRate + " ops/s");
+    }
+
+    private static RawPaymentData payment(String amount, String currency) {
+        RawPaymentData data = new RawPaymentData();
+        data.setMsgId("MSG-REJECT");
+        data.setInstrId("INSTR-1");
+        data.setEndToEndId("E2E-1");
+        data.setDebtorName("Debtor");
+        data.setDebtorId("BANK-DEBTOR");
+        data.setCreditorName("Creditor");
+        data.setCreditorId("CUST-CREDITOR");
+        data.setAmount(amount);
+        data.setCurrency(currency);
+        return data;
+    }
+}
@@ -40,6 +40,28 @@ public class SchemaValidationServiceTest {
         assertDoesNotThrow(() -> schemaValidationService.validate(data));
     }
 
+    @Test
+    void testCheck_MissingField_ReturnsRejection() {
+        RawPaymentData data = createValidRawPaymentData();
+        data.setCurrency(null);
+
+        StageResult<RawPaymentData> result = schemaValidationService.check(data);
+
+        assertTrue(result.isRejected());
+        assertEquals("schema", result.rejection().errorType());
+        assertEquals("Schema validation failed: Currency (Ccy) is missing or empty.", result.rejection().message());
+    }
+
+    @Test
+    void testCheck_CompleteData_ReturnsIt() {
+        RawPaymentData data = createValidRawPaymentData();
+
+        StageResult<RawPaymentData> result = schemaValidationService.check(data);
+
+        assertFalse(result.isRejected());
+        assertSame(data, result.value());
+    }
+
     @Test
     void testValidate_NullRawPaymentData_ThrowsSchemaValidationException() {
         SchemaValidationException exception = assertThrows(SchemaValidationException.class, () -> {
@@ -104,4 +126,22 @@ public class SchemaValidationServiceTest {
             assertTrue(exception.getMessage().contains("EndToEndId is missing or empty."));
         }
     }
+
+    @Test
+    void testValidate_ConfiguredMandatoryFields() {
+        SchemaValidationService service = new SchemaValidationService("msgId, amount, currency, debtorId");
+        RawPaymentData data = createValidRawPaymentData();
+        data.setInstrId(null);
+        data.setEndToEndId(null);
+        assertDoesNotThrow(() -> service.validate(data));
+
+        data.setDebtorId(" ");
+        SchemaValidationException exception = assertThrows(SchemaValidationException.class, () -> service.validate(data));
+        assertEquals("Schema validation failed: Debtor ID (Dbtr.Id) is missing or empty.", exception.getMessage());
+    }
+
+    @Test
+    void testConstructor_UnknownMandatoryField_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new SchemaValidationService("msgId,iban"));
+    }
 }
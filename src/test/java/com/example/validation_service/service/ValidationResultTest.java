@@ -0,0 +1,70 @@
+package com.example.validation_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValidationResultTest {
+
+    @Test
+    void errorCodes_AreUnique() {
+        Set<String> codes = new HashSet<>();
+        for (ErrorCode code : ErrorCode.values()) {
+            assertTrue(codes.add(code.code()), "Duplicate error code " + code.code());
+        }
+    }
+
+    @Test
+    void format_SubstitutesArgumentsInOrder() {
+        assertEquals("Amount 0.001 is less than minimum allowed 0.01",
+                ErrorCode.AMOUNT_BELOW_MIN.format(new Object[]{"0.001", "0.01"}));
+        assertEquals("Debtor ID 'X1' does not start with a supported prefix. Supported prefixes: [BANK]",
+                ErrorCode.PARTICIPANT_PREFIX_UNSUPPORTED.format(new Object[]{"Debtor ID", "X1", List.of("BANK")}));
+        assertEquals("Amount is missing.", ErrorCode.AMOUNT_MISSING.format(new Object[0]));
+    }
+
+    @Test
+    void format_KeepsPlaceholdersWithoutArgument() {
+        assertEquals("Invalid amount format: {}", ErrorCode.AMOUNT_INVALID.format(new Object[0]));
+        assertEquals("Invalid amount format: null", ErrorCode.AMOUNT_INVALID.format(new Object[]{null}));
+    }
+
+    @Test
+    void addError_KeepsCodesAndRendersMessages() {
+        ValidationResult result = new ValidationResult();
+        result.addError(ErrorCode.CURRENCY_MISSING);
+        result.addError("Free text");
+
+        assertEquals(2, result.errorCount());
+        assertEquals(List.of(ErrorCode.CURRENCY_MISSING, ErrorCode.UNSPECIFIED),
+                result.errors().stream().map(ValidationError::code).toList());
+        assertEquals(List.of("Currency is missing.", "Free text"), result.getErrors());
+        assertEquals(List.of("CCY-001", "GEN-000"), ValidationError.codes(result.errors()));
+        assertEquals("Currency is missing., Free text", ValidationError.join(result.errors()));
+    }
+
+    @Test
+    void message_IsRenderedWhenRead() {
+        StringBuilder argument = new StringBuilder("EUR");
+        ValidationError error = new ValidationError(ErrorCode.CURRENCY_NOT_ALLOWED, argument, "[USD]");
+        argument.append("X");
+
+        assertEquals("Currency EURX is not allowed. Allowed currencies are: [USD]", error.message());
+    }
+
+    @Test
+    void businessValidationException_ExposesCodesAndMessages() {
+        ValidationResult result = new ValidationResult();
+        result.addError(ErrorCode.DUPLICATE, "MsgId", "M1");
+
+        BusinessValidationException exception = new BusinessValidationException(result);
+
+        assertEquals(ErrorCode.DUPLICATE, exception.getErrors().get(0).code());
+        assertEquals(List.of("Duplicate message detected: MsgId M1 is already processed."),
+                exception.getValidationErrors());
+    }
+}
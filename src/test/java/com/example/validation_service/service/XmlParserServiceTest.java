@@ -1,8 +1,17 @@
 package com.example.validation_service.service;
 
 import com.example.validation_service.dto.RawPaymentData;
+import com.example.validation_service.service.parser.ParserEngine;
+import com.example.validation_service.service.parser.ParserLimits;
+import com.example.validation_service.service.parser.XsdValidation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -62,6 +71,15 @@ public class XmlParserServiceTest {
         assertEquals("USD", result.getCurrency());
     }
 
+    @Test
+    void testParse_Utf8Bytes_SameAsString() throws XmlParsingException {
+        String xml = createValidXml("MSG001", "INSTR001", "ENDTOEND001", "Débiteur Zoë", "DEBTORID", "Creditor Name", "CREDITORID", "123.45", "USD");
+        RawPaymentData fromBytes = xmlParserService.parse(xml.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(xmlParserService.parse(xml), fromBytes);
+        assertEquals("Débiteur Zoë", fromBytes.getDebtorName());
+    }
+
     @Test
     void testParse_MalformedXml_ThrowsXmlParsingException() {
         String xml = "<Document><UnclosedTag>Test</Document>";
@@ -69,6 +87,8 @@ public class XmlParserServiceTest {
             xmlParserService.parse(xml);
         });
         assertTrue(exception.getMessage().contains("Error parsing XML"));
+        // A rejection, not a fault: no stack trace is captured
+        assertEquals(0, exception.getStackTrace().length);
     }
 
     @Test
@@ -157,6 +177,275 @@ public class XmlParserServiceTest {
     }
 
 
+    @Test
+    void testParse_CursorAndEventEngines_ProduceSameData() throws XmlParsingException {
+        // Nested Amt and a single Othr/Id per party are the shapes the original event loop understands
+        String xml =
+            "<Document xmlns=\"urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08\">" +
+            "  <FIToFICstmrCdtTrf>" +
+            "    <GrpHdr><MsgId>MSG001</MsgId></GrpHdr>" +
+            "    <CdtTrfTxInf>" +
+            "      <PmtId><InstrId>INSTR001</InstrId><EndToEndId>ENDTOEND001</EndToEndId></PmtId>" +
+            "      <InstdAmt Ccy=\"EUR\"><Amt>250.00</Amt></InstdAmt>" +
+            "      <Dbtr><Nm>Debtor Name</Nm><Id><OrgId><Othr><Id>BANK001</Id></Othr></OrgId></Id></Dbtr>" +
+            "      <Cdtr><Nm>Creditor Name</Nm><Id><PrvtId><Othr><Id>CUST002</Id></Othr></PrvtId></Id></Cdtr>" +
+            "    </CdtTrfTxInf>" +
+            "  </FIToFICstmrCdtTrf>" +
+            "</Document>";
+
+        RawPaymentData cursorResult = parser(ParserEngine.CURSOR, false, ParserLimits.defaults(), XsdValidation.off()).parse(xml);
+        RawPaymentData eventResult = parser(ParserEngine.EVENT, false, ParserLimits.defaults(), XsdValidation.off()).parse(xml);
+
+        assertEquals(eventResult, cursorResult);
+        assertEquals("250.00", cursorResult.getAmount());
+        assertEquals("BANK001", cursorResult.getDebtorId());
+        assertEquals("CUST002", cursorResult.getCreditorId());
+    }
+
+    @Test
+    void testParse_AgentIdentifiers_NotMistakenForPartyIds() throws XmlParsingException {
+        // DbtrAgt/CdtrAgt and the scheme code under Othr/SchmeNm must not leak into the party ids
+        String xml =
+            "<Document xmlns=\"urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08\">" +
+            "  <FIToFICstmrCdtTrf>" +
+            "    <GrpHdr><MsgId>MSG001</MsgId></GrpHdr>" +
+            "    <CdtTrfTxInf>" +
+            "      <PmtId><InstrId>INSTR001</InstrId><EndToEndId>ENDTOEND001</EndToEndId></PmtId>" +
+            "      <IntrBkSttlmAmt Ccy=\"EUR\">99.99</IntrBkSttlmAmt>" +
+            "      <Dbtr><Nm>Debtor Name</Nm><Id><PrvtId><Othr><SchmeNm><Cd>NIDN</Cd></SchmeNm><Id>BANK001</Id></Othr></PrvtId></Id></Dbtr>" +
+            "      <DbtrAgt><FinInstnId><BICFI>AGENTXXX</BICFI><Nm>Agent Name</Nm></FinInstnId></DbtrAgt>" +
+            "      <CdtrAgt><FinInstnId><BICFI>AGENTYYY</BICFI></FinInstnId></CdtrAgt>" +
+            "      <Cdtr><Nm>Creditor Name</Nm><Id><OrgId><LEI>CUST0000000000000002</LEI></OrgId></Id></Cdtr>" +
+            "    </CdtTrfTxInf>" +
+            "  </FIToFICstmrCdtTrf>" +
+            "</Document>";
+
+        RawPaymentData result = xmlParserService.parse(xml);
+
+        assertEquals("99.99", result.getAmount());
+        assertEquals("EUR", result.getCurrency());
+        assertEquals("Debtor Name", result.getDebtorName());
+        assertEquals("BANK001", result.getDebtorId());
+        assertEquals("CUST0000000000000002", result.getCreditorId());
+    }
+
+    @Test
+    void testParse_AllFieldsCaptured_StopsBeforeTrailingBlocks() throws XmlParsingException {
+        // Everything after the Cdtr block is unreadable, but all required fields are known by then
+        String xml = createValidXml("MSG001", "INSTR001", "ENDTOEND001", "Debtor Name", "DEBTORID", "Creditor Name", "CREDITORID", "123.45", "USD")
+            .replace("</Cdtr>", "</Cdtr><RmtInf><Ustrd>unclosed</RmtInf>");
+
+        RawPaymentData result = xmlParserService.parse(xml);
+        assertEquals("CREDITORID", result.getCreditorId());
+    }
+
+    @Test
+    void testParse_StrictMode_RejectsMalformedTrailingBlocks() {
+        String xml = createValidXml("MSG001", "INSTR001", "ENDTOEND001", "Debtor Name", "DEBTORID", "Creditor Name", "CREDITORID", "123.45", "USD")
+            .replace("</Cdtr>", "</Cdtr><RmtInf><Ustrd>unclosed</RmtInf>");
+
+        XmlParserService strictParser = parser(ParserEngine.CURSOR, true, ParserLimits.defaults(), XsdValidation.off());
+        XmlParsingException exception = assertThrows(XmlParsingException.class, () -> strictParser.parse(xml));
+        assertTrue(exception.getMessage().contains("Error parsing XML"));
+    }
+
+    @Test
+    void testParseTransactions_BulkMessage_EmitsOneRecordPerTransaction() throws XmlParsingException {
+        String xml =
+            "<Document xmlns=\"urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08\">" +
+            "  <FIToFICstmrCdtTrf>" +
+            "    <GrpHdr><MsgId>BULK001</MsgId><NbOfTxs>3</NbOfTxs></GrpHdr>" +
+            "    <CdtTrfTxInf>" +
+            "      <PmtId><InstrId>INSTR001</InstrId><EndToEndId>E2E001</EndToEndId></PmtId>" +
+            "      <IntrBkSttlmAmt Ccy=\"EUR\">10.00</IntrBkSttlmAmt>" +
+            "      <Dbtr><Nm>Debtor One</Nm><Id><OrgId><AnyBIC>DEBTORAA</AnyBIC></OrgId></Id></Dbtr>" +
+            "      <Cdtr><Nm>Creditor One</Nm><Id><OrgId><AnyBIC>CREDITAA</AnyBIC></OrgId></Id></Cdtr>" +
+            "      <RmtInf><Ustrd>invoice 1</Ustrd></RmtInf>" +
+            "    </CdtTrfTxInf>" +
+            "    <CdtTrfTxInf>" +
+            "      <PmtId><EndToEndId>E2E002</EndToEndId></PmtId>" +
+            "      <IntrBkSttlmAmt Ccy=\"USD\">20.00</IntrBkSttlmAmt>" +
+            "      <Dbtr><Nm>Debtor Two</Nm></Dbtr>" +
+            "    </CdtTrfTxInf>" +
+            "    <CdtTrfTxInf>" +
+            "      <PmtId><InstrId>INSTR003</InstrId><EndToEndId>E2E003</EndToEndId></PmtId>" +
+            "      <IntrBkSttlmAmt Ccy=\"GBP\">30.00</IntrBkSttlmAmt>" +
+            "    </CdtTrfTxInf>" +
+            "  </FIToFICstmrCdtTrf>" +
+            "</Document>";
+        List<RawPaymentData> transactions = new ArrayList<>();
+
+        int count = xmlParserService.parseTransactions(xml.getBytes(StandardCharsets.UTF_8), transactions::add);
+
+        assertEquals(3, count);
+        assertEquals(3, transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            assertEquals("BULK001", transactions.get(i).getMsgId());
+            assertEquals(i + 1, transactions.get(i).getTransactionSequence());
+        }
+        assertEquals("E2E001", transactions.get(0).getEndToEndId());
+        assertEquals("CREDITAA", transactions.get(0).getCreditorId());
+        // Fields of one transaction never leak into the next
+        assertNull(transactions.get(1).getInstrId());
+        assertNull(transactions.get(1).getCreditorName());
+        assertEquals("20.00", transactions.get(1).getAmount());
+        assertEquals("USD", transactions.get(1).getCurrency());
+        assertNull(transactions.get(2).getDebtorName());
+        assertEquals("INSTR003", transactions.get(2).getInstrId());
+        assertEquals("GBP", transactions.get(2).getCurrency());
+    }
+
+    @Test
+    void testParseTransactions_SingleTransaction_SameAsParse() throws XmlParsingException {
+        String xml = createValidXml("MSG001", "INSTR001", "ENDTOEND001", "Debtor Name", "DEBTORID", "Creditor Name", "CREDITORID", "123.45", "USD");
+        List<RawPaymentData> transactions = new ArrayList<>();
+
+        assertEquals(1, xmlParserService.parseTransactions(xml, transactions::add));
+
+        RawPaymentData expected = xmlParserService.parse(xml);
+        expected.setTransactionSequence(1);
+        assertEquals(expected, transactions.get(0));
+    }
+
+    @Test
+    void testParseTransactions_MalformedAfterFirstTransaction_ThrowsAfterEmitting() {
+        String xml = createValidXml("MSG001", "INSTR001", "ENDTOEND001", "Debtor Name", "DEBTORID", "Creditor Name", "CREDITORID", "123.45", "USD")
+            .replace("</CdtTrfTxInf>", "</CdtTrfTxInf><CdtTrfTxInf><PmtId></CdtTrfTxInf>");
+        List<RawPaymentData> transactions = new ArrayList<>();
+
+        XmlParsingException exception = assertThrows(XmlParsingException.class,
+                () -> xmlParserService.parseTransactions(xml, transactions::add));
+        assertTrue(exception.getMessage().contains("Error parsing XML"));
+        assertEquals(1, transactions.size());
+    }
+
+    @Test
+    void testParse_NestingBeyondDepthLimit_ThrowsPayloadLimitExceeded() {
+        // The deep structure sits in a block the extractor skips, so it must be caught while skipping
+        String xml = createValidXml("MSG001", "INSTR001", "ENDTOEND001", "Debtor Name", "DEBTORID", "Creditor Name", "CREDITORID", "123.45", "USD")
+            .replace("<PstlAdr/>", "<PstlAdr>" + "<X>".repeat(ParserLimits.DEFAULT_MAX_DEPTH) + "</X>".repeat(ParserLimits.DEFAULT_MAX_DEPTH) + "</PstlAdr>");
+
+        PayloadLimitExceededException exception = assertThrows(PayloadLimitExceededException.class,
+                () -> xmlParserService.parse(xml.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(ParserLimits.DEPTH, exception.getLimit());
+    }
+
+    @Test
+    void testParse_TextBeyondLengthLimit_ThrowsPayloadLimitExceeded() {
+        XmlParserService limitedParser = parser(ParserEngine.CURSOR, false,
+                new ParserLimits(ParserLimits.DEFAULT_MAX_PAYLOAD_BYTES, ParserLimits.DEFAULT_MAX_DEPTH, 16,
+                        ParserLimits.DEFAULT_MAX_ATTRIBUTES),
+                XsdValidation.off());
+        String xml = createValidXml("MSG001", "INSTR001", "ENDTOEND001", "A debtor name well over sixteen characters", "DEBTORID", "Creditor Name", "CREDITORID", "123.45", "USD");
+
+        PayloadLimitExceededException exception = assertThrows(PayloadLimitExceededException.class,
+                () -> limitedParser.parse(xml));
+        assertEquals(ParserLimits.TEXT_LENGTH, exception.getLimit());
+    }
+
+    @Test
+    void testParse_EventEngine_NestingBeyondDepthLimit_ThrowsPayloadLimitExceeded() {
+        XmlParserService eventParser = parser(ParserEngine.EVENT, false, ParserLimits.defaults(), XsdValidation.off());
+        String xml = createValidXml("MSG001", "INSTR001", "ENDTOEND001", "Debtor Name", "DEBTORID", "Creditor Name", "CREDITORID", "123.45", "USD")
+            .replace("<PstlAdr/>", "<PstlAdr>" + "<X>".repeat(ParserLimits.DEFAULT_MAX_DEPTH) + "</X>".repeat(ParserLimits.DEFAULT_MAX_DEPTH) + "</PstlAdr>");
+
+        PayloadLimitExceededException exception = assertThrows(PayloadLimitExceededException.class,
+                () -> eventParser.parse(xml));
+        assertEquals(ParserLimits.DEPTH, exception.getLimit());
+    }
+
+    @Test
+    void testParse_AttributesBeyondCountLimit_ThrowsPayloadLimitExceeded() {
+        String xml = createValidXml("MSG001", "INSTR001", "ENDTOEND001", "Debtor Name", "DEBTORID", "Creditor Name", "CREDITORID", "123.45", "USD")
+            .replace("<PstlAdr/>", "<PstlAdr" + manyAttributes(ParserLimits.DEFAULT_MAX_ATTRIBUTES + 1) + "/>");
+
+        for (ParserEngine engine : ParserEngine.values()) {
+            XmlParserService parser = parser(engine, false, ParserLimits.defaults(), XsdValidation.off());
+            PayloadLimitExceededException exception = assertThrows(PayloadLimitExceededException.class,
+                    () -> parser.parse(xml.getBytes(StandardCharsets.UTF_8)), engine.name());
+            assertEquals(ParserLimits.ATTRIBUTE_COUNT, exception.getLimit());
+        }
+    }
+
+    @Test
+    void testParse_AttributesAtCountLimit_Parses() throws XmlParsingException {
+        String xml = createValidXml("MSG001", "INSTR001", "ENDTOEND001", "Debtor Name", "DEBTORID", "Creditor Name", "CREDITORID", "123.45", "USD")
+            .replace("<PstlAdr/>", "<PstlAdr" + manyAttributes(ParserLimits.DEFAULT_MAX_ATTRIBUTES) + "/>");
+
+        assertEquals("MSG001", xmlParserService.parse(xml).getMsgId());
+    }
+
+    private static String manyAttributes(int count) {
+        StringBuilder attributes = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            attributes.append(" a").append(i).append("=\"x\"");
+        }
+        return attributes.toString();
+    }
+
+    private static XmlParserService parser(ParserEngine engine, boolean strict, ParserLimits limits,
+                                           XsdValidation xsdValidation) {
+        return new XmlParserService(engine.name(), strict, false,
+                new Resource[]{new ClassPathResource("extraction/pacs.008.spec")}, limits, xsdValidation);
+    }
+
+    private XmlParserService xsdValidatingParser(XsdValidation.Mode mode, int sampleRate) {
+        return parser(ParserEngine.CURSOR, false, ParserLimits.defaults(),
+                new XsdValidation(mode, sampleRate, new ClassPathResource("xsd/pacs.008.001.08-subset.xsd")));
+    }
+
+    @Test
+    void testParse_XsdAlways_ValidDocument_SameResultAsUnvalidated() throws XmlParsingException {
+        String xml = createValidXml("MSG001", "INSTR001", "ENDTOEND001", "Debtor Name", "DEBTORID", "Creditor Name", "CREDITORID", "123.45", "USD");
+
+        RawPaymentData result = xsdValidatingParser(XsdValidation.Mode.ALWAYS, 1).parse(xml.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(xmlParserService.parse(xml), result);
+    }
+
+    @Test
+    void testParse_XsdAlways_InvalidDocument_ThrowsXsdValidationException() {
+        // All extracted fields are present, the violation is in an element the extractor never looks at
+        String xml = createValidXml("MSG001", "INSTR001", "ENDTOEND001", "Debtor Name", "DEBTORID", "Creditor Name", "CREDITORID", "123.45", "USD")
+            .replace("2023-10-26T10:00:00", "yesterday");
+
+        XsdValidationException exception = assertThrows(XsdValidationException.class,
+                () -> xsdValidatingParser(XsdValidation.Mode.ALWAYS, 1).parse(xml));
+        assertTrue(exception.getMessage().startsWith("XSD validation failed"));
+    }
+
+    @Test
+    void testParse_XsdSampled_ValidatesOneInN() throws XmlParsingException {
+        XmlParserService sampledParser = xsdValidatingParser(XsdValidation.Mode.SAMPLED, 2);
+        String invalidXml = createValidXml("MSG001", "INSTR001", "ENDTOEND001", "Debtor Name", "DEBTORID", "Creditor Name", "CREDITORID", "123.45", "USD")
+            .replace("2023-10-26T10:00:00", "yesterday");
+
+        assertNotNull(sampledParser.parse(invalidXml));
+        assertThrows(XsdValidationException.class, () -> sampledParser.parse(invalidXml));
+        assertNotNull(sampledParser.parse(invalidXml));
+    }
+
+    @Test
+    void testParse_SupportedVersions_CarryMessageType() throws XmlParsingException {
+        String xml = createValidXml("MSG001", "INSTR001", "ENDTOEND001", "Debtor Name", "DEBTORID", "Creditor Name", "CREDITORID", "123.45", "USD");
+
+        assertEquals("pacs.008.001.08", xmlParserService.parse(xml).getMessageType());
+        RawPaymentData v10 = xmlParserService.parse(xml.replace("pacs.008.001.08", "pacs.008.001.10"));
+        assertEquals("pacs.008.001.10", v10.getMessageType());
+        assertEquals("CREDITORID", v10.getCreditorId());
+    }
+
+    @Test
+    void testParse_UnsupportedMessageType_RejectedBeforeParsing() {
+        // Not even well-formed: the namespace alone decides
+        String pacs004 = "<Document xmlns=\"urn:iso:std:iso:20022:tech:xsd:pacs.004.001.09\"><PmtRtr><GrpHdr><MsgId>RTR001";
+
+        UnsupportedMessageTypeException exception = assertThrows(UnsupportedMessageTypeException.class,
+                () -> xmlParserService.parse(pacs004.getBytes(StandardCharsets.UTF_8)));
+        assertEquals("urn:iso:std:iso:20022:tech:xsd:pacs.004.001.09", exception.getNamespace());
+        assertThrows(UnsupportedMessageTypeException.class, () -> xmlParserService.parseTransactions(pacs004, data -> fail()));
+    }
+
     @Test
     void testParse_XXEVulnerability_Safe() {
         // This test is more conceptual for StAX.
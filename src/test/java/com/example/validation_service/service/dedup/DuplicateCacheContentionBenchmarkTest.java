@@ -0,0 +1,75 @@
+package com.example.validation_service.service.dedup;
+
+import com.example.validation_service.Throughput;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.LongUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Throughput of the duplicate check on 16 threads against one thread, for the sharded cache and for the
+ * synchronized access-ordered {@link LinkedHashMap} it replaced. Every call inserts a new key, which is the common
+ * case for a payment stream. Skipped on machines with fewer than 16 processors, where more threads cannot be expected
+ * to add throughput.
+ */
+@Tag("benchmark")
+public class DuplicateCacheContentionBenchmarkTest {
+
+    private static final int CAPACITY = 1_000_000;
+    private static final long TTL_MILLIS = 3_600_000;
+    private static final int THREADS = 16;
+    // Fraction of linear scaling the sharded cache must reach at 16 threads
+    private static final double MIN_SCALING_EFFICIENCY = 0.7;
+
+    @Test
+    void shardedCacheScalesToSixteenThreads(TestReporter reporter) throws Exception {
+        assumeTrue(Runtime.getRuntime().availableProcessors() >= THREADS,
+                "Needs " + THREADS + " processors to measure scaling");
+
+        double single = Throughput.measure(1, shardedCache());
+        double sharded = Throughput.measure(THREADS, shardedCache());
+        double locked = Throughput.measure(THREADS, synchronizedLinkedHashMap());
+        double efficiency = sharded / (single * THREADS);
+        reporter.publishEntry(Map.of(
+                "sharded.1", String.format("%.0f ops/s", single),
+                "sharded.16", String.format("%.0f ops/s", sharded),
+                "synchronized.16", String.format("%.0f ops/s", locked),
+                "scaling", String.format("%.2f", efficiency)));
+
+        assertTrue(efficiency >= MIN_SCALING_EFFICIENCY,
+                "Sharded cache reached " + efficiency + " of linear scaling at " + THREADS + " threads");
+    }
+
+    // Keys are digested as DuplicateMessageRule does before the store sees them
+    private static IntFunction<LongUnaryOperator> shardedCache() {
+        ShardedDuplicateCache cache = new ShardedDuplicateCache(CAPACITY, TTL_MILLIS, 16, System::currentTimeMillis);
+        return thread -> {
+            String prefix = "T" + thread + "-";
+            return i -> cache.putIfAbsent(KeyDigest.of(prefix + i)) ? 1 : 0;
+        };
+    }
+
+    private static IntFunction<LongUnaryOperator> synchronizedLinkedHashMap() {
+        LinkedHashMap<String, Long> map = new LinkedHashMap<>(CAPACITY, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > CAPACITY;
+            }
+        };
+        return thread -> {
+            String prefix = "T" + thread + "-";
+            return i -> {
+                synchronized (map) {
+                    return map.putIfAbsent(prefix + i, System.currentTimeMillis()) == null ? 1 : 0;
+                }
+            };
+        };
+    }
+}
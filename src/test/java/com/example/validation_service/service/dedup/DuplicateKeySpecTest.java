@@ -0,0 +1,56 @@
+package com.example.validation_service.service.dedup;
+
+import com.example.validation_service.dto.PaymentField;
+import com.example.validation_service.dto.RawPaymentData;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DuplicateKeySpecTest {
+
+    private static RawPaymentData payment(String msgId, String debtorId, String endToEndId, int sequence) {
+        RawPaymentData data = new RawPaymentData();
+        data.setMsgId(msgId);
+        data.setDebtorId(debtorId);
+        data.setEndToEndId(endToEndId);
+        data.setTransactionSequence(sequence);
+        return data;
+    }
+
+    @Test
+    void testDigest_MsgIdKeyMatchesDigestOfMsgId() {
+        DuplicateKeySpec spec = DuplicateKeySpec.parse("msgId");
+        assertEquals(KeyDigest.of("MSG001"), spec.digest(payment("MSG001", "BANK1", "E2E1", 0)));
+        assertEquals(KeyDigest.of("MSG001"), spec.digest(payment("MSG001", "BANK1", "E2E1", 1)));
+        assertEquals(KeyDigest.of("MSG001#2"), spec.digest(payment("MSG001", "BANK1", "E2E2", 2)));
+        assertEquals("MSG001#2", spec.describe(payment("MSG001", "BANK1", "E2E2", 2)));
+        assertEquals("MsgId", spec.label());
+    }
+
+    @Test
+    void testDigest_CompositeKeyIgnoresTransactionSequence() {
+        DuplicateKeySpec spec = DuplicateKeySpec.parse(" debtorId , endToEndId ");
+        KeyDigest first = spec.digest(payment("MSG001", "BANK1", "E2E1", 1));
+
+        assertEquals(first, spec.digest(payment("MSG002", "BANK1", "E2E1", 3)), "Same agent and EndToEndId in another message");
+        assertNotEquals(first, spec.digest(payment("MSG001", "BANK2", "E2E1", 1)));
+        // Field boundaries are part of the key
+        assertNotEquals(spec.digest(payment("M", "AB", "C", 1)), spec.digest(payment("M", "A", "BC", 1)));
+        assertEquals("BANK1/E2E1", spec.describe(payment("MSG001", "BANK1", "E2E1", 3)));
+        assertEquals("Debtor ID (Dbtr.Id)/EndToEndId", spec.label());
+    }
+
+    @Test
+    void testMissingField_ReturnsFirstBlankKeyField() {
+        DuplicateKeySpec spec = DuplicateKeySpec.parse("debtorId,endToEndId");
+        assertNull(spec.missingField(payment("MSG001", "BANK1", "E2E1", 0)));
+        assertEquals(PaymentField.END_TO_END_ID, spec.missingField(payment("MSG001", "BANK1", " ", 0)));
+        assertEquals(PaymentField.DEBTOR_ID, spec.missingField(payment("MSG001", null, null, 0)));
+    }
+
+    @Test
+    void testParse_InvalidFieldsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> DuplicateKeySpec.parse(" , "));
+        assertThrows(IllegalArgumentException.class, () -> DuplicateKeySpec.parse("msgId,instgAgt"));
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.validation_service.service.dedup;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DuplicateWarmUpTest {
+
+    private static final String TOPIC = "instant.payment.validated";
+    private static final long TTL_MILLIS = 60_000;
+    private static final long NOW = 1_000_000L;
+
+    private final AtomicLong currentTime = new AtomicLong(NOW);
+    private final ShardedDuplicateCache store = new ShardedDuplicateCache(1000, TTL_MILLIS, 1, currentTime::get);
+    private final List<WindowConsumer> consumers = new CopyOnWriteArrayList<>();
+
+    // Per partition: record keys with their timestamps
+    private final Map<Integer, List<Object[]>> topic = new HashMap<>();
+
+    /**
+     * MockConsumer serving the test topic; offsetsForTimes is not implemented by MockConsumer itself.
+     */
+    private final class WindowConsumer extends MockConsumer<String, byte[]> {
+
+        WindowConsumer() {
+            super(OffsetResetStrategy.EARLIEST);
+            List<PartitionInfo> partitions = new ArrayList<>();
+            Map<TopicPartition, Long> beginning = new HashMap<>();
+            Map<TopicPartition, Long> end = new HashMap<>();
+            topic.forEach((partition, records) -> {
+                partitions.add(new PartitionInfo(TOPIC, partition, null, null, null));
+                beginning.put(new TopicPartition(TOPIC, partition), 0L);
+                end.put(new TopicPartition(TOPIC, partition), (long) records.size());
+            });
+            updatePartitions(TOPIC, partitions);
+            updateBeginningOffsets(beginning);
+            updateEndOffsets(end);
+            schedulePollTask(() -> {
+                for (TopicPartition assigned : assignment()) {
+                    List<Object[]> records = topic.get(assigned.partition());
+                    for (long offset = position(assigned); offset < records.size(); offset++) {
+                        Object[] record = records.get((int) offset);
+                        addRecord(new ConsumerRecord<>(TOPIC, assigned.partition(), offset, (long) record[1],
+                                TimestampType.CREATE_TIME, 0, 0, (String) record[0], new byte[0], new RecordHeaders(), Optional.empty()));
+                    }
+                }
+            });
+        }
+
+        @Override
+        public synchronized Map<TopicPartition, OffsetAndTimestamp> offsetsForTimes(Map<TopicPartition, Long> timestamps,
+                                                                                    Duration timeout) {
+            Map<TopicPartition, OffsetAndTimestamp> offsets = new HashMap<>();
+            timestamps.forEach((partition, timestamp) -> {
+                List<Object[]> records = topic.get(partition.partition());
+                for (int offset = 0; offset < records.size(); offset++) {
+                    if ((long) records.get(offset)[1] >= timestamp) {
+                        offsets.put(partition, new OffsetAndTimestamp(offset, (long) records.get(offset)[1]));
+                        break;
+                    }
+                }
+            });
+            return offsets;
+        }
+    }
+
+    private void publish(int partition, String key, long timestamp) {
+        topic.computeIfAbsent(partition, p -> new ArrayList<>()).add(new Object[]{key, timestamp});
+    }
+
+    private DuplicateWarmUp warmUp(boolean enabled, Duration budget) {
+        return new DuplicateWarmUp(TOPIC, store, () -> {
+            WindowConsumer consumer = new WindowConsumer();
+            consumers.add(consumer);
+            return consumer;
+        }, TTL_MILLIS, budget, 2, enabled, currentTime::get);
+    }
+
+    @Test
+    void testStart_RestoresKeysWithinWindowFromAllPartitions() {
+        publish(0, "MSG001", NOW - TTL_MILLIS - 1);
+        publish(0, "MSG002", NOW - 1000);
+        publish(1, "MSG003", NOW - 2000);
+        publish(1, null, NOW - 1000);
+        publish(2, "MSG004", NOW - TTL_MILLIS - 5);
+
+        DuplicateWarmUp warmUp = warmUp(true, Duration.ofSeconds(10));
+        assertEquals(Status.OUT_OF_SERVICE, warmUp.health().getStatus());
+        warmUp.start();
+
+        assertEquals(DuplicateWarmUp.State.COMPLETE, warmUp.state());
+        assertEquals(2, warmUp.restored());
+        assertEquals(Status.UP, warmUp.health().getStatus());
+        assertTrue(store.putIfAbsent(KeyDigest.of("MSG001")), "Key older than the window is not restored");
+        assertFalse(store.putIfAbsent(KeyDigest.of("MSG002")));
+        assertFalse(store.putIfAbsent(KeyDigest.of("MSG003")));
+        assertTrue(store.putIfAbsent(KeyDigest.of("MSG004")));
+        // One consumer to list partitions, then one per group of partitions
+        assertEquals(3, consumers.size());
+        consumers.forEach(consumer -> assertTrue(consumer.closed()));
+    }
+
+    @Test
+    void testStart_RestoredKeysExpireFromTheirOriginalTimestamp() {
+        publish(0, "MSG001", NOW - TTL_MILLIS + 1000);
+
+        warmUp(true, Duration.ofSeconds(10)).start();
+
+        assertFalse(store.putIfAbsent(KeyDigest.of("MSG001")));
+        currentTime.addAndGet(1000);
+        assertTrue(store.putIfAbsent(KeyDigest.of("MSG001")), "Key expires one TTL after it was published");
+    }
+
+    @Test
+    void testStart_BudgetExceededLeavesWarmUpIncomplete() {
+        publish(0, "MSG001", NOW - 1000);
+
+        DuplicateWarmUp warmUp = warmUp(true, Duration.ZERO);
+        warmUp.start();
+
+        assertEquals(DuplicateWarmUp.State.INCOMPLETE, warmUp.state());
+        assertEquals(Status.UP, warmUp.health().getStatus(), "Listeners start with whatever was restored");
+    }
+
+    @Test
+    void testStart_DisabledSkipsWarmUp() {
+        publish(0, "MSG001", NOW - 1000);
+
+        DuplicateWarmUp warmUp = warmUp(false, Duration.ofSeconds(10));
+        warmUp.start();
+
+        assertEquals(DuplicateWarmUp.State.SKIPPED, warmUp.state());
+        assertTrue(consumers.isEmpty());
+        assertTrue(warmUp.isRunning());
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.validation_service.service.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeyDigestTest {
+
+    private static final List<String> KEYS = List.of("", "a", "MSG001", "exactly sixteen!", "seventeen chars!!",
+            "BANK1\u001fE2E-0001\u001fMSG-2024-000001#12", "Zürich Kantonalbank", "東京銀行", "💶 euro note",
+            "lone \uD800 high", "lone \uDC00 low", "trailing high \uD800");
+
+    @Test
+    void testOf_MatchesMurmur3ReferenceValueAcrossBlocks() {
+        // MurmurHash3_x64_128 of 43 bytes, seed 0: two blocks and an 11-byte tail
+        KeyDigest digest = KeyDigest.of("The quick brown fox jumps over the lazy dog");
+        assertEquals(0xe34bbc7bbc071b6cL, digest.high());
+        assertEquals(0x7a433ca9c49a9347L, digest.low());
+    }
+
+    @Test
+    void testOf_HashesTheUtf8BytesOfTheKey() {
+        for (String key : KEYS) {
+            assertEquals(reference(key.getBytes(StandardCharsets.UTF_8)), KeyDigest.of(key), key);
+        }
+    }
+
+    @Test
+    void testHasher_PiecesDigestLikeTheJoinedKey() {
+        KeyDigest.Hasher hasher = new KeyDigest.Hasher();
+        for (String key : KEYS) {
+            for (int split = 0; split <= key.length(); split++) {
+                hasher.append(key.substring(0, split)).append(key.substring(split));
+                assertEquals(KeyDigest.of(key), hasher.digest(), key + " split at " + split);
+            }
+        }
+        assertEquals(KeyDigest.of("MSG001#12"), hasher.append("MSG001").append('#').append(12).digest());
+        assertEquals(KeyDigest.of("null0"), hasher.append((String) null).append(0).digest());
+    }
+
+    // The byte-array MurmurHash3_x64_128 that KeyDigest.of used before keys were hashed as they are encoded
+    private static KeyDigest reference(byte[] data) {
+        long h1 = 0;
+        long h2 = 0;
+        int blocks = data.length / 16;
+        for (int i = 0; i < blocks; i++) {
+            h1 ^= mixK1(littleEndianLong(data, i * 16, 8));
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= mixK2(littleEndianLong(data, i * 16 + 8, 8));
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        int tail = blocks * 16;
+        int tailLength = data.length - tail;
+        if (tailLength > 8) {
+            h2 ^= mixK2(littleEndianLong(data, tail + 8, tailLength - 8));
+        }
+        if (tailLength > 0) {
+            h1 ^= mixK1(littleEndianLong(data, tail, Math.min(8, tailLength)));
+        }
+        h1 ^= data.length;
+        h2 ^= data.length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new KeyDigest(h1, h2);
+    }
+
+    private static long littleEndianLong(byte[] data, int offset, int length) {
+        long value = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            value = (value << 8) | (data[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * 0x87c37b91114253d5L, 31) * 0x4cf5ad432745937fL;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * 0x4cf5ad432745937fL, 33) * 0x87c37b91114253d5L;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.validation_service.service.dedup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedDuplicateStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicLong currentTime = new AtomicLong(1_000_000L);
+
+    private MappedDuplicateStore open(long capacity, long ttlMillis) {
+        return new MappedDuplicateStore(tempDir.resolve("dedup/ids.dat"), capacity, ttlMillis, currentTime::get);
+    }
+
+    @Test
+    void testPutIfAbsent_DetectsDuplicates() {
+        try (MappedDuplicateStore store = open(1024, 0)) {
+            assertTrue(store.putIfAbsent(KeyDigest.of("MSG001")));
+            assertTrue(store.putIfAbsent(KeyDigest.of("MSG002")));
+            assertFalse(store.putIfAbsent(KeyDigest.of("MSG001")));
+            assertEquals(2, store.size());
+        }
+    }
+
+    @Test
+    void testRecord_RecordedKeyIsDuplicate() {
+        try (MappedDuplicateStore store = open(1024, 60_000)) {
+            store.record(KeyDigest.of("MSG001"));
+            assertFalse(store.putIfAbsent(KeyDigest.of("MSG001")));
+            currentTime.addAndGet(60_000);
+            // The expired slot is reused without comparing keys
+            store.record(KeyDigest.of("MSG001"));
+            assertFalse(store.putIfAbsent(KeyDigest.of("MSG001")));
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    void testRestore_KeepsOriginalInsertionTime() {
+        try (MappedDuplicateStore store = open(1024, 60_000)) {
+            store.restore(KeyDigest.of("MSG001"), 1_000_000L - 50_000);
+            store.restore(KeyDigest.of("MSG002"), 1_000_000L - 60_000);
+            assertEquals(1, store.size(), "Key already expired is not restored");
+            assertFalse(store.putIfAbsent(KeyDigest.of("MSG001")));
+            currentTime.addAndGet(10_000);
+            assertTrue(store.putIfAbsent(KeyDigest.of("MSG001")));
+        }
+    }
+
+    @Test
+    void testReopen_KeepsKeysAcrossRestart() {
+        try (MappedDuplicateStore store = open(1024, 60_000)) {
+            assertTrue(store.putIfAbsent(KeyDigest.of("MSG001")));
+            assertTrue(store.putIfAbsent(KeyDigest.of("MSG002#2")));
+        }
+        try (MappedDuplicateStore reopened = open(1024, 60_000)) {
+            assertEquals(2, reopened.size());
+            assertFalse(reopened.putIfAbsent(KeyDigest.of("MSG001")));
+            assertFalse(reopened.putIfAbsent(KeyDigest.of("MSG002#2")));
+            assertTrue(reopened.putIfAbsent(KeyDigest.of("MSG003")));
+        }
+    }
+
+    @Test
+    void testReopen_DifferentCapacityStartsEmpty() throws Exception {
+        try (MappedDuplicateStore store = open(1024, 0)) {
+            store.putIfAbsent(KeyDigest.of("MSG001"));
+        }
+        try (MappedDuplicateStore resized = open(4096, 0)) {
+            assertEquals(0, resized.size());
+            assertTrue(resized.putIfAbsent(KeyDigest.of("MSG001")));
+            assertEquals(MappedDuplicateStore.HEADER_BYTES + 512L * MappedDuplicateStore.BUCKET_BYTES,
+                    Files.size(resized.path()));
+        }
+    }
+
+    @Test
+    void testPutIfAbsent_ExpiredKeyIsAcceptedAgain() {
+        try (MappedDuplicateStore store = open(1024, 1000)) {
+            assertTrue(store.putIfAbsent(KeyDigest.of("MSG001")));
+            currentTime.addAndGet(999);
+            assertFalse(store.putIfAbsent(KeyDigest.of("MSG001")));
+            currentTime.addAndGet(1);
+            assertTrue(store.putIfAbsent(KeyDigest.of("MSG001")));
+            assertFalse(store.putIfAbsent(KeyDigest.of("MSG001")));
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    void testPutIfAbsent_FullBucketOverwritesOldestKey() {
+        // Capacity for a single bucket, so every key competes for the same slots
+        try (MappedDuplicateStore store = open(MappedDuplicateStore.WAYS, 0)) {
+            for (int i = 0; i < MappedDuplicateStore.WAYS; i++) {
+                assertTrue(store.putIfAbsent(KeyDigest.of("MSG" + i)));
+                currentTime.incrementAndGet();
+            }
+            assertTrue(store.putIfAbsent(KeyDigest.of("MSG-NEW")));
+            assertEquals(MappedDuplicateStore.WAYS, store.size());
+            assertFalse(store.putIfAbsent(KeyDigest.of("MSG-NEW")));
+            assertFalse(store.putIfAbsent(KeyDigest.of("MSG1")));
+            assertTrue(store.putIfAbsent(KeyDigest.of("MSG0")), "The oldest key should have been overwritten");
+        }
+    }
+
+    @Test
+    void testConstructor_CapacityBeyondSingleMappingRejected() {
+        assertThrows(IllegalArgumentException.class, () -> open(Integer.MAX_VALUE * 2L, 0));
+    }
+
+    @Test
+    void testKeyDigest_MatchesMurmur3ReferenceValue() {
+        // MurmurHash3_x64_128("hello", seed 0): h1 = cbd8a7b341bd9b02, h2 = 5b1e906a48ae1d19
+        KeyDigest digest = KeyDigest.of("hello");
+        assertEquals(0xcbd8a7b341bd9b02L, digest.high());
+        assertEquals(0x5b1e906a48ae1d19L, digest.low());
+        assertEquals(KeyDigest.of("MSG001"), KeyDigest.of("MSG001"));
+        assertNotEquals(KeyDigest.of("MSG001"), KeyDigest.of("MSG002"));
+        assertEquals(digest, KeyDigest.parse(digest.toString()));
+        assertThrows(IllegalArgumentException.class, () -> KeyDigest.parse("MSG001"));
+    }
+}
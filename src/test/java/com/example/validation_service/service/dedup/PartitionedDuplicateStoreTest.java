@@ -0,0 +1,98 @@
+package com.example.validation_service.service.dedup;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartitionedDuplicateStoreTest {
+
+    private static final String INBOUND = "instant.payment.inbound";
+    private static final String CHANGELOG = "duplicate-changelog";
+    private static final long TTL_MILLIS = 60_000;
+
+    private final AtomicLong currentTime = new AtomicLong(1_000_000L);
+    private MockProducer<String, String> producer;
+    private MockConsumer<String, String> restoreConsumer;
+    private PartitionedDuplicateStore store;
+
+    @BeforeEach
+    void setUp() {
+        producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        restoreConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        store = new PartitionedDuplicateStore(INBOUND, CHANGELOG, producer, () -> restoreConsumer,
+                Duration.ofSeconds(5), 1000, TTL_MILLIS, 16, currentTime::get);
+    }
+
+    private void changelog(int partition, String... keysAndTimestamps) {
+        TopicPartition topicPartition = new TopicPartition(CHANGELOG, partition);
+        restoreConsumer.updateBeginningOffsets(Map.of(topicPartition, 0L));
+        // Records can only be added once the store has assigned the partition to the restore consumer
+        restoreConsumer.schedulePollTask(() -> {
+            for (int i = 0; i < keysAndTimestamps.length; i += 2) {
+                restoreConsumer.addRecord(new ConsumerRecord<>(CHANGELOG, partition, i / 2, keysAndTimestamps[i], keysAndTimestamps[i + 1]));
+            }
+        });
+        restoreConsumer.updateEndOffsets(Map.of(topicPartition, (long) keysAndTimestamps.length / 2));
+    }
+
+    private static String hex(String key) {
+        return KeyDigest.of(key).toString();
+    }
+
+    @Test
+    void testPutIfAbsent_KeysAreScopedByPartitionAndLogged() {
+        assertTrue(store.putIfAbsent(0, KeyDigest.of("MSG001")));
+        assertFalse(store.putIfAbsent(0, KeyDigest.of("MSG001")));
+        assertTrue(store.putIfAbsent(1, KeyDigest.of("MSG001")));
+
+        List<ProducerRecord<String, String>> written = producer.history();
+        assertEquals(2, written.size());
+        assertEquals(CHANGELOG, written.get(0).topic());
+        assertEquals(0, written.get(0).partition());
+        assertEquals(KeyDigest.of("MSG001").toString(), written.get(0).key());
+        assertEquals("1000000", written.get(0).value());
+        assertEquals(1, written.get(1).partition());
+    }
+
+    @Test
+    void testOnPartitionsAssigned_RestoresUnexpiredKeysFromChangelog() {
+        changelog(2, hex("MSG001"), "999000", hex("MSG002"), Long.toString(1_000_000L - TTL_MILLIS),
+                hex("MSG003"), "not-a-time", "MSG004", "999000");
+
+        store.onPartitionsAssigned(List.of(new TopicPartition(INBOUND, 2)));
+
+        assertFalse(store.putIfAbsent(2, KeyDigest.of("MSG001")), "Restored key is a duplicate");
+        assertTrue(store.putIfAbsent(2, KeyDigest.of("MSG002")), "Expired changelog entry is not restored");
+        assertTrue(store.putIfAbsent(2, KeyDigest.of("MSG003")), "Invalid timestamp is skipped");
+        assertTrue(store.putIfAbsent(2, KeyDigest.of("MSG004")), "Key that is not a digest is skipped");
+        assertTrue(restoreConsumer.closed());
+    }
+
+    @Test
+    void testOnPartitionsRevoked_DropsPartitionState() {
+        assertTrue(store.putIfAbsent(4, KeyDigest.of("MSG001")));
+        store.onPartitionsRevoked(List.of(new TopicPartition(INBOUND, 4)));
+        assertEquals(0, store.size());
+        assertTrue(store.putIfAbsent(4, KeyDigest.of("MSG001")));
+    }
+
+    @Test
+    void testPutIfAbsent_UnknownPartitionIsNotLogged() {
+        assertTrue(store.putIfAbsent(-1, KeyDigest.of("MSG001")));
+        assertFalse(store.putIfAbsent(KeyDigest.of("MSG001")));
+        assertTrue(producer.history().isEmpty());
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.validation_service.service.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedDuplicateCacheTest {
+
+    private final AtomicLong currentTime = new AtomicLong(1000L);
+
+    @Test
+    void testShardCount_SmallCacheUsesOneShard() {
+        assertEquals(1, new ShardedDuplicateCache(100, 0, 16, currentTime::get).shardCount());
+        assertEquals(4, new ShardedDuplicateCache(5 * ShardedDuplicateCache.MIN_SHARD_CAPACITY, 0, 16, currentTime::get).shardCount());
+        assertEquals(16, new ShardedDuplicateCache(100_000, 0, 16, currentTime::get).shardCount());
+        assertEquals(8, new ShardedDuplicateCache(100_000, 0, 12, currentTime::get).shardCount());
+    }
+
+    @Test
+    void testPutIfAbsent_SizeStaysWithinCapacity() {
+        ShardedDuplicateCache cache = new ShardedDuplicateCache(1024, 0, 16, currentTime::get);
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(cache.putIfAbsent(KeyDigest.of("MSG" + i)));
+        }
+        assertTrue(cache.size() <= 1024, "size " + cache.size());
+        assertFalse(cache.putIfAbsent(KeyDigest.of("MSG9999")));
+    }
+
+    @Test
+    void testRemoveExpired_RemovesOnlyExpiredEntries() {
+        ShardedDuplicateCache cache = new ShardedDuplicateCache(10, 1000, 16, currentTime::get);
+        cache.putIfAbsent(KeyDigest.of("MSG001"));
+        cache.putIfAbsent(KeyDigest.of("MSG002"));
+        currentTime.set(1500L);
+        cache.putIfAbsent(KeyDigest.of("MSG003"));
+
+        currentTime.set(2200L);
+        assertEquals(2, cache.removeExpired());
+        assertEquals(1, cache.size());
+        assertFalse(cache.putIfAbsent(KeyDigest.of("MSG003")));
+        assertTrue(cache.putIfAbsent(KeyDigest.of("MSG001")));
+    }
+
+    @Test
+    void testPutIfAbsent_ExpiredEntryIsReplaced() {
+        ShardedDuplicateCache cache = new ShardedDuplicateCache(10, 1000, 16, currentTime::get);
+        cache.putIfAbsent(KeyDigest.of("MSG001"));
+        currentTime.set(2000L);
+        assertTrue(cache.putIfAbsent(KeyDigest.of("MSG001")));
+        assertEquals(1, cache.size());
+        // The replaced entry's queue node is stale and must not remove the live one
+        assertEquals(0, cache.removeExpired());
+        assertFalse(cache.putIfAbsent(KeyDigest.of("MSG001")));
+    }
+
+    @Test
+    void testRecord_ReplacesExpiredEntry() {
+        ShardedDuplicateCache cache = new ShardedDuplicateCache(10, 1000, 16, currentTime::get);
+        cache.record(KeyDigest.of("MSG001"));
+        assertFalse(cache.putIfAbsent(KeyDigest.of("MSG001")));
+        currentTime.set(2000L);
+        cache.record(KeyDigest.of("MSG001"));
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.removeExpired());
+        assertFalse(cache.putIfAbsent(KeyDigest.of("MSG001")));
+    }
+
+    @Test
+    void testPutIfAbsent_ConcurrentCallersRecordEachKeyOnce() throws Exception {
+        ShardedDuplicateCache cache = new ShardedDuplicateCache(100_000, 0, 16, currentTime::get);
+        int threads = 8;
+        int keys = 5_000;
+        AtomicInteger recorded = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < keys; i++) {
+                        if (cache.putIfAbsent(KeyDigest.of("MSG" + i))) {
+                            recorded.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(keys, recorded.get());
+        assertEquals(keys, cache.size());
+    }
+
+    @Test
+    void testRemoveExpired_ConcurrentWithEvictionLeavesNoEntryBehind() throws Exception {
+        // One shard over capacity, so that puts evict from the queue head that removeExpired drains
+        ShardedDuplicateCache cache = new ShardedDuplicateCache(ShardedDuplicateCache.MIN_SHARD_CAPACITY, 10, 1,
+                currentTime::get);
+        int threads = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        try {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 20_000; i++) {
+                        // Few keys, re-inserted as they expire, so the queue holds nodes for equal digests
+                        cache.putIfAbsent(KeyDigest.of("MSG" + (i % 100)));
+                        currentTime.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 20_000; i++) {
+                    cache.removeExpired();
+                }
+                return null;
+            });
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Every entry left in the map is still reachable from the queue, so all of them expire
+        currentTime.addAndGet(1000L);
+        cache.removeExpired();
+        assertEquals(0, cache.size());
+    }
+}
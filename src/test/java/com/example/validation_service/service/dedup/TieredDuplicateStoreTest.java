@@ -0,0 +1,179 @@
+package com.example.validation_service.service.dedup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TieredDuplicateStoreTest {
+
+    private static final long WINDOW_MILLIS = 3000;
+
+    private final AtomicLong currentTime = new AtomicLong(1000L);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RotatingBloomFilter filter(long expectedInsertions, double falsePositiveRate) {
+        return new RotatingBloomFilter(expectedInsertions, falsePositiveRate, WINDOW_MILLIS, 4, currentTime::get);
+    }
+
+    private ShardedDuplicateCache exactStore() {
+        return new ShardedDuplicateCache(100_000, WINDOW_MILLIS, 16, currentTime::get);
+    }
+
+    @Test
+    void testPutIfAbsent_NewKeysSkipConfirmation() {
+        RotatingBloomFilter filter = filter(10_000, 0.01);
+        TieredDuplicateStore store = new TieredDuplicateStore(filter, exactStore(), meterRegistry);
+        assertTrue(store.putIfAbsent(KeyDigest.of("MSG001")));
+        assertTrue(store.putIfAbsent(KeyDigest.of("MSG002")));
+        assertFalse(store.putIfAbsent(KeyDigest.of("MSG001")));
+
+        assertEquals(3, meterRegistry.counter("payment.validation.duplicate.filter.checks").count());
+        assertEquals(1, meterRegistry.counter("payment.validation.duplicate.filter.confirmations").count());
+        assertEquals(0, meterRegistry.counter("payment.validation.duplicate.filter.false-positives").count());
+        assertEquals(2, store.size());
+        assertEquals(filter.memoryBytes(), meterRegistry.get("payment.validation.duplicate.filter.memory").gauge().value());
+    }
+
+    @Test
+    void testPutIfAbsent_FilterNegativeKeysAreNotLookedUp() {
+        List<KeyDigest> lookedUp = new ArrayList<>();
+        List<KeyDigest> recorded = new ArrayList<>();
+        ShardedDuplicateCache cache = exactStore();
+        DuplicateStore exact = new DuplicateStore() {
+            @Override
+            public boolean putIfAbsent(KeyDigest key) {
+                lookedUp.add(key);
+                return cache.putIfAbsent(key);
+            }
+
+            @Override
+            public void record(KeyDigest key) {
+                recorded.add(key);
+                cache.record(key);
+            }
+
+            @Override
+            public long size() {
+                return cache.size();
+            }
+        };
+        TieredDuplicateStore store = new TieredDuplicateStore(filter(10_000, 0.001), exact, meterRegistry);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(store.putIfAbsent(KeyDigest.of("MSG" + i)));
+        }
+        assertFalse(store.putIfAbsent(KeyDigest.of("MSG7")));
+
+        assertEquals(List.of(KeyDigest.of("MSG7")), lookedUp);
+        assertEquals(100, recorded.size());
+        assertEquals(100, store.size());
+    }
+
+    @Test
+    void testPutIfAbsent_ConcurrentCallersWithTheSameKeyAcceptItOnce() throws Exception {
+        ShardedDuplicateCache cache = exactStore();
+        DuplicateStore slowExact = new DuplicateStore() {
+            @Override
+            public boolean putIfAbsent(KeyDigest key) {
+                return cache.putIfAbsent(key);
+            }
+
+            @Override
+            public void record(KeyDigest key) {
+                // Leaves the other callers time to check the key before it is recorded
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                cache.record(key);
+            }
+
+            @Override
+            public long size() {
+                return cache.size();
+            }
+        };
+        TieredDuplicateStore store = new TieredDuplicateStore(filter(10_000, 0.01), slowExact, meterRegistry);
+        int threads = 8;
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    start.await();
+                    if (store.putIfAbsent(KeyDigest.of("MSG001"))) {
+                        accepted.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, accepted.get());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testPutIfAbsent_FalsePositiveIsConfirmedAsNew() {
+        // A one-word filter answers "maybe" for almost everything once a few keys are in
+        TieredDuplicateStore store = new TieredDuplicateStore(filter(1, 0.5), exactStore(), meterRegistry);
+        for (int i = 0; i < 200; i++) {
+            assertTrue(store.putIfAbsent(KeyDigest.of("MSG" + i)), "MSG" + i + " is new");
+        }
+        double falsePositives = meterRegistry.counter("payment.validation.duplicate.filter.false-positives").count();
+        assertTrue(falsePositives > 0);
+        assertEquals(falsePositives, meterRegistry.counter("payment.validation.duplicate.filter.confirmations").count());
+        assertEquals(falsePositives / 200, meterRegistry.get("payment.validation.duplicate.filter.false-positive-rate").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void testFilter_RemembersKeysForTheWindow() {
+        RotatingBloomFilter filter = filter(10_000, 0.001);
+        KeyDigest digest = KeyDigest.of("MSG001");
+        filter.put(digest);
+        // Generations last window / 3; a key survives three rotations and is gone after the fourth
+        for (int rotation = 1; rotation <= 3; rotation++) {
+            currentTime.addAndGet(WINDOW_MILLIS / 3);
+            assertTrue(filter.mightContain(digest), "after rotation " + rotation);
+        }
+        currentTime.addAndGet(WINDOW_MILLIS / 3);
+        assertFalse(filter.mightContain(digest));
+    }
+
+    @Test
+    void testFilter_FalsePositiveRateNearTarget() {
+        RotatingBloomFilter filter = filter(100_000, 0.01);
+        for (int i = 0; i < 33_000; i++) {
+            filter.put(KeyDigest.of("MSG" + i));
+        }
+        int hits = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(KeyDigest.of("OTHER" + i))) {
+                hits++;
+            }
+        }
+        assertTrue(hits < 1_000, "false positives: " + hits);
+    }
+
+    @Test
+    void testConstructor_InvalidSettingsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new RotatingBloomFilter(1000, 0.01, WINDOW_MILLIS, 1, currentTime::get));
+        assertThrows(IllegalArgumentException.class, () -> new RotatingBloomFilter(1000, 0, WINDOW_MILLIS, 4, currentTime::get));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.validation_service.service.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExtractionSpecTest {
+
+    private ExtractionSpec parse(String spec) throws IOException {
+        return ExtractionSpec.parse(new BufferedReader(new StringReader(spec)));
+    }
+
+    @Test
+    void testCompile_BuildsTrieBelowRoot() throws IOException {
+        ExtractionTrie trie = parse(
+                "# comment\n" +
+                "root = Document/FIToFICstmrCdtTrf\n" +
+                "GrpHdr/MsgId -> msgId\n" +
+                "CdtTrfTxInf/InstdAmt -> amount\n" +
+                "CdtTrfTxInf/InstdAmt/@Ccy -> currency\n").compile();
+
+        ExtractionTrie.Node instdAmt = trie.root().child("Document").child("FIToFICstmrCdtTrf")
+                .child("CdtTrfTxInf").child("InstdAmt");
+        assertNotNull(instdAmt);
+        assertEquals("amount", instdAmt.text().property());
+        assertArrayEquals(new String[]{"Ccy"}, instdAmt.attributeNames());
+        assertEquals("currency", instdAmt.attributeBindings()[0].property());
+        assertEquals(0b111, trie.completeMask());
+    }
+
+    @Test
+    void testCompile_AlternativePathsShareOneBit() throws IOException {
+        ExtractionTrie trie = parse(
+                "Dbtr/Id/OrgId/Othr/Id -> debtorId\n" +
+                "Dbtr/Id/PrvtId/Othr/Id -> debtorId\n").compile();
+
+        assertEquals(1, trie.bindings().length);
+        assertSame(trie.root().child("Dbtr").child("Id").child("OrgId").child("Othr").child("Id").text(),
+                   trie.root().child("Dbtr").child("Id").child("PrvtId").child("Othr").child("Id").text());
+    }
+
+    @Test
+    void testCompile_UnknownProperty_Throws() throws IOException {
+        ExtractionSpec spec = parse("GrpHdr/MsgId -> messageIdentifier\n");
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, spec::compile);
+        assertTrue(exception.getMessage().contains("messageIdentifier"));
+    }
+
+    @Test
+    void testParse_InvalidLine_Throws() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> parse("GrpHdr/MsgId msgId\n"));
+        assertTrue(exception.getMessage().contains("line 1"));
+    }
+
+    @Test
+    void testCompile_TransactionElement_SplitsMessageAndTransactionProperties() throws IOException {
+        ExtractionTrie trie = parse(
+                "root = Document/FIToFICstmrCdtTrf\n" +
+                "transaction = CdtTrfTxInf\n" +
+                "GrpHdr/MsgId -> msgId\n" +
+                "CdtTrfTxInf/InstdAmt -> amount\n").compile();
+
+        assertTrue(trie.hasTransactionElement());
+        assertTrue(trie.root().child("Document").child("FIToFICstmrCdtTrf").child("CdtTrfTxInf").isTransaction());
+        assertEquals(0b01, trie.messageMask());
+        assertFalse(trie.bindings()[0].perTransaction());
+        assertTrue(trie.bindings()[1].perTransaction());
+    }
+
+    @Test
+    void testCompile_PropertyMappedInsideAndOutsideTransaction_Throws() throws IOException {
+        ExtractionSpec spec = parse(
+                "transaction = CdtTrfTxInf\n" +
+                "GrpHdr/TtlIntrBkSttlmAmt -> amount\n" +
+                "CdtTrfTxInf/IntrBkSttlmAmt -> amount\n");
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, spec::compile);
+        assertTrue(exception.getMessage().contains("amount"));
+    }
+}
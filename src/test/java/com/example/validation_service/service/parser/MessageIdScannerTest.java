@@ -0,0 +1,56 @@
+package com.example.validation_service.service.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MessageIdScannerTest {
+
+    private final MessageIdScanner scanner = new MessageIdScanner(MessageIdScanner.DEFAULT_SCAN_LIMIT);
+
+    private String scanBoth(String payload) {
+        String fromString = scanner.scan(payload);
+        assertEquals(fromString, scanner.scan(payload.getBytes(StandardCharsets.UTF_8)));
+        return fromString;
+    }
+
+    @Test
+    void testScan_FindsMsgIdInMalformedPayload() {
+        assertEquals("MSG001", scanBoth("<Document><FIToFICstmrCdtTrf><GrpHdr><MsgId> MSG001 </MsgId><CreDtTm>"));
+    }
+
+    @Test
+    void testScan_PrefixedElement() {
+        assertEquals("MSG002", scanBoth("<p:Document xmlns:p=\"urn:x\"><p:GrpHdr><p:MsgId>MSG002</p:MsgId>"));
+    }
+
+    @Test
+    void testScan_IgnoresSimilarElementNames() {
+        assertEquals("MSG003", scanBoth("<OrgnlMsgId>OLD</OrgnlMsgId><MsgIdx>X</MsgIdx><MsgId>MSG003</MsgId>"));
+    }
+
+    @Test
+    void testScan_NoMsgId_ReturnsNull() {
+        assertNull(scanBoth("not xml at all"));
+        assertNull(scanner.scan((byte[]) null));
+        assertNull(scanner.scan((String) null));
+    }
+
+    @Test
+    void testScan_ValueTooLongOrEmpty_ReturnsNull() {
+        assertNull(scanBoth("<MsgId>" + "X".repeat(MessageIdScanner.MAX_MSG_ID_LENGTH + 1) + "</MsgId>"));
+        assertNull(scanBoth("<MsgId>   </MsgId>"));
+    }
+
+    @Test
+    void testScan_BeyondLimit_ReturnsNull() {
+        MessageIdScanner limited = new MessageIdScanner(32);
+        String payload = "<Document>" + " ".repeat(32) + "<MsgId>MSG004</MsgId>";
+        assertNull(limited.scan(payload));
+        assertNull(limited.scan(payload.getBytes(StandardCharsets.UTF_8)));
+        // A value cut off by the limit is not returned truncated
+        assertNull(limited.scan("<Document><MsgId>MSG0000000000000000000000</MsgId>"));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.validation_service.service.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NamespaceSnifferTest {
+
+    private static final String PACS_008_08 = "urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08";
+
+    private String sniffBoth(String payload) {
+        String fromString = NamespaceSniffer.sniff(payload);
+        assertEquals(fromString, NamespaceSniffer.sniff(payload.getBytes(StandardCharsets.UTF_8)));
+        return fromString;
+    }
+
+    @Test
+    void testSniff_DefaultNamespace() {
+        assertEquals(PACS_008_08, sniffBoth("<Document xmlns=\"" + PACS_008_08 + "\"><FIToFICstmrCdtTrf>"));
+    }
+
+    @Test
+    void testSniff_SkipsPrologCommentsAndByteOrderMark() {
+        String payload = "\uFEFF<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!-- <Document xmlns=\"urn:wrong\"> -->\n" +
+                "<Document xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xmlns='" + PACS_008_08 + "'>";
+        assertEquals(PACS_008_08, sniffBoth(payload));
+    }
+
+    @Test
+    void testSniff_PrefixedRootUsesItsPrefixBinding() {
+        String payload = "<doc:Document xmlns=\"urn:other\" xmlns:doc=\"" + PACS_008_08 + "\"><doc:FIToFICstmrCdtTrf>";
+        assertEquals(PACS_008_08, sniffBoth(payload));
+    }
+
+    @Test
+    void testSniff_RootWithoutNamespace_ReturnsEmpty() {
+        assertEquals("", sniffBoth("<Document><UnclosedTag></Document>"));
+        assertEquals("", sniffBoth("<Document/>"));
+    }
+
+    @Test
+    void testSniff_NoRootElement_ReturnsNull() {
+        assertNull(sniffBoth("not xml at all"));
+        assertNull(sniffBoth("<Document xmlns=\"urn:unterminated"));
+        assertNull(sniffBoth("<!-- " + "x".repeat(NamespaceSniffer.SNIFF_LIMIT) + " --><Document xmlns=\"" + PACS_008_08 + "\">"));
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.validation_service.service.participant;
+
+import com.example.validation_service.dto.MinorUnitAmount;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParticipantReferenceStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicLong clock = new AtomicLong(10_000L);
+    private final List<ParticipantReference> participants = new ArrayList<>();
+
+    private ParticipantReferenceStore store(Path file, ParticipantReferenceSource source) {
+        return new ParticipantReferenceStore(file, null, source, Duration.ofMinutes(5), clock::get);
+    }
+
+    @Test
+    void testConstructor_MapsSnapshotOfPreviousRun() throws IOException {
+        Path file = tempDir.resolve("participants.snapshot");
+        ParticipantSnapshot.write(file, List.of(new ParticipantReference("BANK1",
+                ParticipantReference.Status.ACTIVE, List.of(), null, null)), 5_000L);
+
+        ParticipantReferenceStore store = store(file, () -> {
+            throw new IllegalStateException("Source unavailable");
+        });
+
+        assertNotNull(store.current());
+        assertEquals(5_000L, store.current().refreshedAt());
+        // A failed refresh keeps the snapshot
+        assertFalse(store.refresh());
+        assertNotEquals(ParticipantSnapshot.NOT_FOUND, store.current().find("BANK1"));
+    }
+
+    @Test
+    void testRefresh_ReplacesSnapshot() {
+        Path file = tempDir.resolve("data").resolve("participants.snapshot");
+        ParticipantReferenceStore store = store(file, () -> participants);
+        assertNull(store.current());
+
+        participants.add(new ParticipantReference("BANK1", ParticipantReference.Status.ACTIVE, List.of("SCT"), null, null));
+        assertTrue(store.refresh());
+        ParticipantSnapshot first = store.current();
+        assertTrue(first.isActive(first.find("BANK1")));
+
+        participants.set(0, new ParticipantReference("BANK1", ParticipantReference.Status.SUSPENDED, List.of(), null, null));
+        clock.addAndGet(1_000L);
+        assertTrue(store.refresh());
+        assertFalse(store.current().isActive(store.current().find("BANK1")));
+        assertEquals(11_000L, store.current().refreshedAt());
+        // Readers of the previous snapshot keep their mapping
+        assertTrue(first.isActive(first.find("BANK1")));
+        assertTrue(Files.exists(file));
+    }
+
+    @Test
+    void testConstructor_CorruptSnapshot_WaitsForRefresh() throws IOException {
+        Path file = tempDir.resolve("participants.snapshot");
+        Files.writeString(file, "garbage");
+
+        ParticipantReferenceStore store = store(file, () -> participants);
+
+        assertNull(store.current());
+        participants.add(new ParticipantReference("BANK1", ParticipantReference.Status.ACTIVE, List.of(), null, null));
+        assertTrue(store.refresh());
+        assertEquals(1, store.current().size());
+    }
+
+    @Test
+    void testRefresh_EmptyOrShrunkSourceKeepsSnapshot() {
+        Path file = tempDir.resolve("participants.snapshot");
+        ParticipantReferenceStore store = store(file, () -> participants);
+        assertFalse(store.refresh());
+        assertNull(store.current());
+        assertFalse(Files.exists(file));
+
+        for (int i = 0; i < 10; i++) {
+            participants.add(new ParticipantReference("BANK" + i, ParticipantReference.Status.ACTIVE, List.of(),
+                    null, null));
+        }
+        assertTrue(store.refresh());
+        ParticipantSnapshot full = store.current();
+
+        participants.subList(4, 10).clear();
+        assertFalse(store.refresh());
+        assertSame(full, store.current());
+        participants.clear();
+        assertFalse(store.refresh());
+        assertSame(full, store.current());
+
+        for (int i = 0; i < 5; i++) {
+            participants.add(new ParticipantReference("BANK" + i, ParticipantReference.Status.ACTIVE, List.of(),
+                    null, null));
+        }
+        assertTrue(store.refresh());
+        assertEquals(5, store.current().size());
+    }
+
+    @Test
+    void testConstructor_SnapshotWithInvalidStatus_WaitsForRefresh() throws IOException {
+        Path file = tempDir.resolve("participants.snapshot");
+        ParticipantSnapshot.write(file, List.of(new ParticipantReference("BANK1",
+                ParticipantReference.Status.ACTIVE, List.of(), null, null)), 5_000L);
+        int entry = ParticipantSnapshot.open(file, null).find("BANK1");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[ParticipantSnapshot.HEADER_BYTES + entry * ParticipantSnapshot.SLOT_BYTES + 10] = 0x7f;
+        Files.write(file, bytes);
+
+        // Refused at load instead of failing lookups on the consumer threads
+        ParticipantReferenceStore store = store(file, () -> participants);
+        assertNull(store.current());
+
+        participants.add(new ParticipantReference("BANK1", ParticipantReference.Status.ACTIVE, List.of(), null, null));
+        assertTrue(store.refresh());
+        assertTrue(store.current().isActive(store.current().find("BANK1")));
+    }
+
+    @Test
+    void testNone_HasNoSnapshot() {
+        assertNull(ParticipantReferenceStore.none().current());
+        assertFalse(ParticipantReferenceStore.none().refresh());
+    }
+
+    @Test
+    void testMongoDocument_ToReference() {
+        ParticipantReference participant = MongoParticipantReferenceSource.toReference(new Document("_id", "BANK1")
+                .append("status", "active")
+                .append("schemes", List.of("SCT", "INST"))
+                .append("maxAmount", "50000.00")
+                .append("maxAmountCurrency", "eur"));
+        assertEquals(new ParticipantReference("BANK1", ParticipantReference.Status.ACTIVE, List.of("SCT", "INST"),
+                MinorUnitAmount.parse("50000.00"), "EUR"), participant);
+
+        assertEquals(ParticipantReference.Status.SUSPENDED, MongoParticipantReferenceSource.toReference(
+                new Document("_id", "BANK2").append("status", "CLOSED")).getStatus());
+        assertNull(MongoParticipantReferenceSource.toReference(
+                new Document("_id", "BANK3").append("status", "ACTIVE").append("maxAmount", "lots")
+                        .append("maxAmountCurrency", "EUR")));
+        assertNull(MongoParticipantReferenceSource.toReference(
+                new Document("_id", "BANK4").append("status", "ACTIVE").append("maxAmount", "50000.00")));
+        assertNull(MongoParticipantReferenceSource.toReference(
+                new Document("_id", "BANK5").append("status", "ACTIVE").append("maxAmount", "50000.00")
+                        .append("maxAmountCurrency", "XYZ")));
+        assertNull(MongoParticipantReferenceSource.toReference(new Document("status", "ACTIVE")));
+    }
+}
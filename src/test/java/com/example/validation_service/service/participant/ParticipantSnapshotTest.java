@@ -0,0 +1,126 @@
+package com.example.validation_service.service.participant;
+
+import com.example.validation_service.dto.CurrencyCode;
+import com.example.validation_service.dto.MinorUnitAmount;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParticipantSnapshotTest {
+
+    private static final int EUR = CurrencyCode.id("EUR");
+
+    @TempDir
+    Path tempDir;
+
+    private static ParticipantReference active(String id, String maxAmount, String... schemes) {
+        return new ParticipantReference(id, ParticipantReference.Status.ACTIVE, List.of(schemes),
+                maxAmount == null ? null : MinorUnitAmount.parse(maxAmount), "EUR");
+    }
+
+    @Test
+    void testWriteAndOpen_FindsEveryParticipant() throws IOException {
+        Path file = tempDir.resolve("participants.snapshot");
+        List<ParticipantReference> participants = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            participants.add(active("BANK" + i, i % 2 == 0 ? null : i + ".50", i % 3 == 0 ? "INST" : "SCT"));
+        }
+        participants.add(new ParticipantReference("CUST1", ParticipantReference.Status.SUSPENDED, List.of(), null, null));
+        ParticipantSnapshot.write(file, participants, 1_000L);
+
+        ParticipantSnapshot snapshot = ParticipantSnapshot.open(file, "SCT");
+
+        assertEquals(10_001, snapshot.size());
+        assertEquals(1_000L, snapshot.refreshedAt());
+        assertEquals(List.of("INST", "SCT"), snapshot.schemes());
+        for (int i = 0; i < 10_000; i++) {
+            int entry = snapshot.find("BANK" + i);
+            assertNotEquals(ParticipantSnapshot.NOT_FOUND, entry, "BANK" + i);
+            assertTrue(snapshot.isActive(entry));
+            assertEquals(i % 3 != 0, snapshot.reachesRequiredScheme(entry));
+            assertEquals(i % 2 == 0 ? null : MinorUnitAmount.parse(i + ".50"), snapshot.limit(entry));
+            assertEquals(i % 2 == 0 ? null : "EUR", snapshot.limitCurrency(entry));
+        }
+        assertEquals(ParticipantReference.Status.SUSPENDED, snapshot.status(snapshot.find("CUST1")));
+        assertEquals(ParticipantSnapshot.NOT_FOUND, snapshot.find("BANK10000"));
+        assertEquals(ParticipantSnapshot.NOT_FOUND, snapshot.find("BANK"));
+        assertFalse(Files.exists(tempDir.resolve("participants.snapshot.tmp")));
+    }
+
+    @Test
+    void testExceedsLimit_ComparesAcrossScales() throws IOException {
+        Path file = tempDir.resolve("participants.snapshot");
+        ParticipantSnapshot.write(file, List.of(active("BANK1", "500.00"), active("BANK2", null)), 0L);
+        ParticipantSnapshot snapshot = ParticipantSnapshot.open(file, null);
+
+        int limited = snapshot.find("BANK1");
+        assertFalse(snapshot.exceedsLimit(limited, MinorUnitAmount.parse("500"), EUR));
+        assertTrue(snapshot.exceedsLimit(limited, MinorUnitAmount.parse("500.001"), EUR));
+        assertFalse(snapshot.exceedsLimit(snapshot.find("BANK2"), MinorUnitAmount.parse("999999999"), EUR));
+        assertTrue(snapshot.reachesRequiredScheme(limited));
+    }
+
+    @Test
+    void testExceedsLimit_OtherCurrencyIsNotLimited() throws IOException {
+        Path file = tempDir.resolve("participants.snapshot");
+        ParticipantSnapshot.write(file, List.of(active("BANK1", "500.00")), 0L);
+        ParticipantSnapshot snapshot = ParticipantSnapshot.open(file, null);
+
+        int limited = snapshot.find("BANK1");
+        assertTrue(snapshot.exceedsLimit(limited, MinorUnitAmount.parse("50000"), EUR));
+        assertFalse(snapshot.exceedsLimit(limited, MinorUnitAmount.parse("50000"), CurrencyCode.id("JPY")));
+        assertFalse(snapshot.exceedsLimit(limited, MinorUnitAmount.parse("50000"), CurrencyCode.UNKNOWN));
+    }
+
+    @Test
+    void testOpen_RequiredSchemeUnknownToSnapshot_NobodyReachesIt() throws IOException {
+        Path file = tempDir.resolve("participants.snapshot");
+        ParticipantSnapshot.write(file, List.of(active("BANK1", null, "SCT")), 0L);
+
+        ParticipantSnapshot snapshot = ParticipantSnapshot.open(file, "INST");
+
+        assertFalse(snapshot.reachesRequiredScheme(snapshot.find("BANK1")));
+    }
+
+    @Test
+    void testWrite_DuplicateParticipant_Throws() {
+        Path file = tempDir.resolve("participants.snapshot");
+        assertThrows(IllegalArgumentException.class,
+                () -> ParticipantSnapshot.write(file, List.of(active("BANK1", null), active("BANK1", "1")), 0L));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void testOpen_CorruptFile_Throws() throws IOException {
+        Path file = tempDir.resolve("participants.snapshot");
+        Files.writeString(file, "not a snapshot");
+        assertThrows(IOException.class, () -> ParticipantSnapshot.open(file, null));
+
+        ParticipantSnapshot.write(file, List.of(active("BANK1", null)), 0L);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 2));
+        assertThrows(IOException.class, () -> ParticipantSnapshot.open(file, null));
+    }
+
+    @Test
+    void testOpen_OutOfRangeStatus_Throws() throws IOException {
+        Path file = tempDir.resolve("participants.snapshot");
+        ParticipantSnapshot.write(file, List.of(active("BANK1", "500.00")), 0L);
+        int entry = ParticipantSnapshot.open(file, null).find("BANK1");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[ParticipantSnapshot.HEADER_BYTES + entry * ParticipantSnapshot.SLOT_BYTES + 10] =
+                (byte) ParticipantReference.Status.values().length;
+        Path corrupt = tempDir.resolve("corrupt.snapshot");
+        Files.write(corrupt, bytes);
+
+        assertThrows(IOException.class, () -> ParticipantSnapshot.open(corrupt, null));
+    }
+}
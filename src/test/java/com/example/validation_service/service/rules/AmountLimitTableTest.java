@@ -0,0 +1,84 @@
+package com.example.validation_service.service.rules;
+
+import com.example.validation_service.dto.CurrencyCode;
+import com.example.validation_service.dto.MinorUnitAmount;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AmountLimitTableTest {
+
+    private static final String JPY = AmountLimitTable.PREFIX + "JPY";
+    private static final String USD = AmountLimitTable.PREFIX + "USD";
+
+    @Test
+    void testFrom_LimitsInMinorUnitsOfEachCurrency() {
+        AmountLimitTable table = AmountLimitTable.from(Map.of(
+                JPY, "1:100000000",
+                USD, "0.01:1000000",
+                AmountLimitTable.PREFIX + "BHD", "0.001:500.5",
+                RuleConfig.AMOUNT_MAX, "1.00"));
+
+        int jpy = table.entry(CurrencyCode.id("JPY"), null);
+        assertEquals(0, table.exponent(jpy));
+        assertEquals(100_000_000L, table.maxUnits(jpy));
+        int usd = table.entry(CurrencyCode.id("usd"), "BANK001");
+        assertEquals(2, table.exponent(usd));
+        assertEquals(1L, table.minUnits(usd));
+        assertEquals(100_000_000L, table.maxUnits(usd));
+        int bhd = table.entry(CurrencyCode.id("BHD"), null);
+        assertEquals(500_500L, table.maxUnits(bhd));
+        assertEquals(MinorUnitAmount.of(500_500, 3), table.max(bhd));
+        assertEquals(AmountLimitTable.NONE, table.entry(CurrencyCode.id("EUR"), null));
+        assertEquals(3, table.size());
+    }
+
+    @Test
+    void testEntry_ParticipantLimitsOverrideTheirCurrency() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(USD, "0.01:1000000");
+        properties.put(USD + ".BANK001", "0.01:500.00");
+        properties.put(AmountLimitTable.PREFIX + "EUR.BANK001", "1:10");
+        for (int i = 0; i < 50; i++) {
+            properties.put(USD + ".CUST" + i, "0.01:" + (i + 1));
+        }
+        AmountLimitTable table = AmountLimitTable.from(properties);
+        int usd = CurrencyCode.id("USD");
+
+        assertEquals(50_000L, table.maxUnits(table.entry(usd, "BANK001")));
+        assertEquals(100_000_000L, table.maxUnits(table.entry(usd, "BANK002")));
+        assertEquals(100_000_000L, table.maxUnits(table.entry(usd, null)));
+        for (int i = 0; i < 50; i++) {
+            assertEquals((i + 1) * 100L, table.maxUnits(table.entry(usd, "CUST" + i)));
+        }
+        // EUR only has participant limits
+        int eur = CurrencyCode.id("EUR");
+        assertEquals(1_000L, table.maxUnits(table.entry(eur, "BANK001")));
+        assertEquals(AmountLimitTable.NONE, table.entry(eur, "BANK002"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"JPY=0.5:100", "USD=0.001:10", "USD=10", "USD=ten:20", "USD=20:10", "XYZ=1:2", "XAU=1:2", "USD.=1:2"})
+    void testFrom_InvalidLimit_Throws(String property) {
+        String[] keyValue = property.split("=");
+        Map<String, String> properties = Map.of(AmountLimitTable.PREFIX + keyValue[0], keyValue[1]);
+        assertThrows(IllegalArgumentException.class, () -> AmountLimitTable.from(properties));
+    }
+
+    @Test
+    void testRuleConfig_InvalidLimitRejectsReload() {
+        RuleConfigHolder holder = new RuleConfigHolder(Map.of(JPY, "1:1000"));
+
+        assertFalse(holder.apply(Map.of(JPY, "0.5:1000")));
+        assertEquals(1_000L, holder.current().amountLimits().maxUnits(
+                holder.current().amountLimits().entry(CurrencyCode.id("JPY"), null)));
+        assertTrue(holder.apply(Map.of(JPY, "1:5000")));
+        assertEquals(5_000L, holder.current().amountLimits().maxUnits(
+                holder.current().amountLimits().entry(CurrencyCode.id("JPY"), null)));
+    }
+}
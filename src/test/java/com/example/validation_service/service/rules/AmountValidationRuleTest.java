@@ -7,6 +7,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class AmountValidationRuleTest {
@@ -106,4 +109,52 @@ public class AmountValidationRuleTest {
         assertEquals(1, validationResult.getErrors().size());
         assertEquals(expectedErrorMessage, validationResult.getErrors().get(0));
     }
+
+    @Test
+    void testValidate_CurrencyLimitsReplaceGlobalLimits() {
+        AmountValidationRule rule = new AmountValidationRule(new RuleConfigHolder(Map.of(
+                RuleConfig.AMOUNT_MAX, MAX_AMOUNT,
+                AmountLimitTable.PREFIX + "JPY", "100:150000000",
+                AmountLimitTable.PREFIX + "USD.BANK001", "0.01:500.00")));
+
+        rawPaymentData.setCurrency("JPY");
+        rawPaymentData.setAmount("120000000");
+        rule.validate(rawPaymentData, validationResult);
+        assertFalse(validationResult.hasErrors());
+
+        rawPaymentData.setAmount("99");
+        rule.validate(rawPaymentData, validationResult);
+        assertEquals(List.of("Amount 99 is less than minimum allowed 100"), validationResult.getErrors());
+    }
+
+    @Test
+    void testValidate_ParticipantLimit() {
+        AmountValidationRule rule = new AmountValidationRule(new RuleConfigHolder(Map.of(
+                AmountLimitTable.PREFIX + "USD.BANK001", "0.01:500.00")));
+        rawPaymentData.setCurrency("USD");
+        rawPaymentData.setAmount("600.00");
+
+        rawPaymentData.setDebtorId("BANK002");
+        rule.validate(rawPaymentData, validationResult);
+        assertFalse(validationResult.hasErrors());
+
+        rawPaymentData.setDebtorId("BANK001");
+        rule.validate(rawPaymentData, validationResult);
+        assertEquals(List.of("Amount 600.00 is greater than maximum allowed 500.00"), validationResult.getErrors());
+    }
+
+    @Test
+    void testValidate_MoreDecimalsThanCurrencyMinorUnit() {
+        AmountValidationRule rule = new AmountValidationRule(new RuleConfigHolder(Map.of(
+                AmountLimitTable.PREFIX + "JPY", "1:1000000")));
+        rawPaymentData.setCurrency("JPY");
+
+        rawPaymentData.setAmount("100.00");
+        rule.validate(rawPaymentData, validationResult);
+        assertFalse(validationResult.hasErrors());
+
+        rawPaymentData.setAmount("100.5");
+        rule.validate(rawPaymentData, validationResult);
+        assertEquals(List.of("Amount 100.5 has more decimal places than JPY allows (0)"), validationResult.getErrors());
+    }
 }
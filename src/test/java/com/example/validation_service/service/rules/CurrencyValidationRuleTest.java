@@ -1,12 +1,15 @@
 package com.example.validation_service.service.rules;
 
 import com.example.validation_service.dto.RawPaymentData;
+import com.example.validation_service.service.ValidationError;
 import com.example.validation_service.service.ValidationResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class CurrencyValidationRuleTest {
@@ -42,6 +45,21 @@ public class CurrencyValidationRuleTest {
         assertFalse(validationResult.hasErrors());
     }
     
+    @Test
+    void testValidate_PaddedCurrency_Success() {
+        rawPaymentData.setCurrency(" chf ");
+        currencyValidationRule.validate(rawPaymentData, validationResult);
+        assertFalse(validationResult.hasErrors());
+    }
+
+    @Test
+    void testValidate_UnallowedCurrency_ReportsUpperCaseCode() {
+        rawPaymentData.setCurrency("sek");
+        currencyValidationRule.validate(rawPaymentData, validationResult);
+        assertEquals(List.of("CCY-002"), ValidationError.codes(validationResult.errors()));
+        assertTrue(validationResult.getErrors().get(0).startsWith("Currency SEK is not allowed."));
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {"USDD", "EURO", "GB", "XYZ", "ABC"})
     void testValidate_UnallowedCurrency_Failure(String currency) {
@@ -97,7 +115,7 @@ public class CurrencyValidationRuleTest {
     
     @Test
     void testValidate_ConstructorWithNullCsv_UsesDefaults() {
-        CurrencyValidationRule ruleWithNullCsv = new CurrencyValidationRule(null);
+        CurrencyValidationRule ruleWithNullCsv = new CurrencyValidationRule((String) null);
         rawPaymentData.setCurrency("EUR"); // Default set in constructor is USD, EUR, GBP
         ruleWithNullCsv.validate(rawPaymentData, validationResult);
         assertFalse(validationResult.hasErrors(), "Should pass for EUR with default currencies");
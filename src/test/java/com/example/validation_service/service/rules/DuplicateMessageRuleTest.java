@@ -2,17 +2,14 @@ package com.example.validation_service.service.rules;
 
 import com.example.validation_service.dto.RawPaymentData;
 import com.example.validation_service.service.ValidationResult;
+import com.example.validation_service.service.dedup.ShardedDuplicateCache;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.MockedStatic;
-import org.mockito.Mockito;
 
-import java.time.Duration;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.awaitility.Awaitility.await;
 
 
 public class DuplicateMessageRuleTest {
@@ -26,14 +23,12 @@ public class DuplicateMessageRuleTest {
     private final int CACHE_SIZE = 10;
     private final long TTL_SECONDS = 2; // Short TTL for testing expiry
 
-    private MockedStatic<System> mockedSystem;
+    // Clock handed to the rule so that TTL expiry can be tested without waiting
+    private final AtomicLong currentTime = new AtomicLong();
 
     @BeforeEach
     void setUp() {
-        // Mock System.currentTimeMillis() to control time for TTL testing
-        mockedSystem = Mockito.mockStatic(System.class, Mockito.CALLS_REAL_METHODS);
-
-        duplicateMessageRule = new DuplicateMessageRule(CACHE_SIZE, TTL_SECONDS);
+        duplicateMessageRule = newRule(CACHE_SIZE);
         
         rawPaymentData1 = new RawPaymentData();
         rawPaymentData1.setMsgId("MSGID001");
@@ -53,14 +48,15 @@ public class DuplicateMessageRuleTest {
         if (duplicateMessageRule != null) {
             duplicateMessageRule.destroy(); // Call destroy to shutdown scheduler
         }
-        if (mockedSystem != null) {
-            mockedSystem.close();
-        }
+    }
+
+    private DuplicateMessageRule newRule(int cacheSize) {
+        return new DuplicateMessageRule(cacheSize, TTL_SECONDS, DuplicateMessageRule.DEFAULT_SHARDS, currentTime::get);
     }
 
     @Test
     void testValidate_NewMessage_SuccessAndCached() {
-        mockedSystem.when(System::currentTimeMillis).thenReturn(1000L);
+        currentTime.set(1000L);
         duplicateMessageRule.validate(rawPaymentData1, validationResult);
         assertFalse(validationResult.hasErrors());
         
@@ -73,12 +69,12 @@ public class DuplicateMessageRuleTest {
 
     @Test
     void testValidate_DuplicateMessageWithinTtl_Failure() {
-        mockedSystem.when(System::currentTimeMillis).thenReturn(1000L);
+        currentTime.set(1000L);
         duplicateMessageRule.validate(rawPaymentData1, validationResult);
         assertFalse(validationResult.hasErrors());
 
         // Simulate time passing but still within TTL
-        mockedSystem.when(System::currentTimeMillis).thenReturn(1000L + (TTL_SECONDS * 1000) - 500); // 0.5 sec before TTL expires
+        currentTime.set(1000L + (TTL_SECONDS * 1000) - 500); // 0.5 sec before TTL expires
         
         validationResult = new ValidationResult(); // Reset result
         duplicateMessageRule.validate(rawPaymentData2_duplicate, validationResult);
@@ -91,12 +87,12 @@ public class DuplicateMessageRuleTest {
         long initialTime = 1000L;
         long timeAfterTtl = initialTime + (TTL_SECONDS * 1000) + 500; // 0.5 sec after TTL expires
 
-        mockedSystem.when(System::currentTimeMillis).thenReturn(initialTime);
+        currentTime.set(initialTime);
         duplicateMessageRule.validate(rawPaymentData1, validationResult);
         assertFalse(validationResult.hasErrors(), "First validation should pass");
 
         // Simulate time passing beyond TTL for the cache entry and for cleanup task to run
-        mockedSystem.when(System::currentTimeMillis).thenReturn(timeAfterTtl);
+        currentTime.set(timeAfterTtl);
 
         // Wait for the cleanup scheduler to potentially run and remove the expired entry.
         // The cleanup task runs at TTL_SECONDS / 2 interval, but first run is after TTL_SECONDS.
@@ -120,44 +116,44 @@ public class DuplicateMessageRuleTest {
 
         // And now, if we try again immediately, it should be a duplicate again
         validationResult = new ValidationResult();
-        mockedSystem.when(System::currentTimeMillis).thenReturn(timeAfterTtl + 10); // Small increment, still "same" time
+        currentTime.set(timeAfterTtl + 10); // Small increment, still "same" time
         duplicateMessageRule.validate(rawPaymentData2_duplicate, validationResult);
         assertTrue(validationResult.hasErrors(), "Should be a duplicate again after re-caching.");
     }
     
     @Test
-    void testValidate_CacheEviction_OldestRemovedWhenFull() {
+    void testValidate_CacheEviction_OldestRemovedWhenFull() throws Exception {
         // Set a small cache size for this specific test instance
-        DuplicateMessageRule smallCacheRule = new DuplicateMessageRule(2, TTL_SECONDS);
+        DuplicateMessageRule smallCacheRule = newRule(2);
         try {
-            mockedSystem.when(System::currentTimeMillis).thenReturn(1000L);
+            currentTime.set(1000L);
 
             RawPaymentData data1 = new RawPaymentData(); data1.setMsgId("MSG001");
             RawPaymentData data2 = new RawPaymentData(); data2.setMsgId("MSG002");
             RawPaymentData data3 = new RawPaymentData(); data3.setMsgId("MSG003");
 
             smallCacheRule.validate(data1, new ValidationResult()); // Cache: MSG001
-            mockedSystem.when(System::currentTimeMillis).thenReturn(1010L);
+            currentTime.set(1010L);
             smallCacheRule.validate(data2, new ValidationResult()); // Cache: MSG001, MSG002
 
             // Access MSG001 to make it most recently used (if accessOrder=true, which it is)
-            mockedSystem.when(System::currentTimeMillis).thenReturn(1020L);
+            currentTime.set(1020L);
             smallCacheRule.validate(data1, new ValidationResult()); // Should be a duplicate error
             
             // Now add MSG003, this should evict MSG002 because MSG001 was more recently accessed
-            mockedSystem.when(System::currentTimeMillis).thenReturn(1030L);
+            currentTime.set(1030L);
             smallCacheRule.validate(data3, new ValidationResult()); // Cache: MSG001, MSG003 (MSG002 evicted)
 
 
             // Validate MSG002 again, it should pass as it was evicted
             ValidationResult resultForData2 = new ValidationResult();
-            mockedSystem.when(System::currentTimeMillis).thenReturn(1040L);
+            currentTime.set(1040L);
             smallCacheRule.validate(data2, resultForData2);
             assertFalse(resultForData2.hasErrors(), "MSG002 should be accepted as it was evicted");
 
             // Validate MSG001, should still be a duplicate
             ValidationResult resultForData1 = new ValidationResult();
-            mockedSystem.when(System::currentTimeMillis).thenReturn(1050L);
+            currentTime.set(1050L);
             smallCacheRule.validate(data1, resultForData1); // This would be data1.setMsgId("MSG001");
             assertTrue(resultForData1.hasErrors(), "MSG001 should still be a duplicate");
 
@@ -196,4 +192,38 @@ public class DuplicateMessageRuleTest {
         // To be more thorough, one might use Awaitility to check for scheduler termination
         // if the scheduler was exposed or if its state could be indirectly observed.
     }
+
+    @Test
+    void testValidate_CompositeKeyFields() throws Exception {
+        DuplicateMessageRule compositeRule = new DuplicateMessageRule(
+                new ShardedDuplicateCache(CACHE_SIZE, 0, 1, currentTime::get),
+                0, "debtorId,endToEndId");
+        try {
+            RawPaymentData first = new RawPaymentData();
+            first.setMsgId("MSGID001");
+            first.setDebtorId("BANK1");
+            first.setEndToEndId("E2E001");
+            compositeRule.validate(first, validationResult);
+            assertFalse(validationResult.hasErrors());
+
+            // Resent under a new MsgId, still the same payment
+            RawPaymentData resent = new RawPaymentData();
+            resent.setMsgId("MSGID002");
+            resent.setDebtorId("BANK1");
+            resent.setEndToEndId("E2E001");
+            ValidationResult resentResult = new ValidationResult();
+            compositeRule.validate(resent, resentResult);
+            assertEquals("Duplicate message detected: Debtor ID (Dbtr.Id)/EndToEndId BANK1/E2E001 is already processed.",
+                    resentResult.getErrors().get(0));
+
+            RawPaymentData incomplete = new RawPaymentData();
+            incomplete.setMsgId("MSGID003");
+            incomplete.setDebtorId("BANK1");
+            ValidationResult incompleteResult = new ValidationResult();
+            compositeRule.validate(incomplete, incompleteResult);
+            assertEquals("EndToEndId is missing, cannot perform duplicate check.", incompleteResult.getErrors().get(0));
+        } finally {
+            compositeRule.destroy();
+        }
+    }
 }
@@ -0,0 +1,79 @@
+package com.example.validation_service.service.rules;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParticipantDirectoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testLoad_SkipsBlankAndCommentLines() throws Exception {
+        Path file = tempDir.resolve("participants.txt");
+        Files.writeString(file, "# BICs\nDEUTDEFF\n\n  COBADEFF  \n#BANK\n");
+
+        ParticipantDirectory directory = ParticipantDirectory.load(file);
+
+        assertEquals(2, directory.prefixes().size());
+        assertTrue(directory.prefixes().matchesPrefixOf("COBADEFFXXX"));
+        assertFalse(directory.prefixes().matchesPrefixOf("BANK001"));
+    }
+
+    @Test
+    void testReload_ReplacesPrefixesWhenFileChanges() throws Exception {
+        Path file = tempDir.resolve("participants.txt");
+        Files.writeString(file, "BANK\n");
+        ParticipantDirectory directory = ParticipantDirectory.load(file);
+        PrefixTrie loaded = directory.prefixes();
+
+        assertFalse(directory.reload());
+        assertSame(loaded, directory.prefixes());
+
+        Files.writeString(file, "CUST\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+        assertTrue(directory.reload());
+        assertTrue(directory.prefixes().matchesPrefixOf("CUST1"));
+        assertFalse(directory.prefixes().matchesPrefixOf("BANK1"));
+    }
+
+    @Test
+    void testReload_UnreadableFileKeepsCurrentDirectory() throws Exception {
+        Path file = tempDir.resolve("participants.txt");
+        assertNull(ParticipantDirectory.load(file).prefixes());
+
+        Files.writeString(file, "BANK\n");
+        ParticipantDirectory directory = ParticipantDirectory.load(file);
+        Files.delete(file);
+
+        assertFalse(directory.reload());
+        assertTrue(directory.prefixes().matchesPrefixOf("BANK1"));
+    }
+
+    @Test
+    void testReload_EmptyFileKeepsCurrentDirectory() throws Exception {
+        Path file = tempDir.resolve("participants.txt");
+        Files.writeString(file, "# no entries\n\n");
+        assertNull(ParticipantDirectory.load(file).prefixes());
+
+        Files.writeString(file, "BANK\n");
+        ParticipantDirectory directory = ParticipantDirectory.load(file);
+        Files.writeString(file, "# BICs\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+
+        assertFalse(directory.reload());
+        assertTrue(directory.prefixes().matchesPrefixOf("BANK1"));
+    }
+
+    @Test
+    void testNone_HasNoPrefixes() {
+        assertNull(ParticipantDirectory.none().prefixes());
+        assertFalse(ParticipantDirectory.none().reload());
+    }
+}
@@ -1,16 +1,31 @@
 package com.example.validation_service.service.rules;
 
+import com.example.validation_service.dto.MinorUnitAmount;
 import com.example.validation_service.dto.RawPaymentData;
+import com.example.validation_service.service.ValidationError;
 import com.example.validation_service.service.ValidationResult;
+import com.example.validation_service.service.participant.ParticipantReference;
+import com.example.validation_service.service.participant.ParticipantReferenceStore;
+import com.example.validation_service.service.participant.ParticipantSnapshot;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class ParticipantValidationRuleTest {
 
+    @TempDir
+    Path tempDir;
+
     private ParticipantValidationRule participantValidationRule;
     private RawPaymentData rawPaymentData;
     private ValidationResult validationResult;
@@ -120,4 +135,65 @@ public class ParticipantValidationRuleTest {
         ruleWithEmptyCsv.validate(rawPaymentData, validationResult);
         assertTrue(validationResult.hasErrors());
     }
+
+    @Test
+    void testValidate_DirectoryReplacesConfiguredPrefixes() throws Exception {
+        Path file = tempDir.resolve("participants.txt");
+        Files.writeString(file, "DEUTDEFF\nCOBADEFF\n");
+        ParticipantValidationRule ruleWithDirectory = new ParticipantValidationRule(
+                new RuleConfigHolder(Map.of(RuleConfig.PARTICIPANT_PREFIXES, SUPPORTED_PREFIXES_CSV)),
+                ParticipantDirectory.load(file));
+
+        rawPaymentData.setDebtorId("DEUTDEFF500");
+        rawPaymentData.setCreditorId("COBADEFFXXX");
+        ruleWithDirectory.validate(rawPaymentData, validationResult);
+        assertFalse(validationResult.hasErrors());
+
+        rawPaymentData.setCreditorId("BANK123");
+        ruleWithDirectory.validate(rawPaymentData, validationResult);
+        assertEquals(1, validationResult.getErrors().size());
+        assertTrue(validationResult.getErrors().get(0).endsWith("Supported prefixes: participant directory " + file + " (2 prefixes)"));
+    }
+
+    @Test
+    void testValidate_ReferenceDataReplacesDirectoryAndPrefixes() throws Exception {
+        Path file = tempDir.resolve("participants.snapshot");
+        ParticipantSnapshot.write(file, List.of(
+                new ParticipantReference("DEUTDEFF", ParticipantReference.Status.ACTIVE, List.of("SCT"),
+                        MinorUnitAmount.parse("1000.00"), "EUR"),
+                new ParticipantReference("COBADEFF", ParticipantReference.Status.ACTIVE, List.of("INST"), null, null),
+                new ParticipantReference("BANK1", ParticipantReference.Status.SUSPENDED, List.of("SCT"), null, null)), 0L);
+        ParticipantReferenceStore references = new ParticipantReferenceStore(file, "SCT", List::of,
+                Duration.ofMinutes(5), System::currentTimeMillis);
+        ParticipantValidationRule ruleWithReferences = new ParticipantValidationRule(
+                new RuleConfigHolder(Map.of(RuleConfig.PARTICIPANT_PREFIXES, SUPPORTED_PREFIXES_CSV)),
+                ParticipantDirectory.none(), references);
+
+        rawPaymentData.setDebtorId("DEUTDEFF");
+        rawPaymentData.setCurrency("EUR");
+        rawPaymentData.setAmount("1000.00");
+        ruleWithReferences.validate(rawPaymentData, validationResult);
+        assertFalse(validationResult.hasErrors());
+
+        rawPaymentData.setAmount("1000.01");
+        rawPaymentData.setCreditorId("COBADEFF");
+        ruleWithReferences.validate(rawPaymentData, validationResult);
+        assertEquals(List.of("PTY-005", "PTY-004"), ValidationError.codes(validationResult.errors()));
+        assertEquals("Amount 1000.01 exceeds the limit of 1000.00 EUR for Debtor ID 'DEUTDEFF'.",
+                validationResult.getErrors().get(0));
+
+        // The limit is in EUR and does not apply to payments in other currencies
+        validationResult = new ValidationResult();
+        rawPaymentData.setCurrency("JPY");
+        rawPaymentData.setAmount("50000");
+        rawPaymentData.setCreditorId("DEUTDEFF");
+        ruleWithReferences.validate(rawPaymentData, validationResult);
+        assertFalse(validationResult.hasErrors());
+
+        validationResult = new ValidationResult();
+        rawPaymentData.setDebtorId("BANK1");
+        rawPaymentData.setCreditorId("CUST1");
+        ruleWithReferences.validate(rawPaymentData, validationResult);
+        assertEquals(List.of("PTY-003", "PTY-002"), ValidationError.codes(validationResult.errors()));
+    }
 }
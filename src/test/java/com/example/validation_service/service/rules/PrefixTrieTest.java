@@ -0,0 +1,71 @@
+package com.example.validation_service.service.rules;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrefixTrieTest {
+
+    @Test
+    void testMatchesPrefixOf_AnyPrefix() {
+        PrefixTrie trie = PrefixTrie.of(List.of("BANK", "CUST", "DEUTDEFF", "DEUTDEBB", "B"));
+
+        assertTrue(trie.matchesPrefixOf("BANK001"));
+        assertTrue(trie.matchesPrefixOf("BOGUS"));
+        assertTrue(trie.matchesPrefixOf("CUST"));
+        assertTrue(trie.matchesPrefixOf("DEUTDEFF500"));
+        assertTrue(trie.matchesPrefixOf("DEUTDEBBXXX"));
+        assertFalse(trie.matchesPrefixOf("DEUTDE"));
+        assertFalse(trie.matchesPrefixOf("DEUTDEMM"));
+        assertFalse(trie.matchesPrefixOf("CUS"));
+        assertFalse(trie.matchesPrefixOf("bank001"));
+        assertFalse(trie.matchesPrefixOf(""));
+    }
+
+    @Test
+    void testOf_DropsPrefixesThatExtendAnother() {
+        PrefixTrie trie = PrefixTrie.of(Arrays.asList("BANK", "BANK01", "BANK", "", null, "BANKX"));
+
+        assertEquals(1, trie.size());
+        // Root and the four letters of BANK
+        assertEquals(5, trie.nodeCount());
+        assertTrue(trie.matchesPrefixOf("BANK01"));
+    }
+
+    @Test
+    void testEmpty_MatchesNothing() {
+        assertFalse(PrefixTrie.empty().matchesPrefixOf("BANK"));
+        assertFalse(PrefixTrie.of(List.of()).matchesPrefixOf(""));
+        assertEquals(0, PrefixTrie.of(List.of("")).size());
+    }
+
+    @Test
+    void testMatchesPrefixOf_SameAsLinearScan() {
+        Random random = new Random(7);
+        List<String> prefixes = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            prefixes.add(randomId(random, 2 + random.nextInt(6)));
+        }
+        PrefixTrie trie = PrefixTrie.of(prefixes);
+
+        for (int i = 0; i < 20_000; i++) {
+            String id = randomId(random, random.nextInt(10));
+            boolean expected = prefixes.stream().anyMatch(id::startsWith);
+            assertEquals(expected, trie.matchesPrefixOf(id), id);
+        }
+    }
+
+    // A small alphabet, so that random IDs often share prefixes
+    private static String randomId(Random random, int length) {
+        StringBuilder id = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            id.append((char) ('A' + random.nextInt(4)));
+        }
+        return id.toString();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.validation_service.service.rules;
+
+import com.example.validation_service.dto.RawPaymentData;
+import com.example.validation_service.service.ValidationResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RuleConfigHolderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final RuleConfigHolder holder = new RuleConfigHolder(Map.of(
+            RuleConfig.AMOUNT_MAX, "1000.00",
+            RuleConfig.CURRENCY_ALLOWED, "EUR"));
+
+    @Test
+    void testApply_OverridesBaselineAndRevertsRemovedKeys() {
+        assertTrue(holder.apply(Map.of(RuleConfig.AMOUNT_MAX, "50.00", RuleConfig.DISABLED, "cutoff, participant")));
+        assertEquals(new BigDecimal("50.00"), holder.current().maxAmount());
+        assertEquals(Set.of("EUR"), holder.current().allowedCurrencies());
+        assertFalse(holder.current().isEnabled("cutoff"));
+        assertTrue(holder.current().isEnabled("amount"));
+
+        assertTrue(holder.apply(Map.of()));
+        assertEquals(new BigDecimal("1000.00"), holder.current().maxAmount());
+        assertTrue(holder.current().disabledRules().isEmpty());
+    }
+
+    @Test
+    void testApply_InvalidConfigurationKeepsCurrentSnapshot() {
+        RuleConfig before = holder.current();
+        assertFalse(holder.apply(Map.of(RuleConfig.AMOUNT_MIN, "ten")));
+        assertSame(before, holder.current());
+    }
+
+    @Test
+    void testApply_InvalidCutoffOrCurrencyKeepsCurrentSnapshot() {
+        RuleConfig before = holder.current();
+        assertFalse(holder.apply(Map.of(RuleConfig.CUTOFF_TIME, "5pm")));
+        assertFalse(holder.apply(Map.of(RuleConfig.CURRENCY_ALLOWED, "USD,EURO")));
+        assertSame(before, holder.current());
+
+        // The baseline stays lenient, as when the rules read these properties themselves
+        RuleConfigHolder lenient = new RuleConfigHolder(Map.of(RuleConfig.CUTOFF_TIME, "5pm", RuleConfig.CURRENCY_ALLOWED, "USD,EURO"));
+        assertEquals(LocalTime.of(17, 0), lenient.current().cutoffTime());
+        assertTrue(lenient.apply(Map.of(RuleConfig.AMOUNT_MIN, "1.00")));
+    }
+
+    @Test
+    void testApply_RulesSeeNewParametersOnTheNextMessage() {
+        AmountValidationRule rule = new AmountValidationRule(holder);
+        RawPaymentData data = new RawPaymentData();
+        data.setAmount("500.00");
+
+        ValidationResult before = new ValidationResult();
+        rule.validate(data, before);
+        assertFalse(before.hasErrors());
+
+        holder.apply(Map.of(RuleConfig.AMOUNT_MAX, "100.00"));
+        ValidationResult after = new ValidationResult();
+        rule.validate(data, after);
+        assertEquals(1, after.errorCount());
+    }
+
+    @Test
+    void testFileSource_ReloadsOnlyWhenFileChanges() throws Exception {
+        Path file = tempDir.resolve("rules.properties");
+        FileRuleConfigSource source = new FileRuleConfigSource(file);
+
+        assertEquals(Map.of(), source.loadIfChanged(), "Missing file holds no overrides");
+        assertNull(source.loadIfChanged());
+
+        Files.writeString(file, RuleConfig.CUTOFF_TIME + "=18:30:00\n");
+        holder.reload(source);
+        assertEquals(LocalTime.of(18, 30), holder.current().cutoffTime());
+        assertNull(source.loadIfChanged());
+
+        Files.writeString(file, RuleConfig.CUTOFF_TIME + "=19:00:00\n" + RuleConfig.DISABLED + "=duplicate\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+        holder.reload(source);
+        assertEquals(LocalTime.of(19, 0), holder.current().cutoffTime());
+        assertFalse(holder.current().isEnabled("duplicate"));
+    }
+
+    @Test
+    void testMongoSource_FlattensNestedDocuments() {
+        Document document = new Document("validation", new Document("rules",
+                new Document("amount", new Document("max", "5000")).append("disabled", "cutoff")))
+                .append(RuleConfig.CURRENCY_ALLOWED, "USD,CHF");
+        Map<String, String> properties = new HashMap<>();
+
+        MongoRuleConfigSource.flatten("", document, properties);
+
+        assertEquals(Map.of(RuleConfig.AMOUNT_MAX, "5000", RuleConfig.DISABLED, "cutoff",
+                RuleConfig.CURRENCY_ALLOWED, "USD,CHF"), properties);
+    }
+}